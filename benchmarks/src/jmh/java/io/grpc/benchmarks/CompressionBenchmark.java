@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.benchmarks;
+
+import com.google.protobuf.ByteString;
+import io.grpc.Codec;
+import io.grpc.benchmarks.proto.Messages;
+import io.grpc.benchmarks.proto.Messages.SimpleRequest;
+import io.grpc.util.Lz4Codec;
+import io.grpc.util.SnappyCodec;
+import io.grpc.util.ZstdCodec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the CPU cost and compression ratio of each {@link Codec} on the benchmark payloads.
+ * The ratio is {@code compressedBytes / uncompressedBytes} from the {@code compress} benchmark's
+ * secondary results.
+ */
+@State(Scope.Thread)
+public class CompressionBenchmark {
+
+  public enum CodecType {
+    GZIP {
+      @Override
+      Codec create() {
+        return new Codec.Gzip();
+      }
+    },
+    ZSTD {
+      @Override
+      Codec create() {
+        return new ZstdCodec();
+      }
+    },
+    LZ4 {
+      @Override
+      Codec create() {
+        return new Lz4Codec();
+      }
+    },
+    SNAPPY {
+      @Override
+      Codec create() {
+        return new SnappyCodec();
+      }
+    };
+
+    abstract Codec create();
+  }
+
+  public enum PayloadType {
+    /**
+     * The zero-filled {@code COMPRESSABLE} payload used by the QPS benchmarks.
+     */
+    ZEROS,
+    /**
+     * Text drawn from a small alphabet, closer to typical string-heavy messages.
+     */
+    TEXT,
+    /**
+     * Random bytes, which no codec can compress.
+     */
+    RANDOM
+  }
+
+  /**
+   * Counts the bytes passing through {@link #compress}, to report the compression ratio.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class WireBytes {
+    public long uncompressedBytes;
+    public long compressedBytes;
+  }
+
+  @Param({"1024", "65536"})
+  public int messageSize;
+
+  @Param
+  public PayloadType payload;
+
+  @Param
+  public CodecType codecType;
+
+  private Codec codec;
+  private byte[] message;
+  private byte[] compressed;
+  private final byte[] readBuffer = new byte[8192];
+  private ByteArrayOutputStream out;
+
+  /**
+   * Serializes a {@link SimpleRequest} carrying the payload and compresses it once.
+   */
+  @Setup
+  public void setUp() throws Exception {
+    codec = codecType.create();
+    SimpleRequest request =
+        Utils.makeRequest(Messages.PayloadType.COMPRESSABLE, messageSize, messageSize);
+    if (payload != PayloadType.ZEROS) {
+      Random random = new Random(1);
+      byte[] body = new byte[messageSize];
+      if (payload == PayloadType.TEXT) {
+        for (int i = 0; i < body.length; i++) {
+          body[i] = (byte) ('a' + random.nextInt(16));
+        }
+      } else {
+        random.nextBytes(body);
+      }
+      request = request.toBuilder()
+          .setPayload(request.getPayload().toBuilder().setBody(ByteString.copyFrom(body)))
+          .build();
+    }
+    message = request.toByteArray();
+    out = new ByteArrayOutputStream(message.length);
+    compressed = compress(new WireBytes());
+  }
+
+  /**
+   * Compresses one message.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public byte[] compress(WireBytes wireBytes) throws IOException {
+    out.reset();
+    OutputStream os = codec.compress(out);
+    os.write(message);
+    os.close();
+    wireBytes.uncompressedBytes += message.length;
+    wireBytes.compressedBytes += out.size();
+    return out.toByteArray();
+  }
+
+  /**
+   * Decompresses one message.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public int decompress() throws IOException {
+    InputStream is = codec.decompress(new ByteArrayInputStream(compressed));
+    int total = 0;
+    int read;
+    while ((read = is.read(readBuffer)) != -1) {
+      total += read;
+    }
+    is.close();
+    return total;
+  }
+}
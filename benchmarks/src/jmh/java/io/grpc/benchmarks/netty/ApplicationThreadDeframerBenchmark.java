@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.benchmarks.netty;
+
+import com.google.common.io.ByteStreams;
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.netty.NegotiationType;
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares deframing inbound messages on the Netty event loop with deframing them in the
+ * application executor. Each side of the connection uses a single event loop, so deframing a large
+ * or compressed message on it delays every other stream of the connection.
+ *
+ * <p>{@link #unary} measures the latency of calls carrying the payload on their own. The
+ * {@code sharedConnection} group measures small {@link #probe} calls while {@link #bulk} calls
+ * carrying the payload share the same connection, showing how long the event loop is blocked.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class ApplicationThreadDeframerBenchmark {
+
+  public enum Payload {
+    SMALL(10, false),
+    LARGE(1024 * 1024, false),
+    LARGE_COMPRESSED(1024 * 1024, true);
+
+    private final int bytes;
+    private final boolean compressed;
+
+    Payload(int bytes, boolean compressed) {
+      this.bytes = bytes;
+      this.compressed = compressed;
+    }
+  }
+
+  private static final MethodDescriptor.Marshaller<byte[]> BYTES_MARSHALLER =
+      new MethodDescriptor.Marshaller<byte[]>() {
+        @Override
+        public InputStream stream(byte[] value) {
+          return new ByteArrayInputStream(value);
+        }
+
+        @Override
+        public byte[] parse(InputStream stream) {
+          try {
+            return ByteStreams.toByteArray(stream);
+          } catch (IOException ex) {
+            throw Status.INTERNAL.withCause(ex).asRuntimeException();
+          }
+        }
+      };
+
+  private static final MethodDescriptor<byte[], byte[]> METHOD =
+      MethodDescriptor.<byte[], byte[]>newBuilder()
+          .setType(MethodType.UNARY)
+          .setFullMethodName("benchmark/unary")
+          .setRequestMarshaller(BYTES_MARSHALLER)
+          .setResponseMarshaller(BYTES_MARSHALLER)
+          .build();
+
+  @Param({"false", "true"})
+  public boolean deframeInApplicationThread;
+
+  @Param
+  public Payload payload;
+
+  private EventLoopGroup serverGroup;
+  private EventLoopGroup clientGroup;
+  private Server server;
+  private ManagedChannel channel;
+  private byte[] request;
+  private final byte[] probeRequest = new byte[10];
+  private CallOptions callOptions = CallOptions.DEFAULT;
+
+  /**
+   * Starts a server echoing a small response, and a channel connected to it.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    // Text from a small alphabet compresses to roughly half its size
+    Random random = new Random(1);
+    request = new byte[payload.bytes];
+    for (int i = 0; i < request.length; i++) {
+      request[i] = (byte) ('a' + random.nextInt(16));
+    }
+    if (payload.compressed) {
+      callOptions = callOptions.withCompression("gzip");
+    }
+
+    serverGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("server-elg", true));
+    clientGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("client-elg", true));
+    LocalAddress address = new LocalAddress("application-thread-deframer-benchmark");
+    server = NettyServerBuilder.forAddress(address)
+        .channelType(LocalServerChannel.class)
+        .bossEventLoopGroup(serverGroup)
+        .workerEventLoopGroup(serverGroup)
+        .maxMessageSize(2 * payload.bytes + 1024)
+        .deframeInApplicationThread(deframeInApplicationThread)
+        .addService(ServerServiceDefinition.builder("benchmark")
+            .addMethod(METHOD, ServerCalls.asyncUnaryCall(
+                new ServerCalls.UnaryMethod<byte[], byte[]>() {
+                  @Override
+                  public void invoke(byte[] request, StreamObserver<byte[]> responseObserver) {
+                    responseObserver.onNext(probeRequest);
+                    responseObserver.onCompleted();
+                  }
+                }))
+            .build())
+        .build()
+        .start();
+    channel = NettyChannelBuilder.forAddress(address)
+        .channelType(LocalChannel.class)
+        .eventLoopGroup(clientGroup)
+        .negotiationType(NegotiationType.PLAINTEXT)
+        .deframeInApplicationThread(deframeInApplicationThread)
+        .build();
+  }
+
+  /**
+   * Stops the server and channel.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    channel.shutdownNow();
+    server.shutdownNow();
+    channel.awaitTermination(5, TimeUnit.SECONDS);
+    server.awaitTermination(5, TimeUnit.SECONDS);
+    serverGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).sync();
+    clientGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).sync();
+  }
+
+  /**
+   * Makes one call carrying the payload.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public byte[] unary() {
+    return ClientCalls.blockingUnaryCall(channel, METHOD, callOptions, request);
+  }
+
+  /**
+   * Makes calls carrying the payload, competing with {@link #probe} for the event loops.
+   */
+  @Benchmark
+  @Group("sharedConnection")
+  @GroupThreads(2)
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public byte[] bulk() {
+    return ClientCalls.blockingUnaryCall(channel, METHOD, callOptions, request);
+  }
+
+  /**
+   * Makes a small call on the connection used by {@link #bulk}.
+   */
+  @Benchmark
+  @Group("sharedConnection")
+  @GroupThreads(1)
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public byte[] probe() {
+    return ClientCalls.blockingUnaryCall(channel, METHOD, CallOptions.DEFAULT, probeRequest);
+  }
+}
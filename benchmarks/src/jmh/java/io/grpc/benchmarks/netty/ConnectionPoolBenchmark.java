@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.benchmarks.netty;
+
+import com.google.common.io.ByteStreams;
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.netty.NegotiationType;
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Measures how the throughput of a channel scales with the number of connections it may open to a
+ * single server. The server allows {@link #MAX_CONCURRENT_CALLS_PER_CONNECTION} concurrent calls
+ * per connection and answers each call after a short delay, so a single connection caps the number
+ * of calls in flight well below the number of benchmark threads.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class ConnectionPoolBenchmark {
+  private static final int MAX_CONCURRENT_CALLS_PER_CONNECTION = 16;
+
+  private static final MethodDescriptor.Marshaller<byte[]> BYTES_MARSHALLER =
+      new MethodDescriptor.Marshaller<byte[]>() {
+        @Override
+        public InputStream stream(byte[] value) {
+          return new ByteArrayInputStream(value);
+        }
+
+        @Override
+        public byte[] parse(InputStream stream) {
+          try {
+            return ByteStreams.toByteArray(stream);
+          } catch (IOException ex) {
+            throw Status.INTERNAL.withCause(ex).asRuntimeException();
+          }
+        }
+      };
+
+  private static final MethodDescriptor<byte[], byte[]> METHOD =
+      MethodDescriptor.<byte[], byte[]>newBuilder()
+          .setType(MethodType.UNARY)
+          .setFullMethodName("benchmark/unary")
+          .setRequestMarshaller(BYTES_MARSHALLER)
+          .setResponseMarshaller(BYTES_MARSHALLER)
+          .build();
+
+  @Param({"1", "2", "4"})
+  public int maxConnections;
+
+  private EventLoopGroup serverGroup;
+  private EventLoopGroup clientGroup;
+  private ScheduledExecutorService responseExecutor;
+  private Server server;
+  private ManagedChannel channel;
+  private final byte[] message = new byte[10];
+
+  /**
+   * Starts a server answering each call after a millisecond, and a channel connected to it.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    serverGroup = new NioEventLoopGroup(4, new DefaultThreadFactory("server-elg", true));
+    clientGroup = new NioEventLoopGroup(4, new DefaultThreadFactory("client-elg", true));
+    responseExecutor = Executors.newSingleThreadScheduledExecutor(
+        new DefaultThreadFactory("response", true));
+    LocalAddress address = new LocalAddress("connection-pool-benchmark");
+    server = NettyServerBuilder.forAddress(address)
+        .channelType(LocalServerChannel.class)
+        .bossEventLoopGroup(serverGroup)
+        .workerEventLoopGroup(serverGroup)
+        .maxConcurrentCallsPerConnection(MAX_CONCURRENT_CALLS_PER_CONNECTION)
+        .addService(ServerServiceDefinition.builder("benchmark")
+            .addMethod(METHOD, ServerCalls.asyncUnaryCall(
+                new ServerCalls.UnaryMethod<byte[], byte[]>() {
+                  @Override
+                  public void invoke(byte[] request,
+                      final StreamObserver<byte[]> responseObserver) {
+                    responseExecutor.schedule(new Runnable() {
+                      @Override
+                      public void run() {
+                        responseObserver.onNext(message);
+                        responseObserver.onCompleted();
+                      }
+                    }, 1, TimeUnit.MILLISECONDS);
+                  }
+                }))
+            .build())
+        .build()
+        .start();
+    channel = NettyChannelBuilder.forAddress(address)
+        .channelType(LocalChannel.class)
+        .eventLoopGroup(clientGroup)
+        .negotiationType(NegotiationType.PLAINTEXT)
+        .connectionPool(maxConnections, MAX_CONCURRENT_CALLS_PER_CONNECTION, Integer.MAX_VALUE)
+        .build();
+  }
+
+  /**
+   * Stops the server and channel.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    channel.shutdownNow();
+    server.shutdownNow();
+    channel.awaitTermination(5, TimeUnit.SECONDS);
+    server.awaitTermination(5, TimeUnit.SECONDS);
+    responseExecutor.shutdownNow();
+    serverGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).sync();
+    clientGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).sync();
+  }
+
+  /**
+   * Makes one unary call from each of many threads.
+   */
+  @Benchmark
+  @Threads(64)
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public byte[] unary() {
+    return ClientCalls.blockingUnaryCall(channel, METHOD, CallOptions.DEFAULT, message);
+  }
+}
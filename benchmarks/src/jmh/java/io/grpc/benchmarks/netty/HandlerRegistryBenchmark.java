@@ -24,8 +24,11 @@ import io.grpc.ServerCallHandler;
 import io.grpc.ServerServiceDefinition;
 import io.grpc.testing.TestMethodDescriptors;
 import io.grpc.util.MutableHandlerRegistry;
+import io.netty.util.AsciiString;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Fork;
@@ -57,6 +60,8 @@ public class HandlerRegistryBenchmark {
 
   private MutableHandlerRegistry registry;
   private List<String> fullMethodNames;
+  private List<AsciiString> paths;
+  private Map<AsciiString, String> cachedMethodNames;
 
   /**
    * Set up the registry.
@@ -65,6 +70,8 @@ public class HandlerRegistryBenchmark {
   public void setup() throws Exception {
     registry = new MutableHandlerRegistry();
     fullMethodNames = new ArrayList<String>(serviceCount * methodCountPerService);
+    paths = new ArrayList<AsciiString>(serviceCount * methodCountPerService);
+    cachedMethodNames = new HashMap<AsciiString, String>();
     for (int serviceIndex = 0; serviceIndex < serviceCount; ++serviceIndex) {
       String serviceName = randomString();
       ServerServiceDefinition.Builder serviceBuilder = ServerServiceDefinition.builder(serviceName);
@@ -86,6 +93,9 @@ public class HandlerRegistryBenchmark {
               }
             });
         fullMethodNames.add(methodDescriptor.getFullMethodName());
+        paths.add(new AsciiString("/" + methodDescriptor.getFullMethodName()));
+        cachedMethodNames.put(new AsciiString("/" + methodDescriptor.getFullMethodName()),
+            methodDescriptor.getFullMethodName());
       }
       registry.addService(serviceBuilder.build());
     }
@@ -101,6 +111,27 @@ public class HandlerRegistryBenchmark {
     }
   }
 
+  /**
+   * Benchmark the lookup of the {@code :path} of requests, decoding it to a new String each time.
+   */
+  @Benchmark
+  public void lookupMethodFromPath(Blackhole bh) {
+    for (AsciiString path : paths) {
+      bh.consume(registry.lookupMethod(path.subSequence(1, path.length()).toString()));
+    }
+  }
+
+  /**
+   * Benchmark the lookup of the {@code :path} of requests, with the method names already decoded
+   * for the connection, as done by the Netty server.
+   */
+  @Benchmark
+  public void lookupMethodFromCachedPath(Blackhole bh) {
+    for (AsciiString path : paths) {
+      bh.consume(registry.lookupMethod(cachedMethodNames.get(path)));
+    }
+  }
+
   private String randomString() {
     Random r = new Random();
     char[] bytes = new char[nameLength];
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/** Cancellation listener benchmark. */
+public class CancellationListenerBenchmark {
+  private static final Executor DIRECT = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  private static final Context.CancellationListener NOOP = new Context.CancellationListener() {
+    @Override
+    public void cancelled(Context context) {}
+  };
+
+  /** A cancellable context shared by all the benchmark threads. */
+  @State(Scope.Benchmark)
+  public static class SharedState {
+    Context.CancellableContext cancellable = Context.ROOT.withCancellation();
+    Context child = cancellable.withValue(Context.key("key"), "value");
+  }
+
+  /** A listener distinct to each thread, so that removals do not interfere. */
+  @State(Scope.Thread)
+  public static class ListenerState {
+    Context.CancellationListener listener = new Context.CancellationListener() {
+      @Override
+      public void cancelled(Context context) {}
+    };
+  }
+
+  /** Add then remove a listener on a context that other threads use as well. */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @GroupThreads(6)
+  public void addRemoveContended(SharedState shared, ListenerState state) {
+    shared.cancellable.addListener(state.listener, DIRECT);
+    shared.cancellable.removeListener(state.listener);
+  }
+
+  /**
+   * Add then remove a listener on a non-cancellable child, which listens to its parent when it
+   * has listeners.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @GroupThreads(6)
+  public void addRemoveChildContended(SharedState shared, ListenerState state) {
+    shared.child.addListener(state.listener, DIRECT);
+    shared.child.removeListener(state.listener);
+  }
+
+  /** Create, listen to and cancel a context, as done for each call with a deadline. */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public boolean addAndCancel() {
+    Context.CancellableContext cancellable = Context.ROOT.withCancellation();
+    cancellable.addListener(NOOP, DIRECT);
+    return cancellable.cancel(null);
+  }
+
+  /** Create and cancel a context with a listening child, cascading the cancellation. */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public boolean addAndCancelCascading() {
+    Context.CancellableContext cancellable = Context.ROOT.withCancellation();
+    Context.CancellableContext child = cancellable.withCancellation();
+    child.addListener(NOOP, DIRECT);
+    return cancellable.cancel(null);
+  }
+}
@@ -23,6 +23,7 @@ import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -79,6 +80,25 @@ public class ReadBenchmark {
     }
   }
 
+  @State(Scope.Benchmark)
+  public static class SizedContextState {
+    @Param({"1", "2", "4", "8", "9", "12", "16"})
+    public int keyCount;
+
+    List<Context.Key<Object>> keys = new ArrayList<Context.Key<Object>>();
+    Context context;
+
+    @Setup
+    public void setup() {
+      context = Context.ROOT;
+      for (int i = 0; i < keyCount; i++) {
+        Context.Key<Object> key = Context.key("Key" + i);
+        keys.add(key);
+        context = context.withValue(key, new Object());
+      }
+    }
+  }
+
   /** Perform the read operation. */
   @Benchmark
   @BenchmarkMode(Mode.SampleTime)
@@ -90,4 +110,17 @@ public class ReadBenchmark {
       }
     }
   }
+
+  /**
+   * Read every key of a context holding {@code keyCount} keys. Contexts with up to 8 keys are
+   * array-backed, larger ones are tries.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public void testSizedContextLookup(SizedContextState state, Blackhole bh) {
+    for (Context.Key<?> key : state.keys) {
+      bh.consume(key.get(state.context));
+    }
+  }
 }
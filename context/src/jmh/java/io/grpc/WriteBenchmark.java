@@ -31,7 +31,7 @@ import org.openjdk.jmh.infra.Blackhole;
 public class WriteBenchmark {
   @State(Scope.Thread)
   public static class ContextState {
-    @Param({"0", "10", "25", "100"})
+    @Param({"0", "1", "4", "8", "12", "16", "25", "100"})
     public int preexistingKeys;
 
     Context.Key<Object> key1 = Context.key("key1");
@@ -50,7 +50,10 @@ public class WriteBenchmark {
     }
   }
 
-  /** Perform the write operation. */
+  /**
+   * Perform the write operation. Contexts with up to 8 keys are array-backed, larger ones are
+   * tries; run with {@code -prof gc} to compare their allocation.
+   */
   @Benchmark
   @BenchmarkMode(Mode.SampleTime)
   @OutputTimeUnit(TimeUnit.NANOSECONDS)
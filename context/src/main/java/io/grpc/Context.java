@@ -16,7 +16,6 @@
 
 package io.grpc;
 
-import java.util.ArrayList;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
@@ -24,6 +23,7 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -182,8 +182,22 @@ public class Context {
     return current;
   }
 
-  private ArrayList<ExecutableListener> listeners;
-  private CancellationListener parentListener = new ParentListener();
+  private static final AtomicReferenceFieldUpdater<Context, Object> listenersUpdater =
+      AtomicReferenceFieldUpdater.newUpdater(Context.class, Object.class, "listeners");
+  /**
+   * Replaces {@link #listeners} once they have been notified of cancellation.
+   */
+  private static final Object NOTIFIED = new Object();
+
+  /**
+   * Either {@code null}, a single {@link ExecutableListener}, an immutable array of more than one
+   * {@link ExecutableListener}, or {@link #NOTIFIED}.  Only replaced with CAS, so that adding and
+   * removing listeners and cancelling do not lock, nor allocate with zero or one listener.
+   */
+  private volatile Object listeners;
+  private final CancellationListener parentListener = new ParentListener();
+  // Guarded by parentListener, which is only locked when the listeners become empty or non-empty.
+  private boolean parentListenerAdded;
   final CancellableContext cancellableAncestor;
   final PersistentHashArrayMappedTrie<Key<?>, Object> keyValueEntries;
   // The number parents between this context and the root context.
@@ -454,21 +468,30 @@ public class Context {
     if (canBeCancelled()) {
       ExecutableListener executableListener =
           new ExecutableListener(executor, cancellationListener);
-      synchronized (this) {
-        if (isCancelled()) {
+      while (true) {
+        Object current = listeners;
+        Object updated;
+        if (current == NOTIFIED) {
           executableListener.deliver();
+          return;
+        } else if (current == null) {
+          updated = executableListener;
+        } else if (current instanceof ExecutableListener) {
+          updated = new ExecutableListener[] {(ExecutableListener) current, executableListener};
         } else {
-          if (listeners == null) {
+          ExecutableListener[] array = (ExecutableListener[]) current;
+          ExecutableListener[] newArray = new ExecutableListener[array.length + 1];
+          System.arraycopy(array, 0, newArray, 0, array.length);
+          newArray[array.length] = executableListener;
+          updated = newArray;
+        }
+        if (listenersUpdater.compareAndSet(this, current, updated)) {
+          if (current == null) {
             // Now that we have a listener we need to listen to our parent so
             // we can cascade listener notification.
-            listeners = new ArrayList<ExecutableListener>();
-            listeners.add(executableListener);
-            if (cancellableAncestor != null) {
-              cancellableAncestor.addListener(parentListener, DirectExecutor.INSTANCE);
-            }
-          } else {
-            listeners.add(executableListener);
+            updateParentListener();
           }
+          return;
         }
       }
     }
@@ -481,23 +504,64 @@ public class Context {
     if (!canBeCancelled()) {
       return;
     }
-    synchronized (this) {
-      if (listeners != null) {
-        for (int i = listeners.size() - 1; i >= 0; i--) {
-          if (listeners.get(i).listener == cancellationListener) {
-            listeners.remove(i);
-            // Just remove the first matching listener, given that we allow duplicate
-            // adds we should allow for duplicates after remove.
-            break;
-          }
+    while (true) {
+      Object current = listeners;
+      Object updated;
+      if (current == null || current == NOTIFIED) {
+        return;
+      } else if (current instanceof ExecutableListener) {
+        if (((ExecutableListener) current).listener != cancellationListener) {
+          return;
         }
-        // We have no listeners so no need to listen to our parent
-        if (listeners.isEmpty()) {
-          if (cancellableAncestor != null) {
-            cancellableAncestor.removeListener(parentListener);
-          }
-          listeners = null;
+        updated = null;
+      } else {
+        ExecutableListener[] array = (ExecutableListener[]) current;
+        // Just remove the last matching listener, given that we allow duplicate
+        // adds we should allow for duplicates after remove.
+        int i = array.length - 1;
+        while (i >= 0 && array[i].listener != cancellationListener) {
+          i--;
+        }
+        if (i < 0) {
+          return;
+        }
+        if (array.length == 2) {
+          updated = array[1 - i];
+        } else {
+          ExecutableListener[] newArray = new ExecutableListener[array.length - 1];
+          System.arraycopy(array, 0, newArray, 0, i);
+          System.arraycopy(array, i + 1, newArray, i, newArray.length - i);
+          updated = newArray;
+        }
+      }
+      if (listenersUpdater.compareAndSet(this, current, updated)) {
+        if (updated == null) {
+          // We have no listeners so no need to listen to our parent
+          updateParentListener();
         }
+        return;
+      }
+    }
+  }
+
+  /**
+   * Listens to the cancellation of {@link #cancellableAncestor} if and only if there are
+   * listeners that were not notified yet.  Called after the listeners change from or to none, and
+   * serialized so that the last call sees the latest listeners, whatever the interleaving.
+   */
+  private void updateParentListener() {
+    if (cancellableAncestor == null) {
+      return;
+    }
+    synchronized (parentListener) {
+      Object current = listeners;
+      boolean needed = current != null && current != NOTIFIED;
+      if (needed && !parentListenerAdded) {
+        parentListenerAdded = true;
+        cancellableAncestor.addListener(parentListener, DirectExecutor.INSTANCE);
+      } else if (!needed && parentListenerAdded) {
+        parentListenerAdded = false;
+        cancellableAncestor.removeListener(parentListener);
       }
     }
   }
@@ -510,38 +574,43 @@ public class Context {
     if (!canBeCancelled()) {
       return;
     }
-    ArrayList<ExecutableListener> tmpListeners;
-    synchronized (this) {
-      if (listeners == null) {
-        return;
-      }
-      tmpListeners = listeners;
-      listeners = null;
-    }
-    // Deliver events to non-child context listeners before we notify child contexts. We do this
-    // to cancel higher level units of work before child units. This allows for a better error
-    // handling paradigm where the higher level unit of work knows it is cancelled and so can
-    // ignore errors that bubble up as a result of cancellation of lower level units.
-    for (int i = 0; i < tmpListeners.size(); i++) {
-      if (!(tmpListeners.get(i).listener instanceof ParentListener)) {
-        tmpListeners.get(i).deliver();
-      }
+    // Listeners added from now on are notified directly
+    Object tmpListeners = listenersUpdater.getAndSet(this, NOTIFIED);
+    if (tmpListeners == null || tmpListeners == NOTIFIED) {
+      return;
     }
-    for (int i = 0; i < tmpListeners.size(); i++) {
-      if (tmpListeners.get(i).listener instanceof ParentListener) {
-        tmpListeners.get(i).deliver();
+    if (tmpListeners instanceof ExecutableListener) {
+      ((ExecutableListener) tmpListeners).deliver();
+    } else {
+      ExecutableListener[] array = (ExecutableListener[]) tmpListeners;
+      // Deliver events to non-child context listeners before we notify child contexts. We do this
+      // to cancel higher level units of work before child units. This allows for a better error
+      // handling paradigm where the higher level unit of work knows it is cancelled and so can
+      // ignore errors that bubble up as a result of cancellation of lower level units.
+      for (int i = 0; i < array.length; i++) {
+        if (!(array[i].listener instanceof ParentListener)) {
+          array[i].deliver();
+        }
+      }
+      for (int i = 0; i < array.length; i++) {
+        if (array[i].listener instanceof ParentListener) {
+          array[i].deliver();
+        }
       }
     }
-    if (cancellableAncestor != null) {
-      cancellableAncestor.removeListener(parentListener);
-    }
+    updateParentListener();
   }
 
   // Used in tests to ensure that listeners are defined and released when cancellation cascades.
   // It's very important to ensure that we do not accidentally retain listeners.
   int listenerCount() {
-    synchronized (this) {
-      return listeners == null ? 0 : listeners.size();
+    Object current = listeners;
+    if (current == null || current == NOTIFIED) {
+      return 0;
+    } else if (current instanceof ExecutableListener) {
+      return 1;
+    } else {
+      return ((ExecutableListener[]) current).length;
     }
   }
 
@@ -663,7 +732,8 @@ public class Context {
     private final Deadline deadline;
     private final Context uncancellableSurrogate;
 
-    private boolean cancelled;
+    // Written under the lock, after cancellationCause
+    private volatile boolean cancelled;
     private Throwable cancellationCause;
     private ScheduledFuture<?> pendingDeadline;
 
@@ -748,13 +818,13 @@ public class Context {
       boolean triggeredCancel = false;
       synchronized (this) {
         if (!cancelled) {
-          cancelled = true;
           if (pendingDeadline != null) {
             // If we have a scheduled cancellation pending attempt to cancel it.
             pendingDeadline.cancel(false);
             pendingDeadline = null;
           }
           this.cancellationCause = cause;
+          cancelled = true;
           triggeredCancel = true;
         }
       }
@@ -780,10 +850,8 @@ public class Context {
 
     @Override
     public boolean isCancelled() {
-      synchronized (this) {
-        if (cancelled) {
-          return true;
-        }
+      if (cancelled) {
+        return true;
       }
       // Detect cancellation of parent in the case where we have no listeners and
       // record it.
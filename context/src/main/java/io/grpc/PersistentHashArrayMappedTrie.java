@@ -28,8 +28,15 @@ import java.util.Arrays;
  * <p>Inspired by popcnt-based compression seen in Ideal Hash Trees, Phil
  * Bagwell (2000). The rest of the implementation is ignorant of/ignores the
  * paper.
+ *
+ * <p>Up to {@link #MAX_SMALL_MAP_SIZE} entries are kept in flat arrays and looked up linearly,
+ * without hashing nor allocating trie nodes; larger maps are converted to a trie.
  */
 final class PersistentHashArrayMappedTrie<K,V> {
+  // Not actually annotated to avoid depending on guava
+  // @VisibleForTesting
+  static final int MAX_SMALL_MAP_SIZE = 8;
+
   private final Node<K,V> root;
 
   PersistentHashArrayMappedTrie() {
@@ -46,6 +53,8 @@ final class PersistentHashArrayMappedTrie<K,V> {
   public V get(K key) {
     if (root == null) {
       return null;
+    } else if (root instanceof SmallMap) {
+      return ((SmallMap<K,V>) root).get(key);
     }
     return root.get(key, key.hashCode(), 0);
   }
@@ -55,12 +64,92 @@ final class PersistentHashArrayMappedTrie<K,V> {
    */
   public PersistentHashArrayMappedTrie<K,V> put(K key, V value) {
     if (root == null) {
-      return new PersistentHashArrayMappedTrie<K,V>(new Leaf<K,V>(key, value));
+      return new PersistentHashArrayMappedTrie<K,V>(new SmallMap<K,V>(key, value));
+    } else if (root instanceof SmallMap) {
+      return new PersistentHashArrayMappedTrie<K,V>(((SmallMap<K,V>) root).put(key, value));
     } else {
       return new PersistentHashArrayMappedTrie<K,V>(root.put(key, value, key.hashCode(), 0));
     }
   }
 
+  // Not actually annotated to avoid depending on guava
+  // @VisibleForTesting
+  static final class SmallMap<K,V> implements Node<K,V> {
+    // Keys are distinct references, in insertion order
+    private final K[] keys;
+    private final V[] values;
+
+    @SuppressWarnings("unchecked")
+    SmallMap(K key, V value) {
+      this((K[]) new Object[] {key}, (V[]) new Object[] {value});
+    }
+
+    private SmallMap(K[] keys, V[] values) {
+      this.keys = keys;
+      this.values = values;
+    }
+
+    int size() {
+      return keys.length;
+    }
+
+    V get(K key) {
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i] == key) {
+          return values[i];
+        }
+      }
+      return null;
+    }
+
+    Node<K,V> put(K key, V value) {
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i] == key) {
+          // Replace
+          V[] newValues = Arrays.copyOf(values, values.length);
+          newValues[i] = value;
+          return new SmallMap<K,V>(keys, newValues);
+        }
+      }
+      if (keys.length < MAX_SMALL_MAP_SIZE) {
+        // Insert
+        K[] newKeys = Arrays.copyOf(keys, keys.length + 1);
+        V[] newValues = Arrays.copyOf(values, values.length + 1);
+        newKeys[keys.length] = key;
+        newValues[keys.length] = value;
+        return new SmallMap<K,V>(newKeys, newValues);
+      }
+      // Too large to be scanned, convert to a trie
+      Node<K,V> node = new Leaf<K,V>(keys[0], values[0]);
+      for (int i = 1; i < keys.length; i++) {
+        node = node.put(keys[i], values[i], keys[i].hashCode(), 0);
+      }
+      return node.put(key, value, key.hashCode(), 0);
+    }
+
+    @Override
+    public V get(K key, int hash, int bitsConsumed) {
+      assert bitsConsumed == 0;
+      return get(key);
+    }
+
+    @Override
+    public Node<K,V> put(K key, V value, int hash, int bitsConsumed) {
+      assert bitsConsumed == 0;
+      return put(key, value);
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder valuesSb = new StringBuilder();
+      valuesSb.append("SmallMap(");
+      for (int i = 0; i < values.length; i++) {
+        valuesSb.append("(key=").append(keys[i]).append(" value=").append(values[i]).append(") ");
+      }
+      return valuesSb.append(")").toString();
+    }
+  }
+
   // Not actually annotated to avoid depending on guava
   // @VisibleForTesting
   static final class Leaf<K,V> implements Node<K,V> {
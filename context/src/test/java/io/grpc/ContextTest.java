@@ -33,10 +33,13 @@ import com.google.common.util.concurrent.SettableFuture;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
@@ -44,6 +47,7 @@ import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -382,6 +386,73 @@ public class ContextTest {
     assertSame(t, child.cancellationCause());
   }
 
+  @Test
+  public void removeListenerAmongSeveral() {
+    Context.CancellableContext base = Context.current().withCancellation();
+    final AtomicInteger notified = new AtomicInteger();
+    Context.CancellationListener counting = new Context.CancellationListener() {
+      @Override
+      public void cancelled(Context context) {
+        notified.incrementAndGet();
+      }
+    };
+    base.addListener(counting, MoreExecutors.directExecutor());
+    base.addListener(cancellationListener, MoreExecutors.directExecutor());
+    base.addListener(counting, MoreExecutors.directExecutor());
+    assertEquals(3, base.listenerCount());
+    base.removeListener(cancellationListener);
+    assertEquals(2, base.listenerCount());
+    base.removeListener(cancellationListener);
+    assertEquals(2, base.listenerCount());
+
+    base.cancel(null);
+    assertNull(listenerNotifedContext);
+    assertEquals(2, notified.get());
+    assertEquals(0, base.listenerCount());
+  }
+
+  @Test
+  public void concurrentAddAndRemoveListenersRetainNothing() throws Exception {
+    final Context.CancellableContext base = Context.current().withCancellation();
+    final Context child = base.withValue(FOOD, "lasagna");
+    int threads = 4;
+    final CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            Context.CancellationListener listener = new Context.CancellationListener() {
+              @Override
+              public void cancelled(Context context) {}
+            };
+            start.await();
+            for (int j = 0; j < 10000; j++) {
+              child.addListener(listener, MoreExecutors.directExecutor());
+              child.removeListener(listener);
+            }
+            return null;
+          }
+        }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(0, child.listenerCount());
+    assertEquals(0, base.listenerCount());
+
+    child.addListener(cancellationListener, MoreExecutors.directExecutor());
+    assertEquals(1, base.listenerCount());
+    base.cancel(null);
+    assertSame(child, listenerNotifedContext);
+  }
+
   // Context#isCurrent() and Context.CancellableContext#isCurrent() are intended
   // to be visible only for testing. The deprecation is meant for users.
   @SuppressWarnings("deprecation")
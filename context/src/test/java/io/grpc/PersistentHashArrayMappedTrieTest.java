@@ -18,18 +18,86 @@ package io.grpc;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
 import io.grpc.PersistentHashArrayMappedTrie.CollisionLeaf;
 import io.grpc.PersistentHashArrayMappedTrie.CompressedIndex;
 import io.grpc.PersistentHashArrayMappedTrie.Leaf;
 import io.grpc.PersistentHashArrayMappedTrie.Node;
+import io.grpc.PersistentHashArrayMappedTrie.SmallMap;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 @RunWith(JUnit4.class)
 public class PersistentHashArrayMappedTrieTest {
+  @Test
+  public void smallMap_insertAndReplace() {
+    Key key1 = new Key(0);
+    Key key2 = new Key(0);
+    Object value1 = new Object();
+    Object value2 = new Object();
+    Object value3 = new Object();
+    SmallMap<Key, Object> map = new SmallMap<Key, Object>(key1, value1);
+    SmallMap<Key, Object> inserted = (SmallMap<Key, Object>) map.put(key2, value2);
+    assertEquals(2, inserted.size());
+    assertSame(value1, inserted.get(key1));
+    assertSame(value2, inserted.get(key2));
+
+    SmallMap<Key, Object> replaced = (SmallMap<Key, Object>) inserted.put(key1, value3);
+    assertEquals(2, replaced.size());
+    assertSame(value3, replaced.get(key1));
+    assertSame(value2, replaced.get(key2));
+
+    assertEquals(1, map.size());
+    assertSame(value1, map.get(key1));
+    assertNull(map.get(key2));
+    assertSame(value1, inserted.get(key1));
+  }
+
+  @Test
+  public void smallMap_convertsToTrie() {
+    Key[] keys = new Key[PersistentHashArrayMappedTrie.MAX_SMALL_MAP_SIZE + 1];
+    Object[] values = new Object[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      // Some collide, some share the first index bits
+      keys[i] = new Key(i / 2 << 5 | 1);
+      values[i] = new Object();
+    }
+    Node<Key, Object> ret = new SmallMap<Key, Object>(keys[0], values[0]);
+    for (int i = 1; i < keys.length - 1; i++) {
+      ret = ret.put(keys[i], values[i], keys[i].hashCode(), 0);
+    }
+    assertTrue(ret instanceof SmallMap);
+    ret = ret.put(keys[keys.length - 1], values[keys.length - 1], 0, 0);
+    assertTrue(ret instanceof CompressedIndex);
+    for (int i = 0; i < keys.length; i++) {
+      assertSame(values[i], ret.get(keys[i], keys[i].hashCode(), 0));
+    }
+  }
+
+  @Test
+  public void trie_getAndPutAcrossSizes() {
+    PersistentHashArrayMappedTrie<Key, Object> trie =
+        new PersistentHashArrayMappedTrie<Key, Object>();
+    Key[] keys = new Key[2 * PersistentHashArrayMappedTrie.MAX_SMALL_MAP_SIZE];
+    Object[] values = new Object[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = new Key(i * 31);
+      values[i] = new Object();
+      assertNull(trie.get(keys[i]));
+      trie = trie.put(keys[i], values[i]);
+      for (int j = 0; j <= i; j++) {
+        assertSame(values[j], trie.get(keys[j]));
+      }
+    }
+    Object replacement = new Object();
+    trie = trie.put(keys[0], replacement);
+    assertSame(replacement, trie.get(keys[0]));
+    assertSame(values[1], trie.get(keys[1]));
+  }
+
   @Test
   public void leaf_replace() {
     Key key = new Key(0);
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.grpc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Gzip compression and decompression throughput of {@link Codec.Gzip} compared with the JDK's
+ * gzip streams. Run with {@code -prof gc} to compare allocation.
+ */
+@State(Scope.Thread)
+public class GzipCodecBenchmark {
+
+  public enum Implementation {
+    JDK,
+    CODEC
+  }
+
+  @Param({"1024", "65536", "1048576"})
+  public int messageSize;
+
+  @Param
+  public Implementation implementation;
+
+  private final Codec.Gzip codec = new Codec.Gzip();
+  private byte[] message;
+  private byte[] compressed;
+  private final byte[] readBuffer = new byte[8192];
+  private ByteArrayOutputStream out;
+
+  /**
+   * Generates a somewhat compressible message.
+   */
+  @Setup
+  public void setUp() throws Exception {
+    Random random = new Random(1);
+    message = new byte[messageSize];
+    for (int i = 0; i < messageSize; i++) {
+      message[i] = (byte) ('a' + random.nextInt(16));
+    }
+    out = new ByteArrayOutputStream(messageSize);
+    compressed = compress();
+  }
+
+  /**
+   * Compresses one message.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public byte[] compress() throws IOException {
+    out.reset();
+    OutputStream os = implementation == Implementation.JDK
+        ? new GZIPOutputStream(out) : codec.compress(out);
+    os.write(message);
+    os.close();
+    return out.toByteArray();
+  }
+
+  /**
+   * Decompresses one message.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public int decompress() throws IOException {
+    InputStream compressedStream = new ByteArrayInputStream(compressed);
+    InputStream is = implementation == Implementation.JDK
+        ? new GZIPInputStream(compressedStream) : codec.decompress(compressedStream);
+    int total = 0;
+    int read;
+    while ((read = is.read(readBuffer)) != -1) {
+      total += read;
+    }
+    is.close();
+    return total;
+  }
+}
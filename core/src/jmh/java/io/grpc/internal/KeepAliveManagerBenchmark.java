@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import io.grpc.internal.KeepAliveManager.KeepAlivePinger;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmark for the per-frame overhead of {@link KeepAliveManager}.
+ */
+@State(Scope.Benchmark)
+public class KeepAliveManagerBenchmark {
+
+  private ScheduledExecutorService scheduler;
+  private KeepAliveManager keepAliveManager;
+
+  /**
+   * Setup with an active transport, so that a ping is scheduled.
+   */
+  @Setup
+  public void setUp() {
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    keepAliveManager = new KeepAliveManager(new KeepAlivePinger() {
+      @Override
+      public void ping() {}
+
+      @Override
+      public void onPingTimeout() {}
+    }, scheduler, TimeUnit.HOURS.toNanos(1), TimeUnit.HOURS.toNanos(1), false);
+    keepAliveManager.onTransportActive();
+  }
+
+  @TearDown
+  public void tearDown() {
+    keepAliveManager.onTransportTermination();
+    scheduler.shutdownNow();
+  }
+
+  /**
+   * Records the receipt of a frame, as transports do for every frame they read.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public void onDataReceived() {
+    keepAliveManager.onDataReceived();
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import io.grpc.EquivalentAddressGroup;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks {@link SubsettingLoadBalancerFactory} for a fleet of clients.
+ *
+ * <p>{@link #subset} measures how long one client takes to pick its subset of the resolved servers.
+ * How evenly the fleet is spread over the servers is checked by {@code SubsettingLoadBalancerTest}.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class SubsettingBenchmark {
+
+  @Param({"100", "2000"})
+  public int servers;
+
+  @Param({"2000"})
+  public int clients;
+
+  @Param({"10", "50"})
+  public int subsetSize;
+
+  private List<EquivalentAddressGroup> serverList;
+  private int nextClient;
+
+  /**
+   * Creates the servers.
+   */
+  @Setup
+  public void setUp() {
+    serverList = new ArrayList<EquivalentAddressGroup>(servers);
+    for (int i = 0; i < servers; i++) {
+      serverList.add(server(i));
+    }
+  }
+
+  /**
+   * Picks the subset of one client.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public List<EquivalentAddressGroup> subset() {
+    return SubsettingLoadBalancerFactory.subset(
+        serverList, subsetSize, nextClient++ % clients, 42);
+  }
+
+  private static EquivalentAddressGroup server(int i) {
+    return new EquivalentAddressGroup(new InetSocketAddress(
+        "10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff), 443));
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.grpc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Extension to a {@link Drainable} whose content is already held in a {@link ByteBuffer}, for
+ * example a region of a memory-mapped file.
+ *
+ * <p>Transports that can send a {@link ByteBuffer} without copying it (such as Netty) hand the
+ * buffer returned by {@link #drainToByteBuffer()} directly to the wire. Other transports, or
+ * messages that need to be compressed, fall back to {@link #drainTo(java.io.OutputStream)}.
+ */
+@ExperimentalApi
+public interface ByteBufferDrainable extends Drainable, KnownLength {
+
+  /**
+   * Transfers the entire contents of this stream as a {@link ByteBuffer}, whose remaining bytes are
+   * the content. The returned buffer must not be modified until the transport is done with it,
+   * which may happen after the message has been sent.
+   *
+   * @return a buffer holding the content, positioned at its first byte.
+   */
+  ByteBuffer drainToByteBuffer();
+}
@@ -36,6 +36,16 @@ public abstract class ClientStreamTracer extends StreamTracer {
   public void inboundHeaders() {
   }
 
+  /**
+   * Trailers has been received from the server. Not called if the stream is closed without
+   * trailers, e.g. when it is cancelled.
+   *
+   * @param trailers the trailers, after transport-level headers have been removed. They should not
+   *        be modified or saved.
+   */
+  public void inboundTrailers(Metadata trailers) {
+  }
+
   /**
    * Factory class for {@link ClientStreamTracer}.
    */
@@ -16,11 +16,12 @@
 
 package io.grpc;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.zip.Deflater;
 
 /**
  * Encloses classes related to the compression and decompression of messages.
@@ -29,10 +30,35 @@ import java.util.zip.GZIPOutputStream;
 @ExperimentalApi("https://github.com/grpc/grpc-java/issues/1704")
 public interface Codec extends Compressor, Decompressor {
   /**
-   * A gzip compressor and decompressor.  In the future this will likely support other
-   * compression methods, such as compression level.
+   * A gzip compressor and decompressor.
+   *
+   * <p>The zlib streams backing compression and decompression are pooled and reused across
+   * messages, and are released as soon as a message's stream is closed (or, when decompressing,
+   * fully read) rather than when they are garbage collected.
    */
   public static final class Gzip implements Codec {
+    private final int compressionLevel;
+
+    /**
+     * Creates a gzip codec that compresses with zlib's default compression level.
+     */
+    public Gzip() {
+      this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates a gzip codec that compresses with the given level, from
+     * {@link Deflater#NO_COMPRESSION} to {@link Deflater#BEST_COMPRESSION}, or
+     * {@link Deflater#DEFAULT_COMPRESSION}.
+     */
+    public Gzip(int compressionLevel) {
+      checkArgument(
+          compressionLevel >= Deflater.DEFAULT_COMPRESSION
+              && compressionLevel <= Deflater.BEST_COMPRESSION,
+          "invalid compression level: %s", compressionLevel);
+      this.compressionLevel = compressionLevel;
+    }
+
     @Override
     public String getMessageEncoding() {
       return "gzip";
@@ -40,12 +66,12 @@ public interface Codec extends Compressor, Decompressor {
 
     @Override
     public OutputStream compress(OutputStream os) throws IOException {
-      return new GZIPOutputStream(os);
+      return PooledGzip.compress(os, compressionLevel);
     }
 
     @Override
     public InputStream decompress(InputStream is) throws IOException {
-      return new GZIPInputStream(is);
+      return PooledGzip.decompress(is);
     }
   }
 
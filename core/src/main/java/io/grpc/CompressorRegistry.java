@@ -74,4 +74,15 @@ public final class CompressorRegistry {
     checkArgument(!encoding.contains(","), "Comma is currently not allowed in message encoding");
     compressors.put(encoding, c);
   }
+
+  /**
+   * Registers the zstd, lz4 and snappy compressors whose library is on the classpath and works on
+   * this platform. The first call of this method or {@link
+   * DecompressorRegistry#withOptionalCodecs} loads the libraries, including their native code.
+   */
+  public void registerOptionalCodecs() {
+    for (Codec codec : OptionalCodecs.available()) {
+      register(codec);
+    }
+  }
 }
@@ -65,6 +65,21 @@ public final class DecompressorRegistry {
     return new DecompressorRegistry(d, advertised, this);
   }
 
+  /**
+   * Registers the zstd, lz4 and snappy decompressors whose library is on the classpath and works on
+   * this platform.  Returns a new registry.  The first call of this method or {@link
+   * CompressorRegistry#registerOptionalCodecs} loads the libraries, including their native code.
+   *
+   * @param advertised If true, the message encodings will be listed in the Accept-Encoding header.
+   */
+  public DecompressorRegistry withOptionalCodecs(boolean advertised) {
+    DecompressorRegistry registry = this;
+    for (Codec codec : OptionalCodecs.available()) {
+      registry = registry.with(codec, advertised);
+    }
+    return registry;
+  }
+
   private DecompressorRegistry(Decompressor d, boolean advertised, DecompressorRegistry parent) {
     String encoding = d.getMessageEncoding();
     checkArgument(!encoding.contains(","), "Comma is currently not allowed in message encoding");
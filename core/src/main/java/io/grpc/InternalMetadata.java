@@ -65,6 +65,18 @@ public final class InternalMetadata {
     return new Metadata(usedNames, binaryValues);
   }
 
+  /**
+   * Creates metadata from HTTP/2 headers whose binary values are still base64 encoded. They are
+   * decoded when they are first read.
+   *
+   * @throws IllegalArgumentException if a binary value is not valid base64
+   */
+  @Internal
+  public static Metadata newMetadataWithBase64BinaryValues(
+      int usedNames, byte[]... namesAndValues) {
+    return new Metadata(usedNames, true, namesAndValues);
+  }
+
   @Internal
   public static byte[][] serialize(Metadata md) {
     return md.serialize();
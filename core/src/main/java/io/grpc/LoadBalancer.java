@@ -544,6 +544,19 @@ public abstract class LoadBalancer {
      * Subchannel belongs to.
      */
     public abstract Attributes getAttributes();
+
+    /**
+     * Returns a {@link Channel} that makes its calls on this Subchannel only, e.g. for the
+     * LoadBalancer to check the health of the server.  The calls don't wait for a connection: they
+     * fail with {@link Status#UNAVAILABLE} if the Subchannel is not {@link ConnectivityState#READY
+     * READY} when they start.
+     *
+     * @throws UnsupportedOperationException if this Subchannel doesn't support it
+     */
+    @ExperimentalApi("https://github.com/grpc/grpc-java/issues/1771")
+    public Channel asChannel() {
+      throw new UnsupportedOperationException();
+    }
   }
 
   /**
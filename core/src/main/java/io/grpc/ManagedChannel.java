@@ -16,7 +16,12 @@
 
 package io.grpc;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
@@ -104,4 +109,115 @@ public abstract class ManagedChannel extends Channel {
   public void notifyWhenStateChanged(ConnectivityState source, Runnable callback) {
     throw new UnsupportedOperationException("Not implemented");
   }
+
+  /**
+   * Exits idle mode and connects the channel, returning a future that completes once the channel
+   * is {@link ConnectivityState#READY READY}. The load balancer decides which of the resolved
+   * servers to connect to, and the channel is ready once the first of them is connected. This
+   * moves the cost of name resolution and connection establishment ahead of the first RPC, for
+   * example so that a server only reports itself ready once its channels are.
+   *
+   * <p>The future does not fail if connecting fails, as the channel keeps trying to connect. It
+   * fails if the channel is shut down. Cancelling it stops waiting but does not affect the channel.
+   *
+   * @throws UnsupportedOperationException if {@link #getState} is not supported by implementation
+   */
+  @ExperimentalApi
+  public ListenableFuture<Void> warmUp() {
+    SettableFuture<Void> future = SettableFuture.create();
+    completeWhenReady(future);
+    return future;
+  }
+
+  /**
+   * Connects the channel like {@link #warmUp()}, then makes a unary call of {@code method} with
+   * {@code request}, so that the classes and caches used by the call are loaded as well. The
+   * returned future completes with the response, or fails with a {@link StatusRuntimeException} if
+   * the call fails.
+   *
+   * @throws UnsupportedOperationException if {@link #getState} is not supported by implementation
+   */
+  @ExperimentalApi
+  public <ReqT, RespT> ListenableFuture<RespT> warmUp(
+      final MethodDescriptor<ReqT, RespT> method, final CallOptions callOptions,
+      final ReqT request) {
+    final SettableFuture<RespT> responseFuture = SettableFuture.create();
+    final SettableFuture<Void> readyFuture = SettableFuture.create();
+    readyFuture.addListener(new Runnable() {
+      @Override
+      public void run() {
+        if (responseFuture.isDone()) {
+          return;
+        }
+        try {
+          readyFuture.get();
+        } catch (ExecutionException e) {
+          responseFuture.setException(e.getCause());
+          return;
+        } catch (InterruptedException e) {
+          // Not possible, as readyFuture is done
+          throw new AssertionError(e);
+        }
+        startWarmUpCall(method, callOptions, request, responseFuture);
+      }
+    }, MoreExecutors.directExecutor());
+    responseFuture.addListener(new Runnable() {
+      @Override
+      public void run() {
+        // Stop waiting for the channel if the caller is no longer interested
+        readyFuture.cancel(false);
+      }
+    }, MoreExecutors.directExecutor());
+    completeWhenReady(readyFuture);
+    return responseFuture;
+  }
+
+  private void completeWhenReady(final SettableFuture<Void> future) {
+    if (future.isDone()) {
+      return;
+    }
+    ConnectivityState state = getState(true);
+    if (state == ConnectivityState.READY) {
+      future.set(null);
+    } else if (state == ConnectivityState.SHUTDOWN) {
+      future.setException(
+          Status.UNAVAILABLE.withDescription("Channel shutdown").asRuntimeException());
+    } else {
+      notifyWhenStateChanged(state, new Runnable() {
+        @Override
+        public void run() {
+          completeWhenReady(future);
+        }
+      });
+    }
+  }
+
+  private <ReqT, RespT> void startWarmUpCall(MethodDescriptor<ReqT, RespT> method,
+      CallOptions callOptions, ReqT request, final SettableFuture<RespT> responseFuture) {
+    ClientCall<ReqT, RespT> call = newCall(method, callOptions);
+    call.start(new ClientCall.Listener<RespT>() {
+      @Nullable
+      private RespT response;
+
+      @Override
+      public void onMessage(RespT message) {
+        response = message;
+      }
+
+      @Override
+      public void onClose(Status status, Metadata trailers) {
+        if (!status.isOk()) {
+          responseFuture.setException(status.asRuntimeException(trailers));
+        } else if (response == null) {
+          responseFuture.setException(Status.INTERNAL
+              .withDescription("No response received for warm-up call").asRuntimeException());
+        } else {
+          responseFuture.set(response);
+        }
+      }
+    }, new Metadata());
+    call.request(2);
+    call.sendMessage(request);
+    call.halfClose();
+  }
 }
@@ -46,7 +46,8 @@ import javax.annotation.concurrent.NotThreadSafe;
  * <p>Keys are allowed to be associated with more than one value.
  *
  * <p>This class is not thread safe, implementations should ensure that header reads and writes do
- * not occur in multiple threads concurrently.
+ * not occur in multiple threads concurrently. Reads are not safe to run concurrently
+ * either, as values received from the transport are decoded when first read.
  */
 @NotThreadSafe
 public final class Metadata {
@@ -58,6 +59,8 @@ public final class Metadata {
    */
   public static final String BINARY_HEADER_SUFFIX = "-bin";
 
+  private static final byte[] BINARY_HEADER_SUFFIX_BYTES = BINARY_HEADER_SUFFIX.getBytes(US_ASCII);
+
   /**
    * Simple metadata marshaller that encodes bytes as is.
    *
@@ -139,9 +142,36 @@ public final class Metadata {
     namesAndValues = binaryValues;
   }
 
+  /**
+   * Constructor called by the transport layer when it receives HTTP/2 headers, whose binary values
+   * are still base64 encoded. They are only decoded when they are first read, so the headers that
+   * the application never looks at cost nothing. Metadata will mutate the passed in array.
+   *
+   * @throws IllegalArgumentException if a binary value is not valid base64, so that the transport
+   *     fails the stream rather than the application failing to read the value later
+   */
+  Metadata(int usedNames, boolean base64BinaryValues, byte[]... namesAndValues) {
+    this(usedNames, namesAndValues);
+    if (!base64BinaryValues) {
+      return;
+    }
+    for (int i = 0; i < size; i++) {
+      if (endsWithBinarySuffix(name(i))) {
+        checkBase64(name(i), namesAndValues[i * 2 + 1]);
+        if (encodedValues == null) {
+          encodedValues = new BitSet(size);
+        }
+        encodedValues.set(i);
+      }
+    }
+  }
+
   private byte[][] namesAndValues;
   // The unscaled number of headers present.
   private int size;
+  // The indexes of the binary values that are still base64 encoded, or null if there are none.
+  @Nullable
+  private BitSet encodedValues;
 
   private byte[] name(int i) {
     return namesAndValues[i * 2];
@@ -152,6 +182,11 @@ public final class Metadata {
   }
 
   private byte[] value(int i) {
+    if (encodedValues != null && encodedValues.get(i)) {
+      encodedValues.clear(i);
+      namesAndValues[i * 2 + 1] =
+          BaseEncoding.base64().decode(new String(namesAndValues[i * 2 + 1], US_ASCII));
+    }
     return namesAndValues[i * 2 + 1];
   }
 
@@ -159,6 +194,60 @@ public final class Metadata {
     namesAndValues[i * 2 + 1] = value;
   }
 
+  /**
+   * Moves the header at {@code from} to {@code to}, without decoding its value.
+   */
+  private void move(int from, int to) {
+    namesAndValues[to * 2] = namesAndValues[from * 2];
+    namesAndValues[to * 2 + 1] = namesAndValues[from * 2 + 1];
+    if (encodedValues != null) {
+      encodedValues.set(to, encodedValues.get(from));
+    }
+  }
+
+  private void decodeAll() {
+    if (encodedValues == null) {
+      return;
+    }
+    for (int i = encodedValues.nextSetBit(0); i >= 0; i = encodedValues.nextSetBit(i + 1)) {
+      value(i);
+    }
+    encodedValues = null;
+  }
+
+  /**
+   * Checks that {@code value} can be decoded by {@link BaseEncoding#base64()}, without decoding it.
+   */
+  private static void checkBase64(byte[] name, byte[] value) {
+    int length = value.length;
+    while (length > 0 && value[length - 1] == '=') {
+      length--;
+    }
+    boolean valid = length % 4 != 1;
+    for (int i = 0; i < length && valid; i++) {
+      byte b = value[i];
+      valid = (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || (b >= '0' && b <= '9')
+          || b == '+' || b == '/';
+    }
+    if (!valid) {
+      throw new IllegalArgumentException(
+          "Invalid base64 value for binary header " + new String(name, US_ASCII));
+    }
+  }
+
+  private static boolean endsWithBinarySuffix(byte[] name) {
+    int start = name.length - BINARY_HEADER_SUFFIX_BYTES.length;
+    if (start < 0) {
+      return false;
+    }
+    for (int i = 0; i < BINARY_HEADER_SUFFIX_BYTES.length; i++) {
+      if (name[start + i] != BINARY_HEADER_SUFFIX_BYTES[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private int cap() {
     return namesAndValues != null ? namesAndValues.length : 0;
   }
@@ -340,6 +429,8 @@ public final class Metadata {
       if (!value.equals(stored)) {
         continue;
       }
+      // The entries are shifted, so the encoded values can no longer be tracked
+      decodeAll();
       int writeIdx = i * 2;
       int readIdx = (i + 1) * 2;
       int readLen = len() - readIdx;
@@ -366,13 +457,13 @@ public final class Metadata {
         ret.add(key.parseBytes(value(readIdx)));
         continue;
       }
-      name(writeIdx, name(readIdx));
-      value(writeIdx, value(readIdx));
+      move(readIdx, writeIdx);
       writeIdx++;
     }
     int newSize = writeIdx;
     // Multiply by two since namesAndValues is interleaved.
     Arrays.fill(namesAndValues, writeIdx * 2, len(), null);
+    clearTail(newSize);
     size = newSize;
     return ret;
   }
@@ -392,16 +483,25 @@ public final class Metadata {
       if (bytesEqual(key.asciiName(), name(readIdx))) {
         continue;
       }
-      name(writeIdx, name(readIdx));
-      value(writeIdx, value(readIdx));
+      move(readIdx, writeIdx);
       writeIdx++;
     }
     int newSize = writeIdx;
     // Multiply by two since namesAndValues is interleaved.
     Arrays.fill(namesAndValues, writeIdx * 2, len(), null);
+    clearTail(newSize);
     size = newSize;
   }
 
+  /**
+   * Forgets the encoded values after the entries have been compacted to {@code newSize}.
+   */
+  private void clearTail(int newSize) {
+    if (encodedValues != null) {
+      encodedValues.clear(newSize, size);
+    }
+  }
+
   /**
    * Serialize all the metadata entries.
    *
@@ -419,6 +519,7 @@ public final class Metadata {
    */
   @Nullable
   byte[][] serialize() {
+    decodeAll();
     if (len() == cap()) {
       return namesAndValues;
     }
@@ -442,6 +543,15 @@ public final class Metadata {
       expand(len() + other.len());
     }
     System.arraycopy(other.namesAndValues, 0, namesAndValues, len(), other.len());
+    if (other.encodedValues != null) {
+      if (encodedValues == null) {
+        encodedValues = new BitSet(size + other.size);
+      }
+      for (int i = other.encodedValues.nextSetBit(0); i >= 0;
+          i = other.encodedValues.nextSetBit(i + 1)) {
+        encodedValues.set(size + i);
+      }
+    }
     size += other.size;
   }
 
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads the codecs in {@code io.grpc.util} whose compression library is on the classpath, for
+ * {@link CompressorRegistry#registerOptionalCodecs} and {@link
+ * DecompressorRegistry#withOptionalCodecs}. The libraries are probed when this class is
+ * initialized, which only happens once an application asks for them.
+ */
+final class OptionalCodecs {
+  private static final Logger logger = Logger.getLogger(OptionalCodecs.class.getName());
+
+  private static final List<Codec> AVAILABLE = Collections.unmodifiableList(load());
+
+  /**
+   * Returns the optional codecs that are usable in this process, in order of preference.
+   */
+  static List<Codec> available() {
+    return AVAILABLE;
+  }
+
+  private static List<Codec> load() {
+    List<Codec> codecs = new ArrayList<Codec>();
+    // Class.forName(String) is used to remove the need for ProGuard configuration. Each codec is
+    // only loaded after its library, so a missing library never surfaces as a linkage error later.
+    addIfAvailable(codecs, "com.github.luben.zstd.ZstdOutputStream", "io.grpc.util.ZstdCodec");
+    addIfAvailable(codecs, "net.jpountz.lz4.LZ4FrameOutputStream", "io.grpc.util.Lz4Codec");
+    addIfAvailable(
+        codecs, "org.xerial.snappy.SnappyFramedOutputStream", "io.grpc.util.SnappyCodec");
+    return codecs;
+  }
+
+  private static void addIfAvailable(List<Codec> codecs, String libraryClass, String codecClass) {
+    try {
+      Class.forName(libraryClass);
+      Codec codec = Class.forName(codecClass).asSubclass(Codec.class).newInstance();
+      // The libraries load native code lazily, which may not exist for this platform. Never
+      // advertise an encoding that would fail on the first message.
+      checkRoundTrip(codec);
+      codecs.add(codec);
+    } catch (ClassNotFoundException ex) {
+      // The library is not on the classpath
+    } catch (Throwable t) {
+      logger.log(Level.FINE, "Unable to load " + codecClass, t);
+    }
+  }
+
+  private static void checkRoundTrip(Codec codec) throws Exception {
+    byte[] message = "grpc".getBytes("US-ASCII");
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    OutputStream os = codec.compress(compressed);
+    os.write(message);
+    os.close();
+    InputStream is = codec.decompress(new ByteArrayInputStream(compressed.toByteArray()));
+    byte[] decompressed = new byte[message.length];
+    int read = 0;
+    while (read < decompressed.length) {
+      int n = is.read(decompressed, read, decompressed.length - read);
+      if (n == -1) {
+        break;
+      }
+      read += n;
+    }
+    is.close();
+    if (!Arrays.equals(message, decompressed)) {
+      throw new IllegalStateException("Round trip failed for " + codec.getMessageEncoding());
+    }
+  }
+
+  private OptionalCodecs() {}
+}
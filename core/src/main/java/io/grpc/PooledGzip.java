@@ -0,0 +1,418 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.grpc;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Gzip streams backed by pooled {@link Deflater}s and {@link Inflater}s, used by
+ * {@link Codec.Gzip}.
+ *
+ * <p>{@link java.util.zip.GZIPOutputStream} and {@link java.util.zip.GZIPInputStream} allocate a
+ * native zlib stream per instance, whose memory is only reclaimed by finalization unless the
+ * stream is closed. Here each stream borrows a zlib stream and its buffer from a bounded pool and
+ * returns it when the stream is closed or, for decompression, fully read or failed. Decompression
+ * only borrows once the first byte is read, so messages dropped unread don't hold a zlib stream.
+ * Zlib streams that don't fit in the pool are {@code end()}ed immediately.
+ */
+final class PooledGzip {
+  private static final int GZIP_MAGIC = 0x8b1f;
+  private static final int CM_DEFLATE = 8;
+  private static final int FHCRC = 2;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+  private static final byte[] HEADER = new byte[] {
+      (byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8), CM_DEFLATE, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+  private static final int TRAILER_LENGTH = 8;
+
+  private static final int BUFFER_SIZE = 8192;
+  private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+
+  private static final ArrayBlockingQueue<DeflaterHolder> deflaters =
+      new ArrayBlockingQueue<DeflaterHolder>(POOL_SIZE);
+  private static final ArrayBlockingQueue<InflaterHolder> inflaters =
+      new ArrayBlockingQueue<InflaterHolder>(POOL_SIZE);
+
+  private PooledGzip() {
+  }
+
+  /**
+   * Returns a stream that gzips everything written to it into {@code out} at the given compression
+   * level. The stream must be closed to finish the gzip member and release its resources.
+   */
+  static OutputStream compress(OutputStream out, int level) throws IOException {
+    // Written before borrowing, so that a failed write doesn't lose a deflater.
+    out.write(HEADER);
+    DeflaterHolder holder = deflaters.poll();
+    if (holder == null) {
+      holder = new DeflaterHolder();
+    }
+    holder.deflater.setLevel(level);
+    return new GzipOutputStream(out, holder);
+  }
+
+  /**
+   * Returns a stream that gunzips {@code in}. Its resources are released once it reaches the end of
+   * the data, fails or is closed.
+   */
+  static InputStream decompress(InputStream in) {
+    return new GzipInputStream(in);
+  }
+
+  @VisibleForTesting
+  static int idleInflaters() {
+    return inflaters.size();
+  }
+
+  private static void release(DeflaterHolder holder) {
+    holder.deflater.reset();
+    holder.crc.reset();
+    if (!deflaters.offer(holder)) {
+      holder.deflater.end();
+    }
+  }
+
+  private static void release(InflaterHolder holder) {
+    holder.inflater.reset();
+    holder.crc.reset();
+    if (!inflaters.offer(holder)) {
+      holder.inflater.end();
+    }
+  }
+
+  private static final class DeflaterHolder {
+    final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    final CRC32 crc = new CRC32();
+    final byte[] buf = new byte[BUFFER_SIZE];
+  }
+
+  private static final class InflaterHolder {
+    final Inflater inflater = new Inflater(true);
+    final CRC32 crc = new CRC32();
+    final byte[] buf = new byte[BUFFER_SIZE];
+  }
+
+  private static final class GzipOutputStream extends OutputStream {
+    private final OutputStream out;
+    // null once closed
+    private DeflaterHolder holder;
+
+    GzipOutputStream(OutputStream out, DeflaterHolder holder) {
+      this.out = out;
+      this.holder = holder;
+    }
+
+    /**
+     * This is slow, don't call it.  If you care about write overhead, use a BufferedOutputStream.
+     */
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if (holder == null) {
+        throw new IOException("Stream closed");
+      }
+      if (len == 0) {
+        return;
+      }
+      Deflater deflater = holder.deflater;
+      deflater.setInput(b, off, len);
+      while (!deflater.needsInput()) {
+        deflate();
+      }
+      holder.crc.update(b, off, len);
+    }
+
+    private void deflate() throws IOException {
+      int count = holder.deflater.deflate(holder.buf, 0, holder.buf.length);
+      if (count > 0) {
+        out.write(holder.buf, 0, count);
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (holder == null) {
+        return;
+      }
+      try {
+        Deflater deflater = holder.deflater;
+        deflater.finish();
+        while (!deflater.finished()) {
+          deflate();
+        }
+        byte[] trailer = holder.buf;
+        writeIntLe((int) holder.crc.getValue(), trailer, 0);
+        writeIntLe((int) deflater.getBytesRead(), trailer, 4);
+        out.write(trailer, 0, TRAILER_LENGTH);
+      } finally {
+        release(holder);
+        holder = null;
+        out.close();
+      }
+    }
+
+    private static void writeIntLe(int value, byte[] b, int off) {
+      b[off] = (byte) value;
+      b[off + 1] = (byte) (value >> 8);
+      b[off + 2] = (byte) (value >> 16);
+      b[off + 3] = (byte) (value >> 24);
+    }
+  }
+
+  private static final class GzipInputStream extends InputStream {
+    private final InputStream in;
+    // Borrowed on the first read, and null again once the stream is done or closed
+    private InflaterHolder holder;
+    // Whether the end of the data was reached, or reading failed
+    private boolean done;
+    private boolean failed;
+    private boolean closed;
+    // Range of holder.buf that hasn't been handed to the inflater or consumed as header/trailer.
+    private int pos;
+    private int limit;
+    private boolean headerRead;
+    // Whether bytes read by readUByte() are part of a header, and so included in its checksum.
+    private boolean inHeader;
+
+    GzipInputStream(InputStream in) {
+      this.in = in;
+    }
+
+    /**
+     * This is slow, don't call it.  If you care about read overhead, use a BufferedInputStream.
+     */
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (closed) {
+        throw new IOException("Stream closed");
+      }
+      if (failed) {
+        throw new IOException("Stream failed");
+      }
+      if (done) {
+        return -1;
+      }
+      if (len == 0) {
+        return 0;
+      }
+      if (holder == null) {
+        holder = inflaters.poll();
+        if (holder == null) {
+          holder = new InflaterHolder();
+        }
+      }
+      boolean success = false;
+      try {
+        int count = inflate(b, off, len);
+        success = true;
+        return count;
+      } finally {
+        if (!success) {
+          // The message is likely to be dropped without being closed.
+          failed = true;
+          releaseHolder();
+        }
+      }
+    }
+
+    private int inflate(byte[] b, int off, int len) throws IOException {
+      try {
+        if (!headerRead) {
+          readHeader(false);
+          headerRead = true;
+        }
+        Inflater inflater = holder.inflater;
+        while (true) {
+          int count = inflater.inflate(b, off, len);
+          if (count > 0) {
+            holder.crc.update(b, off, count);
+            return count;
+          }
+          if (inflater.finished()) {
+            pos = limit - inflater.getRemaining();
+            readTrailer();
+            inflater.reset();
+            holder.crc.reset();
+            // Concatenated gzip members are decompressed as one stream.
+            if (!readHeader(true)) {
+              done = true;
+              releaseHolder();
+              return -1;
+            }
+          } else if (inflater.needsDictionary()) {
+            throw new ZipException("Inflater needs dictionary");
+          } else if (inflater.needsInput()) {
+            if (pos == limit) {
+              fill();
+            }
+            inflater.setInput(holder.buf, pos, limit - pos);
+            pos = limit;
+          }
+        }
+      } catch (DataFormatException e) {
+        String message = e.getMessage();
+        throw new ZipException(message != null ? message : "Invalid ZLIB data format");
+      }
+    }
+
+    /**
+     * Reads a gzip member header. Returns {@code false} if {@code eofAllowed} and the stream ended
+     * before the first byte.
+     */
+    private boolean readHeader(boolean eofAllowed) throws IOException {
+      if (pos == limit && !tryFill()) {
+        if (eofAllowed) {
+          return false;
+        }
+        throw new EOFException();
+      }
+      inHeader = true;
+      int magic = readUShortLe();
+      if (magic != GZIP_MAGIC) {
+        throw new ZipException("Not in GZIP format");
+      }
+      if (readUByte() != CM_DEFLATE) {
+        throw new ZipException("Unsupported compression method");
+      }
+      int flags = readUByte();
+      // MTIME, XFL and OS
+      skipBytes(6);
+      if ((flags & FEXTRA) == FEXTRA) {
+        skipBytes(readUShortLe());
+      }
+      if ((flags & FNAME) == FNAME) {
+        while (readUByte() != 0) {}
+      }
+      if ((flags & FCOMMENT) == FCOMMENT) {
+        while (readUByte() != 0) {}
+      }
+      if ((flags & FHCRC) == FHCRC) {
+        int expected = (int) holder.crc.getValue() & 0xffff;
+        if (readUShortLe() != expected) {
+          throw new ZipException("Corrupt GZIP header");
+        }
+      }
+      inHeader = false;
+      holder.crc.reset();
+      return true;
+    }
+
+    private void readTrailer() throws IOException {
+      long crc = readUIntLe();
+      long size = readUIntLe();
+      if (crc != holder.crc.getValue()
+          || size != (holder.inflater.getBytesWritten() & 0xffffffffL)) {
+        throw new ZipException("Corrupt GZIP trailer");
+      }
+    }
+
+    private long readUIntLe() throws IOException {
+      long low = readUShortLe();
+      return ((long) readUShortLe() << 16) | low;
+    }
+
+    private int readUShortLe() throws IOException {
+      int low = readUByte();
+      return (readUByte() << 8) | low;
+    }
+
+    private int readUByte() throws IOException {
+      if (pos == limit) {
+        fill();
+      }
+      int b = holder.buf[pos++] & 0xff;
+      if (inHeader) {
+        holder.crc.update(b);
+      }
+      return b;
+    }
+
+    private void skipBytes(int count) throws IOException {
+      while (count-- > 0) {
+        readUByte();
+      }
+    }
+
+    private void fill() throws IOException {
+      if (!tryFill()) {
+        throw new EOFException("Unexpected end of ZLIB input stream");
+      }
+    }
+
+    private boolean tryFill() throws IOException {
+      int count = in.read(holder.buf, 0, holder.buf.length);
+      if (count == -1) {
+        return false;
+      }
+      pos = 0;
+      limit = count;
+      return true;
+    }
+
+    @Override
+    public int available() throws IOException {
+      if (closed) {
+        throw new IOException("Stream closed");
+      }
+      return done || failed ? 0 : 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      releaseHolder();
+      in.close();
+    }
+
+    private void releaseHolder() {
+      if (holder != null) {
+        release(holder);
+        holder = null;
+      }
+    }
+  }
+}
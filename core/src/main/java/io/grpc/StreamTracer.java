@@ -87,6 +87,16 @@ public abstract class StreamTracer {
   public void outboundMessageSent(int seqNo, long optionalWireSize, long optionalUncompressedSize) {
   }
 
+  /**
+   * An outbound message is sent uncompressed even though the stream compresses messages, because
+   * it is too small or its method's messages have not been compressing well.
+   *
+   * @param seqNo the sequential number of the message within the stream, starting from 0.  It can
+   *              be used to correlate with {@link #outboundMessage(int)} for the same message.
+   */
+  public void outboundMessageCompressionSkipped(int seqNo) {
+  }
+
   /**
    * An inbound message has been fully read from the transport.
    *
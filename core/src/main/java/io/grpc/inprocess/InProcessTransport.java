@@ -27,6 +27,7 @@ import io.grpc.Grpc;
 import io.grpc.Metadata;
 import io.grpc.MethodDescriptor;
 import io.grpc.Status;
+import io.grpc.internal.AdaptiveCompressionPolicy;
 import io.grpc.internal.ClientStream;
 import io.grpc.internal.ClientStreamListener;
 import io.grpc.internal.ConnectionClientTransport;
@@ -40,6 +41,7 @@ import io.grpc.internal.ServerTransport;
 import io.grpc.internal.ServerTransportListener;
 import io.grpc.internal.StatsTraceContext;
 import io.grpc.internal.StreamListener;
+import io.grpc.internal.TransportTracer;
 import java.io.InputStream;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -204,6 +206,11 @@ final class InProcessTransport implements ServerTransport, ConnectionClientTrans
     return Attributes.EMPTY;
   }
 
+  @Override
+  public TransportTracer getTransportTracer() {
+    return null;
+  }
+
   @Override
   public ScheduledExecutorService getScheduledExecutorService() {
     return serverScheduler;
@@ -413,6 +420,12 @@ final class InProcessTransport implements ServerTransport, ConnectionClientTrans
         // noop
       }
 
+      @Override
+      public void setCompressionPolicy(AdaptiveCompressionPolicy.MethodPolicy policy) {}
+
+      @Override
+      public void deframeInApplicationThread() {}
+
       @Override
       public void setCompressor(Compressor compressor) {}
 
@@ -566,6 +579,12 @@ final class InProcessTransport implements ServerTransport, ConnectionClientTrans
       @Override
       public void setMessageCompression(boolean enable) {}
 
+      @Override
+      public void setCompressionPolicy(AdaptiveCompressionPolicy.MethodPolicy policy) {}
+
+      @Override
+      public void deframeInApplicationThread() {}
+
       @Override
       public void setAuthority(String string) {
         InProcessStream.this.authority = string;
@@ -285,6 +285,7 @@ public abstract class AbstractClientStream extends AbstractStream
             new Object[]{status, trailers});
         return;
       }
+      statsTraceCtx.clientInboundTrailers(trailers);
       transportReportStatus(status, false, trailers);
     }
 
@@ -412,6 +413,11 @@ public abstract class AbstractClientStream extends AbstractStream
       return this;
     }
 
+    @Override
+    public Framer setCompressionPolicy(AdaptiveCompressionPolicy.MethodPolicy policy) {
+      return this;
+    }
+
     // TODO(zsurocking): support this
     @Override
     public void setMaxOutboundMessageSize(int maxSize) {}
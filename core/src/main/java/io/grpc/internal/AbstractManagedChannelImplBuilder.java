@@ -41,7 +41,9 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
@@ -122,6 +124,19 @@ public abstract class AbstractManagedChannelImplBuilder
 
   CompressorRegistry compressorRegistry = DEFAULT_COMPRESSOR_REGISTRY;
 
+  @Nullable
+  AdaptiveCompressionPolicy compressionPolicy;
+
+  boolean deframeInApplicationThread;
+
+  final Map<String, Boolean> deframeInApplicationThreadMethods = new HashMap<String, Boolean>();
+
+  ConnectionPoolPolicy connectionPoolPolicy = ConnectionPoolPolicy.SINGLE_CONNECTION;
+
+  long connectionAttemptDelayNanos;
+
+  long maxConnectionAgeNanos;
+
   long idleTimeoutMillis = IDLE_MODE_DEFAULT_TIMEOUT_MILLIS;
 
   private int maxInboundMessageSize = GrpcUtil.DEFAULT_MAX_MESSAGE_SIZE;
@@ -247,6 +262,97 @@ public abstract class AbstractManagedChannelImplBuilder
     return thisT();
   }
 
+  /**
+   * Only compresses outbound messages that are likely to benefit from it, when per-message
+   * compression is enabled on a call. Messages smaller than {@code minMessageSize} bytes are sent
+   * uncompressed, as are most messages of methods whose messages on average compress to more than
+   * {@code maxCompressionRatio} of their size. By default every message is compressed.
+   */
+  public final T adaptiveMessageCompression(int minMessageSize, double maxCompressionRatio) {
+    this.compressionPolicy = new AdaptiveCompressionPolicy(minMessageSize, maxCompressionRatio);
+    return thisT();
+  }
+
+  /**
+   * Decompresses and deframes inbound messages in the application executor instead of the
+   * transport thread, so that large or compressed messages do not delay the other streams on the
+   * same connection. Messages are then handed to the application later than with transport
+   * thread deframing, which usually costs throughput for small, uncompressed messages. Disabled by
+   * default.
+   */
+  public final T deframeInApplicationThread(boolean enable) {
+    deframeInApplicationThread = enable;
+    return thisT();
+  }
+
+  /**
+   * Overrides {@link #deframeInApplicationThread(boolean)} for one method.
+   *
+   * @param fullMethodName the method's full name, as in
+   *     {@link io.grpc.MethodDescriptor#getFullMethodName}
+   */
+  public final T deframeInApplicationThread(String fullMethodName, boolean enable) {
+    deframeInApplicationThreadMethods.put(
+        Preconditions.checkNotNull(fullMethodName, "fullMethodName"), enable);
+    return thisT();
+  }
+
+  /**
+   * Allows each subchannel to open up to {@code maxConnections} connections to its backend, to
+   * go beyond the stream concurrency and throughput of a single connection. Another connection is
+   * opened when every open connection has at least {@code maxConcurrentStreamsPerConnection}
+   * active streams, or started at least {@code maxStreamsPerSecondPerConnection} streams in the
+   * last second. New streams go to the connection with the fewest active streams. Additional
+   * connections are closed when the subchannel disconnects or the channel enters idle mode.
+   *
+   * <p>By default a single connection is used per subchannel.
+   */
+  public final T connectionPool(int maxConnections, int maxConcurrentStreamsPerConnection,
+      int maxStreamsPerSecondPerConnection) {
+    connectionPoolPolicy = new ConnectionPoolPolicy(
+        maxConnections, maxConcurrentStreamsPerConnection, maxStreamsPerSecondPerConnection);
+    return thisT();
+  }
+
+  /**
+   * Sets how long to wait for a connection attempt to one address of a server before also trying
+   * its next address, like Happy Eyeballs (RFC 8305) does. The first connection to become ready is
+   * used and the other attempts are abandoned, so a server address that does not respond does not
+   * delay connecting by a full connect timeout. RFC 8305 recommends 250 milliseconds.
+   *
+   * <p>By default, or if {@code delay} is zero, the next address is only tried once connecting to
+   * the previous one failed.
+   */
+  public final T connectionAttemptDelay(long delay, TimeUnit unit) {
+    checkArgument(delay >= 0, "delay must not be negative");
+    connectionAttemptDelayNanos = unit.toNanos(delay);
+    return thisT();
+  }
+
+  /**
+   * Replaces connections in the background, so that the handshake of a new connection does not
+   * delay RPCs. Once a connection is {@code maxConnectionAge} old, a replacement connection is
+   * opened to the same address, new RPCs move to it once it is ready, and the old connection is
+   * gracefully shut down. Setting this slightly below the server's max connection age replaces
+   * connections before the server sends GOAWAY. If the server closes a connection while its
+   * replacement is being opened, the replacement becomes the new connection.
+   *
+   * <p>When the server closes a connection, e.g. with GOAWAY, a new connection to the same address
+   * is opened right away, instead of by the next RPC. RPCs started meanwhile wait for it, since
+   * the closed connection can't take them. This is only done for connections that were ready for
+   * longer than the reconnect backoff; others are reconnected on demand, as usual, and increase
+   * the backoff.
+   *
+   * <p>With {@code Long.MAX_VALUE}, connections are only reconnected when the server closes them.
+   * By default, connections are neither replaced nor reconnected in the background.
+   */
+  public final T maxConnectionAge(long maxConnectionAge, TimeUnit unit) {
+    checkArgument(maxConnectionAge > 0, "maxConnectionAge must be positive");
+    maxConnectionAgeNanos = maxConnectionAge == Long.MAX_VALUE
+        ? Long.MAX_VALUE : unit.toNanos(maxConnectionAge);
+    return thisT();
+  }
+
   @Override
   public final T userAgent(@Nullable String userAgent) {
     this.userAgent = userAgent;
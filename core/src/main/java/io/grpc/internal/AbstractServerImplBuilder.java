@@ -39,7 +39,9 @@ import io.grpc.ServerTransportFilter;
 import io.opencensus.trace.Tracing;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executor;
 import javax.annotation.Nullable;
 
@@ -96,6 +98,13 @@ public abstract class AbstractServerImplBuilder<T extends AbstractServerImplBuil
 
   CompressorRegistry compressorRegistry = DEFAULT_COMPRESSOR_REGISTRY;
 
+  @Nullable
+  AdaptiveCompressionPolicy compressionPolicy;
+
+  boolean deframeInApplicationThread;
+
+  final Map<String, Boolean> deframeInApplicationThreadMethods = new HashMap<String, Boolean>();
+
   @Nullable
   private StatsContextFactory statsFactory;
 
@@ -179,6 +188,41 @@ public abstract class AbstractServerImplBuilder<T extends AbstractServerImplBuil
     return thisT();
   }
 
+  /**
+   * Only compresses outbound messages that are likely to benefit from it, when per-message
+   * compression is enabled on a call. Messages smaller than {@code minMessageSize} bytes are sent
+   * uncompressed, as are most messages of methods whose messages on average compress to more than
+   * {@code maxCompressionRatio} of their size. By default every message is compressed.
+   */
+  public final T adaptiveMessageCompression(int minMessageSize, double maxCompressionRatio) {
+    compressionPolicy = new AdaptiveCompressionPolicy(minMessageSize, maxCompressionRatio);
+    return thisT();
+  }
+
+  /**
+   * Decompresses and deframes inbound messages in the application executor instead of the
+   * transport thread, so that large or compressed messages do not delay the other streams on the
+   * same connection. Messages are then handed to the application later than with transport
+   * thread deframing, which usually costs throughput for small, uncompressed messages. Disabled by
+   * default.
+   */
+  public final T deframeInApplicationThread(boolean enable) {
+    deframeInApplicationThread = enable;
+    return thisT();
+  }
+
+  /**
+   * Overrides {@link #deframeInApplicationThread(boolean)} for one method.
+   *
+   * @param fullMethodName the method's full name, as in
+   *     {@link io.grpc.MethodDescriptor#getFullMethodName}
+   */
+  public final T deframeInApplicationThread(String fullMethodName, boolean enable) {
+    deframeInApplicationThreadMethods.put(
+        checkNotNull(fullMethodName, "fullMethodName"), enable);
+    return thisT();
+  }
+
   /**
    * Override the default stats implementation.
    */
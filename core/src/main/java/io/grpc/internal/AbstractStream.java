@@ -45,6 +45,16 @@ public abstract class AbstractStream implements Stream {
     framer().setMessageCompression(enable);
   }
 
+  @Override
+  public final void setCompressionPolicy(AdaptiveCompressionPolicy.MethodPolicy policy) {
+    framer().setCompressionPolicy(policy);
+  }
+
+  @Override
+  public final void deframeInApplicationThread() {
+    transportState().deframeInApplicationThread();
+  }
+
   @Override
   public final void writeMessage(InputStream message) {
     checkNotNull(message, "message");
@@ -103,9 +113,8 @@ public abstract class AbstractStream implements Stream {
      */
     @VisibleForTesting
     public static final int DEFAULT_ONREADY_THRESHOLD = 32 * 1024;
-    private static final boolean DEFRAME_IN_APPLICATION_THREAD = false;
 
-    private final Deframer deframer;
+    private Deframer deframer;
     private final Object onReadyLock = new Object();
     private final StatsTraceContext statsTraceCtx;
 
@@ -130,26 +139,25 @@ public abstract class AbstractStream implements Stream {
 
     protected TransportState(int maxMessageSize, StatsTraceContext statsTraceCtx) {
       this.statsTraceCtx = checkNotNull(statsTraceCtx, "statsTraceCtx");
-      if (DEFRAME_IN_APPLICATION_THREAD) {
-        deframer =
-            new ApplicationThreadDeframer(
-                this,
-                Codec.Identity.NONE,
-                maxMessageSize,
-                statsTraceCtx,
-                getClass().getName(),
-                this);
-      } else {
-        deframer =
-            new MessageDeframer(
-                this, Codec.Identity.NONE, maxMessageSize, statsTraceCtx, getClass().getName());
-      }
+      deframer = new MessageDeframer(
+          this, Codec.Identity.NONE, maxMessageSize, statsTraceCtx, getClass().getName());
     }
 
     final void setMaxInboundMessageSize(int maxSize) {
       deframer.setMaxInboundMessageSize(maxSize);
     }
 
+    /**
+     * Switches to deframing, and decompressing, inbound messages in the application thread that
+     * consumes them, via {@link ApplicationThreadDeframer}. Must be called before any inbound data
+     * is deframed.
+     */
+    final void deframeInApplicationThread() {
+      if (deframer instanceof MessageDeframer) {
+        deframer = new ApplicationThreadDeframer(this, (MessageDeframer) deframer, this);
+      }
+    }
+
     /**
      * Override this method to provide a stream listener.
      */
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.grpc.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Decides which outbound messages are worth compressing when per-message compression is enabled.
+ * Messages smaller than a minimum size are never compressed. For larger messages, the compression
+ * ratio achieved is tracked per method, and compression is turned off for a method while its
+ * messages don't compress well, in which case only a sample of its messages is compressed so that
+ * compression is turned back on if the payloads change.
+ *
+ * <p>Skipped messages are sent with the per-message compressed flag unset, which every receiver
+ * must accept regardless of the call's negotiated encoding.
+ */
+@ThreadSafe
+public final class AdaptiveCompressionPolicy {
+  /**
+   * While compression is off for a method, one of this many messages is compressed to re-measure
+   * the method's compression ratio.
+   */
+  @VisibleForTesting
+  static final int SAMPLE_INTERVAL = 32;
+
+  /**
+   * Weight of the latest message in a method's moving average compression ratio. The average
+   * starts at the ratio of the method's first compressed message.
+   */
+  private static final double RATIO_WEIGHT = 0.125;
+
+  private final int minMessageSize;
+  private final double maxCompressionRatio;
+  private final ConcurrentMap<String, MethodPolicy> methodPolicies =
+      new ConcurrentHashMap<String, MethodPolicy>();
+
+  /**
+   * Creates a policy.
+   *
+   * @param minMessageSize messages with fewer bytes than this are not compressed
+   * @param maxCompressionRatio compression is turned off for methods whose compressed messages are
+   *     on average larger than this fraction of their uncompressed size
+   */
+  public AdaptiveCompressionPolicy(int minMessageSize, double maxCompressionRatio) {
+    checkArgument(minMessageSize >= 0, "minMessageSize must be non-negative");
+    checkArgument(maxCompressionRatio > 0, "maxCompressionRatio must be positive");
+    this.minMessageSize = minMessageSize;
+    this.maxCompressionRatio = maxCompressionRatio;
+  }
+
+  /**
+   * Returns the policy for the given method, shared by all of its streams.
+   */
+  public MethodPolicy forMethod(String fullMethodName) {
+    MethodPolicy policy = methodPolicies.get(fullMethodName);
+    if (policy == null) {
+      policy = new MethodPolicy();
+      MethodPolicy existing = methodPolicies.putIfAbsent(fullMethodName, policy);
+      if (existing != null) {
+        policy = existing;
+      }
+    }
+    return policy;
+  }
+
+  /**
+   * The compression policy of a single method.
+   */
+  @ThreadSafe
+  public final class MethodPolicy {
+    private final AtomicInteger skippedSinceSample = new AtomicInteger();
+    @GuardedBy("this")
+    private double averageRatio = -1;
+    private volatile boolean compressionEnabled = true;
+
+    private MethodPolicy() {
+    }
+
+    /**
+     * Returns whether a message of the given length should be compressed.
+     *
+     * @param messageLength the uncompressed length of the message, or -1 if unknown
+     */
+    boolean shouldCompress(int messageLength) {
+      if (messageLength != -1 && messageLength < minMessageSize) {
+        return false;
+      }
+      if (compressionEnabled) {
+        return true;
+      }
+      if (skippedSinceSample.incrementAndGet() >= SAMPLE_INTERVAL) {
+        skippedSinceSample.set(0);
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * Records the result of compressing a message.
+     */
+    void recordCompressed(long uncompressedSize, long compressedSize) {
+      if (uncompressedSize <= 0) {
+        return;
+      }
+      double ratio = (double) compressedSize / uncompressedSize;
+      synchronized (this) {
+        if (averageRatio < 0) {
+          averageRatio = ratio;
+        } else {
+          averageRatio += RATIO_WEIGHT * (ratio - averageRatio);
+        }
+        compressionEnabled = averageRatio <= maxCompressionRatio;
+      }
+    }
+
+    @VisibleForTesting
+    boolean isCompressionEnabled() {
+      return compressionEnabled;
+    }
+  }
+}
@@ -43,15 +43,17 @@ public class ApplicationThreadDeframer implements Deframer, MessageDeframer.List
   /** Queue for messages returned by the deframer when deframing in the application thread. */
   private final Queue<InputStream> messageReadQueue = new LinkedList<InputStream>();
 
+  /**
+   * Takes over {@code deframer}, which must not have deframed any data yet, keeping its
+   * decompressor and maximum message size. The deframer's events are forwarded to
+   * {@code listener}.
+   */
   ApplicationThreadDeframer(
       MessageDeframer.Listener listener,
-      Decompressor decompressor,
-      int maxMessageSize,
-      StatsTraceContext statsTraceCtx,
-      String debugString,
+      MessageDeframer deframer,
       TransportExecutor transportExecutor) {
-    this.deframer =
-        new MessageDeframer(this, decompressor, maxMessageSize, statsTraceCtx, debugString);
+    this.deframer = checkNotNull(deframer, "deframer");
+    deframer.setListener(this);
     this.storedListener = checkNotNull(listener, "listener");
     this.transportExecutor = checkNotNull(transportExecutor, "transportExecutor");
   }
@@ -124,6 +126,11 @@ public class ApplicationThreadDeframer implements Deframer, MessageDeframer.List
               @Override
               public void run() {
                 deframer.close();
+                // Messages that weren't delivered yet won't be, release what they hold.
+                InputStream message;
+                while ((message = messageReadQueue.poll()) != null) {
+                  GrpcUtil.closeQuietly(message);
+                }
               }
             }));
   }
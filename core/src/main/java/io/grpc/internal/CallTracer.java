@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the calls of a channel, subchannel or server. Cheap enough to be updated on every call.
+ */
+final class CallTracer {
+  private final AtomicLong callsStarted = new AtomicLong();
+  private final AtomicLong callsSucceeded = new AtomicLong();
+  private final AtomicLong callsFailed = new AtomicLong();
+  private volatile long lastCallStartedMillis;
+
+  void reportCallStarted() {
+    callsStarted.incrementAndGet();
+    lastCallStartedMillis = System.currentTimeMillis();
+  }
+
+  void reportCallEnded(boolean success) {
+    if (success) {
+      callsSucceeded.incrementAndGet();
+    } else {
+      callsFailed.incrementAndGet();
+    }
+  }
+
+  void updateBuilder(Channelz.ChannelStats.Builder builder) {
+    builder
+        .setCallsStarted(callsStarted.get())
+        .setCallsSucceeded(callsSucceeded.get())
+        .setCallsFailed(callsFailed.get())
+        .setLastCallStartedMillis(lastCallStartedMillis);
+  }
+
+  void updateBuilder(Channelz.ServerStats.Builder builder) {
+    builder
+        .setCallsStarted(callsStarted.get())
+        .setCallsSucceeded(callsSucceeded.get())
+        .setCallsFailed(callsFailed.get())
+        .setLastCallStartedMillis(lastCallStartedMillis);
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.net.SocketAddress;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link ClientTransportFactory} whose transports report their streams, and how they end, to the
+ * {@link CallTracer} of a subchannel. The streams are counted by the {@link TransportTracer} of
+ * the transport, so neither the transports nor their streams are wrapped. Transports without a
+ * tracer are not counted.
+ *
+ * <p>It does not own the factory it wraps, which is not closed with it.
+ */
+final class CallTracingTransportFactory implements ClientTransportFactory {
+  private final ClientTransportFactory delegate;
+  private final CallTracer callTracer;
+
+  CallTracingTransportFactory(ClientTransportFactory delegate, CallTracer callTracer) {
+    this.delegate = checkNotNull(delegate, "delegate");
+    this.callTracer = checkNotNull(callTracer, "callTracer");
+  }
+
+  @Override
+  public ConnectionClientTransport newClientTransport(
+      SocketAddress serverAddress, String authority, @Nullable String userAgent) {
+    ConnectionClientTransport transport =
+        delegate.newClientTransport(serverAddress, authority, userAgent);
+    // Before the transport is started, so before it creates any stream
+    TransportTracer transportTracer = transport.getTransportTracer();
+    if (transportTracer != null) {
+      transportTracer.setCallTracer(callTracer);
+    }
+    return transport;
+  }
+
+  @Override
+  public ScheduledExecutorService getScheduledExecutorService() {
+    return delegate.getScheduledExecutorService();
+  }
+
+  @Override
+  public void close() {}
+}
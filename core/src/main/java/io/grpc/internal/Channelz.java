@@ -0,0 +1,434 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.grpc.ConnectivityState;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * A registry of the channels, subchannels, servers and sockets of the process, for runtime
+ * introspection. They add themselves when created and remove themselves once terminated, and are
+ * looked up by the id of their {@link LogId}. They are only weakly referenced, so that orphaned
+ * channels can still be garbage collected.
+ */
+public final class Channelz {
+  private static final Channelz INSTANCE = new Channelz();
+
+  private final Registry<Instrumented<ChannelStats>> rootChannels =
+      new Registry<Instrumented<ChannelStats>>();
+  private final Registry<Instrumented<ChannelStats>> subchannels =
+      new Registry<Instrumented<ChannelStats>>();
+  private final Registry<Instrumented<ServerStats>> servers =
+      new Registry<Instrumented<ServerStats>>();
+  private final Registry<Instrumented<SocketStats>> sockets =
+      new Registry<Instrumented<SocketStats>>();
+
+  @VisibleForTesting
+  public Channelz() {}
+
+  /**
+   * Returns the registry of the process.
+   */
+  public static Channelz instance() {
+    return INSTANCE;
+  }
+
+  public void addRootChannel(Instrumented<ChannelStats> channel) {
+    rootChannels.add(channel);
+  }
+
+  public void addSubchannel(Instrumented<ChannelStats> subchannel) {
+    subchannels.add(subchannel);
+  }
+
+  public void addServer(Instrumented<ServerStats> server) {
+    servers.add(server);
+  }
+
+  public void addSocket(Instrumented<SocketStats> socket) {
+    sockets.add(socket);
+  }
+
+  public void removeRootChannel(Instrumented<ChannelStats> channel) {
+    rootChannels.remove(channel);
+  }
+
+  public void removeSubchannel(Instrumented<ChannelStats> subchannel) {
+    subchannels.remove(subchannel);
+  }
+
+  public void removeServer(Instrumented<ServerStats> server) {
+    servers.remove(server);
+  }
+
+  public void removeSocket(Instrumented<SocketStats> socket) {
+    sockets.remove(socket);
+  }
+
+  /**
+   * Returns at most {@code maxResults} root channels, in increasing id order, starting with the
+   * channel with id {@code fromId} if any.
+   */
+  public List<Instrumented<ChannelStats>> getRootChannels(long fromId, int maxResults) {
+    return rootChannels.page(fromId, maxResults);
+  }
+
+  /**
+   * Returns at most {@code maxResults} servers, in increasing id order, starting with the server
+   * with id {@code fromId} if any.
+   */
+  public List<Instrumented<ServerStats>> getServers(long fromId, int maxResults) {
+    return servers.page(fromId, maxResults);
+  }
+
+  @Nullable
+  public Instrumented<ChannelStats> getRootChannel(long id) {
+    return rootChannels.get(id);
+  }
+
+  @Nullable
+  public Instrumented<ChannelStats> getSubchannel(long id) {
+    return subchannels.get(id);
+  }
+
+  @Nullable
+  public Instrumented<ServerStats> getServer(long id) {
+    return servers.get(id);
+  }
+
+  @Nullable
+  public Instrumented<SocketStats> getSocket(long id) {
+    return sockets.get(id);
+  }
+
+  /**
+   * Returns the number of root channel entries, including those garbage collected but not pruned
+   * yet.
+   */
+  @VisibleForTesting
+  int rootChannelEntries() {
+    return rootChannels.size();
+  }
+
+  private static final class Registry<T extends Instrumented<?>> {
+    private final ConcurrentNavigableMap<Long, EntryReference<T>> entries =
+        new ConcurrentSkipListMap<Long, EntryReference<T>>();
+    private final ReferenceQueue<T> refQueue = new ReferenceQueue<T>();
+
+    void add(T instrumented) {
+      pruneCollected();
+      long id = instrumented.getLogId().getId();
+      entries.put(id, new EntryReference<T>(id, instrumented, refQueue));
+    }
+
+    void remove(T instrumented) {
+      long id = instrumented.getLogId().getId();
+      EntryReference<T> ref = entries.get(id);
+      if (ref != null && ref.get() == instrumented) {
+        entries.remove(id, ref);
+      }
+    }
+
+    @Nullable
+    T get(long id) {
+      EntryReference<T> ref = entries.get(id);
+      if (ref == null) {
+        return null;
+      }
+      T instrumented = ref.get();
+      if (instrumented == null) {
+        // Garbage collected without being removed
+        entries.remove(id, ref);
+      }
+      return instrumented;
+    }
+
+    List<T> page(long fromId, int maxResults) {
+      checkArgument(maxResults > 0, "maxResults must be positive");
+      List<T> page = new ArrayList<T>();
+      for (Map.Entry<Long, EntryReference<T>> entry : entries.tailMap(fromId).entrySet()) {
+        if (page.size() == maxResults) {
+          break;
+        }
+        T instrumented = entry.getValue().get();
+        if (instrumented == null) {
+          entries.remove(entry.getKey(), entry.getValue());
+        } else {
+          page.add(instrumented);
+        }
+      }
+      return page;
+    }
+
+    /**
+     * Removes the entries garbage collected without being removed, so that a process creating
+     * entities it never looks up does not accumulate them.
+     */
+    private void pruneCollected() {
+      Reference<? extends T> ref;
+      while ((ref = refQueue.poll()) != null) {
+        EntryReference<?> entry = (EntryReference<?>) ref;
+        entries.remove(entry.id, entry);
+      }
+    }
+
+    int size() {
+      return entries.size();
+    }
+  }
+
+  private static final class EntryReference<T> extends WeakReference<T> {
+    final long id;
+
+    EntryReference(long id, T referent, ReferenceQueue<T> queue) {
+      super(referent, queue);
+      this.id = id;
+    }
+  }
+
+  /**
+   * The statistics of a channel or subchannel.
+   */
+  @Immutable
+  public static final class ChannelStats {
+    public final String target;
+    @Nullable
+    public final ConnectivityState state;
+    public final long callsStarted;
+    public final long callsSucceeded;
+    public final long callsFailed;
+    /** In milliseconds since the epoch, or {@code 0} if no call was started. */
+    public final long lastCallStartedMillis;
+    /** The subchannels of a channel, empty for a subchannel. */
+    public final List<LogId> subchannels;
+    /** The sockets of a subchannel, empty for a channel. */
+    public final List<LogId> sockets;
+
+    private ChannelStats(Builder builder) {
+      this.target = checkNotNull(builder.target, "target");
+      this.state = builder.state;
+      this.callsStarted = builder.callsStarted;
+      this.callsSucceeded = builder.callsSucceeded;
+      this.callsFailed = builder.callsFailed;
+      this.lastCallStartedMillis = builder.lastCallStartedMillis;
+      this.subchannels = Collections.unmodifiableList(new ArrayList<LogId>(builder.subchannels));
+      this.sockets = Collections.unmodifiableList(new ArrayList<LogId>(builder.sockets));
+    }
+
+    public static final class Builder {
+      private String target;
+      private ConnectivityState state;
+      private long callsStarted;
+      private long callsSucceeded;
+      private long callsFailed;
+      private long lastCallStartedMillis;
+      private List<LogId> subchannels = Collections.emptyList();
+      private List<LogId> sockets = Collections.emptyList();
+
+      public Builder setTarget(String target) {
+        this.target = target;
+        return this;
+      }
+
+      public Builder setState(@Nullable ConnectivityState state) {
+        this.state = state;
+        return this;
+      }
+
+      public Builder setCallsStarted(long callsStarted) {
+        this.callsStarted = callsStarted;
+        return this;
+      }
+
+      public Builder setCallsSucceeded(long callsSucceeded) {
+        this.callsSucceeded = callsSucceeded;
+        return this;
+      }
+
+      public Builder setCallsFailed(long callsFailed) {
+        this.callsFailed = callsFailed;
+        return this;
+      }
+
+      public Builder setLastCallStartedMillis(long lastCallStartedMillis) {
+        this.lastCallStartedMillis = lastCallStartedMillis;
+        return this;
+      }
+
+      public Builder setSubchannels(List<LogId> subchannels) {
+        this.subchannels = checkNotNull(subchannels, "subchannels");
+        return this;
+      }
+
+      public Builder setSockets(List<LogId> sockets) {
+        this.sockets = checkNotNull(sockets, "sockets");
+        return this;
+      }
+
+      public ChannelStats build() {
+        return new ChannelStats(this);
+      }
+    }
+  }
+
+  /**
+   * The statistics of a server.
+   */
+  @Immutable
+  public static final class ServerStats {
+    public final long callsStarted;
+    public final long callsSucceeded;
+    public final long callsFailed;
+    /** In milliseconds since the epoch, or {@code 0} if no call was started. */
+    public final long lastCallStartedMillis;
+    /** The sockets accepted by the server that are not terminated. */
+    public final List<LogId> sockets;
+
+    private ServerStats(Builder builder) {
+      this.callsStarted = builder.callsStarted;
+      this.callsSucceeded = builder.callsSucceeded;
+      this.callsFailed = builder.callsFailed;
+      this.lastCallStartedMillis = builder.lastCallStartedMillis;
+      this.sockets = Collections.unmodifiableList(new ArrayList<LogId>(builder.sockets));
+    }
+
+    public static final class Builder {
+      private long callsStarted;
+      private long callsSucceeded;
+      private long callsFailed;
+      private long lastCallStartedMillis;
+      private List<LogId> sockets = Collections.emptyList();
+
+      public Builder setCallsStarted(long callsStarted) {
+        this.callsStarted = callsStarted;
+        return this;
+      }
+
+      public Builder setCallsSucceeded(long callsSucceeded) {
+        this.callsSucceeded = callsSucceeded;
+        return this;
+      }
+
+      public Builder setCallsFailed(long callsFailed) {
+        this.callsFailed = callsFailed;
+        return this;
+      }
+
+      public Builder setLastCallStartedMillis(long lastCallStartedMillis) {
+        this.lastCallStartedMillis = lastCallStartedMillis;
+        return this;
+      }
+
+      public Builder setSockets(List<LogId> sockets) {
+        this.sockets = checkNotNull(sockets, "sockets");
+        return this;
+      }
+
+      public ServerStats build() {
+        return new ServerStats(this);
+      }
+    }
+  }
+
+  /**
+   * The statistics of a transport, as counted by its {@link TransportTracer}. Times are in
+   * milliseconds since the epoch, or {@code 0} if the event did not happen yet.
+   */
+  @Immutable
+  public static final class TransportStats {
+    public final long streamsStarted;
+    public final long lastLocalStreamCreatedMillis;
+    public final long lastRemoteStreamCreatedMillis;
+    public final long streamsSucceeded;
+    public final long streamsFailed;
+    public final long messagesSent;
+    public final long messagesReceived;
+    /** The bytes of the messages sent, as framed on the wire. */
+    public final long bytesSent;
+    /** The bytes of the messages received, as framed on the wire. */
+    public final long bytesReceived;
+    public final long lastMessageSentMillis;
+    public final long lastMessageReceivedMillis;
+    /** The bytes the remote peer may send on the connection, or {@code -1} if unknown. */
+    public final long localFlowControlWindow;
+    /** The bytes that may be sent to the remote peer on the connection, or {@code -1}. */
+    public final long remoteFlowControlWindow;
+
+    TransportStats(
+        long streamsStarted,
+        long lastLocalStreamCreatedMillis,
+        long lastRemoteStreamCreatedMillis,
+        long streamsSucceeded,
+        long streamsFailed,
+        long messagesSent,
+        long messagesReceived,
+        long bytesSent,
+        long bytesReceived,
+        long lastMessageSentMillis,
+        long lastMessageReceivedMillis,
+        long localFlowControlWindow,
+        long remoteFlowControlWindow) {
+      this.streamsStarted = streamsStarted;
+      this.lastLocalStreamCreatedMillis = lastLocalStreamCreatedMillis;
+      this.lastRemoteStreamCreatedMillis = lastRemoteStreamCreatedMillis;
+      this.streamsSucceeded = streamsSucceeded;
+      this.streamsFailed = streamsFailed;
+      this.messagesSent = messagesSent;
+      this.messagesReceived = messagesReceived;
+      this.bytesSent = bytesSent;
+      this.bytesReceived = bytesReceived;
+      this.lastMessageSentMillis = lastMessageSentMillis;
+      this.lastMessageReceivedMillis = lastMessageReceivedMillis;
+      this.localFlowControlWindow = localFlowControlWindow;
+      this.remoteFlowControlWindow = remoteFlowControlWindow;
+    }
+  }
+
+  /**
+   * The statistics of a socket, that is a connection of a client or server transport.
+   */
+  @Immutable
+  public static final class SocketStats {
+    public final TransportStats data;
+    @Nullable
+    public final SocketAddress local;
+    @Nullable
+    public final SocketAddress remote;
+
+    public SocketStats(
+        TransportStats data, @Nullable SocketAddress local, @Nullable SocketAddress remote) {
+      this.data = checkNotNull(data, "data");
+      this.local = local;
+      this.remote = remote;
+    }
+  }
+}
@@ -76,6 +76,12 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
   private ScheduledExecutorService deadlineCancellationExecutor;
   private DecompressorRegistry decompressorRegistry = DecompressorRegistry.getDefaultInstance();
   private CompressorRegistry compressorRegistry = CompressorRegistry.getDefaultInstance();
+  @Nullable
+  private AdaptiveCompressionPolicy compressionPolicy;
+  @Nullable
+  private DeframerPolicy deframerPolicy;
+  @Nullable
+  private CallTracer callTracer;
 
   ClientCallImpl(
       MethodDescriptor<ReqT, RespT> method, Executor executor, CallOptions callOptions,
@@ -126,6 +132,22 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
     return this;
   }
 
+  ClientCallImpl<ReqT, RespT> setCompressionPolicy(
+      @Nullable AdaptiveCompressionPolicy compressionPolicy) {
+    this.compressionPolicy = compressionPolicy;
+    return this;
+  }
+
+  ClientCallImpl<ReqT, RespT> setDeframerPolicy(@Nullable DeframerPolicy deframerPolicy) {
+    this.deframerPolicy = deframerPolicy;
+    return this;
+  }
+
+  ClientCallImpl<ReqT, RespT> setCallTracer(@Nullable CallTracer callTracer) {
+    this.callTracer = callTracer;
+    return this;
+  }
+
   @VisibleForTesting
   static void prepareHeaders(
       Metadata headers, DecompressorRegistry decompressorRegistry, Compressor compressor) {
@@ -148,6 +170,9 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
     checkState(!cancelCalled, "call was cancelled");
     checkNotNull(observer, "observer");
     checkNotNull(headers, "headers");
+    if (callTracer != null) {
+      callTracer.reportCallStarted();
+    }
 
     if (context.isCancelled()) {
       // Context is already cancelled so no need to create a real stream, just notify the observer
@@ -224,6 +249,13 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
       stream.setMaxOutboundMessageSize(callOptions.getMaxOutboundMessageSize());
     }
     stream.setCompressor(compressor);
+    if (compressionPolicy != null) {
+      stream.setCompressionPolicy(compressionPolicy.forMethod(method.getFullMethodName()));
+    }
+    if (deframerPolicy != null
+        && deframerPolicy.deframeInApplicationThread(method.getFullMethodName())) {
+      stream.deframeInApplicationThread();
+    }
     stream.setDecompressorRegistry(decompressorRegistry);
     stream.start(new ClientStreamListenerImpl(observer));
 
@@ -419,6 +451,9 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
   }
 
   private void closeObserver(Listener<RespT> observer, Status status, Metadata trailers) {
+    if (callTracer != null) {
+      callTracer.reportCallEnded(status.isOk());
+    }
     observer.onClose(status, trailers);
   }
 
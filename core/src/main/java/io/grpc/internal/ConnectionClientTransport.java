@@ -17,6 +17,7 @@
 package io.grpc.internal;
 
 import io.grpc.Attributes;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
@@ -29,4 +30,11 @@ public interface ConnectionClientTransport extends ManagedClientTransport {
    * should define in what states they will be present.
    */
   Attributes getAttributes();
+
+  /**
+   * Returns the tracer counting the streams of this transport, or {@code null} if it does not count
+   * them.
+   */
+  @Nullable
+  TransportTracer getTransportTracer();
 }
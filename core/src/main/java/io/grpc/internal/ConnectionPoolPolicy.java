@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Controls how many connections an {@link InternalSubchannel} may open to its backend, and when
+ * it opens more than one.
+ */
+final class ConnectionPoolPolicy {
+  /**
+   * Uses a single connection per subchannel.
+   */
+  static final ConnectionPoolPolicy SINGLE_CONNECTION =
+      new ConnectionPoolPolicy(1, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+  final int maxConnections;
+  final int maxConcurrentStreamsPerConnection;
+  final int maxStreamsPerSecondPerConnection;
+
+  /**
+   * Creates a policy.
+   *
+   * @param maxConnections the maximum number of ready or connecting connections
+   * @param maxConcurrentStreamsPerConnection a connection with at least this many active streams is
+   *     saturated
+   * @param maxStreamsPerSecondPerConnection a connection that started at least this many streams in
+   *     the last second is saturated
+   */
+  ConnectionPoolPolicy(int maxConnections, int maxConcurrentStreamsPerConnection,
+      int maxStreamsPerSecondPerConnection) {
+    checkArgument(maxConnections > 0, "maxConnections must be positive");
+    checkArgument(maxConcurrentStreamsPerConnection > 0,
+        "maxConcurrentStreamsPerConnection must be positive");
+    checkArgument(maxStreamsPerSecondPerConnection > 0,
+        "maxStreamsPerSecondPerConnection must be positive");
+    this.maxConnections = maxConnections;
+    this.maxConcurrentStreamsPerConnection = maxConcurrentStreamsPerConnection;
+    this.maxStreamsPerSecondPerConnection = maxStreamsPerSecondPerConnection;
+  }
+
+  boolean isPooling() {
+    return maxConnections > 1;
+  }
+
+  /**
+   * Returns whether a connection with the given load should not take more streams, if another
+   * connection could be opened instead.
+   */
+  boolean isSaturated(int activeStreams, int streamsPerSecond) {
+    return activeStreams >= maxConcurrentStreamsPerConnection
+        || streamsPerSecond >= maxStreamsPerSecondPerConnection;
+  }
+}
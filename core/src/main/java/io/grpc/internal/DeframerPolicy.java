@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decides, per method, whether inbound messages are deframed in the application thread instead of
+ * the transport thread. See {@link Stream#deframeInApplicationThread}.
+ */
+final class DeframerPolicy {
+  private final boolean deframeInApplicationThread;
+  private final Map<String, Boolean> methodOverrides;
+
+  /**
+   * Creates a policy.
+   *
+   * @param deframeInApplicationThread the mode for methods without an override
+   * @param methodOverrides the mode for individual methods, keyed by full method name
+   */
+  DeframerPolicy(boolean deframeInApplicationThread, Map<String, Boolean> methodOverrides) {
+    this.deframeInApplicationThread = deframeInApplicationThread;
+    this.methodOverrides =
+        Collections.unmodifiableMap(new HashMap<String, Boolean>(methodOverrides));
+  }
+
+  boolean deframeInApplicationThread(String fullMethodName) {
+    Boolean override = methodOverrides.get(fullMethodName);
+    return override != null ? override : deframeInApplicationThread;
+  }
+}
@@ -336,6 +336,34 @@ class DelayedStream implements ClientStream {
     }
   }
 
+  @Override
+  public void setCompressionPolicy(final AdaptiveCompressionPolicy.MethodPolicy policy) {
+    if (passThrough) {
+      realStream.setCompressionPolicy(policy);
+    } else {
+      delayOrExecute(new Runnable() {
+        @Override
+        public void run() {
+          realStream.setCompressionPolicy(policy);
+        }
+      });
+    }
+  }
+
+  @Override
+  public void deframeInApplicationThread() {
+    if (passThrough) {
+      realStream.deframeInApplicationThread();
+    } else {
+      delayOrExecute(new Runnable() {
+        @Override
+        public void run() {
+          realStream.deframeInApplicationThread();
+        }
+      });
+    }
+  }
+
   @VisibleForTesting
   ClientStream getRealStream() {
     return realStream;
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.grpc.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.SettableFuture;
+import io.grpc.internal.DnsNameResolver.DelegateResolver;
+import io.grpc.internal.DnsNameResolver.ResolutionResults;
+import java.security.Security;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * A cache of DNS resolution results shared by {@link DnsNameResolver}s, so that channels to the
+ * same host share lookups.
+ *
+ * <p>Results are fresh for a time-to-live. Once a result is older than {@link #refreshAheadNanos},
+ * it keeps being served while it is refreshed in the background, and that continues for up to
+ * {@link #maxStaleNanos} after it expired. Concurrent lookups of the same host are combined into
+ * one, and lookups that bypass the cache are only done once per {@link #minRefreshIntervalNanos}
+ * for each host. A failed background refresh is retried after {@link #failedLookupBackoffNanos}.
+ */
+final class DnsCache {
+  private static final Logger logger = Logger.getLogger(DnsCache.class.getName());
+
+  /**
+   * The Java security property controlling how long the JDK caches successful lookups, which is
+   * used as time-to-live of the cache.
+   */
+  @VisibleForTesting
+  static final String NETWORKADDRESS_CACHE_TTL_PROPERTY = "networkaddress.cache.ttl";
+
+  /**
+   * The time-to-live used if {@link #NETWORKADDRESS_CACHE_TTL_PROPERTY} is not set.
+   */
+  @VisibleForTesting
+  static final long DEFAULT_TTL_SECONDS = 30;
+
+  /**
+   * How long to wait before looking again at expired results that are being refreshed.
+   */
+  private static final long STALE_RECHECK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private static final DnsCache DEFAULT_INSTANCE = new DnsCache(
+      TimeUnit.SECONDS.toNanos(getNetworkAddressCacheTtlSeconds()), Ticker.systemTicker());
+
+  private final long ttlNanos;
+  private final long refreshAheadNanos;
+  private final long maxStaleNanos;
+  private final long minRefreshIntervalNanos;
+  private final long failedLookupBackoffNanos;
+  private final Ticker ticker;
+
+  @GuardedBy("this")
+  private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+  /**
+   * Creates a cache whose results are fresh for {@code ttlNanos}. Results are refreshed in the
+   * background after 80% of the time-to-live, may be served for another time-to-live once expired,
+   * and are looked up again on request at most once per time-to-live. Failed background refreshes
+   * are retried after a tenth of the time-to-live. A {@code ttlNanos} of zero disables caching.
+   */
+  DnsCache(long ttlNanos, Ticker ticker) {
+    checkArgument(ttlNanos >= 0, "ttlNanos must not be negative");
+    this.ttlNanos = ttlNanos;
+    this.refreshAheadNanos = ttlNanos / 5 * 4;
+    this.maxStaleNanos = ttlNanos;
+    this.minRefreshIntervalNanos = ttlNanos;
+    this.failedLookupBackoffNanos = ttlNanos / 10;
+    this.ticker = checkNotNull(ticker, "ticker");
+  }
+
+  /**
+   * Returns the cache used by default, whose time-to-live matches the one of the JDK's cache.
+   */
+  static DnsCache getDefaultInstance() {
+    return DEFAULT_INSTANCE;
+  }
+
+  @VisibleForTesting
+  static long getNetworkAddressCacheTtlSeconds() {
+    String ttl = Security.getProperty(NETWORKADDRESS_CACHE_TTL_PROPERTY);
+    if (ttl != null) {
+      try {
+        long seconds = Long.parseLong(ttl);
+        // A negative value makes the JDK cache forever
+        return seconds < 0 ? Long.MAX_VALUE : seconds;
+      } catch (NumberFormatException e) {
+        logger.log(Level.WARNING, "Property {0} is not a number: {1}",
+            new Object[] {NETWORKADDRESS_CACHE_TTL_PROPERTY, ttl});
+      }
+    }
+    return DEFAULT_TTL_SECONDS;
+  }
+
+  /**
+   * Results of {@link #resolve}, together with when to call it again to pick up refreshed results.
+   */
+  static final class CachedResults {
+    final ResolutionResults results;
+    /**
+     * The delay after which the cache may have newer results, or {@code -1} if it will not.
+     */
+    final long nextLookupDelayNanos;
+
+    CachedResults(ResolutionResults results, long nextLookupDelayNanos) {
+      this.results = results;
+      this.nextLookupDelayNanos = nextLookupDelayNanos;
+    }
+  }
+
+  /**
+   * Resolves {@code host}, blocking if there are no usable results for it in the cache. The same
+   * {@link ResolutionResults} instance is returned as long as the results were not refreshed.
+   *
+   * @param delegate the resolver used for lookups started by this call
+   * @param executor runs the background refreshes started by this call
+   * @param refresh whether to bypass the cache, unless it was refreshed recently
+   */
+  CachedResults resolve(String host, DelegateResolver delegate, Executor executor,
+      boolean refresh) throws Exception {
+    if (ttlNanos == 0) {
+      return new CachedResults(delegate.resolve(host), -1);
+    }
+    SettableFuture<ResolutionResults> lookup;
+    boolean startLookup = false;
+    synchronized (this) {
+      long now = ticker.read();
+      Entry entry = entries.get(host);
+      if (entry == null) {
+        entry = new Entry();
+        entries.put(host, entry);
+      }
+      if (entry.results != null) {
+        long age = now - entry.resolvedNanos;
+        long sinceLastLookup = now - entry.lastLookupNanos;
+        if (!refresh || entry.lookup != null || sinceLastLookup < minRefreshIntervalNanos) {
+          if (age < refreshAheadNanos) {
+            return cachedResults(entry.results, refreshAheadNanos - age);
+          }
+          if (age - ttlNanos < maxStaleNanos) {
+            if (entry.lookup == null
+                && (!entry.lastLookupFailed || sinceLastLookup >= failedLookupBackoffNanos)) {
+              startBackgroundLookup(host, entry, delegate, executor, now);
+            }
+            // Look again once the results expire, or shortly if they already have
+            return cachedResults(entry.results, Math.max(ttlNanos - age, STALE_RECHECK_NANOS));
+          }
+        }
+      }
+      if (entry.lookup == null) {
+        entry.lookup = SettableFuture.create();
+        entry.lastLookupNanos = now;
+        startLookup = true;
+      }
+      lookup = entry.lookup;
+    }
+    if (startLookup) {
+      runLookup(host, delegate);
+    }
+    ResolutionResults results;
+    try {
+      results = lookup.get();
+    } catch (ExecutionException e) {
+      throw (Exception) e.getCause();
+    }
+    return cachedResults(results, refreshAheadNanos);
+  }
+
+  private CachedResults cachedResults(ResolutionResults results, long nextLookupDelayNanos) {
+    // Results that never expire are never refreshed either
+    return new CachedResults(results, ttlNanos == Long.MAX_VALUE ? -1 : nextLookupDelayNanos);
+  }
+
+  @GuardedBy("this")
+  private void startBackgroundLookup(final String host, Entry entry,
+      final DelegateResolver delegate, Executor executor, long now) {
+    entry.lookup = SettableFuture.create();
+    entry.lastLookupNanos = now;
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        runLookup(host, delegate);
+      }
+    });
+  }
+
+  /**
+   * Looks up {@code host} and completes the lookup of its entry. Lookup failures do not evict
+   * results that may still be served.
+   */
+  private void runLookup(String host, DelegateResolver delegate) {
+    ResolutionResults results = null;
+    Exception error = null;
+    try {
+      results = delegate.resolve(host);
+    } catch (Exception e) {
+      error = e;
+    }
+    SettableFuture<ResolutionResults> lookup;
+    synchronized (this) {
+      long now = ticker.read();
+      Entry entry = entries.get(host);
+      lookup = entry.lookup;
+      entry.lookup = null;
+      entry.lastLookupFailed = results == null;
+      if (results != null) {
+        entry.results = results;
+        entry.resolvedNanos = now;
+      }
+      evictExpiredEntries(now);
+    }
+    if (error != null) {
+      logger.log(Level.FINE, "Failed to resolve " + host, error);
+      lookup.setException(error);
+    } else {
+      lookup.set(results);
+    }
+  }
+
+  @GuardedBy("this")
+  private void evictExpiredEntries(long now) {
+    Iterator<Entry> it = entries.values().iterator();
+    while (it.hasNext()) {
+      Entry entry = it.next();
+      if (entry.lookup == null
+          && (entry.results == null || now - entry.resolvedNanos - ttlNanos >= maxStaleNanos)) {
+        it.remove();
+      }
+    }
+  }
+
+  private static final class Entry {
+    @Nullable
+    ResolutionResults results;
+    long resolvedNanos;
+    long lastLookupNanos;
+    boolean lastLookupFailed;
+    /**
+     * The lookup in progress, if any.
+     */
+    @Nullable
+    SettableFuture<ResolutionResults> lookup;
+  }
+}
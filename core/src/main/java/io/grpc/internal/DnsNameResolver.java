@@ -32,6 +32,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -51,6 +52,9 @@ import javax.naming.directory.InitialDirContext;
  * <p>Each {@code A} or {@code AAAA} record emits an {@link EquivalentAddressGroup} in the list
  * passed to {@link NameResolver.Listener#onUpdate}
  *
+ * <p>Results are cached in a {@link DnsCache}, and resolved again when the cache has refreshed
+ * them. {@link #refresh} only bypasses the cache if it was not refreshed recently.
+ *
  * @see DnsNameResolverProvider
  */
 final class DnsNameResolver extends NameResolver {
@@ -69,6 +73,7 @@ final class DnsNameResolver extends NameResolver {
   private final int port;
   private final Resource<ScheduledExecutorService> timerServiceResource;
   private final Resource<ExecutorService> executorResource;
+  private final DnsCache cache;
   @GuardedBy("this")
   private boolean shutdown;
   @GuardedBy("this")
@@ -81,14 +86,31 @@ final class DnsNameResolver extends NameResolver {
   private boolean resolving;
   @GuardedBy("this")
   private Listener listener;
+  /**
+   * Whether the next resolution should bypass the cache, because {@link #refresh} was called.
+   */
+  @GuardedBy("this")
+  private boolean refreshRequested;
+  /**
+   * Whether the next resolution should pass its results to the listener even if they did not
+   * change.
+   */
+  @GuardedBy("this")
+  private boolean updateRequested;
+  /**
+   * The results last passed to the listener. Only accessed from resolutionRunnable.
+   */
+  @Nullable
+  private ResolutionResults lastResults;
 
   DnsNameResolver(@Nullable String nsAuthority, String name, Attributes params,
       Resource<ScheduledExecutorService> timerServiceResource,
-      Resource<ExecutorService> executorResource) {
+      Resource<ExecutorService> executorResource, DnsCache cache) {
     // TODO: if a DNS server is provided as nsAuthority, use it.
     // https://www.captechconsulting.com/blogs/accessing-the-dusty-corners-of-dns-with-java
     this.timerServiceResource = timerServiceResource;
     this.executorResource = executorResource;
+    this.cache = Preconditions.checkNotNull(cache, "cache");
     // Must prepend a "//" to the name when constructing a URI, otherwise it will be treated as an
     // opaque URI, thus the authority and host of the resulted URI would be null.
     URI nameUri = URI.create("//" + name);
@@ -119,12 +141,15 @@ final class DnsNameResolver extends NameResolver {
     timerService = SharedResourceHolder.get(timerServiceResource);
     executor = SharedResourceHolder.get(executorResource);
     this.listener = Preconditions.checkNotNull(listener, "listener");
+    updateRequested = true;
     resolve();
   }
 
   @Override
   public final synchronized void refresh() {
     Preconditions.checkState(listener != null, "not started");
+    refreshRequested = true;
+    updateRequested = true;
     resolve();
   }
 
@@ -132,6 +157,9 @@ final class DnsNameResolver extends NameResolver {
       @Override
       public void run() {
         Listener savedListener;
+        Executor savedExecutor;
+        boolean savedRefreshRequested;
+        boolean savedUpdateRequested;
         synchronized (DnsNameResolver.this) {
           // If this task is started by refresh(), there might already be a scheduled task.
           if (resolutionTask != null) {
@@ -142,6 +170,11 @@ final class DnsNameResolver extends NameResolver {
             return;
           }
           savedListener = listener;
+          savedExecutor = executor;
+          savedRefreshRequested = refreshRequested;
+          savedUpdateRequested = updateRequested;
+          refreshRequested = false;
+          updateRequested = false;
           resolving = true;
         }
         try {
@@ -153,7 +186,20 @@ final class DnsNameResolver extends NameResolver {
           }
           ResolutionResults resolvedInetAddrs;
           try {
-            resolvedInetAddrs = delegateResolver.resolve(host);
+            DnsCache.CachedResults cached =
+                cache.resolve(host, delegateResolver, savedExecutor, savedRefreshRequested);
+            resolvedInetAddrs = cached.results;
+            if (cached.nextLookupDelayNanos >= 0) {
+              synchronized (DnsNameResolver.this) {
+                if (shutdown) {
+                  return;
+                }
+                // Pick up the results once the cache refreshed them
+                resolutionTask =
+                    timerService.schedule(new LogExceptionRunnable(resolutionRunnableOnExecutor),
+                        cached.nextLookupDelayNanos, TimeUnit.NANOSECONDS);
+              }
+            }
           } catch (Exception e) {
             synchronized (DnsNameResolver.this) {
               if (shutdown) {
@@ -168,6 +214,10 @@ final class DnsNameResolver extends NameResolver {
             savedListener.onError(Status.UNAVAILABLE.withCause(e));
             return;
           }
+          if (resolvedInetAddrs == lastResults && !savedUpdateRequested) {
+            return;
+          }
+          lastResults = resolvedInetAddrs;
           // Each address forms an EAG
           ArrayList<EquivalentAddressGroup> servers = new ArrayList<EquivalentAddressGroup>();
           for (InetAddress inetAddr : resolvedInetAddrs.addresses) {
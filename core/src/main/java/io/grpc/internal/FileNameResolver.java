@@ -0,0 +1,313 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.io.Files;
+import com.google.common.net.InetAddresses;
+import io.grpc.Attributes;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.NameResolver;
+import io.grpc.Status;
+import io.grpc.internal.SharedResourceHolder.Resource;
+import io.grpc.util.ZoneAwareLoadBalancerFactory;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * A {@link NameResolver} that reads the addresses of the backends from a file, and reloads them
+ * when the file changes.
+ *
+ * <p>Each line of the file, up to an optional {@code '#'} comment, is one backend: a host with an
+ * optional port, followed by optional {@code weight=} and {@code zone=} fields, e.g.
+ *
+ * <pre>
+ * 10.0.0.1:8080 weight=2 zone=us-east1-a
+ * [2001:db8::1]:8080 zone=us-east1-b
+ * backend.example.com
+ * </pre>
+ *
+ * <p>Each backend emits an {@link EquivalentAddressGroup} with the {@link
+ * FileNameResolverProvider#ATTR_WEIGHT} and {@link ZoneAwareLoadBalancerFactory#ATTR_ZONE}
+ * attributes of its line. Host names are resolved when their line is first read, so large lists
+ * should use IP addresses.
+ *
+ * <p>The file is polled for changes, since {@code java.nio.file.WatchService} is not available on
+ * all supported platforms. Only the lines that changed are parsed again, and the groups of the
+ * other lines are passed to the listener as the same instances, so that load balancers only
+ * create and shut down subchannels for the backends that were added or removed. The listener is
+ * only notified if the backends changed. Files should be replaced atomically, e.g. by renaming a
+ * new file over the old one. If a changed file can't be read or parsed, the previous backends are
+ * kept.
+ *
+ * @see FileNameResolverProvider
+ */
+final class FileNameResolver extends NameResolver {
+
+  private static final Logger logger = Logger.getLogger(FileNameResolver.class.getName());
+
+  private final File file;
+  private final String authority;
+  private final Integer defaultPort;
+  private final long pollIntervalNanos;
+  private final Resource<ScheduledExecutorService> timerServiceResource;
+  private final Resource<ExecutorService> executorResource;
+  @GuardedBy("this")
+  private boolean shutdown;
+  @GuardedBy("this")
+  private ScheduledExecutorService timerService;
+  @GuardedBy("this")
+  private ExecutorService executor;
+  @GuardedBy("this")
+  private ScheduledFuture<?> pollTask;
+  @GuardedBy("this")
+  private boolean polling;
+  @GuardedBy("this")
+  private Listener listener;
+  /**
+   * Whether the next poll should read the file even if it did not change, because {@link #refresh}
+   * was called.
+   */
+  @GuardedBy("this")
+  private boolean reloadRequested;
+
+  // Only accessed from pollRunnable
+  private long lastModified;
+  private long lastLength;
+  /**
+   * The groups last passed to the listener, keyed by the line they were parsed from.
+   */
+  private Map<String, EquivalentAddressGroup> lastGroups = Collections.emptyMap();
+
+  FileNameResolver(File file, Attributes params, long pollIntervalNanos,
+      Resource<ScheduledExecutorService> timerServiceResource,
+      Resource<ExecutorService> executorResource) {
+    this.file = Preconditions.checkNotNull(file, "file");
+    this.authority = file.getName();
+    this.defaultPort = params.get(NameResolver.Factory.PARAMS_DEFAULT_PORT);
+    Preconditions.checkArgument(pollIntervalNanos > 0, "pollIntervalNanos must be positive");
+    this.pollIntervalNanos = pollIntervalNanos;
+    this.timerServiceResource = timerServiceResource;
+    this.executorResource = executorResource;
+  }
+
+  @Override
+  public String getServiceAuthority() {
+    return authority;
+  }
+
+  @Override
+  public synchronized void start(Listener listener) {
+    Preconditions.checkState(this.listener == null, "already started");
+    timerService = SharedResourceHolder.get(timerServiceResource);
+    executor = SharedResourceHolder.get(executorResource);
+    this.listener = Preconditions.checkNotNull(listener, "listener");
+    reloadRequested = true;
+    poll();
+  }
+
+  @Override
+  public synchronized void refresh() {
+    Preconditions.checkState(listener != null, "not started");
+    reloadRequested = true;
+    poll();
+  }
+
+  private final Runnable pollRunnable = new Runnable() {
+      @Override
+      public void run() {
+        Listener savedListener;
+        boolean savedReloadRequested;
+        synchronized (FileNameResolver.this) {
+          // If this task is started by refresh(), there might already be a scheduled task.
+          if (pollTask != null) {
+            pollTask.cancel(false);
+            pollTask = null;
+          }
+          if (shutdown) {
+            return;
+          }
+          savedListener = listener;
+          savedReloadRequested = reloadRequested;
+          reloadRequested = false;
+          polling = true;
+        }
+        try {
+          load(savedListener, savedReloadRequested);
+        } finally {
+          synchronized (FileNameResolver.this) {
+            polling = false;
+            if (!shutdown) {
+              // Because timerService is the single-threaded GrpcUtil.TIMER_SERVICE in production,
+              // we need to delegate the blocking work to the executor
+              pollTask = timerService.schedule(new LogExceptionRunnable(pollRunnableOnExecutor),
+                  pollIntervalNanos, TimeUnit.NANOSECONDS);
+            }
+          }
+        }
+      }
+    };
+
+  private final Runnable pollRunnableOnExecutor = new Runnable() {
+      @Override
+      public void run() {
+        synchronized (FileNameResolver.this) {
+          if (!shutdown) {
+            executor.execute(pollRunnable);
+          }
+        }
+      }
+    };
+
+  @GuardedBy("this")
+  private void poll() {
+    if (polling || shutdown) {
+      return;
+    }
+    executor.execute(pollRunnable);
+  }
+
+  private void load(Listener listener, boolean reload) {
+    long modified = file.lastModified();
+    long length = file.length();
+    if (!reload && modified == lastModified && length == lastLength) {
+      return;
+    }
+    // A file that can't be read or parsed is only read again once it changed
+    lastModified = modified;
+    lastLength = length;
+    Map<String, EquivalentAddressGroup> groups =
+        new LinkedHashMap<String, EquivalentAddressGroup>();
+    try {
+      for (String line : Files.readLines(file, Charsets.UTF_8)) {
+        int commentStart = line.indexOf('#');
+        if (commentStart != -1) {
+          line = line.substring(0, commentStart);
+        }
+        line = line.trim();
+        if (line.isEmpty() || groups.containsKey(line)) {
+          continue;
+        }
+        EquivalentAddressGroup group = lastGroups.get(line);
+        if (group == null) {
+          group = parseLine(line);
+        }
+        groups.put(line, group);
+      }
+    } catch (IOException e) {
+      handleError(listener, Status.UNAVAILABLE.withDescription("Unable to read " + file)
+          .withCause(e));
+      return;
+    } catch (IllegalArgumentException e) {
+      handleError(listener, Status.UNAVAILABLE.withDescription("Unable to parse " + file)
+          .withCause(e));
+      return;
+    }
+    if (groups.isEmpty()) {
+      handleError(listener, Status.UNAVAILABLE.withDescription(file + " contains no addresses"));
+      return;
+    }
+    boolean changed = !new ArrayList<String>(groups.keySet()).equals(
+        new ArrayList<String>(lastGroups.keySet()));
+    lastGroups = groups;
+    if (changed) {
+      listener.onAddresses(new ArrayList<EquivalentAddressGroup>(groups.values()),
+          Attributes.EMPTY);
+    }
+  }
+
+  private void handleError(Listener listener, Status status) {
+    if (lastGroups.isEmpty()) {
+      listener.onError(status);
+    } else {
+      logger.log(Level.WARNING, "Keeping the previous addresses: " + status.getDescription(),
+          status.getCause());
+    }
+  }
+
+  @VisibleForTesting
+  EquivalentAddressGroup parseLine(String line) {
+    String[] fields = line.split("\\s+");
+    // Must prepend a "//" to the address when constructing a URI, otherwise it will be treated as
+    // an opaque URI, thus the host of the resulted URI would be null.
+    URI addressUri = URI.create("//" + fields[0]);
+    String host = addressUri.getHost();
+    Preconditions.checkArgument(host != null, "Invalid address: %s", fields[0]);
+    int port = addressUri.getPort();
+    if (port == -1) {
+      Preconditions.checkArgument(defaultPort != null,
+          "address '%s' doesn't contain a port, and default port is not set in params", fields[0]);
+      port = defaultPort;
+    }
+    InetSocketAddress address;
+    if (InetAddresses.isUriInetAddress(host)) {
+      address = new InetSocketAddress(InetAddresses.forUriString(host), port);
+    } else {
+      address = new InetSocketAddress(host, port);
+      Preconditions.checkArgument(!address.isUnresolved(), "Unable to resolve %s", host);
+    }
+    Attributes.Builder attrs = Attributes.newBuilder();
+    for (int i = 1; i < fields.length; i++) {
+      int separator = fields[i].indexOf('=');
+      Preconditions.checkArgument(separator != -1, "Invalid field: %s", fields[i]);
+      String key = fields[i].substring(0, separator);
+      String value = fields[i].substring(separator + 1);
+      if ("weight".equals(key)) {
+        int weight = Integer.parseInt(value);
+        Preconditions.checkArgument(weight > 0, "weight must be positive: %s", line);
+        attrs.set(FileNameResolverProvider.ATTR_WEIGHT, weight);
+      } else if ("zone".equals(key)) {
+        attrs.set(ZoneAwareLoadBalancerFactory.ATTR_ZONE, value);
+      } else {
+        throw new IllegalArgumentException("Unknown field: " + fields[i]);
+      }
+    }
+    return new EquivalentAddressGroup(address, attrs.build());
+  }
+
+  @Override
+  public synchronized void shutdown() {
+    if (shutdown) {
+      return;
+    }
+    shutdown = true;
+    if (pollTask != null) {
+      pollTask.cancel(false);
+    }
+    if (timerService != null) {
+      timerService = SharedResourceHolder.release(timerServiceResource, timerService);
+    }
+    if (executor != null) {
+      executor = SharedResourceHolder.release(executorResource, executor);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import com.google.common.base.Preconditions;
+import io.grpc.Attributes;
+import io.grpc.NameResolverProvider;
+import java.io.File;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A provider for {@link FileNameResolver}.
+ *
+ * <p>It resolves a target URI whose scheme is {@code "file"}. The path of the target URI is the
+ * file listing the backends, e.g. {@code "file:///etc/grpc/backends.txt"}. The name of the file is
+ * used as the authority of the channel, unless it is overridden on the channel builder.
+ */
+public final class FileNameResolverProvider extends NameResolverProvider {
+
+  /**
+   * The weight of a backend, from the optional {@code weight=} field of its line.
+   */
+  public static final Attributes.Key<Integer> ATTR_WEIGHT =
+      Attributes.Key.of("io.grpc.internal.FileNameResolver.weight");
+
+  private static final String SCHEME = "file";
+
+  private static final long POLL_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  @Override
+  public FileNameResolver newNameResolver(URI targetUri, Attributes params) {
+    if (SCHEME.equals(targetUri.getScheme())) {
+      String targetPath = Preconditions.checkNotNull(targetUri.getPath(), "targetPath");
+      return new FileNameResolver(new File(targetPath), params, POLL_INTERVAL_NANOS,
+          GrpcUtil.TIMER_SERVICE, GrpcUtil.SHARED_CHANNEL_EXECUTOR);
+    } else {
+      return null;
+    }
+  }
+
+  @Override
+  public String getDefaultScheme() {
+    return SCHEME;
+  }
+
+  @Override
+  protected boolean isAvailable() {
+    return true;
+  }
+
+  @Override
+  protected int priority() {
+    // Lower than DnsNameResolverProvider, which provides the default scheme
+    return 3;
+  }
+}
@@ -60,6 +60,11 @@ abstract class ForwardingConnectionClientTransport implements ConnectionClientTr
     return delegate().getAttributes();
   }
 
+  @Override
+  public TransportTracer getTransportTracer() {
+    return delegate().getTransportTracer();
+  }
+
   @Override
   public String toString() {
     return getClass().getSimpleName() + "[" + delegate().toString() + "]";
@@ -46,6 +46,9 @@ public interface Framer {
   /** Set the compressor used for compression. */
   Framer setCompressor(Compressor compressor);
 
+  /** Set the policy deciding which messages are compressed, if compression is enabled. */
+  Framer setCompressionPolicy(AdaptiveCompressionPolicy.MethodPolicy policy);
+
   /** Set a size limit for each outbound message. */ 
   void setMaxOutboundMessageSize(int maxSize);
 }
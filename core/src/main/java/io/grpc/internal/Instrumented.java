@@ -0,0 +1,32 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * An object that reports statistics to {@link Channelz}.
+ *
+ * @param <T> the type of the statistics
+ */
+public interface Instrumented<T> extends WithLogId {
+  /**
+   * Returns a snapshot of the statistics of this object. The future may complete on a transport
+   * thread, once the statistics that are only safe to read from that thread have been read.
+   */
+  ListenableFuture<T> getStats();
+}
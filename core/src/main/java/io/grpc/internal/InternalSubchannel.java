@@ -25,18 +25,28 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.errorprone.annotations.ForOverride;
+import io.grpc.CallOptions;
 import io.grpc.ConnectivityState;
 import io.grpc.ConnectivityStateInfo;
 import io.grpc.EquivalentAddressGroup;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
 import io.grpc.Status;
 import java.net.SocketAddress;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
@@ -47,7 +57,7 @@ import javax.annotation.concurrent.ThreadSafe;
  * Transports for a single {@link SocketAddress}.
  */
 @ThreadSafe
-final class InternalSubchannel implements WithLogId {
+final class InternalSubchannel implements Instrumented<Channelz.ChannelStats> {
   private static final Logger log = Logger.getLogger(InternalSubchannel.class.getName());
 
   private final LogId logId = LogId.allocate(getClass().getName());
@@ -57,6 +67,11 @@ final class InternalSubchannel implements WithLogId {
   private final Callback callback;
   private final ClientTransportFactory transportFactory;
   private final ScheduledExecutorService scheduledExecutor;
+  private final Supplier<Stopwatch> stopwatchSupplier;
+  private final ConnectionPoolPolicy connectionPoolPolicy;
+  private final long connectionAttemptDelayNanos;
+  private final long maxConnectionAgeNanos;
+  private final CallTracer callTracer;
 
   // File-specific convention: methods without GuardedBy("lock") MUST NOT be called under the lock.
   private final Object lock = new Object();
@@ -87,6 +102,14 @@ final class InternalSubchannel implements WithLogId {
   @GuardedBy("lock")
   private BackoffPolicy reconnectPolicy;
 
+  /**
+   * How long a connection must have been ready for the subchannel to reconnect in the background
+   * once the server closes it. Only used with a max connection age, and non-{@code null} when the
+   * last connection closed by the server did not last that long.
+   */
+  @GuardedBy("lock")
+  private BackoffPolicy goAwayReconnectPolicy;
+
   /**
    * Timer monitoring duration since entering CONNECTING state.
    */
@@ -97,6 +120,14 @@ final class InternalSubchannel implements WithLogId {
   @Nullable
   private ScheduledFuture<?> reconnectTask;
 
+  /**
+   * Starts a connection attempt to the next address while {@link #pendingTransport} is still
+   * connecting. Only scheduled if {@link #connectionAttemptDelayNanos} is positive.
+   */
+  @GuardedBy("lock")
+  @Nullable
+  private ScheduledFuture<?> connectionAttemptTask;
+
   /**
    * All transports that are not terminated. At the very least the value of {@link #activeTransport}
    * will be present, but previously used transports that still have streams or are stopping may
@@ -127,6 +158,23 @@ final class InternalSubchannel implements WithLogId {
   @Nullable
   private ConnectionClientTransport pendingTransport;
 
+  /**
+   * Connection attempts to earlier addresses that are still connecting after a connection attempt
+   * to a later address was started. The first of them, or {@link #pendingTransport}, to become
+   * ready becomes the active transport, and the others are shut down.
+   */
+  @GuardedBy("lock")
+  private final Collection<ConnectionClientTransport> racingTransports =
+      new ArrayList<ConnectionClientTransport>();
+
+  /**
+   * Connections that are not ready yet, which will replace the ready connection they map to.
+   * Always empty unless {@link #maxConnectionAgeNanos} is positive.
+   */
+  @GuardedBy("lock")
+  private final Map<ConnectionClientTransport, ConnectionClientTransport> pendingReplacements =
+      new HashMap<ConnectionClientTransport, ConnectionClientTransport>();
+
   /**
    * The transport for new outgoing requests. 'lock' must be held when assigning to it. Non-null
    * only in READY state.
@@ -134,6 +182,20 @@ final class InternalSubchannel implements WithLogId {
   @Nullable
   private volatile ManagedClientTransport activeTransport;
 
+  /**
+   * Additional connections of the connection pool that are not ready yet. Always empty unless
+   * pooling.
+   */
+  @GuardedBy("lock")
+  private final Collection<ConnectionClientTransport> pendingPooledTransports =
+      new ArrayList<ConnectionClientTransport>();
+
+  /**
+   * The ready connections of the connection pool, starting with {@link #activeTransport}. 'lock'
+   * must be held when assigning to it. Empty unless pooling in READY state.
+   */
+  private volatile List<PooledTransport> readyPooledTransports = Collections.emptyList();
+
   @GuardedBy("lock")
   private ConnectivityStateInfo state = ConnectivityStateInfo.forNonError(IDLE);
 
@@ -143,20 +205,29 @@ final class InternalSubchannel implements WithLogId {
   InternalSubchannel(EquivalentAddressGroup addressGroup, String authority, String userAgent,
       BackoffPolicy.Provider backoffPolicyProvider,
       ClientTransportFactory transportFactory, ScheduledExecutorService scheduledExecutor,
-      Supplier<Stopwatch> stopwatchSupplier, ChannelExecutor channelExecutor, Callback callback) {
+      Supplier<Stopwatch> stopwatchSupplier, ConnectionPoolPolicy connectionPoolPolicy,
+      long connectionAttemptDelayNanos, long maxConnectionAgeNanos,
+      ChannelExecutor channelExecutor, CallTracer callTracer, Callback callback) {
     this.addressGroup = Preconditions.checkNotNull(addressGroup, "addressGroup");
     this.authority = authority;
     this.userAgent = userAgent;
     this.backoffPolicyProvider = backoffPolicyProvider;
     this.transportFactory = transportFactory;
     this.scheduledExecutor = scheduledExecutor;
+    this.stopwatchSupplier = stopwatchSupplier;
     this.connectingTimer = stopwatchSupplier.get();
+    this.connectionPoolPolicy =
+        Preconditions.checkNotNull(connectionPoolPolicy, "connectionPoolPolicy");
+    this.connectionAttemptDelayNanos = connectionAttemptDelayNanos;
+    this.maxConnectionAgeNanos = maxConnectionAgeNanos;
     this.channelExecutor = channelExecutor;
+    this.callTracer = Preconditions.checkNotNull(callTracer, "callTracer");
     this.callback = callback;
   }
 
   /**
-   * Returns a READY transport that will be used to create new streams.
+   * Returns a READY transport that will be used to create new streams. When pooling, this is the
+   * pooled connection with the fewest active streams.
    *
    * <p>Returns {@code null} if the state is not READY.  Will try to connect if state is IDLE.
    */
@@ -164,6 +235,9 @@ final class InternalSubchannel implements WithLogId {
   ClientTransport obtainActiveTransport() {
     ClientTransport savedTransport = activeTransport;
     if (savedTransport != null) {
+      if (connectionPoolPolicy.isPooling()) {
+        return pickPooledTransport(savedTransport);
+      }
       return savedTransport;
     }
     try {
@@ -194,13 +268,88 @@ final class InternalSubchannel implements WithLogId {
     List<SocketAddress> addrs = addressGroup.getAddresses();
     final SocketAddress address = addrs.get(addressIndex);
 
+    ConnectionClientTransport transport = createTransport(address);
+    pendingTransport = transport;
+    startTransport(transport, address);
+    cancelConnectionAttemptTask();
+    if (connectionAttemptDelayNanos > 0 && addressIndex + 1 < addrs.size()) {
+      scheduleConnectionAttempt(transport);
+    }
+  }
+
+  /**
+   * Starts connecting to the next address if {@code transport} is still connecting after the
+   * connection attempt delay, without giving up on {@code transport}.
+   */
+  @GuardedBy("lock")
+  private void scheduleConnectionAttempt(final ConnectionClientTransport transport) {
+    class EndOfConnectionAttemptDelay implements Runnable {
+      @Override
+      public void run() {
+        try {
+          synchronized (lock) {
+            if (pendingTransport != transport || state.getState() != CONNECTING) {
+              // The attempt completed while this task was being cancelled
+              return;
+            }
+            connectionAttemptTask = null;
+            if (log.isLoggable(Level.FINE)) {
+              log.log(Level.FINE, "[{0}] {1} is still connecting, trying the next address",
+                  new Object[] {logId, transport.getLogId()});
+            }
+            racingTransports.add(transport);
+            addressIndex++;
+            startNewTransport();
+          }
+        } catch (Throwable t) {
+          log.log(Level.WARNING, "Exception handling end of connection attempt delay", t);
+        } finally {
+          channelExecutor.drain();
+        }
+      }
+    }
+
+    connectionAttemptTask = scheduledExecutor.schedule(
+        new LogExceptionRunnable(new EndOfConnectionAttemptDelay()),
+        connectionAttemptDelayNanos,
+        TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Removes all connection attempts other than {@code winner}, returning them so they can be shut
+   * down outside of the lock.
+   */
+  @GuardedBy("lock")
+  private List<ConnectionClientTransport> takeLosingTransports(
+      @Nullable ConnectionClientTransport winner) {
+    cancelConnectionAttemptTask();
+    List<ConnectionClientTransport> losers =
+        new ArrayList<ConnectionClientTransport>(racingTransports);
+    racingTransports.clear();
+    if (pendingTransport != null) {
+      losers.add(pendingTransport);
+      pendingTransport = null;
+    }
+    losers.remove(winner);
+    return losers;
+  }
+
+  @GuardedBy("lock")
+  private ConnectionClientTransport createTransport(SocketAddress address) {
     ConnectionClientTransport transport =
         transportFactory.newClientTransport(address, authority, userAgent);
+    if (connectionPoolPolicy.isPooling()) {
+      transport = new PooledTransport(transport, stopwatchSupplier.get());
+    }
     if (log.isLoggable(Level.FINE)) {
       log.log(Level.FINE, "[{0}] Created {1} for {2}",
           new Object[] {logId, transport.getLogId(), address});
     }
-    pendingTransport = transport;
+    return transport;
+  }
+
+  @GuardedBy("lock")
+  private void startTransport(ConnectionClientTransport transport, SocketAddress address) {
     transports.add(transport);
     Runnable runnable = transport.start(new TransportListener(transport, address));
     if (runnable != null) {
@@ -208,6 +357,67 @@ final class InternalSubchannel implements WithLogId {
     }
   }
 
+  /**
+   * Picks the ready pooled connection with the fewest active streams, and opens another
+   * connection if even that one is saturated.
+   */
+  private ClientTransport pickPooledTransport(ClientTransport savedActiveTransport) {
+    List<PooledTransport> pool = readyPooledTransports;
+    PooledTransport picked = null;
+    for (PooledTransport transport : pool) {
+      if (picked == null || transport.activeStreams() < picked.activeStreams()) {
+        picked = transport;
+      }
+    }
+    if (picked == null) {
+      // The pool is being updated
+      return savedActiveTransport;
+    }
+    if (pool.size() < connectionPoolPolicy.maxConnections
+        && connectionPoolPolicy.isSaturated(picked.activeStreams(), picked.streamsPerSecond())) {
+      maybeStartPooledTransport();
+    }
+    return picked;
+  }
+
+  private void maybeStartPooledTransport() {
+    try {
+      synchronized (lock) {
+        // Open one connection at a time, and only while the subchannel is connected.
+        if (state.getState() != READY || !pendingPooledTransports.isEmpty()
+            || readyPooledTransports.size() >= connectionPoolPolicy.maxConnections) {
+          return;
+        }
+        SocketAddress address = addressGroup.getAddresses().get(addressIndex);
+        ConnectionClientTransport transport = createTransport(address);
+        pendingPooledTransports.add(transport);
+        startTransport(transport, address);
+      }
+    } finally {
+      channelExecutor.drain();
+    }
+  }
+
+  /**
+   * Removes every pooled connection other than {@link #activeTransport} from the pool, and all
+   * pending replacement connections, returning them so they can be shut down outside of the lock.
+   */
+  @GuardedBy("lock")
+  private List<ManagedClientTransport> takeAdditionalPooledTransports() {
+    List<ManagedClientTransport> taken =
+        new ArrayList<ManagedClientTransport>(pendingPooledTransports);
+    taken.addAll(pendingReplacements.keySet());
+    pendingReplacements.clear();
+    for (PooledTransport transport : readyPooledTransports) {
+      if (transport != activeTransport) {
+        taken.add(transport);
+      }
+    }
+    pendingPooledTransports.clear();
+    readyPooledTransports = Collections.emptyList();
+    return taken;
+  }
+
   /**
    * Only called after all addresses attempted and failed (TRANSIENT_FAILURE).
    * @param status the causal status when the channel begins transition to
@@ -276,11 +486,22 @@ final class InternalSubchannel implements WithLogId {
   /** Replaces the existing addresses, avoiding unnecessary reconnects. */
   public void updateAddresses(EquivalentAddressGroup newAddressGroup) {
     ManagedClientTransport savedTransport = null;
+    List<ManagedClientTransport> savedPooledTransports = Collections.emptyList();
+    List<ConnectionClientTransport> savedRacingTransports = Collections.emptyList();
     try {
       synchronized (lock) {
         EquivalentAddressGroup oldAddressGroup = addressGroup;
         addressGroup = newAddressGroup;
-        if (state.getState() == READY || state.getState() == CONNECTING) {
+        if (state.getState() == CONNECTING) {
+          // Only the most recent connection attempt is kept
+          savedRacingTransports = new ArrayList<ConnectionClientTransport>(racingTransports);
+          racingTransports.clear();
+        }
+        if (state.getState() == CONNECTING && pendingTransport == null) {
+          // The most recent connection attempt already failed, and the earlier ones were dropped
+          addressIndex = 0;
+          startNewTransport();
+        } else if (state.getState() == READY || state.getState() == CONNECTING) {
           SocketAddress address = oldAddressGroup.getAddresses().get(addressIndex);
           int newIndex = newAddressGroup.getAddresses().indexOf(address);
           if (newIndex != -1) {
@@ -288,6 +509,7 @@ final class InternalSubchannel implements WithLogId {
           } else {
             // Forced to drop the connection
             if (state.getState() == READY) {
+              savedPooledTransports = takeAdditionalPooledTransports();
               savedTransport = activeTransport;
               activeTransport = null;
               addressIndex = 0;
@@ -309,11 +531,22 @@ final class InternalSubchannel implements WithLogId {
           Status.UNAVAILABLE.withDescription(
               "InternalSubchannel closed transport due to address change"));
     }
+    for (ManagedClientTransport transport : savedPooledTransports) {
+      transport.shutdown(
+          Status.UNAVAILABLE.withDescription(
+              "InternalSubchannel closed transport due to address change"));
+    }
+    for (ManagedClientTransport transport : savedRacingTransports) {
+      transport.shutdown(
+          Status.UNAVAILABLE.withDescription(
+              "InternalSubchannel closed transport due to address change"));
+    }
   }
 
   public void shutdown(Status reason) {
     ManagedClientTransport savedActiveTransport;
-    ConnectionClientTransport savedPendingTransport;
+    List<ConnectionClientTransport> savedPendingTransports;
+    List<ManagedClientTransport> savedPooledTransports;
     try {
       synchronized (lock) {
         if (state.getState() == SHUTDOWN) {
@@ -321,10 +554,10 @@ final class InternalSubchannel implements WithLogId {
         }
         shutdownReason = reason;
         gotoNonErrorState(SHUTDOWN);
+        savedPooledTransports = takeAdditionalPooledTransports();
         savedActiveTransport = activeTransport;
-        savedPendingTransport = pendingTransport;
+        savedPendingTransports = takeLosingTransports(null);
         activeTransport = null;
-        pendingTransport = null;
         addressIndex = 0;
         if (transports.isEmpty()) {
           handleTermination();
@@ -340,8 +573,11 @@ final class InternalSubchannel implements WithLogId {
     if (savedActiveTransport != null) {
       savedActiveTransport.shutdown(reason);
     }
-    if (savedPendingTransport != null) {
-      savedPendingTransport.shutdown(reason);
+    for (ManagedClientTransport transport : savedPendingTransports) {
+      transport.shutdown(reason);
+    }
+    for (ManagedClientTransport transport : savedPooledTransports) {
+      transport.shutdown(reason);
     }
   }
 
@@ -398,11 +634,37 @@ final class InternalSubchannel implements WithLogId {
     }
   }
 
+  @GuardedBy("lock")
+  private void cancelConnectionAttemptTask() {
+    if (connectionAttemptTask != null) {
+      connectionAttemptTask.cancel(false);
+      connectionAttemptTask = null;
+    }
+  }
+
   @Override
   public LogId getLogId() {
     return logId;
   }
 
+  @Override
+  public ListenableFuture<Channelz.ChannelStats> getStats() {
+    Channelz.ChannelStats.Builder builder = new Channelz.ChannelStats.Builder();
+    List<LogId> sockets = new ArrayList<LogId>();
+    try {
+      synchronized (lock) {
+        builder.setTarget(addressGroup.toString()).setState(state.getState());
+        for (ConnectionClientTransport transport : transports) {
+          sockets.add(transport.getLogId());
+        }
+      }
+    } finally {
+      channelExecutor.drain();
+    }
+    callTracer.updateBuilder(builder);
+    return Futures.immediateFuture(builder.setSockets(sockets).build());
+  }
+
   @VisibleForTesting
   ConnectivityState getState() {
     try {
@@ -419,6 +681,21 @@ final class InternalSubchannel implements WithLogId {
     final ConnectionClientTransport transport;
     final SocketAddress address;
 
+    /**
+     * Starts a replacement for {@link #transport} once it reaches the max connection age. Only
+     * scheduled while the transport is ready.
+     */
+    @GuardedBy("lock")
+    @Nullable
+    ScheduledFuture<?> maxConnectionAgeTask;
+
+    /**
+     * Started when the transport becomes ready.
+     */
+    @GuardedBy("lock")
+    @Nullable
+    Stopwatch readyTimer;
+
     TransportListener(ConnectionClientTransport transport, SocketAddress address) {
       this.transport = transport;
       this.address = address;
@@ -431,18 +708,49 @@ final class InternalSubchannel implements WithLogId {
             new Object[] {logId, transport.getLogId(), address});
       }
       Status savedShutdownReason;
+      boolean unusedPooledTransport = false;
+      List<ConnectionClientTransport> losingTransports = Collections.emptyList();
+      ConnectionClientTransport replacedTransport = null;
       try {
         synchronized (lock) {
           savedShutdownReason = shutdownReason;
           reconnectPolicy = null;
+          readyTimer = stopwatchSupplier.get().start();
           if (savedShutdownReason != null) {
             // activeTransport should have already been set to null by shutdown(). We keep it null.
             Preconditions.checkState(activeTransport == null,
                 "Unexpected non-null activeTransport");
-          } else if (pendingTransport == transport) {
+          } else if (pendingTransport == transport || racingTransports.contains(transport)) {
             gotoNonErrorState(READY);
             activeTransport = transport;
-            pendingTransport = null;
+            addressIndex = Math.max(0, addressGroup.getAddresses().indexOf(address));
+            losingTransports = takeLosingTransports(transport);
+            if (connectionPoolPolicy.isPooling()) {
+              readyPooledTransports = Collections.singletonList((PooledTransport) transport);
+            }
+          } else if (pendingPooledTransports.remove(transport)) {
+            if (state.getState() == READY) {
+              List<PooledTransport> pool = new ArrayList<PooledTransport>(readyPooledTransports);
+              pool.add((PooledTransport) transport);
+              readyPooledTransports = Collections.unmodifiableList(pool);
+            } else {
+              unusedPooledTransport = true;
+            }
+          } else if (pendingReplacements.containsKey(transport)) {
+            // New streams move to the replacement, while the replaced connection drains
+            replacedTransport = pendingReplacements.remove(transport);
+            if (activeTransport == replacedTransport) {
+              activeTransport = transport;
+            }
+            if (connectionPoolPolicy.isPooling()) {
+              List<PooledTransport> pool = new ArrayList<PooledTransport>(readyPooledTransports);
+              pool.set(pool.indexOf(replacedTransport), (PooledTransport) transport);
+              readyPooledTransports = Collections.unmodifiableList(pool);
+            }
+          }
+          if (savedShutdownReason == null && !unusedPooledTransport
+              && (activeTransport == transport || readyPooledTransports.contains(transport))) {
+            scheduleMaxConnectionAge();
           }
         }
       } finally {
@@ -450,7 +758,71 @@ final class InternalSubchannel implements WithLogId {
       }
       if (savedShutdownReason != null) {
         transport.shutdown(savedShutdownReason);
+      } else if (unusedPooledTransport) {
+        transport.shutdown(
+            Status.UNAVAILABLE.withDescription("Subchannel is no longer connected"));
+      }
+      for (ConnectionClientTransport loser : losingTransports) {
+        loser.shutdown(
+            Status.UNAVAILABLE.withDescription("Connection attempt to another address won"));
+      }
+      if (replacedTransport != null) {
+        replacedTransport.shutdown(
+            Status.UNAVAILABLE.withDescription("Connection reached max connection age"));
+      }
+    }
+
+    @GuardedBy("lock")
+    private void scheduleMaxConnectionAge() {
+      if (maxConnectionAgeNanos <= 0 || maxConnectionAgeNanos == Long.MAX_VALUE) {
+        return;
+      }
+      class EndOfMaxConnectionAge implements Runnable {
+        @Override
+        public void run() {
+          try {
+            synchronized (lock) {
+              maxConnectionAgeTask = null;
+              if (state.getState() != READY || (activeTransport != transport
+                  && !readyPooledTransports.contains(transport))) {
+                return;
+              }
+              if (log.isLoggable(Level.FINE)) {
+                log.log(Level.FINE, "[{0}] {1} reached max connection age, replacing it",
+                    new Object[] {logId, transport.getLogId()});
+              }
+              ConnectionClientTransport replacement = createTransport(address);
+              pendingReplacements.put(replacement, transport);
+              startTransport(replacement, address);
+            }
+          } catch (Throwable t) {
+            log.log(Level.WARNING, "Exception handling end of max connection age", t);
+          } finally {
+            channelExecutor.drain();
+          }
+        }
       }
+
+      maxConnectionAgeTask = scheduledExecutor.schedule(
+          new LogExceptionRunnable(new EndOfMaxConnectionAge()),
+          maxConnectionAgeNanos,
+          TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Removes and returns the pending replacement of {@link #transport}, if any.
+     */
+    @GuardedBy("lock")
+    @Nullable
+    private ConnectionClientTransport takePendingReplacement() {
+      for (Map.Entry<ConnectionClientTransport, ConnectionClientTransport> entry
+          : pendingReplacements.entrySet()) {
+        if (entry.getValue() == transport) {
+          pendingReplacements.remove(entry.getKey());
+          return entry.getKey();
+        }
+      }
+      return null;
     }
 
     @Override
@@ -464,12 +836,46 @@ final class InternalSubchannel implements WithLogId {
         log.log(Level.FINE, "[{0}] {1} for {2} is being shutdown with status {3}",
             new Object[] {logId, transport.getLogId(), address, s});
       }
+      ConnectionClientTransport unusedReplacement = null;
       try {
         synchronized (lock) {
+          if (maxConnectionAgeTask != null) {
+            maxConnectionAgeTask.cancel(false);
+            maxConnectionAgeTask = null;
+          }
           if (state.getState() == SHUTDOWN) {
             return;
           }
-          if (activeTransport == transport) {
+          ConnectionClientTransport replacement = takePendingReplacement();
+          pendingReplacements.remove(transport);
+          if (connectionPoolPolicy.isPooling() && removeReadyPooledTransport(transport)
+              && activeTransport == transport && !readyPooledTransports.isEmpty()) {
+            // Another connection of the pool takes over, so the subchannel stays READY
+            activeTransport = readyPooledTransports.get(0);
+            if (replacement != null) {
+              pendingPooledTransports.add(replacement);
+            }
+          } else if (activeTransport == transport && replacement != null) {
+            // The connection went away after reaching its max connection age, so its replacement
+            // becomes the connection being established
+            gotoNonErrorState(CONNECTING);
+            activeTransport = null;
+            connectingTimer.reset().start();
+            addressIndex = Math.max(0, addressGroup.getAddresses().indexOf(address));
+            pendingTransport = replacement;
+          } else if (activeTransport == transport && shouldReconnectInBackground()) {
+            // The server closed the connection, e.g. with GOAWAY at its own max connection age, so
+            // a new connection is opened right away rather than by the next RPC
+            if (log.isLoggable(Level.FINE)) {
+              log.log(Level.FINE, "[{0}] {1} was closed by the server, reconnecting",
+                  new Object[] {logId, transport.getLogId()});
+            }
+            gotoNonErrorState(CONNECTING);
+            activeTransport = null;
+            connectingTimer.reset().start();
+            addressIndex = Math.max(0, addressGroup.getAddresses().indexOf(address));
+            startNewTransport();
+          } else if (activeTransport == transport) {
             gotoNonErrorState(IDLE);
             activeTransport = null;
             addressIndex = 0;
@@ -481,17 +887,72 @@ final class InternalSubchannel implements WithLogId {
             if (addressIndex >= addressGroup.getAddresses().size()) {
               pendingTransport = null;
               addressIndex = 0;
-              // Initiate backoff
-              // Transition to TRANSIENT_FAILURE
-              scheduleBackoff(s);
+              cancelConnectionAttemptTask();
+              if (racingTransports.isEmpty()) {
+                // Initiate backoff
+                // Transition to TRANSIENT_FAILURE
+                scheduleBackoff(s);
+              }  // else: wait for the earlier connection attempts
             } else {
               startNewTransport();
             }
+          } else if (racingTransports.remove(transport)) {
+            if (racingTransports.isEmpty() && pendingTransport == null) {
+              // All connection attempts failed
+              scheduleBackoff(s);
+            }
+          } else {
+            pendingPooledTransports.remove(transport);
+            if (replacement != null) {
+              // A pooled connection other than activeTransport went away
+              if (state.getState() == READY) {
+                pendingPooledTransports.add(replacement);
+              } else {
+                unusedReplacement = replacement;
+              }
+            }
           }
         }
       } finally {
         channelExecutor.drain();
       }
+      if (unusedReplacement != null) {
+        unusedReplacement.shutdown(
+            Status.UNAVAILABLE.withDescription("Subchannel is no longer connected"));
+      }
+    }
+
+    /**
+     * Whether to reconnect once the server closed {@link #transport}, the active transport. Only
+     * done with a max connection age, and when the transport had been ready for longer than the
+     * reconnect backoff. Each connection closed sooner increases the backoff and leaves the
+     * subchannel IDLE, so a server that keeps closing connections right away doesn't make the
+     * subchannel reconnect in a loop.
+     */
+    @GuardedBy("lock")
+    private boolean shouldReconnectInBackground() {
+      if (maxConnectionAgeNanos <= 0) {
+        return false;
+      }
+      if (goAwayReconnectPolicy == null) {
+        goAwayReconnectPolicy = backoffPolicyProvider.get();
+      }
+      long readyNanos = readyTimer == null ? 0 : readyTimer.elapsed(TimeUnit.NANOSECONDS);
+      if (readyNanos < goAwayReconnectPolicy.nextBackoffNanos()) {
+        return false;
+      }
+      goAwayReconnectPolicy = null;
+      return true;
+    }
+
+    @GuardedBy("lock")
+    private boolean removeReadyPooledTransport(ConnectionClientTransport transport) {
+      List<PooledTransport> pool = new ArrayList<PooledTransport>(readyPooledTransports);
+      if (!pool.remove(transport)) {
+        return false;
+      }
+      readyPooledTransports = Collections.unmodifiableList(pool);
+      return true;
     }
 
     @Override
@@ -520,6 +981,125 @@ final class InternalSubchannel implements WithLogId {
     }
   }
 
+  /**
+   * A connection of a connection pool, which counts its active streams and how many streams it
+   * started in the last second.
+   */
+  private static final class PooledTransport extends ForwardingConnectionClientTransport {
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ConnectionClientTransport delegate;
+    private final AtomicInteger activeStreams = new AtomicInteger();
+    @GuardedBy("this")
+    private final Stopwatch window;
+    @GuardedBy("this")
+    private int streamsInWindow;
+    @GuardedBy("this")
+    private int streamsInPreviousWindow;
+
+    PooledTransport(ConnectionClientTransport delegate, Stopwatch window) {
+      this.delegate = delegate;
+      this.window = window.reset().start();
+    }
+
+    @Override
+    protected ConnectionClientTransport delegate() {
+      return delegate;
+    }
+
+    @Override
+    public ClientStream newStream(
+        MethodDescriptor<?, ?> method, Metadata headers, CallOptions callOptions) {
+      activeStreams.incrementAndGet();
+      synchronized (this) {
+        rollWindow();
+        streamsInWindow++;
+      }
+      ClientStream stream;
+      try {
+        stream = delegate.newStream(method, headers, callOptions);
+      } catch (RuntimeException e) {
+        activeStreams.decrementAndGet();
+        throw e;
+      }
+      return new CountedStream(stream, activeStreams);
+    }
+
+    int activeStreams() {
+      return activeStreams.get();
+    }
+
+    synchronized int streamsPerSecond() {
+      rollWindow();
+      return Math.max(streamsInWindow, streamsInPreviousWindow);
+    }
+
+    @GuardedBy("this")
+    private void rollWindow() {
+      long elapsed = window.elapsed(TimeUnit.NANOSECONDS);
+      if (elapsed >= WINDOW_NANOS) {
+        streamsInPreviousWindow = elapsed < 2 * WINDOW_NANOS ? streamsInWindow : 0;
+        streamsInWindow = 0;
+        window.reset().start();
+      }
+    }
+
+    /**
+     * Releases its count once the stream is closed, whether it completed, was cancelled or failed
+     * before or during {@link #start}.
+     */
+    private static final class CountedStream extends ForwardingClientStream {
+      private static final AtomicIntegerFieldUpdater<CountedStream> releasedUpdater =
+          AtomicIntegerFieldUpdater.newUpdater(CountedStream.class, "released");
+
+      private final ClientStream delegate;
+      private final AtomicInteger activeStreams;
+      private volatile int released;
+
+      CountedStream(ClientStream delegate, AtomicInteger activeStreams) {
+        this.delegate = delegate;
+        this.activeStreams = activeStreams;
+      }
+
+      @Override
+      protected ClientStream delegate() {
+        return delegate;
+      }
+
+      @Override
+      public void start(final ClientStreamListener listener) {
+        delegate.start(new ClientStreamListener() {
+          @Override
+          public void headersRead(Metadata headers) {
+            listener.headersRead(headers);
+          }
+
+          @Override
+          public void closed(Status status, Metadata trailers) {
+            release();
+            listener.closed(status, trailers);
+          }
+
+          @Override
+          public void messagesAvailable(MessageProducer producer) {
+            listener.messagesAvailable(producer);
+          }
+
+          @Override
+          public void onReady() {
+            listener.onReady();
+          }
+        });
+      }
+
+      private void release() {
+        if (releasedUpdater.compareAndSet(this, 0, 1)) {
+          activeStreams.decrementAndGet();
+        }
+      }
+    }
+  }
+
   // All methods are called in channelExecutor, which is a serializing executor.
   abstract static class Callback {
     /**
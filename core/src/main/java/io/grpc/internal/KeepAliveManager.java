@@ -25,21 +25,45 @@ import io.grpc.Status;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 /**
  * Manages keepalive pings.
+ *
+ * <p>{@link #onDataReceived} is called for every frame, so unless a ping is outstanding it only
+ * records the time of the frame and counts it, without locking. The pending sendPing task looks at
+ * them to delay the next ping.
  */
 public class KeepAliveManager {
   private static final SystemTicker SYSTEM_TICKER = new SystemTicker();
   private static final long MIN_KEEPALIVE_TIME_NANOS = TimeUnit.SECONDS.toNanos(10);
   private static final long MIN_KEEPALIVE_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(10L);
+  private static final AtomicLongFieldUpdater<KeepAliveManager> dataReceivedCountUpdater =
+      AtomicLongFieldUpdater.newUpdater(KeepAliveManager.class, "dataReceivedCount");
 
   private final ScheduledExecutorService scheduler;
   private final Ticker ticker;
   private final KeepAlivePinger keepAlivePinger;
   private final boolean keepAliveDuringTransportIdle;
   private State state = State.IDLE;
-  private long nextKeepaliveTime;
+  /**
+   * The time the last frame was received.  Written for every frame, without locking.
+   */
+  private volatile long lastDataReceivedTime;
+  /**
+   * The number of frames received.  Incremented for every frame, without locking.
+   */
+  private volatile long dataReceivedCount;
+  /**
+   * The value of {@link #dataReceivedCount} when last checked by the sendPing task.  Any other
+   * value means that data was received since.
+   */
+  private long checkedDataReceivedCount;
+  /**
+   * Whether a ping is waiting for its response, i.e. the state is {@link State#PING_SENT} or
+   * {@link State#IDLE_AND_PING_SENT}.  Lets {@link #onDataReceived} skip the lock otherwise.
+   */
+  private volatile boolean pingOutstanding;
   private ScheduledFuture<?> shutdownFuture;
   private ScheduledFuture<?> pingFuture;
   private final Runnable shutdown = new LogExceptionRunnable(new Runnable() {
@@ -51,6 +75,7 @@ public class KeepAliveManager {
           // We haven't received a ping response within the timeout. The connection is likely gone
           // already. Shutdown the transport and fail all existing rpcs.
           state = State.DISCONNECTED;
+          pingOutstanding = false;
           shouldShutdown = true;
         }
       }
@@ -62,22 +87,27 @@ public class KeepAliveManager {
   private final Runnable sendPing = new LogExceptionRunnable(new Runnable() {
     @Override
     public void run() {
-      pingFuture = null;
       boolean shouldSendPing = false;
       synchronized (KeepAliveManager.this) {
+        pingFuture = null;
         if (state == State.PING_SCHEDULED) {
-          shouldSendPing = true;
-          state = State.PING_SENT;
-          // Schedule a shutdown. It fires if we don't receive the ping response within the timeout.
-          shutdownFuture = scheduler.schedule(shutdown, keepAliveTimeoutInNanos,
-              TimeUnit.NANOSECONDS);
-        } else if (state == State.PING_DELAYED) {
-          // We have received some data. Reschedule the ping with the new time.
-          pingFuture = scheduler.schedule(
-              sendPing,
-              nextKeepaliveTime - ticker.read(),
-              TimeUnit.NANOSECONDS);
-          state = State.PING_SCHEDULED;
+          long dataReceivedCount = KeepAliveManager.this.dataReceivedCount;
+          if (dataReceivedCount != checkedDataReceivedCount) {
+            // We have received some data. Reschedule the ping keepAliveTime after the last frame.
+            checkedDataReceivedCount = dataReceivedCount;
+            pingFuture = scheduler.schedule(
+                sendPing,
+                lastDataReceivedTime + keepAliveTimeInNanos - ticker.read(),
+                TimeUnit.NANOSECONDS);
+          } else {
+            shouldSendPing = true;
+            state = State.PING_SENT;
+            pingOutstanding = true;
+            // Schedule a shutdown. It fires if we don't receive the ping response within the
+            // timeout.
+            shutdownFuture = scheduler.schedule(shutdown, keepAliveTimeoutInNanos,
+                TimeUnit.NANOSECONDS);
+          }
         }
       }
       if (shouldSendPing) {
@@ -101,10 +131,6 @@ public class KeepAliveManager {
      * some data.
      */
     PING_SCHEDULED,
-    /*
-     * We need to delay the scheduled keepalive ping.
-     */
-    PING_DELAYED,
     /*
      * The ping has been sent out. Waiting for a ping response.
      */
@@ -139,7 +165,7 @@ public class KeepAliveManager {
     this.keepAliveTimeInNanos = keepAliveTimeInNanos;
     this.keepAliveTimeoutInNanos = keepAliveTimeoutInNanos;
     this.keepAliveDuringTransportIdle = keepAliveDuringTransportIdle;
-    nextKeepaliveTime = ticker.read() + keepAliveTimeInNanos;
+    lastDataReceivedTime = ticker.read();
   }
 
   /** Start keepalive monitoring. */
@@ -152,18 +178,26 @@ public class KeepAliveManager {
   /**
    * Transport has received some data so that we can delay sending keepalives.
    */
-  public synchronized void onDataReceived() {
-    nextKeepaliveTime = ticker.read() + keepAliveTimeInNanos;
-    // We do not cancel the ping future here. This avoids constantly scheduling and cancellation in
-    // a busy transport. Instead, we update the status here and reschedule later. So we actually
-    // keep one sendPing task always in flight when there're active rpcs.
-    if (state == State.PING_SCHEDULED) {
-      state = State.PING_DELAYED;
-    } else if (state == State.PING_SENT || state == State.IDLE_AND_PING_SENT) {
+  public void onDataReceived() {
+    // We do not cancel the ping future here. This avoids locking, and constantly scheduling and
+    // cancellation in a busy transport. Instead, the pending sendPing task reschedules itself
+    // later. So we actually keep one sendPing task always in flight when there're active rpcs.
+    lastDataReceivedTime = ticker.read();
+    dataReceivedCountUpdater.incrementAndGet(this);
+    if (pingOutstanding) {
+      onPingAcked();
+    }
+  }
+
+  private synchronized void onPingAcked() {
+    if (state == State.PING_SENT || state == State.IDLE_AND_PING_SENT) {
       // Ping acked or effectively ping acked. Cancel shutdown, and then if not idle,
       // schedule a new keep-alive ping.
+      pingOutstanding = false;
+      checkedDataReceivedCount = dataReceivedCount;
       if (shutdownFuture != null) {
         shutdownFuture.cancel(false);
+        shutdownFuture = null;
       }
       if (state == State.IDLE_AND_PING_SENT) {
         // not to schedule new pings until onTransportActive
@@ -182,13 +216,14 @@ public class KeepAliveManager {
    */
   public synchronized void onTransportActive() {
     if (state == State.IDLE) {
-      // When the transport goes active, we do not reset the nextKeepaliveTime. This allows us to
-      // quickly check whether the connection is still working.
+      // When the transport goes active, we do not reset the time of the next ping. This allows us
+      // to quickly check whether the connection is still working.
       state = State.PING_SCHEDULED;
       if (pingFuture == null) {
+        checkedDataReceivedCount = dataReceivedCount;
         pingFuture = scheduler.schedule(
             sendPing,
-            nextKeepaliveTime - ticker.read(),
+            lastDataReceivedTime + keepAliveTimeInNanos - ticker.read(),
             TimeUnit.NANOSECONDS);
       }
     } else if (state == State.IDLE_AND_PING_SENT) {
@@ -203,7 +238,7 @@ public class KeepAliveManager {
     if (keepAliveDuringTransportIdle) {
       return;
     }
-    if (state == State.PING_SCHEDULED || state == State.PING_DELAYED) {
+    if (state == State.PING_SCHEDULED) {
       state = State.IDLE;
     }
     if (state == State.PING_SENT) {
@@ -217,8 +252,10 @@ public class KeepAliveManager {
   public synchronized void onTransportTermination() {
     if (state != State.DISCONNECTED) {
       state = State.DISCONNECTED;
+      pingOutstanding = false;
       if (shutdownFuture != null) {
         shutdownFuture.cancel(false);
+        shutdownFuture = null;
       }
       if (pingFuture != null) {
         pingFuture.cancel(false);
@@ -26,6 +26,8 @@ import static io.grpc.ConnectivityState.TRANSIENT_FAILURE;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import io.grpc.Attributes;
 import io.grpc.CallOptions;
 import io.grpc.Channel;
@@ -73,7 +75,8 @@ import javax.annotation.concurrent.ThreadSafe;
 
 /** A communication channel for making outgoing RPCs. */
 @ThreadSafe
-public final class ManagedChannelImpl extends ManagedChannel implements WithLogId {
+public final class ManagedChannelImpl extends ManagedChannel
+    implements Instrumented<Channelz.ChannelStats> {
   static final Logger logger = Logger.getLogger(ManagedChannelImpl.class.getName());
 
   // Matching this pattern means the target string is a URI target or at least intended to be one.
@@ -113,12 +116,19 @@ public final class ManagedChannelImpl extends ManagedChannel implements WithLogI
 
   private final DecompressorRegistry decompressorRegistry;
   private final CompressorRegistry compressorRegistry;
+  @Nullable
+  private final AdaptiveCompressionPolicy compressionPolicy;
+  private final DeframerPolicy deframerPolicy;
+  private final ConnectionPoolPolicy connectionPoolPolicy;
+  private final long connectionAttemptDelayNanos;
+  private final long maxConnectionAgeNanos;
 
   private final Supplier<Stopwatch> stopwatchSupplier;
   /** The timout before entering idle mode. */
   private final long idleTimeoutMillis;
 
   private final ConnectivityStateManager channelStateManager = new ConnectivityStateManager();
+  private final CallTracer callTracer = new CallTracer();
 
   private final BackoffPolicy.Provider backoffPolicyProvider;
 
@@ -413,9 +423,16 @@ public final class ManagedChannelImpl extends ManagedChannel implements WithLogI
     }
     this.decompressorRegistry = checkNotNull(builder.decompressorRegistry, "decompressorRegistry");
     this.compressorRegistry = checkNotNull(builder.compressorRegistry, "compressorRegistry");
+    this.compressionPolicy = builder.compressionPolicy;
+    this.deframerPolicy = new DeframerPolicy(
+        builder.deframeInApplicationThread, builder.deframeInApplicationThreadMethods);
+    this.connectionPoolPolicy = builder.connectionPoolPolicy;
+    this.connectionAttemptDelayNanos = builder.connectionAttemptDelayNanos;
+    this.maxConnectionAgeNanos = builder.maxConnectionAgeNanos;
     this.userAgent = builder.userAgent;
 
     phantom = new ManagedChannelReference(this);
+    Channelz.instance().addRootChannel(this);
     logger.log(Level.FINE, "[{0}] Created with target {1}", new Object[] {getLogId(), target});
   }
 
@@ -568,7 +585,10 @@ public final class ManagedChannelImpl extends ManagedChannel implements WithLogI
           transportProvider,
           terminated ? null : transportFactory.getScheduledExecutorService())
               .setDecompressorRegistry(decompressorRegistry)
-              .setCompressorRegistry(compressorRegistry);
+              .setCompressorRegistry(compressorRegistry)
+              .setCompressionPolicy(compressionPolicy)
+              .setDeframerPolicy(deframerPolicy)
+              .setCallTracer(callTracer);
     }
 
     @Override
@@ -591,6 +611,7 @@ public final class ManagedChannelImpl extends ManagedChannel implements WithLogI
       terminated = true;
       phantom.terminated = true;
       phantom.clear();
+      Channelz.instance().removeRootChannel(this);
       terminatedLatch.countDown();
       executorPool.returnObject(executor);
       // Release the transport factory so that it can deallocate any resources.
@@ -598,6 +619,30 @@ public final class ManagedChannelImpl extends ManagedChannel implements WithLogI
     }
   }
 
+  @Override
+  public ListenableFuture<Channelz.ChannelStats> getStats() {
+    final SettableFuture<Channelz.ChannelStats> stats = SettableFuture.create();
+    // subchannels and oobChannels are only accessed from channelExecutor
+    channelExecutor.executeLater(new Runnable() {
+        @Override
+        public void run() {
+          Channelz.ChannelStats.Builder builder = new Channelz.ChannelStats.Builder()
+              .setTarget(target)
+              .setState(channelStateManager.isDisabled() ? null : channelStateManager.getState());
+          callTracer.updateBuilder(builder);
+          List<LogId> children = new ArrayList<LogId>();
+          for (InternalSubchannel subchannel : subchannels) {
+            children.add(subchannel.getLogId());
+          }
+          for (InternalSubchannel oobChannel : oobChannels) {
+            children.add(oobChannel.getLogId());
+          }
+          stats.set(builder.setSubchannels(children).build());
+        }
+      }).drain();
+    return stats;
+  }
+
   @Override
   public ConnectivityState getState(boolean requestConnection) {
     ConnectivityState savedChannelState = channelStateManager.getState();
@@ -640,14 +685,19 @@ public final class ManagedChannelImpl extends ManagedChannel implements WithLogI
       // TODO(ejona): can we be even stricter? Like loadBalancer == null?
       checkState(!terminated, "Channel is terminated");
       final SubchannelImpl subchannel = new SubchannelImpl(attrs);
+      CallTracer subchannelCallTracer = new CallTracer();
       final InternalSubchannel internalSubchannel = new InternalSubchannel(
-            addressGroup, authority(), userAgent, backoffPolicyProvider, transportFactory,
-            transportFactory.getScheduledExecutorService(), stopwatchSupplier, channelExecutor,
+            addressGroup, authority(), userAgent, backoffPolicyProvider,
+            new CallTracingTransportFactory(transportFactory, subchannelCallTracer),
+            transportFactory.getScheduledExecutorService(), stopwatchSupplier, connectionPoolPolicy,
+            connectionAttemptDelayNanos, maxConnectionAgeNanos, channelExecutor,
+            subchannelCallTracer,
             new InternalSubchannel.Callback() {
               // All callbacks are run in channelExecutor
               @Override
               void onTerminated(InternalSubchannel is) {
                 subchannels.remove(is);
+                Channelz.instance().removeSubchannel(is);
                 maybeTerminateChannel();
               }
 
@@ -670,6 +720,7 @@ public final class ManagedChannelImpl extends ManagedChannel implements WithLogI
               }
             });
       subchannel.subchannel = internalSubchannel;
+      Channelz.instance().addSubchannel(internalSubchannel);
       logger.log(Level.FINE, "[{0}] {1} created for {2}",
           new Object[] {getLogId(), internalSubchannel.getLogId(), addressGroup});
       runSerialized(new Runnable() {
@@ -732,14 +783,19 @@ public final class ManagedChannelImpl extends ManagedChannel implements WithLogI
       final OobChannel oobChannel = new OobChannel(
           authority, oobExecutorPool, transportFactory.getScheduledExecutorService(),
           channelExecutor);
+      CallTracer subchannelCallTracer = new CallTracer();
       final InternalSubchannel internalSubchannel = new InternalSubchannel(
-          addressGroup, authority, userAgent, backoffPolicyProvider, transportFactory,
-          transportFactory.getScheduledExecutorService(), stopwatchSupplier, channelExecutor,
+          addressGroup, authority, userAgent, backoffPolicyProvider,
+          new CallTracingTransportFactory(transportFactory, subchannelCallTracer),
+          transportFactory.getScheduledExecutorService(), stopwatchSupplier,
+          ConnectionPoolPolicy.SINGLE_CONNECTION, connectionAttemptDelayNanos,
+          maxConnectionAgeNanos, channelExecutor, subchannelCallTracer,
           // All callback methods are run from channelExecutor
           new InternalSubchannel.Callback() {
             @Override
             void onTerminated(InternalSubchannel is) {
               oobChannels.remove(is);
+              Channelz.instance().removeSubchannel(is);
               oobChannel.handleSubchannelTerminated();
               maybeTerminateChannel();
             }
@@ -750,6 +806,7 @@ public final class ManagedChannelImpl extends ManagedChannel implements WithLogI
             }
           });
       oobChannel.setSubchannel(internalSubchannel);
+      Channelz.instance().addSubchannel(internalSubchannel);
       runSerialized(new Runnable() {
           @Override
           public void run() {
@@ -952,6 +1009,12 @@ public final class ManagedChannelImpl extends ManagedChannel implements WithLogI
       return attrs;
     }
 
+    @Override
+    public Channel asChannel() {
+      return new SubchannelChannel(this, authority(), executor,
+          transportFactory.getScheduledExecutorService());
+    }
+
     @Override
     public String toString() {
       return subchannel.getLogId().toString();
@@ -82,7 +82,7 @@ public class MessageDeframer implements Closeable, Deframer {
     HEADER, BODY
   }
 
-  private final Listener listener;
+  private Listener listener;
   private int maxInboundMessageSize;
   private final StatsTraceContext statsTraceCtx;
   private final String debugString;
@@ -117,6 +117,13 @@ public class MessageDeframer implements Closeable, Deframer {
     this.debugString = debugString;
   }
 
+  /**
+   * Replaces the listener. Only safe to call before any data has been deframed.
+   */
+  void setListener(Listener listener) {
+    this.listener = checkNotNull(listener, "listener");
+  }
+
   @Override
   public void setMaxInboundMessageSize(int messageSize) {
     maxInboundMessageSize = messageSize;
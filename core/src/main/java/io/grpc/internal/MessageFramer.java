@@ -21,6 +21,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static java.lang.Math.min;
 
+import io.grpc.ByteBufferDrainable;
 import io.grpc.Codec;
 import io.grpc.Compressor;
 import io.grpc.Drainable;
@@ -62,6 +63,9 @@ public class MessageFramer implements Framer {
   private static final int HEADER_LENGTH = 5;
   private static final byte UNCOMPRESSED = 0;
   private static final byte COMPRESSED = 1;
+  // Smaller messages are copied even when they could be sent zero-copy, since handing them to the
+  // sink separately costs more than copying them into the current buffer.
+  private static final int MIN_ZERO_COPY_MESSAGE_SIZE = 4096;
 
   private final Sink sink;
   // effectively final.  Can only be set once.
@@ -69,6 +73,8 @@ public class MessageFramer implements Framer {
   private WritableBuffer buffer;
   private Compressor compressor = Codec.Identity.NONE;
   private boolean messageCompression = true;
+  @Nullable
+  private AdaptiveCompressionPolicy.MethodPolicy compressionPolicy;
   private final OutputStreamAdapter outputStreamAdapter = new OutputStreamAdapter();
   private final byte[] headerScratch = new byte[HEADER_LENGTH];
   private final WritableBufferAllocator bufferAllocator;
@@ -104,6 +110,12 @@ public class MessageFramer implements Framer {
     return this;
   }
 
+  @Override
+  public MessageFramer setCompressionPolicy(AdaptiveCompressionPolicy.MethodPolicy policy) {
+    compressionPolicy = checkNotNull(policy, "policy");
+    return this;
+  }
+
   @Override
   public void setMaxOutboundMessageSize(int maxSize) {
     checkState(maxOutboundMessageSize == NO_MAX_OUTBOUND_MESSAGE_SIZE, "max size already set");
@@ -126,8 +138,16 @@ public class MessageFramer implements Framer {
     int messageLength = -2;
     try {
       messageLength = getKnownLength(message);
+      if (compressed && messageLength != 0 && compressionPolicy != null
+          && !compressionPolicy.shouldCompress(messageLength)) {
+        compressed = false;
+        statsTraceCtx.outboundMessageCompressionSkipped(currentMessageSeqNo);
+      }
       if (messageLength != 0 && compressed) {
         written = writeCompressed(message, messageLength);
+        if (compressionPolicy != null) {
+          compressionPolicy.recordCompressed(written, currentMessageWireSize);
+        }
       } else {
         written = writeUncompressed(message, messageLength);
       }
@@ -156,6 +176,10 @@ public class MessageFramer implements Framer {
   private int writeUncompressed(InputStream message, int messageLength) throws IOException {
     if (messageLength != -1) {
       currentMessageWireSize = messageLength;
+      if (messageLength >= MIN_ZERO_COPY_MESSAGE_SIZE && message instanceof ByteBufferDrainable
+          && bufferAllocator instanceof ZeroCopyWritableBufferAllocator) {
+        return writeKnownLengthZeroCopy((ByteBufferDrainable) message, messageLength);
+      }
       return writeKnownLengthUncompressed(message, messageLength);
     }
     BufferChainOutputStream bufferChain = new BufferChainOutputStream();
@@ -221,6 +245,30 @@ public class MessageFramer implements Framer {
     return writeToOutputStream(message, outputStreamAdapter);
   }
 
+  /**
+   * Write a message whose content is already in a {@link ByteBuffer}, uncompressed. The content is
+   * wrapped by the allocator instead of being copied into the framer's buffers.
+   */
+  private int writeKnownLengthZeroCopy(ByteBufferDrainable message, int messageLength) {
+    if (maxOutboundMessageSize >= 0 && messageLength > maxOutboundMessageSize) {
+      throw Status.RESOURCE_EXHAUSTED
+          .withDescription(
+              String.format("message too large %d > %d", messageLength , maxOutboundMessageSize))
+          .asRuntimeException();
+    }
+    ByteBuffer header = ByteBuffer.wrap(headerScratch);
+    header.put(UNCOMPRESSED);
+    header.putInt(messageLength);
+    writeRaw(headerScratch, 0, header.position());
+    ByteBuffer content = message.drainToByteBuffer();
+    int written = content.remaining();
+    // Commit the header along with anything already buffered, then make the wrapped content the
+    // current buffer. It has no writable bytes, so the next write allocates a new buffer.
+    commitToSink(false, false);
+    buffer = ((ZeroCopyWritableBufferAllocator) bufferAllocator).wrap(content);
+    return written;
+  }
+
   /**
    * Write a message that has been serialized to a sequence of buffers.
    */
@@ -67,6 +67,12 @@ public class NoopClientStream implements ClientStream {
   @Override
   public void setCompressor(Compressor compressor) {}
 
+  @Override
+  public void setCompressionPolicy(AdaptiveCompressionPolicy.MethodPolicy policy) {}
+
+  @Override
+  public void deframeInApplicationThread() {}
+
   @Override
   public void setDecompressorRegistry(DecompressorRegistry decompressorRegistry) {}
 
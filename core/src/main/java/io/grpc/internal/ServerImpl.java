@@ -26,6 +26,8 @@ import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.grpc.Attributes;
 import io.grpc.CompressorRegistry;
 import io.grpc.Context;
@@ -52,6 +54,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 
 /**
@@ -68,7 +71,8 @@ import javax.annotation.concurrent.GuardedBy;
  * <p>Starting the server starts the underlying transport for servicing requests. Stopping the
  * server stops servicing new requests and waits for all connections to terminate.
  */
-public final class ServerImpl extends io.grpc.Server implements WithLogId {
+public final class ServerImpl extends io.grpc.Server
+    implements Instrumented<Channelz.ServerStats> {
   private static final Logger log = Logger.getLogger(ServerImpl.class.getName());
   private static final ServerStreamListener NOOP_LISTENER = new NoopListener();
 
@@ -101,6 +105,10 @@ public final class ServerImpl extends io.grpc.Server implements WithLogId {
 
   private final DecompressorRegistry decompressorRegistry;
   private final CompressorRegistry compressorRegistry;
+  @Nullable
+  private final AdaptiveCompressionPolicy compressionPolicy;
+  private final DeframerPolicy deframerPolicy;
+  private final CallTracer callTracer = new CallTracer();
 
   /**
    * Construct a server.
@@ -123,6 +131,9 @@ public final class ServerImpl extends io.grpc.Server implements WithLogId {
     this.rootContext = Preconditions.checkNotNull(rootContext, "rootContext").fork();
     this.decompressorRegistry = builder.decompressorRegistry;
     this.compressorRegistry = builder.compressorRegistry;
+    this.compressionPolicy = builder.compressionPolicy;
+    this.deframerPolicy = new DeframerPolicy(
+        builder.deframeInApplicationThread, builder.deframeInApplicationThreadMethods);
     this.transportFilters = Collections.unmodifiableList(
         new ArrayList<ServerTransportFilter>(builder.transportFilters));
     this.interceptors =
@@ -145,6 +156,7 @@ public final class ServerImpl extends io.grpc.Server implements WithLogId {
       transportServer.start(new ServerListenerImpl());
       executor = Preconditions.checkNotNull(executorPool.getObject(), "executor");
       started = true;
+      Channelz.instance().addServer(this);
       return this;
     }
   }
@@ -270,6 +282,19 @@ public final class ServerImpl extends io.grpc.Server implements WithLogId {
     }
   }
 
+  @Override
+  public ListenableFuture<Channelz.ServerStats> getStats() {
+    Channelz.ServerStats.Builder builder = new Channelz.ServerStats.Builder();
+    List<LogId> sockets = new ArrayList<LogId>();
+    synchronized (lock) {
+      for (ServerTransport transport : transports) {
+        sockets.add(transport.getLogId());
+      }
+    }
+    callTracer.updateBuilder(builder);
+    return Futures.immediateFuture(builder.setSockets(sockets).build());
+  }
+
   /**
    * Remove transport service from accounting collection and notify of complete shutdown if
    * necessary.
@@ -293,6 +318,7 @@ public final class ServerImpl extends io.grpc.Server implements WithLogId {
           throw new AssertionError("Server already terminated");
         }
         terminated = true;
+        Channelz.instance().removeServer(this);
         if (executor != null) {
           executor = executorPool.returnObject(executor);
         }
@@ -365,6 +391,11 @@ public final class ServerImpl extends io.grpc.Server implements WithLogId {
     @Override
     public void streamCreated(
         final ServerStream stream, final String methodName, final Metadata headers) {
+      callTracer.reportCallStarted();
+      // Called from the transport thread before any message data, so the deframer can be switched
+      if (deframerPolicy.deframeInApplicationThread(methodName)) {
+        stream.deframeInApplicationThread();
+      }
       if (headers.containsKey(MESSAGE_ENCODING_KEY)) {
         String encoding = headers.get(MESSAGE_ENCODING_KEY);
         Decompressor decompressor = decompressorRegistry.lookupDecompressor(encoding);
@@ -393,7 +424,7 @@ public final class ServerImpl extends io.grpc.Server implements WithLogId {
 
       final JumpToApplicationThreadServerStreamListener jumpListener
           = new JumpToApplicationThreadServerStreamListener(
-              wrappedExecutor, executor, stream, context);
+              wrappedExecutor, executor, stream, context, callTracer);
       stream.setListener(jumpListener);
       // Run in wrappedExecutor so jumpListener.setListener() is called before any callbacks
       // are delivered, including any errors. Callbacks can still be triggered, but they will be
@@ -477,6 +508,10 @@ public final class ServerImpl extends io.grpc.Server implements WithLogId {
         ServerMethodDefinition<ReqT, RespT> methodDef, Metadata headers,
         Context.CancellableContext context, StatsTraceContext statsTraceCtx) {
       // TODO(ejona86): should we update fullMethodName to have the canonical path of the method?
+      if (compressionPolicy != null) {
+        stream.setCompressionPolicy(
+            compressionPolicy.forMethod(methodDef.getMethodDescriptor().getFullMethodName()));
+      }
       ServerCallImpl<ReqT, RespT> call = new ServerCallImpl<ReqT, RespT>(
           stream, methodDef.getMethodDescriptor(), headers, context,
           decompressorRegistry, compressorRegistry);
@@ -541,15 +576,18 @@ public final class ServerImpl extends io.grpc.Server implements WithLogId {
     private final Executor cancelExecutor;
     private final Context.CancellableContext context;
     private final ServerStream stream;
+    private final CallTracer callTracer;
     // Only accessed from callExecutor.
     private ServerStreamListener listener;
 
     public JumpToApplicationThreadServerStreamListener(Executor executor,
-        Executor cancelExecutor, ServerStream stream, Context.CancellableContext context) {
+        Executor cancelExecutor, ServerStream stream, Context.CancellableContext context,
+        CallTracer callTracer) {
       this.callExecutor = executor;
       this.cancelExecutor = cancelExecutor;
       this.stream = stream;
       this.context = context;
+      this.callTracer = callTracer;
     }
 
     /**
@@ -629,6 +667,7 @@ public final class ServerImpl extends io.grpc.Server implements WithLogId {
 
     @Override
     public void closed(final Status status) {
+      callTracer.reportCallEnded(status.isOk());
       // For cancellations, promptly inform any users of the context that their work should be
       // aborted. Otherwise, we can wait until pending work is done.
       if (!status.isOk()) {
@@ -60,6 +60,22 @@ public final class StatsTraceContext {
     return new StatsTraceContext(tracers);
   }
 
+  /**
+   * Factory method for the client-side, which also traces the stream with the tracer of its
+   * transport.
+   */
+  public static StatsTraceContext newClientContext(
+      CallOptions callOptions, Metadata headers, ClientStreamTracer transportTracer) {
+    checkNotNull(transportTracer, "transportTracer");
+    List<ClientStreamTracer.Factory> factories = callOptions.getStreamTracerFactories();
+    StreamTracer[] tracers = new StreamTracer[factories.size() + 1];
+    for (int i = 0; i < factories.size(); i++) {
+      tracers[i] = factories.get(i).newClientStreamTracer(callOptions, headers);
+    }
+    tracers[factories.size()] = transportTracer;
+    return new StatsTraceContext(tracers);
+  }
+
   /**
    * Factory method for the server-side.
    */
@@ -110,6 +126,17 @@ public final class StatsTraceContext {
     }
   }
 
+  /**
+   * See {@link ClientStreamTracer#inboundTrailers}.  For client-side only.
+   *
+   * <p>Called from abstract stream implementations.
+   */
+  public void clientInboundTrailers(Metadata trailers) {
+    for (StreamTracer tracer : tracers) {
+      ((ClientStreamTracer) tracer).inboundTrailers(trailers);
+    }
+  }
+
   /**
    * See {@link ServerStreamTracer#filterContext}.  For server-side only.
    *
@@ -186,6 +213,17 @@ public final class StatsTraceContext {
     }
   }
 
+  /**
+   * See {@link StreamTracer#outboundMessageCompressionSkipped}.
+   *
+   * <p>Called from {@link io.grpc.internal.Framer}.
+   */
+  public void outboundMessageCompressionSkipped(int seqNo) {
+    for (StreamTracer tracer : tracers) {
+      tracer.outboundMessageCompressionSkipped(seqNo);
+    }
+  }
+
   /**
    * See {@link StreamTracer#inboundMessageRead}.
    *
@@ -77,4 +77,18 @@ public interface Stream {
    * but may not have any effect if compression is not enabled on the call.
    */
   void setMessageCompression(boolean enable);
+
+  /**
+   * Sets the policy deciding which messages are worth compressing when per-message compression is
+   * enabled. By default every message is compressed.
+   */
+  void setCompressionPolicy(AdaptiveCompressionPolicy.MethodPolicy policy);
+
+  /**
+   * Decompresses and deframes inbound messages in the application thread that consumes them,
+   * instead of in the transport thread. Must be called before any inbound data is received: before
+   * {@code start()} for client streams, or from {@link ServerTransportListener#streamCreated} for
+   * server streams. Has no effect on transports that do not deframe.
+   */
+  void deframeInApplicationThread();
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.LoadBalancer.PickSubchannelArgs;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.internal.ClientCallImpl.ClientTransportProvider;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * The {@link Channel} returned by {@link io.grpc.LoadBalancer.Subchannel#asChannel}, which makes
+ * its calls on the active transport of a single Subchannel.
+ */
+final class SubchannelChannel extends Channel {
+  private static final FailingClientTransport NOT_READY_TRANSPORT =
+      new FailingClientTransport(Status.UNAVAILABLE.withDescription("Subchannel is not ready"));
+
+  private final AbstractSubchannel subchannel;
+  private final String authority;
+  private final Executor executor;
+  private final ScheduledExecutorService deadlineCancellationExecutor;
+
+  private final ClientTransportProvider transportProvider = new ClientTransportProvider() {
+    @Override
+    public ClientTransport get(PickSubchannelArgs args) {
+      ClientTransport transport = subchannel.obtainActiveTransport();
+      if (transport == null) {
+        return NOT_READY_TRANSPORT;
+      }
+      return transport;
+    }
+  };
+
+  SubchannelChannel(AbstractSubchannel subchannel, String authority, Executor executor,
+      ScheduledExecutorService deadlineCancellationExecutor) {
+    this.subchannel = checkNotNull(subchannel, "subchannel");
+    this.authority = checkNotNull(authority, "authority");
+    this.executor = checkNotNull(executor, "executor");
+    this.deadlineCancellationExecutor =
+        checkNotNull(deadlineCancellationExecutor, "deadlineCancellationExecutor");
+  }
+
+  @Override
+  public <RequestT, ResponseT> ClientCall<RequestT, ResponseT> newCall(
+      MethodDescriptor<RequestT, ResponseT> methodDescriptor, CallOptions callOptions) {
+    return new ClientCallImpl<RequestT, ResponseT>(methodDescriptor,
+        callOptions.getExecutor() == null ? executor : callOptions.getExecutor(),
+        callOptions, transportProvider, deadlineCancellationExecutor);
+  }
+
+  @Override
+  public String authority() {
+    return authority;
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import io.grpc.ClientStreamTracer;
+import io.grpc.Metadata;
+import io.grpc.ServerStreamTracer;
+import io.grpc.Status;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * Counts the streams, messages and bytes of a transport, for {@link Channelz}. The stream tracers
+ * are shared by all the streams of the transport, so that tracing does not allocate per stream.
+ */
+public final class TransportTracer {
+  private final AtomicLong streamsStarted = new AtomicLong();
+  private final AtomicLong streamsSucceeded = new AtomicLong();
+  private final AtomicLong streamsFailed = new AtomicLong();
+  private final AtomicLong messagesSent = new AtomicLong();
+  private final AtomicLong messagesReceived = new AtomicLong();
+  private final AtomicLong bytesSent = new AtomicLong();
+  private final AtomicLong bytesReceived = new AtomicLong();
+  private volatile long lastLocalStreamCreatedMillis;
+  private volatile long lastRemoteStreamCreatedMillis;
+  private volatile long lastMessageSentMillis;
+  private volatile long lastMessageReceivedMillis;
+  @Nullable
+  private volatile CallTracer callTracer;
+
+  private final ClientStreamTracer clientStreamTracer = new ClientStreamTracer() {
+    @Override
+    public void outboundMessage(int seqNo) {
+      reportMessageSent();
+    }
+
+    @Override
+    public void inboundMessage(int seqNo) {
+      reportMessageReceived();
+    }
+
+    @Override
+    public void outboundWireSize(long bytes) {
+      bytesSent.addAndGet(bytes);
+    }
+
+    @Override
+    public void inboundWireSize(long bytes) {
+      bytesReceived.addAndGet(bytes);
+    }
+
+    @Override
+    public void streamClosed(Status status) {
+      reportStreamClosed(status.isOk());
+      CallTracer callTracer = TransportTracer.this.callTracer;
+      if (callTracer != null) {
+        callTracer.reportCallEnded(status.isOk());
+      }
+    }
+  };
+
+  private final ServerStreamTracer serverStreamTracer = new ServerStreamTracer() {
+    @Override
+    public void outboundMessage(int seqNo) {
+      reportMessageSent();
+    }
+
+    @Override
+    public void inboundMessage(int seqNo) {
+      reportMessageReceived();
+    }
+
+    @Override
+    public void outboundWireSize(long bytes) {
+      bytesSent.addAndGet(bytes);
+    }
+
+    @Override
+    public void inboundWireSize(long bytes) {
+      bytesReceived.addAndGet(bytes);
+    }
+
+    @Override
+    public void streamClosed(Status status) {
+      reportStreamClosed(status.isOk());
+    }
+  };
+
+  private final ServerStreamTracer.Factory serverStreamTracerFactory =
+      new ServerStreamTracer.Factory() {
+        @Override
+        public ServerStreamTracer newServerStreamTracer(String fullMethodName, Metadata headers) {
+          streamsStarted.incrementAndGet();
+          lastRemoteStreamCreatedMillis = System.currentTimeMillis();
+          return serverStreamTracer;
+        }
+      };
+
+  /**
+   * Returns the tracer of the streams created by this client transport. {@link
+   * #reportLocalStreamStarted} must be called for each of them.
+   */
+  public ClientStreamTracer getClientStreamTracer() {
+    return clientStreamTracer;
+  }
+
+  /**
+   * Returns a factory to be added to the stream tracer factories of this server transport, which
+   * counts the streams started by the client.
+   */
+  public ServerStreamTracer.Factory getServerStreamTracerFactory() {
+    return serverStreamTracerFactory;
+  }
+
+  /**
+   * Called by a client transport when it creates a stream.
+   */
+  public void reportLocalStreamStarted() {
+    streamsStarted.incrementAndGet();
+    lastLocalStreamCreatedMillis = System.currentTimeMillis();
+    CallTracer callTracer = this.callTracer;
+    if (callTracer != null) {
+      callTracer.reportCallStarted();
+    }
+  }
+
+  /**
+   * Also reports the streams created by this client transport, and how they end, as calls of the
+   * subchannel owning it.
+   */
+  void setCallTracer(CallTracer callTracer) {
+    this.callTracer = checkNotNull(callTracer, "callTracer");
+  }
+
+  private void reportStreamClosed(boolean success) {
+    if (success) {
+      streamsSucceeded.incrementAndGet();
+    } else {
+      streamsFailed.incrementAndGet();
+    }
+  }
+
+  private void reportMessageSent() {
+    messagesSent.incrementAndGet();
+    lastMessageSentMillis = System.currentTimeMillis();
+  }
+
+  private void reportMessageReceived() {
+    messagesReceived.incrementAndGet();
+    lastMessageReceivedMillis = System.currentTimeMillis();
+  }
+
+  /**
+   * Returns a snapshot of the counters.
+   *
+   * @param localFlowControlWindow the bytes the remote peer may send on the connection, or {@code
+   *     -1} if unknown
+   * @param remoteFlowControlWindow the bytes this transport may send on the connection, or {@code
+   *     -1} if unknown
+   */
+  public Channelz.TransportStats getStats(
+      long localFlowControlWindow, long remoteFlowControlWindow) {
+    return new Channelz.TransportStats(
+        streamsStarted.get(),
+        lastLocalStreamCreatedMillis,
+        lastRemoteStreamCreatedMillis,
+        streamsSucceeded.get(),
+        streamsFailed.get(),
+        messagesSent.get(),
+        messagesReceived.get(),
+        bytesSent.get(),
+        bytesReceived.get(),
+        lastMessageSentMillis,
+        lastMessageReceivedMillis,
+        localFlowControlWindow,
+        remoteFlowControlWindow);
+  }
+}
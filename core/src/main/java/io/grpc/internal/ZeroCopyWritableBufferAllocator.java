@@ -0,0 +1,34 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.grpc.internal;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link WritableBufferAllocator} that can also wrap an existing {@link ByteBuffer} as a
+ * {@link WritableBuffer} without copying it. Used by {@link MessageFramer} to send
+ * {@link io.grpc.ByteBufferDrainable} messages.
+ */
+public interface ZeroCopyWritableBufferAllocator extends WritableBufferAllocator {
+
+  /**
+   * Returns a {@link WritableBuffer} whose readable bytes are the remaining bytes of {@code src}
+   * and which has no writable bytes. The transport must not modify {@code src}.
+   */
+  WritableBuffer wrap(ByteBuffer src);
+}
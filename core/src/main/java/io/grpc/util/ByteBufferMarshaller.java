@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.grpc.util;
+
+import io.grpc.ByteBufferDrainable;
+import io.grpc.ExperimentalApi;
+import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor.Marshaller;
+import io.grpc.Status;
+import io.grpc.internal.IoUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link Marshaller} for messages that are raw {@link ByteBuffer}s, such as large immutable blobs
+ * served from disk.
+ *
+ * <p>Outbound messages are streamed as a {@link ByteBufferDrainable}, so transports that support it
+ * send the buffer to the wire without copying it into their own buffers. Combined with
+ * {@link #mapFileRegion}, this serves file contents without reading them onto the Java heap. Each
+ * call to {@link #stream} uses its own view of the buffer, so the same buffer may be sent on many
+ * calls concurrently; it must not be modified while calls are using it.
+ *
+ * <p>Inbound messages are parsed into heap buffers.
+ */
+@ExperimentalApi
+public final class ByteBufferMarshaller implements Marshaller<ByteBuffer> {
+  private static final ByteBufferMarshaller INSTANCE = new ByteBufferMarshaller();
+
+  /** Chunk size used when copying a direct buffer to an {@link OutputStream}. */
+  private static final int COPY_CHUNK_SIZE = 16384;
+
+  private ByteBufferMarshaller() {
+  }
+
+  public static ByteBufferMarshaller instance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Maps the {@code size} bytes of {@code channel} starting at {@code position} into memory,
+   * read-only. The returned buffer remains valid after the channel is closed.
+   */
+  public static ByteBuffer mapFileRegion(FileChannel channel, long position, int size)
+      throws IOException {
+    return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+  }
+
+  @Override
+  public InputStream stream(ByteBuffer value) {
+    return new ByteBufferInputStream(value.duplicate());
+  }
+
+  @Override
+  public ByteBuffer parse(InputStream stream) {
+    try {
+      if (stream instanceof KnownLength) {
+        byte[] bytes = new byte[stream.available()];
+        int read = 0;
+        while (read < bytes.length) {
+          int count = stream.read(bytes, read, bytes.length - read);
+          if (count == -1) {
+            break;
+          }
+          read += count;
+        }
+        if (read == bytes.length && stream.read() == -1) {
+          return ByteBuffer.wrap(bytes);
+        }
+        throw new IOException("Stream length doesn't match available() " + bytes.length);
+      }
+      return ByteBuffer.wrap(IoUtils.toByteArray(stream));
+    } catch (IOException e) {
+      throw Status.INTERNAL.withDescription("Failed to read message")
+          .withCause(e).asRuntimeException();
+    }
+  }
+
+  /**
+   * An {@link InputStream} over the remaining bytes of a {@link ByteBuffer}, which it owns.
+   */
+  static final class ByteBufferInputStream extends InputStream implements ByteBufferDrainable {
+    private ByteBuffer buf;
+
+    ByteBufferInputStream(ByteBuffer buf) {
+      this.buf = buf;
+    }
+
+    @Override
+    public ByteBuffer drainToByteBuffer() {
+      ByteBuffer drained = buf;
+      buf = (ByteBuffer) drained.duplicate().position(drained.limit());
+      return drained;
+    }
+
+    @Override
+    public int drainTo(OutputStream target) throws IOException {
+      int length = buf.remaining();
+      if (buf.hasArray()) {
+        target.write(buf.array(), buf.arrayOffset() + buf.position(), length);
+        buf.position(buf.limit());
+      } else {
+        byte[] chunk = new byte[Math.min(length, COPY_CHUNK_SIZE)];
+        while (buf.hasRemaining()) {
+          int count = Math.min(buf.remaining(), chunk.length);
+          buf.get(chunk, 0, count);
+          target.write(chunk, 0, count);
+        }
+      }
+      return length;
+    }
+
+    @Override
+    public int available() {
+      return buf.remaining();
+    }
+
+    @Override
+    public int read() {
+      if (!buf.hasRemaining()) {
+        return -1;
+      }
+      return buf.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buf.hasRemaining()) {
+        return -1;
+      }
+      len = Math.min(len, buf.remaining());
+      buf.get(b, off, len);
+      return len;
+    }
+
+    @Override
+    public long skip(long n) {
+      int skipped = (int) Math.min(Math.max(n, 0), buf.remaining());
+      buf.position(buf.position() + skipped);
+      return skipped;
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.MoreObjects;
+import io.grpc.ExperimentalApi;
+import io.grpc.Metadata;
+import java.nio.ByteBuffer;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * The load of a server when it completed a call, reported to the client in the trailers of the
+ * call by {@link LoadReportingServerInterceptor}.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/1771")
+@Immutable
+public final class LoadReport {
+  /**
+   * The trailer carrying the load report. It is encoded as the CPU utilization in basis points
+   * (2 bytes), followed by the queue depth and the calls in flight (4 bytes each). Bytes after
+   * these are reserved for future fields and ignored.
+   */
+  public static final Metadata.Key<LoadReport> TRAILER_KEY =
+      Metadata.Key.of("grpc-load-report-bin", new Metadata.BinaryMarshaller<LoadReport>() {
+        @Override
+        public byte[] toBytes(LoadReport value) {
+          return ByteBuffer.allocate(ENCODED_LENGTH)
+              .putShort((short) Math.round(value.cpuUtilization * BASIS_POINTS))
+              .putInt(value.queueDepth)
+              .putInt(value.inFlightCalls)
+              .array();
+        }
+
+        @Override
+        public LoadReport parseBytes(byte[] serialized) {
+          checkArgument(serialized.length >= ENCODED_LENGTH, "Load report is too short");
+          ByteBuffer buffer = ByteBuffer.wrap(serialized);
+          double cpuUtilization = (buffer.getShort() & 0xffff) / (double) BASIS_POINTS;
+          return new LoadReport(Math.min(1, cpuUtilization), buffer.getInt(), buffer.getInt());
+        }
+      });
+
+  private static final int ENCODED_LENGTH = 10;
+  private static final int BASIS_POINTS = 10000;
+
+  private final double cpuUtilization;
+  private final int queueDepth;
+  private final int inFlightCalls;
+
+  private LoadReport(double cpuUtilization, int queueDepth, int inFlightCalls) {
+    checkArgument(cpuUtilization >= 0 && cpuUtilization <= 1,
+        "cpuUtilization must be between 0 and 1: %s", cpuUtilization);
+    checkArgument(queueDepth >= 0, "queueDepth must be non-negative");
+    checkArgument(inFlightCalls >= 0, "inFlightCalls must be non-negative");
+    this.cpuUtilization = cpuUtilization;
+    this.queueDepth = queueDepth;
+    this.inFlightCalls = inFlightCalls;
+  }
+
+  /**
+   * Creates a load report.
+   *
+   * @param cpuUtilization the fraction of the CPU of the server in use, between 0 and 1
+   * @param queueDepth the number of calls waiting to be executed
+   * @param inFlightCalls the number of calls being executed
+   */
+  public static LoadReport create(double cpuUtilization, int queueDepth, int inFlightCalls) {
+    return new LoadReport(cpuUtilization, queueDepth, inFlightCalls);
+  }
+
+  /**
+   * Returns the fraction of the CPU of the server in use, between 0 and 1.
+   */
+  public double getCpuUtilization() {
+    return cpuUtilization;
+  }
+
+  /**
+   * Returns the number of calls waiting to be executed.
+   */
+  public int getQueueDepth() {
+    return queueDepth;
+  }
+
+  /**
+   * Returns the number of calls being executed.
+   */
+  public int getInFlightCalls() {
+    return inFlightCalls;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("cpuUtilization", cpuUtilization)
+        .add("queueDepth", queueDepth)
+        .add("inFlightCalls", inFlightCalls)
+        .toString();
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import io.grpc.ExperimentalApi;
+import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * A {@link ServerInterceptor} that reports the load of the server in the trailers of every call,
+ * as a {@link LoadReport}, so that clients can balance their calls according to the load of the
+ * servers, e.g. with {@link WeightedRoundRobinLoadBalancerFactory}.
+ *
+ * <p>The CPU utilization is the system load average divided by the number of processors, and is
+ * reported as 0 on platforms that don't provide a load average. The queue depth is the number of
+ * tasks queued in the executor of the server, if it is a {@link ThreadPoolExecutor}. The calls in
+ * flight are the calls intercepted by this interceptor that have not completed yet.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/1771")
+public final class LoadReportingServerInterceptor implements ServerInterceptor {
+  private static final long CPU_UTILIZATION_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  @Nullable
+  private final ThreadPoolExecutor executor;
+  private final OperatingSystemMXBean osBean;
+  private final Ticker ticker;
+  private final AtomicInteger inFlightCalls = new AtomicInteger();
+  @GuardedBy("this")
+  private double cpuUtilization;
+  @GuardedBy("this")
+  private long cpuUtilizationNanos;
+  @GuardedBy("this")
+  private boolean cpuUtilizationRead;
+
+  @VisibleForTesting
+  LoadReportingServerInterceptor(@Nullable Executor executor, OperatingSystemMXBean osBean,
+      Ticker ticker) {
+    this.executor =
+        executor instanceof ThreadPoolExecutor ? (ThreadPoolExecutor) executor : null;
+    this.osBean = checkNotNull(osBean, "osBean");
+    this.ticker = checkNotNull(ticker, "ticker");
+  }
+
+  /**
+   * Creates an interceptor reporting the tasks queued in {@code executor}, which should be the
+   * executor of the server.
+   *
+   * @param executor the executor of the server. If it is not a {@link ThreadPoolExecutor}, a queue
+   *     depth of 0 is reported.
+   */
+  public static LoadReportingServerInterceptor newInstance(@Nullable Executor executor) {
+    return new LoadReportingServerInterceptor(
+        executor, ManagementFactory.getOperatingSystemMXBean(), Ticker.systemTicker());
+  }
+
+  @Override
+  public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+      ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+    inFlightCalls.incrementAndGet();
+    ServerCall<ReqT, RespT> reportingCall = new SimpleForwardingServerCall<ReqT, RespT>(call) {
+      @Override
+      public void close(Status status, Metadata trailers) {
+        trailers.discardAll(LoadReport.TRAILER_KEY);
+        trailers.put(LoadReport.TRAILER_KEY, currentLoad());
+        super.close(status, trailers);
+      }
+    };
+    ServerCall.Listener<ReqT> listener;
+    try {
+      listener = next.startCall(reportingCall, headers);
+    } catch (RuntimeException e) {
+      inFlightCalls.decrementAndGet();
+      throw e;
+    }
+    return new SimpleForwardingServerCallListener<ReqT>(listener) {
+      @Override
+      public void onComplete() {
+        inFlightCalls.decrementAndGet();
+        super.onComplete();
+      }
+
+      @Override
+      public void onCancel() {
+        inFlightCalls.decrementAndGet();
+        super.onCancel();
+      }
+    };
+  }
+
+  @VisibleForTesting
+  LoadReport currentLoad() {
+    int queueDepth = executor == null ? 0 : executor.getQueue().size();
+    return LoadReport.create(cpuUtilization(), queueDepth, inFlightCalls.get());
+  }
+
+  private synchronized double cpuUtilization() {
+    // Reading the load average may need a system call, so it is read at most once per second
+    long now = ticker.read();
+    if (!cpuUtilizationRead || now - cpuUtilizationNanos >= CPU_UTILIZATION_REFRESH_NANOS) {
+      double loadAverage = osBean.getSystemLoadAverage();
+      cpuUtilization = loadAverage < 0
+          ? 0 : Math.min(1, loadAverage / osBean.getAvailableProcessors());
+      cpuUtilizationNanos = now;
+      cpuUtilizationRead = true;
+    }
+    return cpuUtilization;
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import io.grpc.Codec;
+import io.grpc.ExperimentalApi;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+/**
+ * An LZ4 compressor and decompressor using the LZ4 frame format, with the {@code "lz4"} message
+ * encoding. Requires {@code org.lz4:lz4-java} on the classpath, in which case it is registered by
+ * {@link io.grpc.CompressorRegistry#registerOptionalCodecs} and {@link
+ * io.grpc.DecompressorRegistry#withOptionalCodecs}.
+ *
+ * <p>LZ4 trades compression ratio for speed, and is usually a better fit than gzip for traffic
+ * that stays within a datacenter.
+ */
+@ExperimentalApi
+public final class Lz4Codec implements Codec {
+  @Override
+  public String getMessageEncoding() {
+    return "lz4";
+  }
+
+  @Override
+  public OutputStream compress(OutputStream os) throws IOException {
+    // The default 4 MiB block size would allocate far more than most messages need.
+    return new LZ4FrameOutputStream(os, LZ4FrameOutputStream.BLOCKSIZE.SIZE_64KB);
+  }
+
+  @Override
+  public InputStream decompress(InputStream is) throws IOException {
+    return new LZ4FrameInputStream(is);
+  }
+}
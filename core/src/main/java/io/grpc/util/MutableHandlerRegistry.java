@@ -19,28 +19,30 @@ package io.grpc.util;
 import io.grpc.BindableService;
 import io.grpc.ExperimentalApi;
 import io.grpc.HandlerRegistry;
-import io.grpc.MethodDescriptor;
 import io.grpc.ServerMethodDefinition;
 import io.grpc.ServerServiceDefinition;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.Map;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
  * Default implementation of {@link MutableHandlerRegistry}.
  *
- * <p>Uses {@link ConcurrentHashMap} to avoid service registration excessively
- * blocking method lookup.
+ * <p>Keeps an immutable index of all the registered methods, which is copied and replaced on
+ * each registration, so that method lookup is a single map lookup that never blocks.  This favors
+ * servers that look up methods much more often than they register services.
  */
 @ThreadSafe
 @ExperimentalApi("https://github.com/grpc/grpc-java/issues/933")
 public final class MutableHandlerRegistry extends HandlerRegistry {
-  private final ConcurrentMap<String, ServerServiceDefinition> services
-      = new ConcurrentHashMap<String, ServerServiceDefinition>();
+  private final Object lock = new Object();
+  // Only replaced while holding lock, but read without it
+  private volatile Index index = Index.EMPTY;
 
   /**
    * Registers a service.
@@ -50,7 +52,14 @@ public final class MutableHandlerRegistry extends HandlerRegistry {
    */
   @Nullable
   public ServerServiceDefinition addService(ServerServiceDefinition service) {
-    return services.put(service.getServiceDescriptor().getName(), service);
+    synchronized (lock) {
+      Map<String, ServerServiceDefinition> services =
+          new LinkedHashMap<String, ServerServiceDefinition>(index.services);
+      ServerServiceDefinition previous = services.put(service.getServiceDescriptor().getName(),
+          service);
+      index = new Index(services);
+      return previous;
+    }
   }
 
   /**
@@ -70,16 +79,23 @@ public final class MutableHandlerRegistry extends HandlerRegistry {
    * @return true if the service was found to be removed.
    */
   public boolean removeService(ServerServiceDefinition service) {
-    return services.remove(service.getServiceDescriptor().getName(), service);
+    synchronized (lock) {
+      String serviceName = service.getServiceDescriptor().getName();
+      if (index.services.get(serviceName) != service) {
+        return false;
+      }
+      Map<String, ServerServiceDefinition> services =
+          new LinkedHashMap<String, ServerServiceDefinition>(index.services);
+      services.remove(serviceName);
+      index = new Index(services);
+      return true;
+    }
   }
 
-  /**
-   *  Note: This does not necessarily return a consistent view of the map.
-   */
   @Override
   @ExperimentalApi("https://github.com/grpc/grpc-java/issues/2222")
   public List<ServerServiceDefinition> getServices() {
-    return Collections.unmodifiableList(new ArrayList<ServerServiceDefinition>(services.values()));
+    return index.serviceList;
   }
 
   /**
@@ -88,14 +104,32 @@ public final class MutableHandlerRegistry extends HandlerRegistry {
   @Override
   @Nullable
   public ServerMethodDefinition<?, ?> lookupMethod(String methodName, @Nullable String authority) {
-    String serviceName = MethodDescriptor.extractFullServiceName(methodName);
-    if (serviceName == null) {
-      return null;
-    }
-    ServerServiceDefinition service = services.get(serviceName);
-    if (service == null) {
-      return null;
+    return index.methods.get(methodName);
+  }
+
+  /**
+   * An immutable snapshot of the registered services, and of their methods by full name.
+   */
+  private static final class Index {
+    static final Index EMPTY =
+        new Index(Collections.<String, ServerServiceDefinition>emptyMap());
+
+    final Map<String, ServerServiceDefinition> services;
+    final List<ServerServiceDefinition> serviceList;
+    final Map<String, ServerMethodDefinition<?, ?>> methods;
+
+    Index(Map<String, ServerServiceDefinition> services) {
+      Map<String, ServerMethodDefinition<?, ?>> methods =
+          new HashMap<String, ServerMethodDefinition<?, ?>>();
+      for (ServerServiceDefinition service : services.values()) {
+        for (ServerMethodDefinition<?, ?> method : service.getMethods()) {
+          methods.put(method.getMethodDescriptor().getFullMethodName(), method);
+        }
+      }
+      this.services = services;
+      this.serviceList = Collections.unmodifiableList(
+          new ArrayList<ServerServiceDefinition>(services.values()));
+      this.methods = methods;
     }
-    return service.getMethod(methodName);
   }
 }
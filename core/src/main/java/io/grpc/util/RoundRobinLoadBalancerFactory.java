@@ -183,14 +183,19 @@ public class RoundRobinLoadBalancerFactory extends LoadBalancer.Factory {
       return addrs;
     }
 
+    @Nullable
+    private Status getAggregatedError() {
+      return getAggregatedError(getSubchannels());
+    }
+
     /**
      * If all subchannels are TRANSIENT_FAILURE, return the Status associated with an arbitrary
      * subchannel otherwise, return null.
      */
     @Nullable
-    private Status getAggregatedError() {
+    static Status getAggregatedError(Collection<Subchannel> subchannels) {
       Status status = null;
-      for (Subchannel subchannel : getSubchannels()) {
+      for (Subchannel subchannel : subchannels) {
         ConnectivityStateInfo stateInfo = getSubchannelStateInfoRef(subchannel).get();
         if (stateInfo.getState() != TRANSIENT_FAILURE) {
           return null;
@@ -201,8 +206,16 @@ public class RoundRobinLoadBalancerFactory extends LoadBalancer.Factory {
     }
 
     private ConnectivityState getAggregatedState() {
+      return getAggregatedState(getSubchannels());
+    }
+
+    /**
+     * Returns the state of a balancer whose subchannels request a connection as soon as they are
+     * IDLE.
+     */
+    static ConnectivityState getAggregatedState(Collection<Subchannel> subchannels) {
       Set<ConnectivityState> states = EnumSet.noneOf(ConnectivityState.class);
-      for (Subchannel subchannel : getSubchannels()) {
+      for (Subchannel subchannel : subchannels) {
         states.add(getSubchannelStateInfoRef(subchannel).get().getState());
       }
       if (states.contains(READY)) {
@@ -225,7 +238,7 @@ public class RoundRobinLoadBalancerFactory extends LoadBalancer.Factory {
       return subchannels.values();
     }
 
-    private static AtomicReference<ConnectivityStateInfo> getSubchannelStateInfoRef(
+    static AtomicReference<ConnectivityStateInfo> getSubchannelStateInfoRef(
         Subchannel subchannel) {
       return checkNotNull(subchannel.getAttributes().get(STATE_INFO), "STATE_INFO");
     }
@@ -265,7 +278,7 @@ public class RoundRobinLoadBalancerFactory extends LoadBalancer.Factory {
       return PickResult.withNoResult();
     }
 
-    private Subchannel nextSubchannel() {
+    Subchannel nextSubchannel() {
       if (size == 0) {
         throw new NoSuchElementException();
       }
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.grpc.Attributes;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.ExperimentalApi;
+import io.grpc.LoadBalancer;
+import io.grpc.NameResolver;
+import io.grpc.Status;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A {@link LoadBalancer.Factory} that limits the load balancers of another factory to a subset of
+ * the addresses from the {@link NameResolver}, so that large fleets of clients don't each connect
+ * to every server.
+ *
+ * <p>The subsets are picked deterministically, in rounds. Each client is given a distinct index in
+ * {@code [0, clients)}, and the clients of a round, i.e. {@code servers / subsetSize} consecutive
+ * indexes, shuffle the resolved address groups in the same way, with a seed derived from the seed
+ * of the fleet and the round, then each take a distinct slice of {@code subsetSize} groups. The
+ * clients of a round thus connect to each server at most once, and a fleet with a whole number of
+ * rounds connects the same number of times to every server. Groups are sorted by their addresses
+ * before being shuffled, so the subset does not depend on the order of the resolved list.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/1771")
+public final class SubsettingLoadBalancerFactory extends LoadBalancer.Factory {
+  private static final Comparator<EquivalentAddressGroup> ADDRESS_ORDER =
+      new Comparator<EquivalentAddressGroup>() {
+        @Override
+        public int compare(EquivalentAddressGroup a, EquivalentAddressGroup b) {
+          return addressKey(a).compareTo(addressKey(b));
+        }
+      };
+
+  private final LoadBalancer.Factory delegate;
+  private final int subsetSize;
+  private final int clientIndex;
+  private final long seed;
+
+  private SubsettingLoadBalancerFactory(
+      LoadBalancer.Factory delegate, int subsetSize, int clientIndex, long seed) {
+    this.delegate = checkNotNull(delegate, "delegate");
+    checkArgument(subsetSize > 0, "subsetSize must be positive");
+    checkArgument(clientIndex >= 0, "clientIndex must not be negative");
+    this.subsetSize = subsetSize;
+    this.clientIndex = clientIndex;
+    this.seed = seed;
+  }
+
+  /**
+   * Creates a factory whose load balancers pass at most {@code subsetSize} of the resolved address
+   * groups to the load balancers of {@code delegate}.
+   *
+   * @param delegate the factory balancing the calls over the subset, e.g. {@link
+   *     RoundRobinLoadBalancerFactory}
+   * @param subsetSize the maximum number of address groups used by each client
+   * @param clientIndex identifies the client within its fleet. The clients of a fleet should use
+   *     consecutive indexes starting at 0, e.g. the task number of each replica, which stay the
+   *     same across restarts.
+   * @param seed shuffles the address groups. All the clients of a fleet must use the same seed.
+   */
+  public static SubsettingLoadBalancerFactory newInstance(
+      LoadBalancer.Factory delegate, int subsetSize, int clientIndex, long seed) {
+    return new SubsettingLoadBalancerFactory(delegate, subsetSize, clientIndex, seed);
+  }
+
+  @Override
+  public LoadBalancer newLoadBalancer(LoadBalancer.Helper helper) {
+    return new SubsettingLoadBalancer(
+        delegate.newLoadBalancer(helper), subsetSize, clientIndex, seed);
+  }
+
+  /**
+   * Returns the {@code subsetSize} groups of {@code servers} picked by the client of the given
+   * index, in their order in {@code servers}.
+   */
+  @VisibleForTesting
+  static List<EquivalentAddressGroup> subset(
+      List<EquivalentAddressGroup> servers, int subsetSize, int clientIndex, long seed) {
+    if (servers.size() <= subsetSize) {
+      return servers;
+    }
+    int subsetsPerRound = servers.size() / subsetSize;
+    int round = clientIndex / subsetsPerRound;
+    List<EquivalentAddressGroup> shuffled = new ArrayList<EquivalentAddressGroup>(servers);
+    Collections.sort(shuffled, ADDRESS_ORDER);
+    Collections.shuffle(shuffled, new Random(roundSeed(seed, round)));
+    int from = (clientIndex % subsetsPerRound) * subsetSize;
+    Set<EquivalentAddressGroup> picked = Collections.newSetFromMap(
+        new IdentityHashMap<EquivalentAddressGroup, Boolean>(subsetSize * 2));
+    picked.addAll(shuffled.subList(from, from + subsetSize));
+    List<EquivalentAddressGroup> subset = new ArrayList<EquivalentAddressGroup>(subsetSize);
+    for (EquivalentAddressGroup server : servers) {
+      if (picked.contains(server)) {
+        subset.add(server);
+      }
+    }
+    return subset;
+  }
+
+  private static long roundSeed(long seed, int round) {
+    // Mixes the seeds of consecutive rounds (SplitMix64), as java.util.Random shuffles close seeds
+    // alike
+    long z = seed + round * 0x9e3779b97f4a7c15L;
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  private static String addressKey(EquivalentAddressGroup server) {
+    // Only the addresses identify the server; its attributes may change over time
+    StringBuilder key = new StringBuilder();
+    for (SocketAddress address : server.getAddresses()) {
+      if (address instanceof InetSocketAddress && !((InetSocketAddress) address).isUnresolved()) {
+        InetSocketAddress inetAddress = (InetSocketAddress) address;
+        key.append(inetAddress.getAddress().getHostAddress()).append(':')
+            .append(inetAddress.getPort());
+      } else {
+        key.append(address);
+      }
+      key.append(',');
+    }
+    return key.toString();
+  }
+
+  @VisibleForTesting
+  static final class SubsettingLoadBalancer extends LoadBalancer {
+    private final LoadBalancer delegate;
+    private final int subsetSize;
+    private final int clientIndex;
+    private final long seed;
+
+    SubsettingLoadBalancer(LoadBalancer delegate, int subsetSize, int clientIndex, long seed) {
+      this.delegate = checkNotNull(delegate, "delegate");
+      this.subsetSize = subsetSize;
+      this.clientIndex = clientIndex;
+      this.seed = seed;
+    }
+
+    @Override
+    public void handleResolvedAddressGroups(
+        List<EquivalentAddressGroup> servers, Attributes attributes) {
+      delegate.handleResolvedAddressGroups(
+          subset(servers, subsetSize, clientIndex, seed), attributes);
+    }
+
+    @Override
+    public void handleNameResolutionError(Status error) {
+      delegate.handleNameResolutionError(error);
+    }
+
+    @Override
+    public void handleSubchannelState(Subchannel subchannel, ConnectivityStateInfo stateInfo) {
+      delegate.handleSubchannelState(subchannel, stateInfo);
+    }
+
+    @Override
+    public void shutdown() {
+      delegate.shutdown();
+    }
+  }
+}
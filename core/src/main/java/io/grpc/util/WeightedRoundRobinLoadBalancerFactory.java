@@ -0,0 +1,362 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.grpc.ConnectivityState.CONNECTING;
+import static io.grpc.ConnectivityState.IDLE;
+import static io.grpc.ConnectivityState.READY;
+import static io.grpc.ConnectivityState.TRANSIENT_FAILURE;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.ExperimentalApi;
+import io.grpc.LoadBalancer;
+import io.grpc.LoadBalancer.PickResult;
+import io.grpc.LoadBalancer.PickSubchannelArgs;
+import io.grpc.LoadBalancer.Subchannel;
+import io.grpc.LoadBalancer.SubchannelPicker;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * A {@link LoadBalancer} that balances calls over the ready subchannels with smooth weighted
+ * round-robin, weighting each subchannel by the load its server reports in the trailers of the
+ * calls, as added by {@link LoadReportingServerInterceptor}.
+ *
+ * <p>The weight of a server is its idle CPU fraction (at least {@value #MIN_IDLE_FRACTION})
+ * divided by one plus its queue depth, from its latest {@link LoadReport}. Servers that have not
+ * reported their load yet get the average weight of the others, so that they receive a fair share
+ * of calls until they report.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/1771")
+public final class WeightedRoundRobinLoadBalancerFactory extends LoadBalancer.Factory {
+  /**
+   * The idle CPU fraction assumed for fully loaded servers, so that they keep receiving some calls
+   * and can report when they recover.
+   */
+  @VisibleForTesting
+  static final double MIN_IDLE_FRACTION = 0.05;
+
+  private static final WeightedRoundRobinLoadBalancerFactory INSTANCE =
+      new WeightedRoundRobinLoadBalancerFactory();
+
+  private WeightedRoundRobinLoadBalancerFactory() {
+  }
+
+  /**
+   * Gets the singleton instance of this factory.
+   */
+  public static WeightedRoundRobinLoadBalancerFactory getInstance() {
+    return INSTANCE;
+  }
+
+  @Override
+  public LoadBalancer newLoadBalancer(LoadBalancer.Helper helper) {
+    return new WeightedRoundRobinLoadBalancer(helper);
+  }
+
+  @VisibleForTesting
+  static double weight(LoadReport report) {
+    return Math.max(1 - report.getCpuUtilization(), MIN_IDLE_FRACTION)
+        / (1 + report.getQueueDepth());
+  }
+
+  @VisibleForTesting
+  static final class WeightedRoundRobinLoadBalancer extends LoadBalancer {
+    @VisibleForTesting
+    static final Attributes.Key<AtomicReference<ConnectivityStateInfo>> STATE_INFO =
+        Attributes.Key.of("state-info");
+    @VisibleForTesting
+    static final Attributes.Key<LoadTracker> LOAD_TRACKER = Attributes.Key.of("load-tracker");
+
+    private final Helper helper;
+    private final Map<EquivalentAddressGroup, Subchannel> subchannels =
+        new HashMap<EquivalentAddressGroup, Subchannel>();
+
+    WeightedRoundRobinLoadBalancer(Helper helper) {
+      this.helper = checkNotNull(helper, "helper");
+    }
+
+    @Override
+    public void handleResolvedAddressGroups(
+        List<EquivalentAddressGroup> servers, Attributes attributes) {
+      Set<EquivalentAddressGroup> currentAddrs = subchannels.keySet();
+      Set<EquivalentAddressGroup> latestAddrs = new HashSet<EquivalentAddressGroup>();
+      for (EquivalentAddressGroup server : servers) {
+        latestAddrs.add(new EquivalentAddressGroup(server.getAddresses()));
+      }
+
+      // Create new subchannels for new addresses.
+      for (EquivalentAddressGroup addressGroup : latestAddrs) {
+        if (currentAddrs.contains(addressGroup)) {
+          continue;
+        }
+        Attributes subchannelAttrs = Attributes.newBuilder()
+            .set(STATE_INFO, new AtomicReference<ConnectivityStateInfo>(
+                ConnectivityStateInfo.forNonError(IDLE)))
+            .set(LOAD_TRACKER, new LoadTracker())
+            .build();
+        Subchannel subchannel =
+            checkNotNull(helper.createSubchannel(addressGroup, subchannelAttrs), "subchannel");
+        subchannels.put(addressGroup, subchannel);
+        subchannel.requestConnection();
+      }
+
+      // Shutdown subchannels for removed addresses.
+      for (EquivalentAddressGroup addressGroup
+          : new ArrayList<EquivalentAddressGroup>(currentAddrs)) {
+        if (!latestAddrs.contains(addressGroup)) {
+          subchannels.remove(addressGroup).shutdown();
+        }
+      }
+
+      updateBalancingState();
+    }
+
+    @Override
+    public void handleNameResolutionError(Status error) {
+      helper.updateBalancingState(TRANSIENT_FAILURE,
+          new Picker(Collections.<Subchannel>emptyList(), error));
+    }
+
+    @Override
+    public void handleSubchannelState(Subchannel subchannel, ConnectivityStateInfo stateInfo) {
+      if (!subchannels.containsValue(subchannel)) {
+        return;
+      }
+      if (stateInfo.getState() == IDLE) {
+        subchannel.requestConnection();
+      }
+      getSubchannelStateInfoRef(subchannel).set(stateInfo);
+      updateBalancingState();
+    }
+
+    @Override
+    public void shutdown() {
+      for (Subchannel subchannel : subchannels.values()) {
+        subchannel.shutdown();
+      }
+    }
+
+    private void updateBalancingState() {
+      List<Subchannel> readySubchannels = new ArrayList<Subchannel>();
+      Set<ConnectivityState> states = EnumSet.noneOf(ConnectivityState.class);
+      Status error = null;
+      for (Subchannel subchannel : subchannels.values()) {
+        ConnectivityStateInfo stateInfo = getSubchannelStateInfoRef(subchannel).get();
+        states.add(stateInfo.getState());
+        if (stateInfo.getState() == READY) {
+          readySubchannels.add(subchannel);
+        } else if (stateInfo.getState() == TRANSIENT_FAILURE) {
+          error = stateInfo.getStatus();
+        }
+      }
+
+      ConnectivityState state;
+      if (states.contains(READY)) {
+        state = READY;
+      } else if (states.contains(CONNECTING) || states.contains(IDLE)) {
+        // Idle subchannels are asked to connect immediately.
+        state = CONNECTING;
+      } else {
+        state = TRANSIENT_FAILURE;
+      }
+      helper.updateBalancingState(
+          state, new Picker(readySubchannels, state == TRANSIENT_FAILURE ? error : null));
+    }
+
+    private static AtomicReference<ConnectivityStateInfo> getSubchannelStateInfoRef(
+        Subchannel subchannel) {
+      return checkNotNull(subchannel.getAttributes().get(STATE_INFO), "STATE_INFO");
+    }
+  }
+
+  /**
+   * Records the latest load reported by the server of a subchannel, from the trailers of the calls
+   * made on it, and has the current picker of the subchannel update its weights.
+   */
+  @VisibleForTesting
+  static final class LoadTracker extends ClientStreamTracer.Factory {
+    private static final Logger log = Logger.getLogger(LoadTracker.class.getName());
+
+    private final ClientStreamTracer tracer = new ClientStreamTracer() {
+      @Override
+      public void inboundTrailers(Metadata trailers) {
+        LoadReport report;
+        try {
+          report = trailers.get(LoadReport.TRAILER_KEY);
+        } catch (IllegalArgumentException e) {
+          log.log(Level.FINE, "Ignoring malformed load report", e);
+          return;
+        }
+        if (report != null) {
+          LoadReport previous = latestReport;
+          latestReport = report;
+          Picker picker = LoadTracker.this.picker;
+          if (picker != null && (previous == null || weight(previous) != weight(report))) {
+            picker.updateWeights();
+          }
+        }
+      }
+    };
+
+    @Nullable
+    private volatile LoadReport latestReport;
+    /**
+     * The latest picker of the subchannel, whose weights depend on the reports.
+     */
+    @Nullable
+    private volatile Picker picker;
+
+    @Override
+    public ClientStreamTracer newClientStreamTracer(CallOptions callOptions, Metadata headers) {
+      // The tracer is stateless, so it is shared by all the calls
+      return tracer;
+    }
+
+    @Nullable
+    LoadReport getLatestReport() {
+      return latestReport;
+    }
+  }
+
+  @VisibleForTesting
+  static final class Picker extends SubchannelPicker {
+    private final List<Subchannel> list;
+    private final LoadTracker[] loadTrackers;
+    @Nullable
+    private final Status status;
+    /**
+     * The weights of the subchannels, recomputed when their load reports change rather than on
+     * every pick.  Never modified once published.
+     */
+    private volatile double[] weights;
+    private final Object weightsLock = new Object();
+    @GuardedBy("this")
+    private final double[] currentWeights;
+
+    Picker(List<Subchannel> list, @Nullable Status status) {
+      this.list = Collections.unmodifiableList(list);
+      this.status = status;
+      loadTrackers = new LoadTracker[list.size()];
+      for (int i = 0; i < loadTrackers.length; i++) {
+        loadTrackers[i] = checkNotNull(
+            list.get(i).getAttributes().get(WeightedRoundRobinLoadBalancer.LOAD_TRACKER),
+            "LOAD_TRACKER");
+      }
+      currentWeights = new double[list.size()];
+      // Reports received from now on update the weights of this picker
+      for (LoadTracker loadTracker : loadTrackers) {
+        loadTracker.picker = this;
+      }
+      updateWeights();
+    }
+
+    @Override
+    public PickResult pickSubchannel(PickSubchannelArgs args) {
+      if (list.size() > 0) {
+        int index = nextIndex();
+        return PickResult.withSubchannel(list.get(index), loadTrackers[index]);
+      }
+
+      if (status != null) {
+        return PickResult.withError(status);
+      }
+
+      return PickResult.withNoResult();
+    }
+
+    /**
+     * Picks the next subchannel with smooth weighted round-robin: every subchannel accumulates its
+     * weight, and the one with the most accumulated weight is picked and gives back the total
+     * weight. This interleaves the picks instead of sending bursts to the heaviest subchannels.
+     */
+    private synchronized int nextIndex() {
+      double[] weights = this.weights;
+      double totalWeight = 0;
+      int best = 0;
+      for (int i = 0; i < weights.length; i++) {
+        currentWeights[i] += weights[i];
+        totalWeight += weights[i];
+        if (currentWeights[i] > currentWeights[best]) {
+          best = i;
+        }
+      }
+      currentWeights[best] -= totalWeight;
+      return best;
+    }
+
+    /**
+     * Recomputes the weights from the latest load reports.  Called by the load trackers when a
+     * report changes the weight of a subchannel.
+     */
+    void updateWeights() {
+      // Serialized, so that a computation from older reports never replaces a newer one
+      synchronized (weightsLock) {
+        double[] newWeights = new double[loadTrackers.length];
+        double reportedWeight = 0;
+        int reported = 0;
+        for (int i = 0; i < newWeights.length; i++) {
+          LoadReport report = loadTrackers[i].getLatestReport();
+          if (report != null) {
+            newWeights[i] = weight(report);
+            reportedWeight += newWeights[i];
+            reported++;
+          } else {
+            newWeights[i] = -1;
+          }
+        }
+        double defaultWeight = reported == 0 ? 1 : reportedWeight / reported;
+        for (int i = 0; i < newWeights.length; i++) {
+          if (newWeights[i] < 0) {
+            newWeights[i] = defaultWeight;
+          }
+        }
+        weights = newWeights;
+      }
+    }
+
+    @VisibleForTesting
+    List<Subchannel> getList() {
+      return list;
+    }
+
+    @VisibleForTesting
+    Status getStatus() {
+      return status;
+    }
+  }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.grpc.ConnectivityState.IDLE;
+import static io.grpc.ConnectivityState.READY;
+import static io.grpc.ConnectivityState.TRANSIENT_FAILURE;
+import static io.grpc.util.RoundRobinLoadBalancerFactory.RoundRobinLoadBalancer.STATE_INFO;
+import static io.grpc.util.RoundRobinLoadBalancerFactory.RoundRobinLoadBalancer.getAggregatedError;
+import static io.grpc.util.RoundRobinLoadBalancerFactory.RoundRobinLoadBalancer.getAggregatedState;
+import static io.grpc.util.RoundRobinLoadBalancerFactory.RoundRobinLoadBalancer.getSubchannelStateInfoRef;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.ExperimentalApi;
+import io.grpc.LoadBalancer;
+import io.grpc.LoadBalancer.PickResult;
+import io.grpc.LoadBalancer.PickSubchannelArgs;
+import io.grpc.LoadBalancer.Subchannel;
+import io.grpc.LoadBalancer.SubchannelPicker;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link LoadBalancer} that prefers the servers in the zone of the client, and spills over to the
+ * servers of other zones when the local zone doesn't have enough capacity.
+ *
+ * <p>The zone of each {@link EquivalentAddressGroup} is read from its {@link #ATTR_ZONE} attribute;
+ * groups without a zone are in a remote zone. Calls are balanced round-robin over the ready
+ * subchannels of the local zone. When only some of the local subchannels are ready, the local zone
+ * receives a proportional share of the calls, over-provisioned by {@value
+ * #OVERPROVISIONING_FACTOR}, so that losing a few servers doesn't move calls away from the zone.
+ * The remaining calls, and calls exceeding the optional limit of in-flight calls on the local zone,
+ * spill over round-robin to the ready subchannels of the other zones, i.e. proportionally to their
+ * ready subchannels.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/1771")
+public final class ZoneAwareLoadBalancerFactory extends LoadBalancer.Factory {
+  /**
+   * The zone of the servers of an {@link EquivalentAddressGroup}, set by the name resolver.
+   */
+  public static final Attributes.Key<String> ATTR_ZONE =
+      Attributes.Key.of("io.grpc.util.ZoneAwareLoadBalancer.zone");
+
+  /**
+   * How much more than its share of ready subchannels the local zone is expected to handle.
+   */
+  @VisibleForTesting
+  static final double OVERPROVISIONING_FACTOR = 1.4;
+
+  private final String localZone;
+  private final int maxInFlightCallsPerSubchannel;
+
+  private ZoneAwareLoadBalancerFactory(String localZone, int maxInFlightCallsPerSubchannel) {
+    this.localZone = checkNotNull(localZone, "localZone");
+    checkArgument(maxInFlightCallsPerSubchannel > 0,
+        "maxInFlightCallsPerSubchannel must be positive");
+    this.maxInFlightCallsPerSubchannel = maxInFlightCallsPerSubchannel;
+  }
+
+  /**
+   * Creates a factory preferring the servers in {@code localZone}, without limiting the calls in
+   * flight on them.
+   */
+  public static ZoneAwareLoadBalancerFactory newInstance(String localZone) {
+    return new ZoneAwareLoadBalancerFactory(localZone, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Creates a factory preferring the servers in {@code localZone}. Once the ready subchannels of
+   * the local zone have an average of {@code maxInFlightCallsPerSubchannel} calls in flight,
+   * further calls spill over to other zones.
+   */
+  public static ZoneAwareLoadBalancerFactory newInstance(
+      String localZone, int maxInFlightCallsPerSubchannel) {
+    return new ZoneAwareLoadBalancerFactory(localZone, maxInFlightCallsPerSubchannel);
+  }
+
+  @Override
+  public LoadBalancer newLoadBalancer(LoadBalancer.Helper helper) {
+    return new ZoneAwareLoadBalancer(helper, localZone, maxInFlightCallsPerSubchannel,
+        new Random());
+  }
+
+  @VisibleForTesting
+  static final class ZoneAwareLoadBalancer extends LoadBalancer {
+    private static final Attributes.Key<Boolean> LOCAL = Attributes.Key.of("local");
+
+    private final Helper helper;
+    private final String localZone;
+    private final int maxInFlightCallsPerSubchannel;
+    private final Random random;
+    private final Map<EquivalentAddressGroup, Subchannel> subchannels =
+        new HashMap<EquivalentAddressGroup, Subchannel>();
+    /**
+     * Calls in flight on the subchannels of the local zone, shared by all pickers.
+     */
+    private final AtomicInteger localInFlightCalls = new AtomicInteger();
+
+    ZoneAwareLoadBalancer(Helper helper, String localZone, int maxInFlightCallsPerSubchannel,
+        Random random) {
+      this.helper = checkNotNull(helper, "helper");
+      this.localZone = localZone;
+      this.maxInFlightCallsPerSubchannel = maxInFlightCallsPerSubchannel;
+      this.random = random;
+    }
+
+    @Override
+    public void handleResolvedAddressGroups(
+        List<EquivalentAddressGroup> servers, Attributes attributes) {
+      Map<EquivalentAddressGroup, Boolean> latestAddrs =
+          new HashMap<EquivalentAddressGroup, Boolean>();
+      for (EquivalentAddressGroup server : servers) {
+        EquivalentAddressGroup addressGroup = new EquivalentAddressGroup(server.getAddresses());
+        boolean local =
+            localZone.equals(server.getAttributes().get(ATTR_ZONE));
+        // A server listed in several zones is local if any of them is
+        Boolean previous = latestAddrs.get(addressGroup);
+        latestAddrs.put(addressGroup, local || (previous != null && previous));
+      }
+
+      // Shutdown subchannels for removed addresses, or addresses that moved to another zone.
+      for (EquivalentAddressGroup addressGroup
+          : new ArrayList<EquivalentAddressGroup>(subchannels.keySet())) {
+        Boolean local = latestAddrs.get(addressGroup);
+        Subchannel subchannel = subchannels.get(addressGroup);
+        if (local == null || !local.equals(subchannel.getAttributes().get(LOCAL))) {
+          subchannels.remove(addressGroup).shutdown();
+        }
+      }
+
+      // Create new subchannels for new addresses.
+      for (Map.Entry<EquivalentAddressGroup, Boolean> entry : latestAddrs.entrySet()) {
+        if (subchannels.containsKey(entry.getKey())) {
+          continue;
+        }
+        Attributes subchannelAttrs = Attributes.newBuilder()
+            .set(STATE_INFO, new AtomicReference<ConnectivityStateInfo>(
+                ConnectivityStateInfo.forNonError(IDLE)))
+            .set(LOCAL, entry.getValue())
+            .build();
+        Subchannel subchannel =
+            checkNotNull(helper.createSubchannel(entry.getKey(), subchannelAttrs), "subchannel");
+        subchannels.put(entry.getKey(), subchannel);
+        subchannel.requestConnection();
+      }
+
+      updateBalancingState();
+    }
+
+    @Override
+    public void handleNameResolutionError(Status error) {
+      helper.updateBalancingState(TRANSIENT_FAILURE, new Picker(
+          Collections.<Subchannel>emptyList(), Collections.<Subchannel>emptyList(), 0, error,
+          localInFlightCalls, 0, random));
+    }
+
+    @Override
+    public void handleSubchannelState(Subchannel subchannel, ConnectivityStateInfo stateInfo) {
+      if (!subchannels.containsValue(subchannel)) {
+        return;
+      }
+      if (stateInfo.getState() == IDLE) {
+        subchannel.requestConnection();
+      }
+      getSubchannelStateInfoRef(subchannel).set(stateInfo);
+      updateBalancingState();
+    }
+
+    @Override
+    public void shutdown() {
+      for (Subchannel subchannel : subchannels.values()) {
+        subchannel.shutdown();
+      }
+    }
+
+    private void updateBalancingState() {
+      List<Subchannel> localReady = new ArrayList<Subchannel>();
+      List<Subchannel> remoteReady = new ArrayList<Subchannel>();
+      int localTotal = 0;
+      for (Subchannel subchannel : subchannels.values()) {
+        boolean local = subchannel.getAttributes().get(LOCAL);
+        if (local) {
+          localTotal++;
+        }
+        if (getSubchannelStateInfoRef(subchannel).get().getState() == READY) {
+          (local ? localReady : remoteReady).add(subchannel);
+        }
+      }
+
+      ConnectivityState state = getAggregatedState(subchannels.values());
+      double localFraction = localTotal == 0
+          ? 0 : Math.min(1, OVERPROVISIONING_FACTOR * localReady.size() / localTotal);
+      long maxLocalInFlightCalls = Math.min(Integer.MAX_VALUE,
+          (long) maxInFlightCallsPerSubchannel * localReady.size());
+      helper.updateBalancingState(state, new Picker(localReady, remoteReady, localFraction,
+          getAggregatedError(subchannels.values()), localInFlightCalls,
+          (int) maxLocalInFlightCalls, random));
+    }
+  }
+
+  @VisibleForTesting
+  static final class Picker extends SubchannelPicker {
+    private final RoundRobinLoadBalancerFactory.Picker localPicker;
+    private final RoundRobinLoadBalancerFactory.Picker remotePicker;
+    private final double localFraction;
+    @Nullable
+    private final Status status;
+    private final AtomicInteger localInFlightCalls;
+    private final int maxLocalInFlightCalls;
+    private final Random random;
+    private final ClientStreamTracer.Factory localTracerFactory =
+        new ClientStreamTracer.Factory() {
+          @Override
+          public ClientStreamTracer newClientStreamTracer(CallOptions callOptions,
+              Metadata headers) {
+            localInFlightCalls.incrementAndGet();
+            return new ClientStreamTracer() {
+              @Override
+              public void streamClosed(Status status) {
+                localInFlightCalls.decrementAndGet();
+              }
+            };
+          }
+        };
+
+    Picker(List<Subchannel> localList, List<Subchannel> remoteList, double localFraction,
+        @Nullable Status status, AtomicInteger localInFlightCalls, int maxLocalInFlightCalls,
+        Random random) {
+      this.localPicker = new RoundRobinLoadBalancerFactory.Picker(localList, null);
+      this.remotePicker = new RoundRobinLoadBalancerFactory.Picker(remoteList, null);
+      this.localFraction = localFraction;
+      this.status = status;
+      this.localInFlightCalls = localInFlightCalls;
+      this.maxLocalInFlightCalls = maxLocalInFlightCalls;
+      this.random = random;
+    }
+
+    @Override
+    public PickResult pickSubchannel(PickSubchannelArgs args) {
+      List<Subchannel> localList = localPicker.getList();
+      List<Subchannel> remoteList = remotePicker.getList();
+      if (!localList.isEmpty()) {
+        boolean spillOver = !remoteList.isEmpty()
+            && (localFraction < 1 && random.nextDouble() >= localFraction
+                || localInFlightCalls.get() >= maxLocalInFlightCalls);
+        if (!spillOver) {
+          return PickResult.withSubchannel(localPicker.nextSubchannel(), localTracerFactory);
+        }
+      }
+      if (!remoteList.isEmpty()) {
+        return PickResult.withSubchannel(remotePicker.nextSubchannel());
+      }
+
+      if (status != null) {
+        return PickResult.withError(status);
+      }
+
+      return PickResult.withNoResult();
+    }
+
+    @VisibleForTesting
+    List<Subchannel> getLocalList() {
+      return localPicker.getList();
+    }
+
+    @VisibleForTesting
+    List<Subchannel> getRemoteList() {
+      return remotePicker.getList();
+    }
+
+    @VisibleForTesting
+    double getLocalFraction() {
+      return localFraction;
+    }
+
+    @VisibleForTesting
+    Status getStatus() {
+      return status;
+    }
+  }
+}
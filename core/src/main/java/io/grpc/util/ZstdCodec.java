@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import io.grpc.Codec;
+import io.grpc.ExperimentalApi;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import javax.annotation.Nullable;
+
+/**
+ * A Zstandard compressor and decompressor, with the {@code "zstd"} message encoding by default.
+ * Requires {@code com.github.luben:zstd-jni} on the classpath, in which case a codec with the
+ * default level and no dictionary is registered by {@link
+ * io.grpc.CompressorRegistry#registerOptionalCodecs} and {@link
+ * io.grpc.DecompressorRegistry#withOptionalCodecs}.
+ *
+ * <p>Small messages compress much better with a dictionary trained on representative payloads
+ * (see {@code zstd --train}). Both peers need the same dictionary, so a dictionary codec should
+ * be registered under its own message encoding, such as {@code "zstd-orders-v1"}, so that it is
+ * only negotiated with peers that advertise it.
+ */
+@ExperimentalApi
+public final class ZstdCodec implements Codec {
+  /**
+   * The compression level used by the {@code zstd} command line tool.
+   */
+  public static final int DEFAULT_COMPRESSION_LEVEL = 3;
+
+  private static final int MAX_COMPRESSION_LEVEL = 22;
+
+  private final String messageEncoding;
+  private final int compressionLevel;
+  @Nullable
+  private final ZstdDictCompress compressDictionary;
+  @Nullable
+  private final ZstdDictDecompress decompressDictionary;
+
+  /**
+   * Creates a {@code "zstd"} codec with the default compression level and no dictionary.
+   */
+  public ZstdCodec() {
+    this("zstd", DEFAULT_COMPRESSION_LEVEL, null);
+  }
+
+  /**
+   * Creates a {@code "zstd"} codec with the given compression level, from 1 to 22, and no
+   * dictionary.
+   */
+  public ZstdCodec(int compressionLevel) {
+    this("zstd", compressionLevel, null);
+  }
+
+  /**
+   * Creates a codec for the given message encoding that compresses with the given level, from 1
+   * to 22, and compresses and decompresses with the given dictionary, if not {@code null}.
+   */
+  public ZstdCodec(String messageEncoding, int compressionLevel, @Nullable byte[] dictionary) {
+    this.messageEncoding = checkNotNull(messageEncoding, "messageEncoding");
+    checkArgument(
+        compressionLevel >= 1 && compressionLevel <= MAX_COMPRESSION_LEVEL,
+        "invalid compression level: %s", compressionLevel);
+    this.compressionLevel = compressionLevel;
+    if (dictionary != null) {
+      // Digesting the dictionary is expensive, so do it once rather than for every message.
+      compressDictionary = new ZstdDictCompress(dictionary, compressionLevel);
+      decompressDictionary = new ZstdDictDecompress(dictionary);
+    } else {
+      compressDictionary = null;
+      decompressDictionary = null;
+    }
+  }
+
+  @Override
+  public String getMessageEncoding() {
+    return messageEncoding;
+  }
+
+  @Override
+  public OutputStream compress(OutputStream os) throws IOException {
+    ZstdOutputStream zos = new ZstdOutputStream(os, compressionLevel);
+    if (compressDictionary != null) {
+      zos.setDict(compressDictionary);
+    }
+    return zos;
+  }
+
+  @Override
+  public InputStream decompress(InputStream is) throws IOException {
+    ZstdInputStream zis = new ZstdInputStream(is);
+    if (decompressDictionary != null) {
+      zis.setDict(decompressDictionary);
+    }
+    return zis;
+  }
+}
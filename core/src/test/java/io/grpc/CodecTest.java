@@ -0,0 +1,233 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.grpc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link Codec.Gzip}.
+ */
+@RunWith(JUnit4.class)
+public class CodecTest {
+  private final Codec.Gzip gzip = new Codec.Gzip();
+
+  @Test
+  public void gzip_roundTrip() throws Exception {
+    for (int size : new int[] {0, 1, 1024, 100000}) {
+      byte[] data = compressibleData(size);
+      assertArrayEquals(data, decompress(gzip, compress(gzip, data)));
+    }
+  }
+
+  @Test
+  public void gzip_compressedIsReadableByJdk() throws Exception {
+    byte[] data = compressibleData(50000);
+    byte[] compressed = compress(gzip, data);
+    assertArrayEquals(data,
+        ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+  }
+
+  @Test
+  public void gzip_decompressesJdkOutput() throws Exception {
+    byte[] data = compressibleData(50000);
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    GZIPOutputStream os = new GZIPOutputStream(compressed);
+    os.write(data);
+    os.close();
+    assertArrayEquals(data, decompress(gzip, compressed.toByteArray()));
+  }
+
+  @Test
+  public void gzip_concatenatedMembers() throws Exception {
+    byte[] first = compressibleData(3000);
+    byte[] second = new byte[] {1, 2, 3};
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    compressed.write(compress(gzip, first));
+    compressed.write(compress(gzip, second));
+
+    byte[] expected = Arrays.copyOf(first, first.length + second.length);
+    System.arraycopy(second, 0, expected, first.length, second.length);
+    assertArrayEquals(expected, decompress(gzip, compressed.toByteArray()));
+  }
+
+  @Test
+  public void gzip_optionalHeaderFields() throws Exception {
+    byte[] data = compressibleData(100);
+    byte[] compressed = compress(gzip, data);
+    ByteArrayOutputStream header = new ByteArrayOutputStream();
+    // FHCRC | FEXTRA | FNAME | FCOMMENT
+    header.write(new byte[] {0x1f, (byte) 0x8b, 8, 2 | 4 | 8 | 16, 0, 0, 0, 0, 0, (byte) 0xff});
+    header.write(new byte[] {2, 0, 'x', 'y'});
+    header.write(new byte[] {'n', 'a', 'm', 'e', 0});
+    header.write(new byte[] {'c', 0});
+    CRC32 crc = new CRC32();
+    crc.update(header.toByteArray());
+    header.write((int) crc.getValue());
+    header.write((int) crc.getValue() >> 8);
+    // Replace the plain 10 byte header.
+    header.write(compressed, 10, compressed.length - 10);
+
+    assertArrayEquals(data, decompress(gzip, header.toByteArray()));
+  }
+
+  @Test
+  public void gzip_corruptTrailer() throws Exception {
+    byte[] compressed = compress(gzip, compressibleData(100));
+    compressed[compressed.length - 5]++;
+    try {
+      decompress(gzip, compressed);
+      fail("Expected exception");
+    } catch (ZipException expected) {
+    }
+  }
+
+  @Test
+  public void gzip_truncated() throws Exception {
+    byte[] compressed = compress(gzip, compressibleData(10000));
+    try {
+      decompress(gzip, Arrays.copyOf(compressed, compressed.length / 2));
+      fail("Expected exception");
+    } catch (EOFException expected) {
+    }
+  }
+
+  @Test
+  public void gzip_notGzip() throws Exception {
+    try {
+      decompress(gzip, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11});
+      fail("Expected exception");
+    } catch (ZipException expected) {
+    }
+  }
+
+  @Test
+  public void gzip_compressionLevel() throws Exception {
+    byte[] data = compressibleData(100000);
+    byte[] stored = compress(new Codec.Gzip(Deflater.NO_COMPRESSION), data);
+    byte[] best = compress(new Codec.Gzip(Deflater.BEST_COMPRESSION), data);
+    assertTrue(stored.length > data.length);
+    assertTrue(best.length < data.length / 2);
+    assertArrayEquals(data, decompress(gzip, stored));
+    assertArrayEquals(data, decompress(gzip, best));
+    // The level of a pooled deflater doesn't leak into later streams.
+    assertArrayEquals(compress(gzip, data), compress(new Codec.Gzip(), data));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void gzip_invalidCompressionLevel() {
+    new Codec.Gzip(10);
+  }
+
+  @Test
+  public void gzip_readAfterClose() throws Exception {
+    InputStream is = gzip.decompress(new ByteArrayInputStream(compress(gzip, new byte[] {1})));
+    is.close();
+    try {
+      is.read();
+      fail("Expected exception");
+    } catch (IOException expected) {
+    }
+  }
+
+  @Test
+  public void gzip_readAfterEnd() throws Exception {
+    InputStream is = gzip.decompress(new ByteArrayInputStream(compress(gzip, new byte[] {1})));
+    assertEquals(1, is.read());
+    assertEquals(-1, is.read());
+    assertEquals(0, is.available());
+    assertEquals(-1, is.read());
+    is.close();
+  }
+
+  @Test
+  public void gzip_unreadStreamHoldsNoInflater() throws Exception {
+    byte[] compressed = compress(gzip, new byte[] {1});
+    // Makes sure the pool isn't empty.
+    decompress(gzip, compressed);
+    int idle = PooledGzip.idleInflaters();
+    gzip.decompress(new ByteArrayInputStream(compressed));
+    assertEquals(idle, PooledGzip.idleInflaters());
+  }
+
+  @Test
+  public void gzip_failedStreamReleasesInflater() throws Exception {
+    byte[] compressed = compress(gzip, compressibleData(100));
+    decompress(gzip, compressed);
+    int idle = PooledGzip.idleInflaters();
+    compressed[compressed.length - 5]++;
+    InputStream is = gzip.decompress(new ByteArrayInputStream(compressed));
+    try {
+      ByteStreams.toByteArray(is);
+      fail("Expected exception");
+    } catch (ZipException expected) {
+    }
+    assertEquals(idle, PooledGzip.idleInflaters());
+    try {
+      is.read();
+      fail("Expected exception");
+    } catch (IOException expected) {
+    }
+  }
+
+  private static byte[] compress(Codec codec, byte[] data) throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    OutputStream os = codec.compress(compressed);
+    os.write(data);
+    os.close();
+    return compressed.toByteArray();
+  }
+
+  private static byte[] decompress(Codec codec, byte[] compressed) throws IOException {
+    InputStream is = codec.decompress(new ByteArrayInputStream(compressed));
+    try {
+      return ByteStreams.toByteArray(is);
+    } finally {
+      is.close();
+    }
+  }
+
+  private static byte[] compressibleData(int size) {
+    Random random = new Random(size);
+    byte[] data = new byte[size];
+    for (int i = 0; i < size; i++) {
+      data[i] = (byte) ('a' + random.nextInt(4));
+    }
+    return data;
+  }
+}
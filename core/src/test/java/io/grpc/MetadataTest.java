@@ -23,10 +23,12 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import com.google.common.collect.Lists;
+import com.google.common.io.BaseEncoding;
 import io.grpc.Metadata.Key;
 import io.grpc.internal.GrpcUtil;
 import java.util.Arrays;
@@ -162,6 +164,65 @@ public class MetadataTest {
     assertEquals(lance, raw.get(KEY));
   }
 
+  @Test
+  public void base64BinaryValuesDecodedOnRead() {
+    Metadata.Key<String> asciiKey = Metadata.Key.of("ascii", Metadata.ASCII_STRING_MARSHALLER);
+    byte[] encodedLance = BaseEncoding.base64().encode(LANCE_BYTES).getBytes(US_ASCII);
+    byte[][] namesAndValues = new byte[][] {
+        asciiKey.asciiName(), "dG9t".getBytes(US_ASCII),
+        KEY.asciiName(), encodedLance,
+        KEY.asciiName(), "Y2F0".getBytes(US_ASCII),
+        null, null};
+    Metadata metadata = new Metadata(3, true, namesAndValues);
+
+    assertSame(encodedLance, namesAndValues[3]);
+    assertEquals("dG9t", metadata.get(asciiKey));
+    assertEquals(new Fish("cat"), metadata.get(KEY));
+    assertSame(encodedLance, namesAndValues[3]);
+
+    // Moved without being decoded
+    metadata.discardAll(asciiKey);
+    assertSame(encodedLance, namesAndValues[1]);
+    assertEquals(Arrays.asList(new Fish(LANCE), new Fish("cat")),
+        Lists.newArrayList(metadata.getAll(KEY)));
+    assertArrayEquals(LANCE_BYTES, namesAndValues[1]);
+
+    metadata.remove(KEY, new Fish(LANCE));
+    metadata.put(KEY, new Fish("dog"));
+    assertEquals(Arrays.asList(new Fish("cat"), new Fish("dog")),
+        Lists.newArrayList(metadata.removeAll(KEY)));
+  }
+
+  @Test
+  public void invalidBase64BinaryValueRejected() {
+    // Padding is optional
+    Metadata metadata = new Metadata(1, true, KEY.asciiName(), "Y2F0Zg".getBytes(US_ASCII));
+    assertEquals(new Fish("catf"), metadata.get(KEY));
+    try {
+      new Metadata(1, true, KEY.asciiName(), "Y2F0Z".getBytes(US_ASCII));
+      fail("Expected exception");
+    } catch (IllegalArgumentException expected) {
+    }
+
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("test-bin");
+    new Metadata(1, true, KEY.asciiName(), "not base64!".getBytes(US_ASCII));
+  }
+
+  @Test
+  public void base64BinaryValuesDecodedOnSerializeAndMerge() {
+    byte[] encodedLance = BaseEncoding.base64().encode(LANCE_BYTES).getBytes(US_ASCII);
+    Metadata metadata = new Metadata(1, true, KEY.asciiName(), encodedLance);
+    Metadata merged = new Metadata();
+    merged.put(KEY, new Fish("cat"));
+    merged.merge(metadata);
+    assertEquals(new Fish(LANCE), merged.get(KEY));
+    assertEquals("Metadata(test-bin=Y2F0,test-bin=bGFuY2U=)", merged.toString());
+
+    byte[][] serialized = new Metadata(1, true, KEY.asciiName(), encodedLance).serialize();
+    assertArrayEquals(LANCE_BYTES, serialized[1]);
+  }
+
   @Test
   public void testSerializeRaw() {
     Metadata raw = new Metadata(KEY.asciiName(), LANCE_BYTES);
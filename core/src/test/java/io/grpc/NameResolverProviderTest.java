@@ -25,6 +25,7 @@ import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 
 import io.grpc.internal.DnsNameResolverProvider;
+import io.grpc.internal.FileNameResolverProvider;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -127,8 +128,9 @@ public class NameResolverProviderTest {
   @Test
   public void baseProviders() {
     List<NameResolverProvider> providers = NameResolverProvider.providers();
-    assertEquals(1, providers.size());
+    assertEquals(2, providers.size());
     assertSame(DnsNameResolverProvider.class, providers.get(0).getClass());
+    assertSame(FileNameResolverProvider.class, providers.get(1).getClass());
     assertEquals("dns", NameResolverProvider.asFactory().getDefaultScheme());
   }
 
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link OptionalCodecs}. The compression libraries are on the test classpath.
+ */
+@RunWith(JUnit4.class)
+public class OptionalCodecsTest {
+  @Test
+  public void availableWhenLibrariesPresent() {
+    List<String> encodings = new ArrayList<String>();
+    for (Codec codec : OptionalCodecs.available()) {
+      encodings.add(codec.getMessageEncoding());
+    }
+    assertEquals(Arrays.asList("zstd", "lz4", "snappy"), encodings);
+  }
+
+  @Test
+  public void notRegisteredByDefault() {
+    for (String encoding : Arrays.asList("zstd", "lz4", "snappy")) {
+      assertNull(CompressorRegistry.getDefaultInstance().lookupCompressor(encoding));
+      assertNull(DecompressorRegistry.getDefaultInstance().lookupDecompressor(encoding));
+    }
+    assertEquals(Collections.singleton("gzip"),
+        DecompressorRegistry.getDefaultInstance().getAdvertisedMessageEncodings());
+  }
+
+  @Test
+  public void registerOptionalCodecs() {
+    CompressorRegistry registry = CompressorRegistry.newEmptyInstance();
+    registry.registerOptionalCodecs();
+    for (Codec codec : OptionalCodecs.available()) {
+      assertSame(codec, registry.lookupCompressor(codec.getMessageEncoding()));
+    }
+  }
+
+  @Test
+  public void withOptionalCodecs() {
+    DecompressorRegistry registry =
+        DecompressorRegistry.getDefaultInstance().withOptionalCodecs(true);
+    for (Codec codec : OptionalCodecs.available()) {
+      assertSame(codec, registry.lookupDecompressor(codec.getMessageEncoding()));
+    }
+    assertEquals(new HashSet<String>(Arrays.asList("gzip", "zstd", "lz4", "snappy")),
+        registry.getAdvertisedMessageEncodings());
+
+    registry = DecompressorRegistry.emptyInstance().withOptionalCodecs(false);
+    assertEquals(new HashSet<String>(Arrays.asList("zstd", "lz4", "snappy")),
+        registry.getKnownMessageEncodings());
+    assertTrue(registry.getAdvertisedMessageEncodings().isEmpty());
+  }
+
+  @Test
+  public void roundTrip() throws Exception {
+    Random random = new Random(1);
+    for (Codec codec : OptionalCodecs.available()) {
+      for (int size : new int[] {0, 1, 1024, 200000}) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+          data[i] = (byte) ('a' + random.nextInt(8));
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        OutputStream os = codec.compress(compressed);
+        os.write(data);
+        os.close();
+        InputStream is = codec.decompress(new ByteArrayInputStream(compressed.toByteArray()));
+        assertArrayEquals(codec.getMessageEncoding(), data, ByteStreams.toByteArray(is));
+        is.close();
+      }
+    }
+  }
+}
@@ -29,6 +29,7 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import io.grpc.Attributes;
+import io.grpc.ClientStreamTracer;
 import io.grpc.Codec;
 import io.grpc.Metadata;
 import io.grpc.Status;
@@ -206,6 +207,19 @@ public class AbstractClientStreamTest {
     verify(mockListener).headersRead(headers);
   }
 
+  @Test
+  public void inboundTrailersReceived_notifiesTracers() {
+    ClientStreamTracer tracer = mock(ClientStreamTracer.class);
+    StatsTraceContext statsTraceCtx = new StatsTraceContext(new StreamTracer[] {tracer});
+    AbstractClientStream stream = new BaseAbstractClientStream(allocator, statsTraceCtx);
+    stream.start(mockListener);
+    Metadata trailers = new Metadata();
+
+    stream.transportState().inboundTrailersReceived(trailers, Status.OK);
+    verify(tracer).inboundTrailers(trailers);
+    verify(mockListener).closed(Status.OK, trailers);
+  }
+
   @Test
   public void rstStreamClosesStream() {
     AbstractClientStream stream = new BaseAbstractClientStream(allocator, statsTraceCtx);
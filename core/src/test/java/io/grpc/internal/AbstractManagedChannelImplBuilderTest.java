@@ -332,6 +332,41 @@ public class AbstractManagedChannelImplBuilderTest {
     assertEquals(TimeUnit.SECONDS.toMillis(30), builder.getIdleTimeoutMillis());
   }
 
+  @Test
+  public void connectionAttemptDelay() {
+    Builder builder = new Builder("target");
+    assertEquals(0, builder.connectionAttemptDelayNanos);
+
+    builder.connectionAttemptDelay(250, TimeUnit.MILLISECONDS);
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(250), builder.connectionAttemptDelayNanos);
+
+    try {
+      builder.connectionAttemptDelay(-1, TimeUnit.MILLISECONDS);
+      fail("Should throw");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void maxConnectionAge() {
+    Builder builder = new Builder("target");
+    assertEquals(0, builder.maxConnectionAgeNanos);
+
+    builder.maxConnectionAge(10, TimeUnit.MINUTES);
+    assertEquals(TimeUnit.MINUTES.toNanos(10), builder.maxConnectionAgeNanos);
+
+    builder.maxConnectionAge(Long.MAX_VALUE, TimeUnit.DAYS);
+    assertEquals(Long.MAX_VALUE, builder.maxConnectionAgeNanos);
+
+    try {
+      builder.maxConnectionAge(0, TimeUnit.MINUTES);
+      fail("Should throw");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
   static class Builder extends AbstractManagedChannelImplBuilder<Builder> {
     Builder(String target) {
       super(target);
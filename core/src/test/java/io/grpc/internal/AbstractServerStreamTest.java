@@ -17,6 +17,7 @@
 package io.grpc.internal;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -93,6 +94,35 @@ public class AbstractServerStreamTest {
     assertNull("no message expected", streamListenerMessageQueue.poll());
   }
 
+  @Test
+  public void deframeInApplicationThread_deframesWhenMessagesAreRead() {
+    final Queue<StreamListener.MessageProducer> producers =
+        new LinkedList<StreamListener.MessageProducer>();
+    stream.transportState().setListener(new ServerStreamListenerBase() {
+      @Override
+      public void messagesAvailable(MessageProducer producer) {
+        producers.add(producer);
+      }
+    });
+    stream.deframeInApplicationThread();
+    stream.transportState().requestMessagesFromDeframer(1);
+    stream.transportState().inboundDataReceived(
+        ReadableBuffers.wrap(new byte[] {0, 0, 0, 0, 2, 3, 14}), false);
+
+    // Nothing has been deframed on the transport thread: the data is deframed once the
+    // application reads from the producers.
+    assertEquals(2, producers.size());
+    InputStream message = null;
+    StreamListener.MessageProducer producer;
+    while ((producer = producers.poll()) != null) {
+      InputStream next = producer.next();
+      if (next != null) {
+        message = next;
+      }
+    }
+    assertNotNull(message);
+  }
+
   @Test
   public void queuedBytesInDeframerShouldNotBlockComplete() throws Exception {
     final SettableFuture<Status> closedFuture = SettableFuture.create();
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.grpc.internal;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link AdaptiveCompressionPolicy}.
+ */
+@RunWith(JUnit4.class)
+public class AdaptiveCompressionPolicyTest {
+  private final AdaptiveCompressionPolicy policy = new AdaptiveCompressionPolicy(100, 0.9);
+  private final AdaptiveCompressionPolicy.MethodPolicy methodPolicy =
+      policy.forMethod("service/method");
+
+  @Test
+  public void forMethod_sharedPerMethod() {
+    assertSame(methodPolicy, policy.forMethod("service/method"));
+    assertTrue(methodPolicy != policy.forMethod("service/other"));
+  }
+
+  @Test
+  public void smallMessagesNotCompressed() {
+    assertFalse(methodPolicy.shouldCompress(99));
+    assertTrue(methodPolicy.shouldCompress(100));
+  }
+
+  @Test
+  public void unknownLengthCompressed() {
+    assertTrue(methodPolicy.shouldCompress(-1));
+  }
+
+  @Test
+  public void poorRatioDisablesCompression() {
+    methodPolicy.recordCompressed(1000, 500);
+    assertTrue(methodPolicy.isCompressionEnabled());
+    assertTrue(methodPolicy.shouldCompress(1000));
+
+    for (int i = 0; i < 20; i++) {
+      methodPolicy.recordCompressed(1000, 1010);
+    }
+    assertFalse(methodPolicy.isCompressionEnabled());
+    assertFalse(methodPolicy.shouldCompress(1000));
+    // Other methods are unaffected.
+    assertTrue(policy.forMethod("service/other").shouldCompress(1000));
+  }
+
+  @Test
+  public void disabledMethodSamplesMessages() {
+    methodPolicy.recordCompressed(1000, 1000);
+    assertFalse(methodPolicy.isCompressionEnabled());
+
+    for (int i = 0; i < AdaptiveCompressionPolicy.SAMPLE_INTERVAL - 1; i++) {
+      assertFalse(methodPolicy.shouldCompress(1000));
+    }
+    assertTrue(methodPolicy.shouldCompress(1000));
+    assertFalse(methodPolicy.shouldCompress(1000));
+  }
+
+  @Test
+  public void goodSamplesReenableCompression() {
+    methodPolicy.recordCompressed(1000, 1000);
+    assertFalse(methodPolicy.isCompressionEnabled());
+
+    methodPolicy.recordCompressed(1000, 100);
+    assertTrue(methodPolicy.isCompressionEnabled());
+    assertTrue(methodPolicy.shouldCompress(1000));
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.grpc.ClientStreamTracer;
+import io.grpc.Status;
+import io.grpc.internal.Channelz.ChannelStats;
+import java.net.SocketAddress;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link CallTracingTransportFactory}. */
+@RunWith(JUnit4.class)
+public class CallTracingTransportFactoryTest {
+  private final CallTracer callTracer = new CallTracer();
+  private final ClientTransportFactory delegateFactory = mock(ClientTransportFactory.class);
+  private final ConnectionClientTransport delegate = mock(ConnectionClientTransport.class);
+  private final SocketAddress address = mock(SocketAddress.class);
+
+  @Test
+  public void streamsAreTracedByTransportTracer() {
+    TransportTracer transportTracer = new TransportTracer();
+    when(delegate.getTransportTracer()).thenReturn(transportTracer);
+    when(delegateFactory.newClientTransport(address, "authority", "agent")).thenReturn(delegate);
+    ConnectionClientTransport transport = new CallTracingTransportFactory(
+        delegateFactory, callTracer).newClientTransport(address, "authority", "agent");
+    // The transport is not wrapped
+    assertSame(delegate, transport);
+
+    // As the transport does for each stream it creates
+    transportTracer.reportLocalStreamStarted();
+    transportTracer.reportLocalStreamStarted();
+    ClientStreamTracer streamTracer = transportTracer.getClientStreamTracer();
+    streamTracer.streamClosed(Status.OK);
+    streamTracer.streamClosed(Status.CANCELLED);
+
+    ChannelStats stats = stats();
+    assertEquals(2, stats.callsStarted);
+    assertEquals(1, stats.callsSucceeded);
+    assertEquals(1, stats.callsFailed);
+  }
+
+  @Test
+  public void transportWithoutTracer() {
+    when(delegateFactory.newClientTransport(address, "authority", "agent")).thenReturn(delegate);
+    ConnectionClientTransport transport = new CallTracingTransportFactory(
+        delegateFactory, callTracer).newClientTransport(address, "authority", "agent");
+
+    assertSame(delegate, transport);
+    assertEquals(0, stats().callsStarted);
+  }
+
+  private ChannelStats stats() {
+    ChannelStats.Builder builder = new ChannelStats.Builder().setTarget("target");
+    callTracer.updateBuilder(builder);
+    return builder.build();
+  }
+}
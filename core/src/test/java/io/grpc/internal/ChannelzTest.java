@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import io.grpc.internal.Channelz.ChannelStats;
+import io.grpc.internal.Channelz.SocketStats;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link Channelz}. */
+@RunWith(JUnit4.class)
+public class ChannelzTest {
+  private final Channelz channelz = new Channelz();
+
+  @Test
+  public void addAndRemove() {
+    FakeInstrumented<ChannelStats> channel = new FakeInstrumented<ChannelStats>();
+    FakeInstrumented<SocketStats> socket = new FakeInstrumented<SocketStats>();
+    channelz.addRootChannel(channel);
+    channelz.addSocket(socket);
+
+    assertSame(channel, channelz.getRootChannel(channel.getLogId().getId()));
+    assertSame(socket, channelz.getSocket(socket.getLogId().getId()));
+    assertNull(channelz.getSubchannel(channel.getLogId().getId()));
+
+    channelz.removeRootChannel(channel);
+    channelz.removeSocket(socket);
+
+    assertNull(channelz.getRootChannel(channel.getLogId().getId()));
+    assertNull(channelz.getSocket(socket.getLogId().getId()));
+  }
+
+  @Test
+  public void getRootChannels_paged() {
+    FakeInstrumented<ChannelStats> channel1 = new FakeInstrumented<ChannelStats>();
+    FakeInstrumented<ChannelStats> channel2 = new FakeInstrumented<ChannelStats>();
+    FakeInstrumented<ChannelStats> channel3 = new FakeInstrumented<ChannelStats>();
+    channelz.addRootChannel(channel3);
+    channelz.addRootChannel(channel1);
+    channelz.addRootChannel(channel2);
+
+    List<Instrumented<ChannelStats>> page = channelz.getRootChannels(0, 2);
+    assertEquals(Arrays.<Instrumented<ChannelStats>>asList(channel1, channel2), page);
+
+    page = channelz.getRootChannels(channel2.getLogId().getId() + 1, 2);
+    assertEquals(Arrays.<Instrumented<ChannelStats>>asList(channel3), page);
+
+    page = channelz.getRootChannels(channel3.getLogId().getId() + 1, 2);
+    assertEquals(0, page.size());
+  }
+
+  @Test
+  public void remove_onlyIfRegistered() {
+    FakeInstrumented<ChannelStats> channel = new FakeInstrumented<ChannelStats>();
+    FakeInstrumented<ChannelStats> otherChannel = new FakeInstrumented<ChannelStats>();
+    channelz.addRootChannel(channel);
+
+    channelz.removeRootChannel(otherChannel);
+    channelz.removeSubchannel(channel);
+
+    assertSame(channel, channelz.getRootChannel(channel.getLogId().getId()));
+  }
+
+  @Test
+  public void garbageCollectedEntriesAreDropped() throws Exception {
+    long id = addUnreferencedChannel();
+    for (int i = 0; i < 100 && channelz.getRootChannel(id) != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+
+    assertNull(channelz.getRootChannel(id));
+    assertEquals(0, channelz.getRootChannels(0, 10).size());
+  }
+
+  @Test
+  public void garbageCollectedEntriesArePrunedOnAdd() throws Exception {
+    addUnreferencedChannel();
+    FakeInstrumented<ChannelStats> channel = new FakeInstrumented<ChannelStats>();
+    channelz.addRootChannel(channel);
+    for (int i = 0; i < 100 && channelz.rootChannelEntries() > 1; i++) {
+      System.gc();
+      Thread.sleep(10);
+      channelz.addRootChannel(channel);
+    }
+
+    assertEquals(1, channelz.rootChannelEntries());
+  }
+
+  private long addUnreferencedChannel() {
+    FakeInstrumented<ChannelStats> channel = new FakeInstrumented<ChannelStats>();
+    channelz.addRootChannel(channel);
+    return channel.getLogId().getId();
+  }
+
+  private static final class FakeInstrumented<T> implements Instrumented<T> {
+    private final LogId logId = LogId.allocate("fake");
+
+    @Override
+    public ListenableFuture<T> getStats() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public LogId getLogId() {
+      return logId;
+    }
+  }
+}
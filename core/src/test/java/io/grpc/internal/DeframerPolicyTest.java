@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link DeframerPolicy}.
+ */
+@RunWith(JUnit4.class)
+public class DeframerPolicyTest {
+  @Test
+  public void defaultMode() {
+    Map<String, Boolean> none = Collections.emptyMap();
+    assertFalse(new DeframerPolicy(false, none).deframeInApplicationThread("service/method"));
+    assertTrue(new DeframerPolicy(true, none).deframeInApplicationThread("service/method"));
+  }
+
+  @Test
+  public void methodOverride() {
+    Map<String, Boolean> overrides = new HashMap<String, Boolean>();
+    overrides.put("service/large", true);
+    overrides.put("service/small", false);
+    DeframerPolicy policy = new DeframerPolicy(false, overrides);
+    // Later changes to the builder's map do not affect the policy
+    overrides.put("service/other", true);
+
+    assertTrue(policy.deframeInApplicationThread("service/large"));
+    assertFalse(policy.deframeInApplicationThread("service/small"));
+    assertFalse(policy.deframeInApplicationThread("service/other"));
+    assertTrue(new DeframerPolicy(true, overrides).deframeInApplicationThread("service/other"));
+    assertFalse(new DeframerPolicy(true, overrides).deframeInApplicationThread("service/small"));
+  }
+}
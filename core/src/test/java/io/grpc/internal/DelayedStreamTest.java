@@ -164,6 +164,26 @@ public class DelayedStreamTest {
     verify(realStream).setMessageCompression(true);
   }
 
+  @Test
+  public void setStream_setCompressionPolicy() {
+    AdaptiveCompressionPolicy.MethodPolicy policy =
+        new AdaptiveCompressionPolicy(10, 0.9).forMethod("service/method");
+    stream.start(listener);
+    stream.setCompressionPolicy(policy);
+    stream.setStream(realStream);
+    verify(realStream).setCompressionPolicy(policy);
+  }
+
+  @Test
+  public void setStream_deframeInApplicationThread() {
+    stream.deframeInApplicationThread();
+    stream.start(listener);
+    stream.setStream(realStream);
+    InOrder inOrder = inOrder(realStream);
+    inOrder.verify(realStream).deframeInApplicationThread();
+    inOrder.verify(realStream).start(any(ClientStreamListener.class));
+  }
+
   @Test
   public void setStream_isReady() {
     stream.start(listener);
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.grpc.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.internal.DnsNameResolver.DelegateResolver;
+import io.grpc.internal.DnsNameResolver.ResolutionResults;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link DnsCache}. */
+@RunWith(JUnit4.class)
+public class DnsCacheTest {
+  private static final String HOST = "foo.googleapis.com";
+  private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+  private final FakeClock fakeClock = new FakeClock();
+  private final FakeClock fakeExecutor = new FakeClock();
+  private final DnsCache cache = new DnsCache(TTL_NANOS, fakeClock.getTicker());
+  private final QueueResolver resolver = new QueueResolver();
+  private final ExecutorService threadPool = Executors.newCachedThreadPool();
+
+  @After
+  public void tearDown() throws Exception {
+    threadPool.shutdownNow();
+    threadPool.awaitTermination(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void freshResultsAreCached() throws Exception {
+    ResolutionResults results = resolver.addResults();
+    assertSame(results, resolve(false).results);
+    fakeClock.forwardNanos(TTL_NANOS / 2);
+    DnsCache.CachedResults cached = resolve(false);
+    assertSame(results, cached.results);
+    // Look again once the results should be refreshed
+    assertEquals(TTL_NANOS / 5 * 4 - TTL_NANOS / 2, cached.nextLookupDelayNanos);
+    assertEquals(1, resolver.lookups.get());
+    assertEquals(0, fakeExecutor.numPendingTasks());
+  }
+
+  @Test
+  public void staleResultsAreServedWhileRefreshing() throws Exception {
+    ResolutionResults results1 = resolver.addResults();
+    ResolutionResults results2 = resolver.addResults();
+    resolve(false);
+
+    fakeClock.forwardNanos(TTL_NANOS + 1);
+    assertSame(results1, resolve(false).results);
+    // Only one background refresh is started
+    assertSame(results1, resolve(false).results);
+    assertEquals(1, fakeExecutor.runDueTasks());
+    assertEquals(2, resolver.lookups.get());
+    assertSame(results2, resolve(false).results);
+  }
+
+  @Test
+  public void failedRefreshKeepsServingStaleResults() throws Exception {
+    ResolutionResults results = resolver.addResults();
+    resolve(false);
+
+    fakeClock.forwardNanos(TTL_NANOS / 5 * 4);
+    resolver.addError();
+    assertSame(results, resolve(false).results);
+    assertEquals(1, fakeExecutor.runDueTasks());
+    assertSame(results, resolve(false).results);
+
+    // Until the results are too old
+    fakeClock.forwardNanos(TTL_NANOS / 5 * 6);
+    resolver.addError();
+    try {
+      resolve(false);
+      fail("Should throw");
+    } catch (UnknownHostException e) {
+      // expected
+    }
+    assertEquals(3, resolver.lookups.get());
+  }
+
+  @Test
+  public void refreshBypassesCacheAtMostOncePerTtl() throws Exception {
+    ResolutionResults results1 = resolver.addResults();
+    ResolutionResults results2 = resolver.addResults();
+    resolve(false);
+
+    fakeClock.forwardNanos(TTL_NANOS / 2);
+    assertSame(results1, resolve(true).results);
+    assertEquals(1, resolver.lookups.get());
+    fakeClock.forwardNanos(TTL_NANOS / 2);
+    assertSame(results2, resolve(true).results);
+    assertEquals(2, resolver.lookups.get());
+  }
+
+  @Test
+  public void concurrentLookupsAreCombined() throws Exception {
+    final CountDownLatch lookupStarted = new CountDownLatch(1);
+    final CountDownLatch finishLookup = new CountDownLatch(1);
+    final ResolutionResults results = resolver.addResults();
+    final DelegateResolver blockingResolver = new DelegateResolver() {
+      @Override
+      ResolutionResults resolve(String host) throws Exception {
+        lookupStarted.countDown();
+        finishLookup.await();
+        return resolver.resolve(host);
+      }
+    };
+    Callable<ResolutionResults> lookup = new Callable<ResolutionResults>() {
+      @Override
+      public ResolutionResults call() throws Exception {
+        return cache.resolve(HOST, blockingResolver, MoreExecutors.directExecutor(), false)
+            .results;
+      }
+    };
+    Future<ResolutionResults> first = threadPool.submit(lookup);
+    lookupStarted.await(5, TimeUnit.SECONDS);
+    Future<ResolutionResults> second = threadPool.submit(lookup);
+    // Give the second lookup time to join the first
+    Thread.sleep(50);
+    finishLookup.countDown();
+
+    assertSame(results, first.get(5, TimeUnit.SECONDS));
+    assertSame(results, second.get(5, TimeUnit.SECONDS));
+    assertEquals(1, resolver.lookups.get());
+  }
+
+  @Test
+  public void zeroTtlDisablesCaching() throws Exception {
+    DnsCache noCache = new DnsCache(0, fakeClock.getTicker());
+    ResolutionResults results1 = resolver.addResults();
+    ResolutionResults results2 = resolver.addResults();
+    DnsCache.CachedResults cached =
+        noCache.resolve(HOST, resolver, fakeExecutor.getScheduledExecutorService(), false);
+    assertSame(results1, cached.results);
+    assertEquals(-1, cached.nextLookupDelayNanos);
+    assertSame(results2,
+        noCache.resolve(HOST, resolver, fakeExecutor.getScheduledExecutorService(), false).results);
+  }
+
+  private DnsCache.CachedResults resolve(boolean refresh) throws Exception {
+    return cache.resolve(HOST, resolver, fakeExecutor.getScheduledExecutorService(), refresh);
+  }
+
+  private static final class QueueResolver extends DelegateResolver {
+    final Queue<Object> answers = new LinkedList<Object>();
+    final AtomicInteger lookups = new AtomicInteger();
+
+    ResolutionResults addResults() throws UnknownHostException {
+      ResolutionResults results = new ResolutionResults(
+          Collections.singletonList(
+              InetAddress.getByAddress(new byte[] {127, 0, 0, (byte) (answers.size() + 1)})),
+          Collections.<String>emptyList());
+      answers.add(results);
+      return results;
+    }
+
+    void addError() {
+      answers.add(new UnknownHostException(HOST));
+    }
+
+    @Override
+    synchronized ResolutionResults resolve(String host) throws Exception {
+      lookups.incrementAndGet();
+      Object answer = answers.poll();
+      if (answer instanceof UnknownHostException) {
+        throw (UnknownHostException) answer;
+      }
+      return (ResolutionResults) answer;
+    }
+  }
+}
@@ -22,6 +22,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -102,12 +103,18 @@ public class DnsNameResolverTest {
   private ArgumentCaptor<Status> statusCaptor;
 
   private DnsNameResolver newResolver(String name, int port) {
+    // Without caching
+    return newResolver(name, port, new DnsCache(0, fakeClock.getTicker()));
+  }
+
+  private DnsNameResolver newResolver(String name, int port, DnsCache cache) {
     DnsNameResolver dnsResolver = new DnsNameResolver(
         null,
         name,
         Attributes.newBuilder().set(NameResolver.Factory.PARAMS_DEFAULT_PORT, port).build(),
         fakeTimerServiceResource,
-        fakeExecutorResource);
+        fakeExecutorResource,
+        cache);
     dnsResolver.setDelegateResolver(mockResolver);
     return dnsResolver;
   }
@@ -270,6 +277,91 @@ public class DnsNameResolverTest {
     verifyNoMoreInteractions(mockListener);
   }
 
+  @Test
+  public void cache_resolvesAgainOnceRefreshed() throws Exception {
+    List<InetAddress> answer1 = createAddressList(2);
+    List<InetAddress> answer2 = createAddressList(1);
+    String name = "foo.googleapis.com";
+    DnsCache cache = new DnsCache(TimeUnit.SECONDS.toNanos(30), fakeClock.getTicker());
+    DnsNameResolver resolver = newResolver(name, 81, cache);
+    mockResolver.addAnswer(answer1).addAnswer(answer2);
+    resolver.start(mockListener);
+    assertEquals(1, fakeExecutor.runDueTasks());
+    verify(mockListener).onAddresses(resultCaptor.capture(), any(Attributes.class));
+    assertEquals(name, mockResolver.invocations.poll());
+    assertAnswerMatches(answer1, 81, resultCaptor.getValue());
+
+    // The cache refreshes the results in the background before they expire
+    fakeClock.forwardNanos(TimeUnit.SECONDS.toNanos(24));
+    assertEquals(2, fakeExecutor.runDueTasks());
+    assertEquals(name, mockResolver.invocations.poll());
+    verifyNoMoreInteractions(mockListener);
+
+    // and the resolver picks up the new results once the old ones expire
+    fakeClock.forwardNanos(TimeUnit.SECONDS.toNanos(6));
+    assertEquals(1, fakeExecutor.runDueTasks());
+    verify(mockListener, times(2)).onAddresses(resultCaptor.capture(), any(Attributes.class));
+    assertAnswerMatches(answer2, 81, resultCaptor.getValue());
+    assertEquals(0, mockResolver.invocations.size());
+
+    resolver.shutdown();
+  }
+
+  @Test
+  public void cache_refreshIsRateLimited() throws Exception {
+    List<InetAddress> answer1 = createAddressList(2);
+    List<InetAddress> answer2 = createAddressList(1);
+    String name = "foo.googleapis.com";
+    DnsCache cache = new DnsCache(TimeUnit.SECONDS.toNanos(30), fakeClock.getTicker());
+    DnsNameResolver resolver = newResolver(name, 81, cache);
+    mockResolver.addAnswer(answer1).addAnswer(answer2);
+    resolver.start(mockListener);
+    assertEquals(1, fakeExecutor.runDueTasks());
+    assertEquals(name, mockResolver.invocations.poll());
+
+    // Refreshing right away is answered from the cache
+    fakeClock.forwardNanos(TimeUnit.SECONDS.toNanos(10));
+    resolver.refresh();
+    assertEquals(1, fakeExecutor.runDueTasks());
+    verify(mockListener, times(2)).onAddresses(resultCaptor.capture(), any(Attributes.class));
+    assertAnswerMatches(answer1, 81, resultCaptor.getValue());
+    assertEquals(0, mockResolver.invocations.size());
+
+    // but not once they are old enough
+    fakeClock.forwardNanos(TimeUnit.SECONDS.toNanos(20));
+    resolver.refresh();
+    assertEquals(2, fakeExecutor.runDueTasks());
+    verify(mockListener, times(3)).onAddresses(resultCaptor.capture(), any(Attributes.class));
+    assertAnswerMatches(answer2, 81, resultCaptor.getValue());
+    assertEquals(name, mockResolver.invocations.poll());
+
+    resolver.shutdown();
+  }
+
+  @Test
+  public void cache_sharedBetweenResolvers() throws Exception {
+    List<InetAddress> answer = createAddressList(2);
+    String name = "foo.googleapis.com";
+    DnsCache cache = new DnsCache(TimeUnit.SECONDS.toNanos(30), fakeClock.getTicker());
+    DnsNameResolver resolver1 = newResolver(name, 81, cache);
+    DnsNameResolver resolver2 = newResolver(name, 82, cache);
+    NameResolver.Listener mockListener2 = mock(NameResolver.Listener.class);
+    mockResolver.addAnswer(answer);
+    resolver1.start(mockListener);
+    resolver2.start(mockListener2);
+    assertEquals(2, fakeExecutor.runDueTasks());
+
+    assertEquals(name, mockResolver.invocations.poll());
+    assertEquals(0, mockResolver.invocations.size());
+    verify(mockListener).onAddresses(resultCaptor.capture(), any(Attributes.class));
+    assertAnswerMatches(answer, 81, resultCaptor.getValue());
+    verify(mockListener2).onAddresses(resultCaptor.capture(), any(Attributes.class));
+    assertAnswerMatches(answer, 82, resultCaptor.getValue());
+
+    resolver1.shutdown();
+    resolver2.shutdown();
+  }
+
   @Test(timeout = 10000)
   public void jdkResolverWorks() throws Exception {
     DnsNameResolver.DelegateResolver resolver = new DnsNameResolver.JdkResolver();
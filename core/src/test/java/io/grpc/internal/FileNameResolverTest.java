@@ -0,0 +1,281 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.io.Files;
+import io.grpc.Attributes;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.NameResolver;
+import io.grpc.Status;
+import io.grpc.internal.SharedResourceHolder.Resource;
+import io.grpc.util.ZoneAwareLoadBalancerFactory;
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/** Unit tests for {@link FileNameResolver}. */
+@RunWith(JUnit4.class)
+public class FileNameResolverTest {
+  private static final int DEFAULT_PORT = 887;
+  private static final long POLL_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final FakeClock fakeClock = new FakeClock();
+  private final FakeClock fakeExecutor = new FakeClock();
+  private final Resource<ScheduledExecutorService> fakeTimerServiceResource =
+      new Resource<ScheduledExecutorService>() {
+        @Override
+        public ScheduledExecutorService create() {
+          return fakeClock.getScheduledExecutorService();
+        }
+
+        @Override
+        public void close(ScheduledExecutorService instance) {
+        }
+      };
+
+  private final Resource<ExecutorService> fakeExecutorResource =
+      new Resource<ExecutorService>() {
+        @Override
+        public ExecutorService create() {
+          return fakeExecutor.getScheduledExecutorService();
+        }
+
+        @Override
+        public void close(ExecutorService instance) {
+        }
+      };
+
+  @Mock
+  private NameResolver.Listener mockListener;
+  @Captor
+  private ArgumentCaptor<List<EquivalentAddressGroup>> resultCaptor;
+  @Captor
+  private ArgumentCaptor<Status> statusCaptor;
+
+  private File file;
+  private FileNameResolver resolver;
+
+  @Before
+  public void setUp() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    file = new File(tempFolder.getRoot(), "backends.txt");
+    resolver = new FileNameResolver(
+        file,
+        Attributes.newBuilder().set(NameResolver.Factory.PARAMS_DEFAULT_PORT, DEFAULT_PORT).build(),
+        POLL_INTERVAL_NANOS,
+        fakeTimerServiceResource,
+        fakeExecutorResource);
+  }
+
+  @After
+  public void noMorePendingTasks() {
+    resolver.shutdown();
+    assertEquals(0, fakeClock.numPendingTasks());
+    assertEquals(0, fakeExecutor.numPendingTasks());
+  }
+
+  @Test
+  public void serviceAuthorityIsFileName() {
+    assertEquals("backends.txt", resolver.getServiceAuthority());
+  }
+
+  @Test
+  public void resolve() throws Exception {
+    writeFile(
+        "# Backends",
+        "10.0.0.1:8080 weight=2 zone=us-east1-a",
+        "",
+        "[2001:db8::1]:8081 zone=us-east1-b  # IPv6",
+        "10.0.0.2",
+        "10.0.0.1:8080 weight=2 zone=us-east1-a");
+    resolver.start(mockListener);
+    assertEquals(1, fakeExecutor.runDueTasks());
+
+    verify(mockListener).onAddresses(resultCaptor.capture(), any(Attributes.class));
+    List<EquivalentAddressGroup> groups = resultCaptor.getValue();
+    assertEquals(3, groups.size());
+    assertEquals(new InetSocketAddress("10.0.0.1", 8080),
+        groups.get(0).getAddresses().get(0));
+    assertEquals(Integer.valueOf(2),
+        groups.get(0).getAttributes().get(FileNameResolverProvider.ATTR_WEIGHT));
+    assertEquals("us-east1-a",
+        groups.get(0).getAttributes().get(ZoneAwareLoadBalancerFactory.ATTR_ZONE));
+    assertEquals(new InetSocketAddress("2001:db8::1", 8081),
+        groups.get(1).getAddresses().get(0));
+    assertNull(groups.get(1).getAttributes().get(FileNameResolverProvider.ATTR_WEIGHT));
+    assertEquals("us-east1-b",
+        groups.get(1).getAttributes().get(ZoneAwareLoadBalancerFactory.ATTR_ZONE));
+    assertEquals(new InetSocketAddress("10.0.0.2", DEFAULT_PORT),
+        groups.get(2).getAddresses().get(0));
+    assertEquals(Attributes.EMPTY, groups.get(2).getAttributes());
+  }
+
+  @Test
+  public void reloadWhenFileChanges() throws Exception {
+    writeFile("10.0.0.1:8080", "10.0.0.2:8080");
+    resolver.start(mockListener);
+    fakeExecutor.runDueTasks();
+    verify(mockListener).onAddresses(resultCaptor.capture(), any(Attributes.class));
+    List<EquivalentAddressGroup> oldGroups = resultCaptor.getValue();
+
+    // Nothing changed
+    assertEquals(1, fakeClock.forwardNanos(POLL_INTERVAL_NANOS));
+    assertEquals(1, fakeExecutor.runDueTasks());
+    verifyNoMoreInteractions(mockListener);
+
+    writeFile("10.0.0.2:8080", "10.0.0.3:8080");
+    fakeClock.forwardNanos(POLL_INTERVAL_NANOS);
+    fakeExecutor.runDueTasks();
+    verify(mockListener, times(2))
+        .onAddresses(resultCaptor.capture(), any(Attributes.class));
+    List<EquivalentAddressGroup> newGroups = resultCaptor.getValue();
+    assertEquals(2, newGroups.size());
+    // The group of the unchanged line is reused
+    assertSame(oldGroups.get(1), newGroups.get(0));
+    assertEquals(new InetSocketAddress("10.0.0.3", 8080), newGroups.get(1).getAddresses().get(0));
+  }
+
+  @Test
+  public void unchangedBackendsAreNotReported() throws Exception {
+    writeFile("10.0.0.1:8080", "10.0.0.2:8080");
+    resolver.start(mockListener);
+    fakeExecutor.runDueTasks();
+    verify(mockListener).onAddresses(anyListOf(EquivalentAddressGroup.class),
+        any(Attributes.class));
+
+    writeFile("# Same backends, with a comment", "10.0.0.1:8080", "10.0.0.2:8080  # second");
+    fakeClock.forwardNanos(POLL_INTERVAL_NANOS);
+    fakeExecutor.runDueTasks();
+    resolver.refresh();
+    fakeExecutor.runDueTasks();
+    verifyNoMoreInteractions(mockListener);
+  }
+
+  @Test
+  public void invalidFileKeepsPreviousAddresses() throws Exception {
+    writeFile("10.0.0.1:8080");
+    resolver.start(mockListener);
+    fakeExecutor.runDueTasks();
+    verify(mockListener).onAddresses(anyListOf(EquivalentAddressGroup.class),
+        any(Attributes.class));
+
+    writeFile("10.0.0.1:8080 color=blue");
+    fakeClock.forwardNanos(POLL_INTERVAL_NANOS);
+    fakeExecutor.runDueTasks();
+    verifyNoMoreInteractions(mockListener);
+  }
+
+  @Test
+  public void missingFileFailsUntilCreated() throws Exception {
+    resolver.start(mockListener);
+    fakeExecutor.runDueTasks();
+    verify(mockListener).onError(statusCaptor.capture());
+    assertEquals(Status.Code.UNAVAILABLE, statusCaptor.getValue().getCode());
+
+    // Not read again until it changed
+    fakeClock.forwardNanos(POLL_INTERVAL_NANOS);
+    fakeExecutor.runDueTasks();
+    verify(mockListener, never()).onAddresses(anyListOf(EquivalentAddressGroup.class),
+        any(Attributes.class));
+
+    writeFile("10.0.0.1:8080");
+    fakeClock.forwardNanos(POLL_INTERVAL_NANOS);
+    fakeExecutor.runDueTasks();
+    verify(mockListener).onAddresses(resultCaptor.capture(), any(Attributes.class));
+    assertEquals(1, resultCaptor.getValue().size());
+  }
+
+  @Test
+  public void emptyFileFails() throws Exception {
+    writeFile("# No backends");
+    resolver.start(mockListener);
+    fakeExecutor.runDueTasks();
+    verify(mockListener).onError(statusCaptor.capture());
+    assertEquals(Status.Code.UNAVAILABLE, statusCaptor.getValue().getCode());
+  }
+
+  @Test
+  public void parseLine_invalid() {
+    String[] invalidLines = {
+      "10.0.0.1:8080 weight=0",
+      "10.0.0.1:8080 weight=heavy",
+      "10.0.0.1:8080 zone",
+      "10.0.0.1:8080 color=blue",
+      ":8080",
+    };
+    for (String line : invalidLines) {
+      try {
+        resolver.parseLine(line);
+        fail("Should have failed: " + line);
+      } catch (IllegalArgumentException expected) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void parseLine_withoutDefaultPort() {
+    FileNameResolver noDefaultPort = new FileNameResolver(file, Attributes.EMPTY,
+        POLL_INTERVAL_NANOS, fakeTimerServiceResource, fakeExecutorResource);
+    assertEquals(new InetSocketAddress("10.0.0.1", 8080),
+        noDefaultPort.parseLine("10.0.0.1:8080").getAddresses().get(0));
+    try {
+      noDefaultPort.parseLine("10.0.0.1");
+      fail("Should have failed");
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+  }
+
+  private void writeFile(String... lines) throws Exception {
+    long previousModified = file.lastModified();
+    Files.write(Joiner.on('\n').join(lines), file, Charsets.UTF_8);
+    // Make sure the change is seen even if the file system has a coarse modification time
+    if (file.lastModified() <= previousModified) {
+      file.setLastModified(previousModified + 1000);
+    }
+  }
+}
@@ -29,6 +29,7 @@ import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -36,22 +37,31 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import io.grpc.CallOptions;
 import io.grpc.ConnectivityStateInfo;
 import io.grpc.EquivalentAddressGroup;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
 import io.grpc.Status;
 import io.grpc.internal.TestUtils.MockClientTransportInfo;
+import io.grpc.testing.TestMethodDescriptors;
 import java.net.SocketAddress;
 import java.util.Arrays;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 /**
  * Unit tests for {@link InternalSubchannel}.
@@ -66,6 +76,7 @@ public class InternalSubchannelTest {
   private static final ConnectivityStateInfo RESOURCE_EXHAUSTED_STATE =
       ConnectivityStateInfo.forTransientFailure(Status.RESOURCE_EXHAUSTED);
   private static final Status SHUTDOWN_REASON = Status.UNAVAILABLE.withDescription("for test");
+  private static final MethodDescriptor<Void, Void> METHOD = TestMethodDescriptors.voidMethod();
 
   // For scheduled executor
   private final FakeClock fakeClock = new FakeClock();
@@ -848,11 +859,461 @@ public class InternalSubchannelTest {
     assertEquals(3, runnableInvokes.get());
   }
 
+  @Test
+  public void connectionPool_opensConnectionWhenSaturated() {
+    SocketAddress addr = mock(SocketAddress.class);
+    createInternalSubchannel(new ConnectionPoolPolicy(2, 2, Integer.MAX_VALUE), addr);
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo t0 = transports.poll();
+    t0.listener.transportReady();
+    assertExactCallbackInvokes("onStateChange:CONNECTING", "onStateChange:READY");
+
+    newStream(internalSubchannel.obtainActiveTransport());
+    newStream(internalSubchannel.obtainActiveTransport());
+    assertNull(transports.peek());
+
+    // The only connection is saturated, so another one is opened, but only one at a time
+    ClientTransport transport = internalSubchannel.obtainActiveTransport();
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo t1 = transports.poll();
+    assertNotNull(t1);
+    assertNull(transports.poll());
+    newStream(transport);
+    verify(t0.transport, times(3)).newStream(
+        any(MethodDescriptor.class), any(Metadata.class), any(CallOptions.class));
+
+    // New streams go to the connection with the fewest active streams
+    t1.listener.transportReady();
+    newStream(internalSubchannel.obtainActiveTransport());
+    verify(t1.transport).newStream(
+        any(MethodDescriptor.class), any(Metadata.class), any(CallOptions.class));
+    assertNoCallbackInvoke();
+
+    // The pool is full
+    newStream(internalSubchannel.obtainActiveTransport());
+    newStream(internalSubchannel.obtainActiveTransport());
+    assertNull(transports.poll());
+
+    internalSubchannel.shutdown(SHUTDOWN_REASON);
+    verify(t0.transport).shutdown(same(SHUTDOWN_REASON));
+    verify(t1.transport).shutdown(same(SHUTDOWN_REASON));
+    assertExactCallbackInvokes("onStateChange:SHUTDOWN");
+  }
+
+  @Test
+  public void connectionPool_closedStreamsAreNotCounted() {
+    SocketAddress addr = mock(SocketAddress.class);
+    createInternalSubchannel(new ConnectionPoolPolicy(2, 2, Integer.MAX_VALUE), addr);
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo t0 = transports.poll();
+    t0.listener.transportReady();
+    assertExactCallbackInvokes("onStateChange:CONNECTING", "onStateChange:READY");
+
+    newStream(internalSubchannel.obtainActiveTransport()).closed(Status.OK, new Metadata());
+    newStream(internalSubchannel.obtainActiveTransport()).closed(Status.OK, new Metadata());
+    newStream(internalSubchannel.obtainActiveTransport());
+    internalSubchannel.obtainActiveTransport();
+    assertNull(transports.poll());
+  }
+
+  @Test
+  public void connectionPool_failedStreamsAreNotCounted() {
+    SocketAddress addr = mock(SocketAddress.class);
+    createInternalSubchannel(new ConnectionPoolPolicy(2, 2, Integer.MAX_VALUE), addr);
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo t0 = transports.poll();
+    t0.listener.transportReady();
+    assertExactCallbackInvokes("onStateChange:CONNECTING", "onStateChange:READY");
+
+    // Streams failing on start are closed without being traced
+    when(t0.transport.newStream(
+            any(MethodDescriptor.class), any(Metadata.class), any(CallOptions.class)))
+        .thenAnswer(new Answer<ClientStream>() {
+          @Override
+          public ClientStream answer(InvocationOnMock invocation) {
+            return new FailingClientStream(Status.UNAVAILABLE);
+          }
+        });
+    for (int i = 0; i < 2; i++) {
+      ClientStreamListener listener = mock(ClientStreamListener.class);
+      internalSubchannel.obtainActiveTransport()
+          .newStream(METHOD, new Metadata(), CallOptions.DEFAULT)
+          .start(listener);
+      verify(listener).closed(same(Status.UNAVAILABLE), any(Metadata.class));
+    }
+    internalSubchannel.obtainActiveTransport();
+    assertNull(transports.poll());
+  }
+
+  @Test
+  public void connectionPool_opensConnectionWhenStreamRateExceeded() {
+    SocketAddress addr = mock(SocketAddress.class);
+    createInternalSubchannel(new ConnectionPoolPolicy(2, Integer.MAX_VALUE, 3), addr);
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo t0 = transports.poll();
+    t0.listener.transportReady();
+    assertExactCallbackInvokes("onStateChange:CONNECTING", "onStateChange:READY");
+
+    newStream(internalSubchannel.obtainActiveTransport()).closed(Status.OK, new Metadata());
+    newStream(internalSubchannel.obtainActiveTransport()).closed(Status.OK, new Metadata());
+    // Streams started more than two seconds ago no longer count
+    fakeClock.forwardTime(2, TimeUnit.SECONDS);
+    newStream(internalSubchannel.obtainActiveTransport()).closed(Status.OK, new Metadata());
+    newStream(internalSubchannel.obtainActiveTransport()).closed(Status.OK, new Metadata());
+    assertNull(transports.poll());
+    newStream(internalSubchannel.obtainActiveTransport()).closed(Status.OK, new Metadata());
+    internalSubchannel.obtainActiveTransport();
+    assertNotNull(transports.poll());
+  }
+
+  @Test
+  public void connectionPool_remainingConnectionTakesOver() {
+    SocketAddress addr = mock(SocketAddress.class);
+    createInternalSubchannel(new ConnectionPoolPolicy(2, 1, Integer.MAX_VALUE), addr);
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo t0 = transports.poll();
+    t0.listener.transportReady();
+    assertExactCallbackInvokes("onStateChange:CONNECTING", "onStateChange:READY");
+    newStream(internalSubchannel.obtainActiveTransport());
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo t1 = transports.poll();
+    t1.listener.transportReady();
+
+    // Losing the first connection keeps the subchannel READY
+    t0.listener.transportShutdown(Status.UNAVAILABLE);
+    assertNoCallbackInvoke();
+    assertEquals(READY, internalSubchannel.getState());
+    newStream(internalSubchannel.obtainActiveTransport());
+    verify(t1.transport).newStream(
+        any(MethodDescriptor.class), any(Metadata.class), any(CallOptions.class));
+
+    t1.listener.transportShutdown(Status.UNAVAILABLE);
+    assertExactCallbackInvokes("onStateChange:IDLE");
+    t0.listener.transportTerminated();
+    t1.listener.transportTerminated();
+  }
+
+  @Test
+  public void connectionAttemptDelay_laterAddressWins() {
+    SocketAddress addr1 = mock(SocketAddress.class);
+    SocketAddress addr2 = mock(SocketAddress.class);
+    SocketAddress addr3 = mock(SocketAddress.class);
+    createInternalSubchannel(ConnectionPoolPolicy.SINGLE_CONNECTION, 250, addr1, addr2, addr3);
+    assertNull(internalSubchannel.obtainActiveTransport());
+    assertExactCallbackInvokes("onStateChange:CONNECTING");
+    MockClientTransportInfo t1 = transports.poll();
+    verify(mockTransportFactory).newClientTransport(addr1, AUTHORITY, USER_AGENT);
+
+    // The first address does not respond, so the second one is tried without giving up on it
+    fakeClock.forwardNanos(249);
+    verify(mockTransportFactory, never()).newClientTransport(addr2, AUTHORITY, USER_AGENT);
+    fakeClock.forwardNanos(1);
+    verify(mockTransportFactory).newClientTransport(addr2, AUTHORITY, USER_AGENT);
+    MockClientTransportInfo t2 = transports.poll();
+    assertEquals(CONNECTING, internalSubchannel.getState());
+
+    // The second address wins and the other attempts are abandoned
+    t2.listener.transportReady();
+    assertExactCallbackInvokes("onStateChange:READY");
+    assertSame(t2.transport, internalSubchannel.obtainActiveTransport());
+    verify(t1.transport).shutdown(any(Status.class));
+    fakeClock.forwardNanos(1000);
+    verify(mockTransportFactory, never()).newClientTransport(addr3, AUTHORITY, USER_AGENT);
+    t1.listener.transportShutdown(Status.UNAVAILABLE);
+    t1.listener.transportTerminated();
+    assertNoCallbackInvoke();
+    assertEquals(READY, internalSubchannel.getState());
+    verify(t2.transport, never()).shutdown(any(Status.class));
+  }
+
+  @Test
+  public void connectionAttemptDelay_earlierAddressWins() {
+    SocketAddress addr1 = mock(SocketAddress.class);
+    SocketAddress addr2 = mock(SocketAddress.class);
+    createInternalSubchannel(ConnectionPoolPolicy.SINGLE_CONNECTION, 250, addr1, addr2);
+    internalSubchannel.obtainActiveTransport();
+    assertExactCallbackInvokes("onStateChange:CONNECTING");
+    MockClientTransportInfo t1 = transports.poll();
+    fakeClock.forwardNanos(250);
+    MockClientTransportInfo t2 = transports.poll();
+    assertNotNull(t2);
+
+    t1.listener.transportReady();
+    assertExactCallbackInvokes("onStateChange:READY");
+    assertSame(t1.transport, internalSubchannel.obtainActiveTransport());
+    verify(t2.transport).shutdown(any(Status.class));
+    t2.listener.transportShutdown(Status.UNAVAILABLE);
+    assertEquals(READY, internalSubchannel.getState());
+
+    // Addresses are tried from the start again after disconnecting
+    t1.listener.transportShutdown(Status.UNAVAILABLE);
+    assertExactCallbackInvokes("onStateChange:IDLE");
+    internalSubchannel.obtainActiveTransport();
+    verify(mockTransportFactory, times(2)).newClientTransport(addr1, AUTHORITY, USER_AGENT);
+    fakeClock.forwardNanos(250);
+    verify(mockTransportFactory, times(2)).newClientTransport(addr2, AUTHORITY, USER_AGENT);
+  }
+
+  @Test
+  public void connectionAttemptDelay_failedAttemptStartsNextImmediately() {
+    SocketAddress addr1 = mock(SocketAddress.class);
+    SocketAddress addr2 = mock(SocketAddress.class);
+    createInternalSubchannel(ConnectionPoolPolicy.SINGLE_CONNECTION, 250, addr1, addr2);
+    internalSubchannel.obtainActiveTransport();
+    assertExactCallbackInvokes("onStateChange:CONNECTING");
+    transports.poll().listener.transportShutdown(Status.UNAVAILABLE);
+    verify(mockTransportFactory).newClientTransport(addr2, AUTHORITY, USER_AGENT);
+    // There is no further address to race with
+    assertEquals(0, fakeClock.numPendingTasks());
+  }
+
+  @Test
+  public void connectionAttemptDelay_backoffOnceAllAttemptsFail() {
+    SocketAddress addr1 = mock(SocketAddress.class);
+    SocketAddress addr2 = mock(SocketAddress.class);
+    createInternalSubchannel(ConnectionPoolPolicy.SINGLE_CONNECTION, 250, addr1, addr2);
+    internalSubchannel.obtainActiveTransport();
+    assertExactCallbackInvokes("onStateChange:CONNECTING");
+    MockClientTransportInfo t1 = transports.poll();
+    fakeClock.forwardNanos(250);
+    MockClientTransportInfo t2 = transports.poll();
+
+    // The earlier attempt may still succeed
+    t2.listener.transportShutdown(Status.UNAVAILABLE);
+    assertNoCallbackInvoke();
+    assertEquals(CONNECTING, internalSubchannel.getState());
+
+    t1.listener.transportShutdown(Status.UNAVAILABLE);
+    assertExactCallbackInvokes("onStateChange:" + UNAVAILABLE_STATE);
+    verify(mockBackoffPolicyProvider).get();
+    internalSubchannel.shutdown(SHUTDOWN_REASON);
+  }
+
+  @Test
+  public void connectionAttemptDelay_shutdownAbandonsAllAttempts() {
+    SocketAddress addr1 = mock(SocketAddress.class);
+    SocketAddress addr2 = mock(SocketAddress.class);
+    createInternalSubchannel(ConnectionPoolPolicy.SINGLE_CONNECTION, 250, addr1, addr2);
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo t1 = transports.poll();
+    fakeClock.forwardNanos(250);
+    MockClientTransportInfo t2 = transports.poll();
+
+    internalSubchannel.shutdown(SHUTDOWN_REASON);
+    verify(t1.transport).shutdown(same(SHUTDOWN_REASON));
+    verify(t2.transport).shutdown(same(SHUTDOWN_REASON));
+  }
+
+  @Test
+  public void maxConnectionAge_replacementTakesOverOnceReady() {
+    SocketAddress addr = mock(SocketAddress.class);
+    createInternalSubchannel(ConnectionPoolPolicy.SINGLE_CONNECTION, 0, 1000, addr);
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo t0 = transports.poll();
+    t0.listener.transportReady();
+    assertExactCallbackInvokes("onStateChange:CONNECTING", "onStateChange:READY");
+
+    fakeClock.forwardNanos(999);
+    verify(mockTransportFactory).newClientTransport(addr, AUTHORITY, USER_AGENT);
+    fakeClock.forwardNanos(1);
+    MockClientTransportInfo t1 = transports.poll();
+    assertNotNull(t1);
+
+    // The old connection keeps taking streams until the replacement is ready
+    assertSame(t0.transport, internalSubchannel.obtainActiveTransport());
+    t1.listener.transportReady();
+    assertSame(t1.transport, internalSubchannel.obtainActiveTransport());
+    verify(t0.transport).shutdown(any(Status.class));
+    t0.listener.transportShutdown(Status.UNAVAILABLE);
+    t0.listener.transportTerminated();
+    assertNoCallbackInvoke();
+    assertEquals(READY, internalSubchannel.getState());
+
+    // The replacement is replaced in turn
+    fakeClock.forwardNanos(1000);
+    assertNotNull(transports.poll());
+    internalSubchannel.shutdown(SHUTDOWN_REASON);
+  }
+
+  @Test
+  public void maxConnectionAge_goAwayBeforeReplacementIsReady() {
+    SocketAddress addr = mock(SocketAddress.class);
+    createInternalSubchannel(ConnectionPoolPolicy.SINGLE_CONNECTION, 0, 1000, addr);
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo t0 = transports.poll();
+    t0.listener.transportReady();
+    assertExactCallbackInvokes("onStateChange:CONNECTING", "onStateChange:READY");
+    fakeClock.forwardNanos(1000);
+    MockClientTransportInfo t1 = transports.poll();
+
+    // The pending replacement becomes the connection being established
+    t0.listener.transportShutdown(Status.UNAVAILABLE);
+    assertExactCallbackInvokes("onStateChange:CONNECTING");
+    verify(mockTransportFactory, times(2)).newClientTransport(addr, AUTHORITY, USER_AGENT);
+    t1.listener.transportReady();
+    assertExactCallbackInvokes("onStateChange:READY");
+    assertSame(t1.transport, internalSubchannel.obtainActiveTransport());
+    internalSubchannel.shutdown(SHUTDOWN_REASON);
+    t1.listener.transportShutdown(SHUTDOWN_REASON);
+  }
+
+  @Test
+  public void maxConnectionAge_goAwayReconnectsInBackground() {
+    SocketAddress addr = mock(SocketAddress.class);
+    createInternalSubchannel(ConnectionPoolPolicy.SINGLE_CONNECTION, 0, 1000, addr);
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo t0 = transports.poll();
+    t0.listener.transportReady();
+    assertExactCallbackInvokes("onStateChange:CONNECTING", "onStateChange:READY");
+
+    // The server closed the connection before its max age, so it reconnects without waiting for
+    // the next stream
+    fakeClock.forwardNanos(500);
+    t0.listener.transportShutdown(Status.UNAVAILABLE);
+    assertExactCallbackInvokes("onStateChange:CONNECTING");
+    verify(mockTransportFactory, times(2)).newClientTransport(addr, AUTHORITY, USER_AGENT);
+    t0.listener.transportTerminated();
+    MockClientTransportInfo t1 = transports.poll();
+    t1.listener.transportReady();
+    assertExactCallbackInvokes("onStateChange:READY");
+    assertSame(t1.transport, internalSubchannel.obtainActiveTransport());
+
+    internalSubchannel.shutdown(SHUTDOWN_REASON);
+    verify(t1.transport).shutdown(same(SHUTDOWN_REASON));
+    t1.listener.transportShutdown(SHUTDOWN_REASON);
+  }
+
+  @Test
+  public void maxConnectionAge_goAwaySoonAfterReadyGoesIdle() {
+    SocketAddress addr = mock(SocketAddress.class);
+    createInternalSubchannel(ConnectionPoolPolicy.SINGLE_CONNECTION, 0, 1000, addr);
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo t0 = transports.poll();
+    t0.listener.transportReady();
+    assertExactCallbackInvokes("onStateChange:CONNECTING", "onStateChange:READY");
+
+    // Closed before the first backoff of 10, so it reconnects when the next stream starts
+    fakeClock.forwardNanos(9);
+    t0.listener.transportShutdown(Status.UNAVAILABLE);
+    assertExactCallbackInvokes("onStateChange:IDLE");
+    verify(mockTransportFactory).newClientTransport(addr, AUTHORITY, USER_AGENT);
+    t0.listener.transportTerminated();
+
+    assertNull(internalSubchannel.obtainActiveTransport());
+    assertExactCallbackInvokes("onStateChange:CONNECTING");
+    MockClientTransportInfo t1 = transports.poll();
+    t1.listener.transportReady();
+    assertExactCallbackInvokes("onStateChange:READY");
+
+    // Closed before the second backoff of 100
+    fakeClock.forwardNanos(99);
+    t1.listener.transportShutdown(Status.UNAVAILABLE);
+    assertExactCallbackInvokes("onStateChange:IDLE");
+    t1.listener.transportTerminated();
+    verify(mockBackoffPolicyProvider).get();
+    verify(mockBackoffPolicy1, times(2)).nextBackoffNanos();
+
+    assertNull(internalSubchannel.obtainActiveTransport());
+    MockClientTransportInfo t2 = transports.poll();
+    t2.listener.transportReady();
+    assertExactCallbackInvokes("onStateChange:CONNECTING", "onStateChange:READY");
+
+    // Lasting as long as the backoff reconnects in the background, and resets the backoff
+    fakeClock.forwardNanos(100);
+    t2.listener.transportShutdown(Status.UNAVAILABLE);
+    assertExactCallbackInvokes("onStateChange:CONNECTING");
+    verify(mockTransportFactory, times(4)).newClientTransport(addr, AUTHORITY, USER_AGENT);
+    t2.listener.transportTerminated();
+    MockClientTransportInfo t3 = transports.poll();
+    t3.listener.transportReady();
+    fakeClock.forwardNanos(9);
+    t3.listener.transportShutdown(Status.UNAVAILABLE);
+    assertExactCallbackInvokes("onStateChange:READY", "onStateChange:IDLE");
+    verify(mockBackoffPolicyProvider, times(2)).get();
+    t3.listener.transportTerminated();
+    internalSubchannel.shutdown(SHUTDOWN_REASON);
+  }
+
+  @Test
+  public void maxConnectionAge_shutdownAbandonsReplacement() {
+    SocketAddress addr = mock(SocketAddress.class);
+    createInternalSubchannel(ConnectionPoolPolicy.SINGLE_CONNECTION, 0, 1000, addr);
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo t0 = transports.poll();
+    t0.listener.transportReady();
+    fakeClock.forwardNanos(1000);
+    MockClientTransportInfo t1 = transports.poll();
+
+    internalSubchannel.shutdown(SHUTDOWN_REASON);
+    verify(t0.transport).shutdown(same(SHUTDOWN_REASON));
+    verify(t1.transport).shutdown(same(SHUTDOWN_REASON));
+    t0.listener.transportShutdown(SHUTDOWN_REASON);
+    t1.listener.transportShutdown(SHUTDOWN_REASON);
+    assertEquals(0, fakeClock.numPendingTasks());
+  }
+
+  @Test
+  public void maxConnectionAge_replacesPooledConnection() {
+    SocketAddress addr = mock(SocketAddress.class);
+    createInternalSubchannel(new ConnectionPoolPolicy(2, 1, Integer.MAX_VALUE), 0, 1000, addr);
+    internalSubchannel.obtainActiveTransport();
+    MockClientTransportInfo t0 = transports.poll();
+    t0.listener.transportReady();
+    newStream(internalSubchannel.obtainActiveTransport());
+    internalSubchannel.obtainActiveTransport();
+    fakeClock.forwardNanos(500);
+    MockClientTransportInfo t1 = transports.poll();
+    t1.listener.transportReady();
+
+    // Only the first connection is old enough
+    fakeClock.forwardNanos(500);
+    MockClientTransportInfo t2 = transports.poll();
+    assertNull(transports.poll());
+    t2.listener.transportReady();
+    verify(t0.transport).shutdown(any(Status.class));
+    t0.listener.transportShutdown(Status.UNAVAILABLE);
+    verify(t1.transport, never()).shutdown(any(Status.class));
+    assertEquals(READY, internalSubchannel.getState());
+    internalSubchannel.shutdown(SHUTDOWN_REASON);
+    t1.listener.transportShutdown(SHUTDOWN_REASON);
+    t2.listener.transportShutdown(SHUTDOWN_REASON);
+  }
+
   private void createInternalSubchannel(SocketAddress ... addrs) {
+    createInternalSubchannel(ConnectionPoolPolicy.SINGLE_CONNECTION, addrs);
+  }
+
+  private void createInternalSubchannel(
+      ConnectionPoolPolicy connectionPoolPolicy, SocketAddress ... addrs) {
+    createInternalSubchannel(connectionPoolPolicy, 0, addrs);
+  }
+
+  private void createInternalSubchannel(ConnectionPoolPolicy connectionPoolPolicy,
+      long connectionAttemptDelayNanos, SocketAddress ... addrs) {
+    createInternalSubchannel(connectionPoolPolicy, connectionAttemptDelayNanos, 0, addrs);
+  }
+
+  private void createInternalSubchannel(ConnectionPoolPolicy connectionPoolPolicy,
+      long connectionAttemptDelayNanos, long maxConnectionAgeNanos, SocketAddress ... addrs) {
     addressGroup = new EquivalentAddressGroup(Arrays.asList(addrs));
     internalSubchannel = new InternalSubchannel(addressGroup, AUTHORITY, USER_AGENT,
         mockBackoffPolicyProvider, mockTransportFactory, fakeClock.getScheduledExecutorService(),
-        fakeClock.getStopwatchSupplier(), channelExecutor, mockInternalSubchannelCallback);
+        fakeClock.getStopwatchSupplier(), connectionPoolPolicy, connectionAttemptDelayNanos,
+        maxConnectionAgeNanos, channelExecutor, new CallTracer(), mockInternalSubchannelCallback);
+  }
+
+  /**
+   * Starts a stream on a pooled transport, returning the listener that reports when it closes.
+   */
+  private static ClientStreamListener newStream(ClientTransport transport) {
+    ClientStream stream = transport.newStream(METHOD, new Metadata(), CallOptions.DEFAULT);
+    stream.start(mock(ClientStreamListener.class));
+    // The pooled transport counts the stream until the listener it passes on is closed
+    ArgumentCaptor<ClientStreamListener> listenerCaptor =
+        ArgumentCaptor.forClass(ClientStreamListener.class);
+    verify(((ForwardingClientStream) stream).delegate(), atLeastOnce())
+        .start(listenerCaptor.capture());
+    return listenerCaptor.getValue();
   }
 
   private void assertNoCallbackInvoke() {
@@ -23,6 +23,7 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 import io.grpc.Status;
 import io.grpc.internal.KeepAliveManager.ClientKeepAlivePinger;
@@ -103,6 +104,35 @@ public final class KeepAliveManagerTest {
     assertEquals(1000, delay.longValue());
   }
 
+  @Test
+  public void dataReceivedDoesNotSchedule() {
+    keepAliveManager.onTransportActive();
+    verify(scheduler).schedule(isA(Runnable.class), isA(Long.class), isA(TimeUnit.class));
+
+    ticker.time = 1;
+    keepAliveManager.onDataReceived();
+    ticker.time = 2;
+    keepAliveManager.onDataReceived();
+    verifyNoMoreInteractions(scheduler);
+  }
+
+  @Test
+  public void keepAlivePingDelayedByDataInSameTick() {
+    keepAliveManager.onTransportActive();
+    ArgumentCaptor<Runnable> sendPingCaptor = ArgumentCaptor.forClass(Runnable.class);
+    verify(scheduler, times(1)).schedule(sendPingCaptor.capture(), isA(Long.class),
+        isA(TimeUnit.class));
+
+    // Data is received in the same tick the ping was scheduled. The ping is still delayed.
+    keepAliveManager.onDataReceived();
+    sendPingCaptor.getValue().run();
+    verify(keepAlivePinger, times(0)).ping();
+    ArgumentCaptor<Long> delayCaptor = ArgumentCaptor.forClass(Long.class);
+    verify(scheduler, times(2)).schedule(isA(Runnable.class), delayCaptor.capture(),
+        isA(TimeUnit.class));
+    assertEquals(1000, delayCaptor.getValue().longValue());
+  }
+
   @Test
   public void keepAlivePingDelayedByIncomingData() {
     ScheduledFuture<?> future = mock(ScheduledFuture.class);
@@ -30,6 +30,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.anyString;
@@ -48,6 +49,7 @@ import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.grpc.Attributes;
 import io.grpc.CallCredentials;
 import io.grpc.CallCredentials.MetadataApplier;
@@ -76,6 +78,7 @@ import io.grpc.Status;
 import io.grpc.StringMarshaller;
 import io.grpc.internal.ManagedChannelImpl.ManagedChannelReference;
 import io.grpc.internal.TestUtils.MockClientTransportInfo;
+import java.io.InputStream;
 import java.net.SocketAddress;
 import java.net.URI;
 import java.util.ArrayList;
@@ -84,6 +87,7 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -124,7 +128,9 @@ public class ManagedChannelImplTest {
           .build();
   private static final Attributes.Key<String> SUBCHANNEL_ATTR_KEY =
       Attributes.Key.of("subchannel-attr-key");
-  private static int unterminatedChannels;
+  // Kept reachable until orphanedChannelsAreLogged, so that a GC in the meantime does not let the
+  // channels created by other tests clean their references from the queue before it counts them
+  private static final List<ManagedChannel> unterminatedChannels = new ArrayList<ManagedChannel>();
   private final String serviceName = "fake.example.com";
   private final String authority = serviceName;
   private final String userAgent = "userAgent";
@@ -256,7 +262,7 @@ public class ManagedChannelImplTest {
         // termination, then it will never happen.  It would be very cumbersome to make all the
         // tests in this file clean up fully after themselves, so instead just keep track of how
         // many don't.  This is used to see how many should be ignored in the phantom cleanup.
-        unterminatedChannels++;
+        unterminatedChannels.add(channel);
       }
       channel = null;
     }
@@ -331,6 +337,8 @@ public class ManagedChannelImplTest {
         any(SocketAddress.class), any(String.class), any(String.class));
     MockClientTransportInfo transportInfo = transports.poll();
     ConnectionClientTransport mockTransport = transportInfo.transport;
+    // The subchannel counts its calls with the tracer of the transport
+    verify(mockTransport).getTransportTracer();
     verify(mockTransport).start(any(ManagedClientTransport.Listener.class));
     ManagedClientTransport.Listener transportListener = transportInfo.listener;
     when(mockTransport.newStream(same(method), same(headers), same(CallOptions.DEFAULT)))
@@ -798,6 +806,29 @@ public class ManagedChannelImplTest {
     timer.forwardTime(ManagedChannelImpl.SUBCHANNEL_SHUTDOWN_DELAY_SECONDS, TimeUnit.SECONDS);
   }
 
+  @Test
+  public void subchannelAsChannel() {
+    createChannel(new FakeNameResolverFactory(true), NO_INTERCEPTOR);
+    Subchannel sub = helper.createSubchannel(addressGroup, Attributes.EMPTY);
+    Channel subchannelChannel = sub.asChannel();
+    assertEquals(authority, subchannelChannel.authority());
+
+    // Calls fail immediately when the subchannel is not ready
+    ClientCall<String, Integer> call = subchannelChannel.newCall(method, CallOptions.DEFAULT);
+    call.start(mockCallListener, new Metadata());
+    executor.runDueTasks();
+    ArgumentCaptor<Status> statusCaptor = ArgumentCaptor.forClass(Status.class);
+    verify(mockCallListener).onClose(statusCaptor.capture(), any(Metadata.class));
+    assertEquals(Status.Code.UNAVAILABLE, statusCaptor.getValue().getCode());
+
+    sub.requestConnection();
+    MockClientTransportInfo transportInfo = transports.poll();
+    transportInfo.listener.transportReady();
+    Metadata headers = new Metadata();
+    subchannelChannel.newCall(method, CallOptions.DEFAULT).start(mockCallListener, headers);
+    verify(transportInfo.transport).newStream(same(method), same(headers), any(CallOptions.class));
+  }
+
   @Test
   public void subchannelsWhenChannelShutdownNow() {
     createChannel(new FakeNameResolverFactory(true), NO_INTERCEPTOR);
@@ -1288,6 +1319,87 @@ public class ManagedChannelImplTest {
     assertTrue(stateChanged.get());
   }
 
+  @Test
+  public void warmUp_completesWhenReady() {
+    createChannel(
+        new FakeNameResolverFactory(false), NO_INTERCEPTOR, false /* requestConnection */,
+        ManagedChannelImpl.IDLE_TIMEOUT_MILLIS_DISABLE);
+
+    ListenableFuture<Void> future = channel.warmUp();
+    ArgumentCaptor<Helper> helperCaptor = ArgumentCaptor.forClass(null);
+    verify(mockLoadBalancerFactory).newLoadBalancer(helperCaptor.capture());
+    helper = helperCaptor.getValue();
+
+    helper.updateBalancingState(CONNECTING, mockPicker);
+    executor.runDueTasks();
+    helper.updateBalancingState(TRANSIENT_FAILURE, mockPicker);
+    executor.runDueTasks();
+    assertFalse(future.isDone());
+
+    helper.updateBalancingState(READY, mockPicker);
+    executor.runDueTasks();
+    assertTrue(future.isDone());
+  }
+
+  @Test
+  public void warmUp_failsWhenShutdown() throws Exception {
+    createChannel(new FakeNameResolverFactory(false), NO_INTERCEPTOR);
+    helper.updateBalancingState(CONNECTING, mockPicker);
+
+    ListenableFuture<Void> future = channel.warmUp();
+    channel.shutdown();
+    executor.runDueTasks();
+    try {
+      future.get();
+      fail("Should throw");
+    } catch (ExecutionException e) {
+      assertEquals(Status.Code.UNAVAILABLE, Status.fromThrowable(e).getCode());
+    }
+  }
+
+  @Test
+  public void warmUp_makesCallOnceReady() throws Exception {
+    createChannel(new FakeNameResolverFactory(true), NO_INTERCEPTOR);
+    Subchannel subchannel = helper.createSubchannel(addressGroup, Attributes.EMPTY);
+    subchannel.requestConnection();
+    MockClientTransportInfo transportInfo = transports.poll();
+    ClientStream mockStream = mock(ClientStream.class);
+    when(transportInfo.transport.newStream(same(method), any(Metadata.class),
+        any(CallOptions.class))).thenReturn(mockStream);
+    transportInfo.listener.transportReady();
+    when(mockPicker.pickSubchannel(any(PickSubchannelArgs.class)))
+        .thenReturn(PickResult.withSubchannel(subchannel));
+
+    ListenableFuture<Integer> future = channel.warmUp(method, CallOptions.DEFAULT, "ping");
+    executor.runDueTasks();
+    verify(mockStream, never()).start(any(ClientStreamListener.class));
+
+    helper.updateBalancingState(READY, mockPicker);
+    executor.runDueTasks();
+    verify(mockStream).start(streamListenerCaptor.capture());
+    verify(mockStream).writeMessage(any(InputStream.class));
+    verify(mockStream).halfClose();
+
+    ClientStreamListener streamListener = streamListenerCaptor.getValue();
+    streamListener.headersRead(new Metadata());
+    final InputStream response = method.streamResponse(42);
+    streamListener.messagesAvailable(new StreamListener.MessageProducer() {
+      boolean produced;
+
+      @Override
+      public InputStream next() {
+        if (produced) {
+          return null;
+        }
+        produced = true;
+        return response;
+      }
+    });
+    streamListener.closed(Status.OK, new Metadata());
+    executor.runDueTasks();
+    assertEquals(Integer.valueOf(42), future.get());
+  }
+
   @Test
   public void channelStateWhenChannelShutdown() {
     final AtomicBoolean stateChanged = new AtomicBoolean();
@@ -1413,7 +1525,8 @@ public class ManagedChannelImplTest {
 
   @Test
   public void orphanedChannelsAreLogged() throws Exception {
-    int remaining = unterminatedChannels;
+    int remaining = unterminatedChannels.size();
+    unterminatedChannels.clear();
     for (int retry = 0; retry < 3; retry++) {
       System.gc();
       System.runFinalization();
@@ -17,23 +17,29 @@
 package io.grpc.internal;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
 
 import io.grpc.Codec;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import io.grpc.StreamTracer;
 import io.grpc.internal.testing.TestStreamTracer.TestBaseStreamTracer;
+import io.grpc.util.ByteBufferMarshaller;
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Arrays;
+import java.util.Random;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -269,6 +275,47 @@ public class MessageFramerTest {
     checkStats(length, 1000);
   }
 
+  @Test
+  public void compressionPolicySkipsSmallMessage() throws Exception {
+    framer = new MessageFramer(sink, allocator, statsTraceCtx)
+        .setCompressor(new Codec.Gzip())
+        .setCompressionPolicy(new AdaptiveCompressionPolicy(100, 0.9).forMethod("service/method"));
+    writeKnownLength(framer, new byte[]{3, 14});
+    framer.flush();
+    verify(sink).deliverFrame(toWriteBuffer(new byte[] {0, 0, 0, 0, 2, 3, 14}), false, true);
+    verifyNoMoreInteractions(sink);
+
+    assertEquals("outboundMessage(0)", tracer.nextOutboundEvent());
+    assertEquals("outboundMessage()", tracer.nextOutboundEvent());
+    assertEquals("outboundMessageCompressionSkipped(0)", tracer.nextOutboundEvent());
+    assertEquals("outboundMessageSent(0, 2, 2)", tracer.nextOutboundEvent());
+    assertNull(tracer.nextOutboundEvent());
+  }
+
+  @Test
+  public void compressionPolicySkipsIncompressibleMessages() throws Exception {
+    allocator = new BytesWritableBufferAllocator(100, Integer.MAX_VALUE);
+    AdaptiveCompressionPolicy.MethodPolicy policy =
+        new AdaptiveCompressionPolicy(100, 0.9).forMethod("service/method");
+    framer = new MessageFramer(sink, allocator, statsTraceCtx)
+        .setCompressor(new Codec.Gzip())
+        .setCompressionPolicy(policy);
+    byte[] incompressible = new byte[1000];
+    new Random(1).nextBytes(incompressible);
+    writeKnownLength(framer, incompressible);
+    framer.flush();
+    // The first message is compressed, revealing that it doesn't compress well.
+    verify(sink, atLeastOnce()).deliverFrame(frameCaptor.capture(), eq(false), eq(false));
+    assertEquals(0x1, frameCaptor.getAllValues().get(0).data[0]);
+    assertFalse(policy.isCompressionEnabled());
+
+    writeKnownLength(framer, incompressible);
+    framer.flush();
+    verify(sink, times(2)).deliverFrame(frameCaptor.capture(), eq(false), eq(true));
+    assertEquals(0x0, frameCaptor.getValue().data[0]);
+    assertEquals(1005, frameCaptor.getValue().size());
+  }
+
   @Test
   public void dontCompressIfNoEncoding() throws Exception {
     allocator = new BytesWritableBufferAllocator(100, Integer.MAX_VALUE);
@@ -349,6 +396,74 @@ public class MessageFramerTest {
     checkStats(0, 0);
   }
 
+  @Test
+  public void byteBufferDrainableIsWrapped() {
+    ZeroCopyBytesWritableBufferAllocator zeroCopyAllocator =
+        new ZeroCopyBytesWritableBufferAllocator(1000, 1000);
+    framer = new MessageFramer(sink, zeroCopyAllocator, statsTraceCtx);
+    byte[] payload = new byte[5000];
+    Arrays.fill(payload, (byte) 7);
+    framer.writePayload(ByteBufferMarshaller.instance().stream(ByteBuffer.wrap(payload)));
+    verify(sink).deliverFrame(toWriteBuffer(new byte[] {0, 0, 0, 0x13, (byte) 0x88}), false, false);
+    verifyNoMoreInteractions(sink);
+    framer.flush();
+    verify(sink).deliverFrame(toWriteBuffer(payload), false, true);
+    verifyNoMoreInteractions(sink);
+    assertEquals(1, zeroCopyAllocator.allocCount);
+    assertEquals(1, zeroCopyAllocator.wrapCount);
+    checkStats(5000, 5000);
+  }
+
+  @Test
+  public void writeAfterWrappedByteBufferDrainableAllocatesNewBuffer() {
+    ZeroCopyBytesWritableBufferAllocator zeroCopyAllocator =
+        new ZeroCopyBytesWritableBufferAllocator(1000, 1000);
+    framer = new MessageFramer(sink, zeroCopyAllocator, statsTraceCtx);
+    byte[] payload = new byte[5000];
+    framer.writePayload(ByteBufferMarshaller.instance().stream(ByteBuffer.wrap(payload)));
+    writeKnownLength(framer, new byte[]{3, 14});
+    framer.close();
+    verify(sink).deliverFrame(toWriteBuffer(new byte[] {0, 0, 0, 0x13, (byte) 0x88}), false, false);
+    verify(sink).deliverFrame(toWriteBuffer(payload), false, false);
+    verify(sink).deliverFrame(toWriteBuffer(new byte[] {0, 0, 0, 0, 2, 3, 14}), true, true);
+    verifyNoMoreInteractions(sink);
+    assertEquals(2, zeroCopyAllocator.allocCount);
+    assertEquals(1, zeroCopyAllocator.wrapCount);
+    checkStats(5000, 5000, 2, 2);
+  }
+
+  @Test
+  public void smallByteBufferDrainableIsCopied() {
+    ZeroCopyBytesWritableBufferAllocator zeroCopyAllocator =
+        new ZeroCopyBytesWritableBufferAllocator(1000, 1000);
+    framer = new MessageFramer(sink, zeroCopyAllocator, statsTraceCtx);
+    framer.writePayload(
+        ByteBufferMarshaller.instance().stream(ByteBuffer.wrap(new byte[] {3, 14})));
+    framer.flush();
+    verify(sink).deliverFrame(toWriteBuffer(new byte[] {0, 0, 0, 0, 2, 3, 14}), false, true);
+    verifyNoMoreInteractions(sink);
+    assertEquals(1, zeroCopyAllocator.allocCount);
+    assertEquals(0, zeroCopyAllocator.wrapCount);
+    checkStats(2, 2);
+  }
+
+  @Test
+  public void wrappedByteBufferDrainableTooLarge() {
+    ZeroCopyBytesWritableBufferAllocator zeroCopyAllocator =
+        new ZeroCopyBytesWritableBufferAllocator(1000, 1000);
+    framer = new MessageFramer(sink, zeroCopyAllocator, statsTraceCtx);
+    framer.setMaxOutboundMessageSize(4999);
+    try {
+      framer.writePayload(ByteBufferMarshaller.instance().stream(ByteBuffer.allocate(5000)));
+      fail("Exception expected");
+    } catch (StatusRuntimeException e) {
+      // The framer reports the size violation as the cause of an INTERNAL error.
+      assertEquals(Status.Code.RESOURCE_EXHAUSTED,
+          ((StatusRuntimeException) e.getCause()).getStatus().getCode());
+    }
+    assertEquals(0, zeroCopyAllocator.wrapCount);
+  }
+
   private static WritableBuffer toWriteBuffer(byte[] data) {
     return toWriteBufferWithMinSize(data, 0);
   }
@@ -464,4 +579,22 @@ public class MessageFramerTest {
       return new ByteWritableBuffer(Math.min(maxSize, Math.max(capacityHint, minSize)));
     }
   }
+
+  static class ZeroCopyBytesWritableBufferAllocator extends BytesWritableBufferAllocator
+      implements ZeroCopyWritableBufferAllocator {
+    public int wrapCount = 0;
+
+    ZeroCopyBytesWritableBufferAllocator(int minSize, int maxSize) {
+      super(minSize, maxSize);
+    }
+
+    @Override
+    public WritableBuffer wrap(ByteBuffer src) {
+      wrapCount++;
+      ByteWritableBuffer buffer = new ByteWritableBuffer(src.remaining());
+      src.duplicate().get(buffer.data);
+      buffer.writeIdx = buffer.data.length;
+      return buffer;
+    }
+  }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.grpc.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.grpc.ByteBufferDrainable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link ByteBufferMarshaller}.
+ */
+@RunWith(JUnit4.class)
+public class ByteBufferMarshallerTest {
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final ByteBufferMarshaller marshaller = ByteBufferMarshaller.instance();
+
+  @Test
+  public void drainToByteBuffer_doesNotMoveSourceBuffer() throws Exception {
+    ByteBuffer value = ByteBuffer.wrap(new byte[] {1, 2, 3, 4});
+    value.position(1);
+    InputStream stream = marshaller.stream(value);
+    assertTrue(stream instanceof ByteBufferDrainable);
+
+    ByteBuffer drained = ((ByteBufferDrainable) stream).drainToByteBuffer();
+    assertEquals(ByteBuffer.wrap(new byte[] {2, 3, 4}), drained);
+    assertEquals(1, value.position());
+    assertEquals(0, ((ByteBufferDrainable) stream).available());
+  }
+
+  @Test
+  public void drainTo_heapBuffer() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    int drained = ((ByteBufferDrainable) marshaller.stream(ByteBuffer.wrap(new byte[] {5, 6})))
+        .drainTo(out);
+    assertEquals(2, drained);
+    assertArrayEquals(new byte[] {5, 6}, out.toByteArray());
+  }
+
+  @Test
+  public void drainTo_directBuffer() throws Exception {
+    byte[] bytes = new byte[40000];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) i;
+    }
+    ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+    direct.put(bytes).flip();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    int drained = ((ByteBufferDrainable) marshaller.stream(direct)).drainTo(out);
+    assertEquals(bytes.length, drained);
+    assertArrayEquals(bytes, out.toByteArray());
+    assertEquals(0, direct.position());
+  }
+
+  @Test
+  public void streamAndParse() throws Exception {
+    ByteBuffer value = ByteBuffer.wrap(new byte[] {9, 8, 7});
+    assertEquals(value, marshaller.parse(marshaller.stream(value)));
+    // Streams that don't know their length are read fully.
+    assertEquals(value, marshaller.parse(new ByteArrayInputStream(new byte[] {9, 8, 7})));
+  }
+
+  @Test
+  public void mapFileRegion() throws Exception {
+    File file = tempFolder.newFile();
+    FileOutputStream fos = new FileOutputStream(file);
+    try {
+      fos.write(new byte[] {1, 2, 3, 4, 5});
+    } finally {
+      fos.close();
+    }
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    ByteBuffer region;
+    try {
+      FileChannel channel = raf.getChannel();
+      region = ByteBufferMarshaller.mapFileRegion(channel, 1, 3);
+    } finally {
+      raf.close();
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ((ByteBufferDrainable) marshaller.stream(region)).drainTo(out);
+    assertArrayEquals(new byte[] {2, 3, 4}, out.toByteArray());
+  }
+}
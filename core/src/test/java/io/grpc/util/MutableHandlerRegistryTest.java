@@ -17,6 +17,7 @@
 package io.grpc.util;
 
 import static com.google.common.collect.Iterables.getOnlyElement;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -31,6 +32,9 @@ import io.grpc.ServerCallHandler;
 import io.grpc.ServerMethodDefinition;
 import io.grpc.ServerServiceDefinition;
 import io.grpc.ServiceDescriptor;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -229,4 +233,15 @@ public class MutableHandlerRegistryTest {
         registry.addService(ServerServiceDefinition.builder(
             new ServiceDescriptor("basic")).build()));
   }
+
+  @Test
+  public void getServicesIsSnapshot() {
+    assertNull(registry.addService(basicServiceDefinition));
+    List<ServerServiceDefinition> services = registry.getServices();
+    assertNull(registry.addService(multiServiceDefinition));
+
+    assertEquals(Collections.singletonList(basicServiceDefinition), services);
+    assertEquals(Arrays.asList(basicServiceDefinition, multiServiceDefinition),
+        registry.getServices());
+  }
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Range;
+import io.grpc.Attributes;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer;
+import io.grpc.LoadBalancer.Helper;
+import io.grpc.LoadBalancer.Subchannel;
+import io.grpc.Status;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/** Unit test for {@link SubsettingLoadBalancerFactory}. */
+@RunWith(JUnit4.class)
+public class SubsettingLoadBalancerTest {
+  private static final int SUBSET_SIZE = 10;
+  private static final long SEED = 42;
+
+  private final List<EquivalentAddressGroup> servers = new ArrayList<EquivalentAddressGroup>();
+
+  @Mock
+  private LoadBalancer.Factory mockDelegateFactory;
+  @Mock
+  private LoadBalancer mockDelegate;
+  @Mock
+  private Helper mockHelper;
+  @Captor
+  private ArgumentCaptor<List<EquivalentAddressGroup>> serversCaptor;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    when(mockDelegateFactory.newLoadBalancer(mockHelper)).thenReturn(mockDelegate);
+    for (int i = 0; i < 100; i++) {
+      servers.add(server(i));
+    }
+  }
+
+  @Test
+  public void forwardsToDelegate() {
+    LoadBalancer loadBalancer = SubsettingLoadBalancerFactory
+        .newInstance(mockDelegateFactory, SUBSET_SIZE, 0, SEED)
+        .newLoadBalancer(mockHelper);
+    Attributes attrs = Attributes.newBuilder().build();
+    loadBalancer.handleResolvedAddressGroups(servers, attrs);
+    verify(mockDelegate).handleResolvedAddressGroups(serversCaptor.capture(), same(attrs));
+    assertEquals(SUBSET_SIZE, serversCaptor.getValue().size());
+    assertThat(servers).containsAllIn(serversCaptor.getValue());
+
+    Status error = Status.UNAVAILABLE.withDescription("resolution failed");
+    loadBalancer.handleNameResolutionError(error);
+    verify(mockDelegate).handleNameResolutionError(error);
+
+    Subchannel subchannel = mock(Subchannel.class);
+    ConnectivityStateInfo stateInfo = ConnectivityStateInfo.forTransientFailure(error);
+    loadBalancer.handleSubchannelState(subchannel, stateInfo);
+    verify(mockDelegate).handleSubchannelState(subchannel, stateInfo);
+
+    loadBalancer.shutdown();
+    verify(mockDelegate).shutdown();
+  }
+
+  @Test
+  public void fewerServersThanSubsetSize() {
+    List<EquivalentAddressGroup> fewServers = servers.subList(0, SUBSET_SIZE);
+    assertSame(fewServers, SubsettingLoadBalancerFactory.subset(fewServers, SUBSET_SIZE, 3, SEED));
+  }
+
+  @Test
+  public void subsetDoesNotDependOnResolvedOrder() {
+    List<EquivalentAddressGroup> subset =
+        SubsettingLoadBalancerFactory.subset(servers, SUBSET_SIZE, 3, SEED);
+    assertEquals(SUBSET_SIZE, subset.size());
+    int lastIndex = -1;
+    for (EquivalentAddressGroup server : subset) {
+      assertThat(servers.indexOf(server)).isGreaterThan(lastIndex);
+      lastIndex = servers.indexOf(server);
+    }
+
+    List<EquivalentAddressGroup> shuffled = new ArrayList<EquivalentAddressGroup>(servers);
+    Collections.shuffle(shuffled, new Random(1));
+    assertEquals(new HashSet<EquivalentAddressGroup>(subset),
+        new HashSet<EquivalentAddressGroup>(
+            SubsettingLoadBalancerFactory.subset(shuffled, SUBSET_SIZE, 3, SEED)));
+  }
+
+  @Test
+  public void subsetIgnoresAttributes() {
+    List<EquivalentAddressGroup> withAttrs = new ArrayList<EquivalentAddressGroup>();
+    Attributes.Key<String> key = Attributes.Key.of("key");
+    for (EquivalentAddressGroup server : servers) {
+      withAttrs.add(new EquivalentAddressGroup(server.getAddresses(),
+          Attributes.newBuilder().set(key, "value").build()));
+    }
+    List<EquivalentAddressGroup> subset =
+        SubsettingLoadBalancerFactory.subset(servers, SUBSET_SIZE, 3, SEED);
+    List<EquivalentAddressGroup> subsetWithAttrs =
+        SubsettingLoadBalancerFactory.subset(withAttrs, SUBSET_SIZE, 3, SEED);
+    for (int i = 0; i < SUBSET_SIZE; i++) {
+      assertEquals(subset.get(i).getAddresses(), subsetWithAttrs.get(i).getAddresses());
+    }
+  }
+
+  @Test
+  public void clientsOfARoundUseDisjointSubsets() {
+    // 100 servers make rounds of 10 clients
+    Set<EquivalentAddressGroup> round = new HashSet<EquivalentAddressGroup>();
+    for (int client = 10; client < 20; client++) {
+      round.addAll(SubsettingLoadBalancerFactory.subset(servers, SUBSET_SIZE, client, SEED));
+    }
+    assertEquals(new HashSet<EquivalentAddressGroup>(servers), round);
+
+    assertNotEquals(
+        SubsettingLoadBalancerFactory.subset(servers, SUBSET_SIZE, 0, SEED),
+        SubsettingLoadBalancerFactory.subset(servers, SUBSET_SIZE, 10, SEED));
+    assertNotEquals(
+        SubsettingLoadBalancerFactory.subset(servers, SUBSET_SIZE, 0, SEED),
+        SubsettingLoadBalancerFactory.subset(servers, SUBSET_SIZE, 0, SEED + 1));
+  }
+
+  @Test
+  public void fleetOfWholeRoundsIsSpreadEvenly() {
+    int[] connections = connectionsPerServer(servers, 1000);
+    for (int count : connections) {
+      assertEquals(100, count);
+    }
+  }
+
+  @Test
+  public void fleetOfPartialRoundsIsSpreadOverServers() {
+    // 105 servers make rounds of 10 clients that leave 5 servers out, i.e. 95.2 connections per
+    // server on average
+    List<EquivalentAddressGroup> moreServers = new ArrayList<EquivalentAddressGroup>(servers);
+    for (int i = 100; i < 105; i++) {
+      moreServers.add(server(i));
+    }
+    int[] connections = connectionsPerServer(moreServers, 1000);
+    for (int count : connections) {
+      assertThat(count).isIn(Range.closed(85, 100));
+    }
+  }
+
+  private int[] connectionsPerServer(List<EquivalentAddressGroup> servers, int clients) {
+    int[] connections = new int[servers.size()];
+    for (int client = 0; client < clients; client++) {
+      LoadBalancer loadBalancer = SubsettingLoadBalancerFactory
+          .newInstance(mockDelegateFactory, SUBSET_SIZE, client, SEED)
+          .newLoadBalancer(mockHelper);
+      loadBalancer.handleResolvedAddressGroups(servers, Attributes.EMPTY);
+      verify(mockDelegate).handleResolvedAddressGroups(serversCaptor.capture(),
+          same(Attributes.EMPTY));
+      reset(mockDelegate);
+      for (EquivalentAddressGroup server : serversCaptor.getValue()) {
+        connections[servers.indexOf(server)]++;
+      }
+    }
+    return connections;
+  }
+
+  private static EquivalentAddressGroup server(int i) {
+    return new EquivalentAddressGroup(InetSocketAddress.createUnresolved("server" + i, 443));
+  }
+}
@@ -18,6 +18,10 @@ package io.grpc.util;
 
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import io.grpc.Metadata;
 import io.grpc.MethodDescriptor;
@@ -29,9 +33,16 @@ import io.grpc.ServerServiceDefinition;
 import io.grpc.ServiceDescriptor;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import io.grpc.internal.FakeClock;
 import io.grpc.internal.NoopServerCall;
 import io.grpc.testing.TestMethodDescriptors;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -114,6 +125,72 @@ public class UtilServerInterceptorsTest {
     assertEquals(5, call.numCloses);
   }
 
+  @Test
+  public void loadReportingInterceptor() {
+    OperatingSystemMXBean osBean = mock(OperatingSystemMXBean.class);
+    when(osBean.getAvailableProcessors()).thenReturn(4);
+    when(osBean.getSystemLoadAverage()).thenReturn(1.0);
+    FakeClock fakeClock = new FakeClock();
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+    executor.getQueue().add(mock(Runnable.class));
+    LoadReportingServerInterceptor interceptor =
+        new LoadReportingServerInterceptor(executor, osBean, fakeClock.getTicker());
+    final List<ServerCall<String, Integer>> wrappedCalls =
+        new ArrayList<ServerCall<String, Integer>>();
+    ServerCallHandler<String, Integer> capturingHandler = new ServerCallHandler<String, Integer>() {
+      @Override
+      public ServerCall.Listener<String> startCall(
+          ServerCall<String, Integer> call, Metadata headers) {
+        wrappedCalls.add(call);
+        return new ServerCall.Listener<String>() {};
+      }
+    };
+    ReportCapturingServerCall<String, Integer> first =
+        new ReportCapturingServerCall<String, Integer>();
+    ReportCapturingServerCall<String, Integer> second =
+        new ReportCapturingServerCall<String, Integer>();
+    ServerCall.Listener<String> firstListener =
+        interceptor.interceptCall(first, headers, capturingHandler);
+    interceptor.interceptCall(second, headers, capturingHandler);
+
+    wrappedCalls.get(0).close(Status.OK, new Metadata());
+    firstListener.onComplete();
+    assertEquals(0.25, first.report.getCpuUtilization(), 1e-9);
+    assertEquals(1, first.report.getQueueDepth());
+    assertEquals(2, first.report.getInFlightCalls());
+
+    // The load average is cached for a second
+    when(osBean.getSystemLoadAverage()).thenReturn(8.0);
+    wrappedCalls.get(1).close(Status.CANCELLED, new Metadata());
+    assertEquals(0.25, second.report.getCpuUtilization(), 1e-9);
+    assertEquals(1, second.report.getInFlightCalls());
+    fakeClock.forwardTime(1, TimeUnit.SECONDS);
+    assertEquals(1, interceptor.currentLoad().getCpuUtilization(), 1e-9);
+    verify(osBean, times(2)).getSystemLoadAverage();
+    executor.shutdown();
+  }
+
+  @Test
+  public void loadReportRoundTrip() {
+    Metadata trailers = new Metadata();
+    trailers.put(LoadReport.TRAILER_KEY, LoadReport.create(0.1234, 5, 67));
+    LoadReport parsed = trailers.get(LoadReport.TRAILER_KEY);
+    assertEquals(0.1234, parsed.getCpuUtilization(), 1e-9);
+    assertEquals(5, parsed.getQueueDepth());
+    assertEquals(67, parsed.getInFlightCalls());
+  }
+
+  private static class ReportCapturingServerCall<ReqT, RespT>
+      extends NoopServerCall<ReqT, RespT> {
+    LoadReport report;
+
+    @Override
+    public void close(Status status, Metadata trailers) {
+      report = trailers.get(LoadReport.TRAILER_KEY);
+    }
+  }
+
   private static class FakeServerCall<ReqT, RespT> extends NoopServerCall<ReqT, RespT> {
     final Status expectedStatus;
     final Metadata expectedMetadata;
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static io.grpc.ConnectivityState.CONNECTING;
+import static io.grpc.ConnectivityState.READY;
+import static io.grpc.ConnectivityState.TRANSIENT_FAILURE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer.Helper;
+import io.grpc.LoadBalancer.PickResult;
+import io.grpc.LoadBalancer.PickSubchannelArgs;
+import io.grpc.LoadBalancer.Subchannel;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.util.WeightedRoundRobinLoadBalancerFactory.Picker;
+import io.grpc.util.WeightedRoundRobinLoadBalancerFactory.WeightedRoundRobinLoadBalancer;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/** Unit test for {@link WeightedRoundRobinLoadBalancerFactory}. */
+@RunWith(JUnit4.class)
+public class WeightedRoundRobinLoadBalancerTest {
+  private final Map<SocketAddress, Subchannel> subchannels =
+      new HashMap<SocketAddress, Subchannel>();
+  private WeightedRoundRobinLoadBalancer loadBalancer;
+
+  @Captor
+  private ArgumentCaptor<Picker> pickerCaptor;
+  @Mock
+  private Helper mockHelper;
+  @Mock
+  private PickSubchannelArgs mockArgs;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    when(mockHelper.createSubchannel(any(EquivalentAddressGroup.class), any(Attributes.class)))
+        .then(new Answer<Subchannel>() {
+          @Override
+          public Subchannel answer(InvocationOnMock invocation) throws Throwable {
+            Object[] args = invocation.getArguments();
+            Subchannel subchannel = mock(Subchannel.class);
+            when(subchannel.getAttributes()).thenReturn((Attributes) args[1]);
+            subchannels.put(((EquivalentAddressGroup) args[0]).getAddresses().get(0), subchannel);
+            return subchannel;
+          }
+        });
+    loadBalancer = (WeightedRoundRobinLoadBalancer)
+        WeightedRoundRobinLoadBalancerFactory.getInstance().newLoadBalancer(mockHelper);
+  }
+
+  @Test
+  public void roundRobinWithoutReports() {
+    loadBalancer.handleResolvedAddressGroups(servers(3), Attributes.EMPTY);
+    assertEquals(3, subchannels.size());
+    for (Subchannel subchannel : subchannels.values()) {
+      verify(subchannel).requestConnection();
+    }
+    verify(mockHelper).updateBalancingState(eq(CONNECTING), any(Picker.class));
+
+    Picker picker = makeAllReady();
+    assertThat(picker.getList()).hasSize(3);
+    List<Subchannel> picked = new ArrayList<Subchannel>();
+    for (int i = 0; i < 6; i++) {
+      picked.add(picker.pickSubchannel(mockArgs).getSubchannel());
+    }
+    assertThat(picked.subList(0, 3)).containsExactlyElementsIn(subchannels.values());
+    assertEquals(picked.subList(0, 3), picked.subList(3, 6));
+  }
+
+  @Test
+  public void smoothlyInterleavesByReportedWeight() {
+    loadBalancer.handleResolvedAddressGroups(servers(2), Attributes.EMPTY);
+    Picker picker = makeAllReady();
+    Subchannel idle = picker.getList().get(0);
+    Subchannel busy = picker.getList().get(1);
+    report(idle, LoadReport.create(0.25, 0, 10));
+    report(busy, LoadReport.create(0.75, 0, 10));
+
+    // Weights 0.75 and 0.25: the busy server gets one call in four, never two in a row
+    List<Subchannel> picked = new ArrayList<Subchannel>();
+    for (int i = 0; i < 8; i++) {
+      picked.add(picker.pickSubchannel(mockArgs).getSubchannel());
+    }
+    assertThat(picked).containsExactly(
+        idle, idle, busy, idle, idle, idle, busy, idle).inOrder();
+  }
+
+  @Test
+  public void unreportedSubchannelsGetAverageWeight() {
+    loadBalancer.handleResolvedAddressGroups(servers(3), Attributes.EMPTY);
+    Picker picker = makeAllReady();
+    report(picker.getList().get(0), LoadReport.create(0.5, 0, 1));
+    report(picker.getList().get(1), LoadReport.create(0.5, 0, 1));
+
+    Map<Subchannel, Integer> counts = pick(picker, 300);
+    for (Subchannel subchannel : picker.getList()) {
+      assertEquals(100, (int) counts.get(subchannel));
+    }
+  }
+
+  @Test
+  public void queueDepthAndMinIdleFraction() {
+    assertEquals(0.25, WeightedRoundRobinLoadBalancerFactory.weight(
+        LoadReport.create(0.5, 1, 0)), 1e-9);
+    assertEquals(WeightedRoundRobinLoadBalancerFactory.MIN_IDLE_FRACTION,
+        WeightedRoundRobinLoadBalancerFactory.weight(LoadReport.create(1, 0, 0)), 1e-9);
+  }
+
+  @Test
+  public void ignoresMalformedReport() {
+    loadBalancer.handleResolvedAddressGroups(servers(1), Attributes.EMPTY);
+    Picker picker = makeAllReady();
+    PickResult result = picker.pickSubchannel(mockArgs);
+    Metadata trailers = new Metadata();
+    trailers.put(Metadata.Key.of(LoadReport.TRAILER_KEY.name(), Metadata.BINARY_BYTE_MARSHALLER),
+        new byte[] {1, 2});
+    result.getStreamTracerFactory().newClientStreamTracer(CallOptions.DEFAULT, new Metadata())
+        .inboundTrailers(trailers);
+
+    assertNull(picker.getList().get(0).getAttributes()
+        .get(WeightedRoundRobinLoadBalancer.LOAD_TRACKER).getLatestReport());
+  }
+
+  @Test
+  public void nameResolutionErrorWithNoSubchannels() {
+    Status error = Status.NOT_FOUND.withDescription("nameResolutionError");
+    loadBalancer.handleNameResolutionError(error);
+    verify(mockHelper).updateBalancingState(eq(TRANSIENT_FAILURE), pickerCaptor.capture());
+    PickResult pickResult = pickerCaptor.getValue().pickSubchannel(mockArgs);
+    assertNull(pickResult.getSubchannel());
+    assertSame(error, pickResult.getStatus());
+  }
+
+  @Test
+  public void removedServersAreShutDown() {
+    loadBalancer.handleResolvedAddressGroups(servers(2), Attributes.EMPTY);
+    Subchannel removed = subchannels.get(address(1));
+    loadBalancer.handleResolvedAddressGroups(servers(1), Attributes.EMPTY);
+    verify(removed).shutdown();
+
+    Picker picker = makeAllReady();
+    assertThat(picker.getList()).containsExactly(subchannels.get(address(0)));
+  }
+
+  private Picker makeAllReady() {
+    for (Subchannel subchannel : new ArrayList<Subchannel>(subchannels.values())) {
+      loadBalancer.handleSubchannelState(subchannel, ConnectivityStateInfo.forNonError(READY));
+    }
+    verify(mockHelper, atLeastOnce())
+        .updateBalancingState(any(ConnectivityState.class), pickerCaptor.capture());
+    return pickerCaptor.getValue();
+  }
+
+  /**
+   * Completes a call on {@code subchannel} whose trailers carry {@code report}.
+   */
+  private void report(Subchannel subchannel, LoadReport report) {
+    Metadata trailers = new Metadata();
+    trailers.put(LoadReport.TRAILER_KEY, report);
+    subchannel.getAttributes().get(WeightedRoundRobinLoadBalancer.LOAD_TRACKER)
+        .newClientStreamTracer(CallOptions.DEFAULT, new Metadata())
+        .inboundTrailers(trailers);
+  }
+
+  private Map<Subchannel, Integer> pick(Picker picker, int calls) {
+    Map<Subchannel, Integer> counts = new HashMap<Subchannel, Integer>();
+    for (int i = 0; i < calls; i++) {
+      Subchannel subchannel = picker.pickSubchannel(mockArgs).getSubchannel();
+      Integer count = counts.get(subchannel);
+      counts.put(subchannel, count == null ? 1 : count + 1);
+    }
+    return counts;
+  }
+
+  private static List<EquivalentAddressGroup> servers(int count) {
+    List<EquivalentAddressGroup> servers = new ArrayList<EquivalentAddressGroup>();
+    for (int i = 0; i < count; i++) {
+      servers.add(new EquivalentAddressGroup(address(i)));
+    }
+    return servers;
+  }
+
+  private static SocketAddress address(int i) {
+    return InetSocketAddress.createUnresolved("server" + i, 443);
+  }
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static io.grpc.ConnectivityState.CONNECTING;
+import static io.grpc.ConnectivityState.READY;
+import static io.grpc.ConnectivityState.TRANSIENT_FAILURE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer.Helper;
+import io.grpc.LoadBalancer.PickResult;
+import io.grpc.LoadBalancer.PickSubchannelArgs;
+import io.grpc.LoadBalancer.Subchannel;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.internal.FileNameResolverProvider;
+import io.grpc.util.ZoneAwareLoadBalancerFactory.Picker;
+import io.grpc.util.ZoneAwareLoadBalancerFactory.ZoneAwareLoadBalancer;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/** Unit test for {@link ZoneAwareLoadBalancerFactory}. */
+@RunWith(JUnit4.class)
+public class ZoneAwareLoadBalancerTest {
+  private static final String LOCAL_ZONE = "us-east1-a";
+
+  private final Map<SocketAddress, Subchannel> subchannels =
+      new HashMap<SocketAddress, Subchannel>();
+  private final FakeRandom random = new FakeRandom();
+  private ZoneAwareLoadBalancer loadBalancer;
+
+  @Captor
+  private ArgumentCaptor<Picker> pickerCaptor;
+  @Mock
+  private Helper mockHelper;
+  @Mock
+  private PickSubchannelArgs mockArgs;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    when(mockHelper.createSubchannel(any(EquivalentAddressGroup.class), any(Attributes.class)))
+        .then(new Answer<Subchannel>() {
+          @Override
+          public Subchannel answer(InvocationOnMock invocation) throws Throwable {
+            Object[] args = invocation.getArguments();
+            Subchannel subchannel = mock(Subchannel.class);
+            when(subchannel.getAttributes()).thenReturn((Attributes) args[1]);
+            subchannels.put(((EquivalentAddressGroup) args[0]).getAddresses().get(0), subchannel);
+            return subchannel;
+          }
+        });
+    loadBalancer = newLoadBalancer(Integer.MAX_VALUE);
+  }
+
+  @Test
+  public void prefersLocalZone() {
+    List<EquivalentAddressGroup> servers = servers(2, 3);
+    servers.add(new EquivalentAddressGroup(new FakeSocketAddress("no-zone")));
+    loadBalancer.handleResolvedAddressGroups(servers, Attributes.EMPTY);
+    assertEquals(6, subchannels.size());
+    for (Subchannel subchannel : subchannels.values()) {
+      verify(subchannel).requestConnection();
+    }
+    verify(mockHelper).updateBalancingState(eq(CONNECTING), any(Picker.class));
+
+    Picker picker = makeAllReady();
+    assertThat(picker.getLocalList()).containsExactly(
+        subchannel("local0"), subchannel("local1"));
+    assertThat(picker.getRemoteList()).containsExactly(
+        subchannel("remote0"), subchannel("remote1"), subchannel("remote2"),
+        subchannel("no-zone"));
+    assertEquals(1, picker.getLocalFraction(), 0);
+
+    random.nextDouble = 0.99;
+    PickResult first = picker.pickSubchannel(mockArgs);
+    PickResult second = picker.pickSubchannel(mockArgs);
+    assertThat(picker.getLocalList()).containsExactly(
+        first.getSubchannel(), second.getSubchannel());
+    assertNotNull(first.getStreamTracerFactory());
+  }
+
+  @Test
+  public void spillsOverWhenLocalSubchannelsAreNotReady() {
+    loadBalancer.handleResolvedAddressGroups(servers(4, 2), Attributes.EMPTY);
+    ready("local0");
+    ready("remote0");
+    Picker picker = ready("remote1");
+    assertEquals(ZoneAwareLoadBalancerFactory.OVERPROVISIONING_FACTOR / 4,
+        picker.getLocalFraction(), 1e-9);
+
+    random.nextDouble = 0.3;
+    assertSame(subchannel("local0"), picker.pickSubchannel(mockArgs).getSubchannel());
+    random.nextDouble = 0.4;
+    PickResult spilled = picker.pickSubchannel(mockArgs);
+    assertSame(subchannel("remote0"), spilled.getSubchannel());
+    assertNull(spilled.getStreamTracerFactory());
+    assertSame(subchannel("remote1"), picker.pickSubchannel(mockArgs).getSubchannel());
+
+    // Without ready remote subchannels, all calls stay local
+    loadBalancer.handleSubchannelState(subchannel("remote0"),
+        ConnectivityStateInfo.forTransientFailure(Status.UNAVAILABLE));
+    picker = handleSubchannelState(subchannel("remote1"),
+        ConnectivityStateInfo.forTransientFailure(Status.UNAVAILABLE));
+    assertSame(subchannel("local0"), picker.pickSubchannel(mockArgs).getSubchannel());
+  }
+
+  @Test
+  public void noReadyLocalSubchannels() {
+    loadBalancer.handleResolvedAddressGroups(servers(2, 1), Attributes.EMPTY);
+    Picker picker = ready("remote0");
+    assertEquals(0, picker.getLocalFraction(), 0);
+    assertSame(subchannel("remote0"), picker.pickSubchannel(mockArgs).getSubchannel());
+  }
+
+  @Test
+  public void spillsOverWhenLocalZoneHasTooManyCallsInFlight() {
+    loadBalancer = newLoadBalancer(2);
+    loadBalancer.handleResolvedAddressGroups(servers(1, 1), Attributes.EMPTY);
+    Picker picker = makeAllReady();
+
+    List<ClientStreamTracer> tracers = new ArrayList<ClientStreamTracer>();
+    for (int i = 0; i < 2; i++) {
+      PickResult result = picker.pickSubchannel(mockArgs);
+      assertSame(subchannel("local0"), result.getSubchannel());
+      tracers.add(result.getStreamTracerFactory()
+          .newClientStreamTracer(CallOptions.DEFAULT, new Metadata()));
+    }
+    assertSame(subchannel("remote0"), picker.pickSubchannel(mockArgs).getSubchannel());
+
+    // The calls in flight are still counted by new pickers
+    picker = ready("local0");
+    assertSame(subchannel("remote0"), picker.pickSubchannel(mockArgs).getSubchannel());
+
+    tracers.get(0).streamClosed(Status.OK);
+    assertSame(subchannel("local0"), picker.pickSubchannel(mockArgs).getSubchannel());
+  }
+
+  @Test
+  public void zoneChangeRecreatesSubchannel() {
+    loadBalancer.handleResolvedAddressGroups(servers(1, 1), Attributes.EMPTY);
+    Subchannel oldLocal = subchannel("local0");
+    Subchannel oldRemote = subchannel("remote0");
+
+    List<EquivalentAddressGroup> servers = new ArrayList<EquivalentAddressGroup>();
+    // Same zone with other attributes
+    servers.add(new EquivalentAddressGroup(new FakeSocketAddress("local0"),
+        Attributes.newBuilder()
+            .set(ZoneAwareLoadBalancerFactory.ATTR_ZONE, LOCAL_ZONE)
+            .set(FileNameResolverProvider.ATTR_WEIGHT, 2)
+            .build()));
+    // Moved to the local zone
+    servers.add(server("remote0", LOCAL_ZONE));
+    loadBalancer.handleResolvedAddressGroups(servers, Attributes.EMPTY);
+
+    assertSame(oldLocal, subchannel("local0"));
+    verify(oldLocal, never()).shutdown();
+    verify(oldRemote).shutdown();
+    Picker picker = makeAllReady();
+    assertThat(picker.getLocalList()).containsExactly(oldLocal, subchannel("remote0"));
+    assertThat(picker.getRemoteList()).isEmpty();
+
+    loadBalancer.handleResolvedAddressGroups(servers.subList(1, 2), Attributes.EMPTY);
+    verify(oldLocal).shutdown();
+  }
+
+  @Test
+  public void allSubchannelsFailing() {
+    loadBalancer.handleResolvedAddressGroups(servers(1, 1), Attributes.EMPTY);
+    Status error = Status.UNAVAILABLE.withDescription("connection refused");
+    loadBalancer.handleSubchannelState(subchannel("local0"),
+        ConnectivityStateInfo.forTransientFailure(error));
+    Picker picker = handleSubchannelState(subchannel("remote0"),
+        ConnectivityStateInfo.forTransientFailure(error));
+    verify(mockHelper).updateBalancingState(TRANSIENT_FAILURE, picker);
+    assertSame(error, picker.pickSubchannel(mockArgs).getStatus());
+  }
+
+  @Test
+  public void nameResolutionError() {
+    Status error = Status.NOT_FOUND.withDescription("no backends");
+    loadBalancer.handleNameResolutionError(error);
+    verify(mockHelper).updateBalancingState(any(ConnectivityState.class), pickerCaptor.capture());
+    assertSame(error, pickerCaptor.getValue().pickSubchannel(mockArgs).getStatus());
+  }
+
+  private ZoneAwareLoadBalancer newLoadBalancer(int maxInFlightCallsPerSubchannel) {
+    return new ZoneAwareLoadBalancer(mockHelper, LOCAL_ZONE, maxInFlightCallsPerSubchannel,
+        random);
+  }
+
+  private Picker handleSubchannelState(Subchannel subchannel, ConnectivityStateInfo stateInfo) {
+    loadBalancer.handleSubchannelState(subchannel, stateInfo);
+    verify(mockHelper, atLeastOnce())
+        .updateBalancingState(any(ConnectivityState.class), pickerCaptor.capture());
+    return pickerCaptor.getValue();
+  }
+
+  private Picker makeAllReady() {
+    Picker picker = null;
+    for (Subchannel subchannel : new ArrayList<Subchannel>(subchannels.values())) {
+      picker = handleSubchannelState(
+          subchannel, ConnectivityStateInfo.forNonError(READY));
+    }
+    return picker;
+  }
+
+  private Picker ready(String name) {
+    return handleSubchannelState(
+        subchannel(name), ConnectivityStateInfo.forNonError(READY));
+  }
+
+  private Subchannel subchannel(String name) {
+    for (Map.Entry<SocketAddress, Subchannel> entry : subchannels.entrySet()) {
+      if (entry.getKey().toString().equals(name)) {
+        return entry.getValue();
+      }
+    }
+    throw new AssertionError("No subchannel for " + name);
+  }
+
+  private static List<EquivalentAddressGroup> servers(int local, int remote) {
+    List<EquivalentAddressGroup> servers = new ArrayList<EquivalentAddressGroup>();
+    for (int i = 0; i < local; i++) {
+      servers.add(server("local" + i, LOCAL_ZONE));
+    }
+    for (int i = 0; i < remote; i++) {
+      servers.add(server("remote" + i, "us-east1-b"));
+    }
+    return servers;
+  }
+
+  private static EquivalentAddressGroup server(String name, String zone) {
+    return new EquivalentAddressGroup(new FakeSocketAddress(name),
+        Attributes.newBuilder().set(ZoneAwareLoadBalancerFactory.ATTR_ZONE, zone).build());
+  }
+
+  private static final class FakeRandom extends Random {
+    double nextDouble;
+
+    @Override
+    public double nextDouble() {
+      return nextDouble;
+    }
+  }
+
+  private static final class FakeSocketAddress extends SocketAddress {
+    final String name;
+
+    FakeSocketAddress(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof FakeSocketAddress && ((FakeSocketAddress) other).name.equals(name);
+    }
+
+    @Override
+    public int hashCode() {
+      return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit tests for {@link ZstdCodec}.
+ */
+@RunWith(JUnit4.class)
+public class ZstdCodecTest {
+  private static final byte[] MESSAGE =
+      "{\"orderId\":12345,\"status\":\"SHIPPED\",\"carrier\":\"ups\"}".getBytes();
+
+  @Test
+  public void defaultEncoding() {
+    assertEquals("zstd", new ZstdCodec().getMessageEncoding());
+    assertEquals("zstd", new ZstdCodec(19).getMessageEncoding());
+  }
+
+  @Test
+  public void invalidCompressionLevel() {
+    try {
+      new ZstdCodec(0);
+      fail("Expected exception");
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+    try {
+      new ZstdCodec(23);
+      fail("Expected exception");
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+  }
+
+  @Test
+  public void dictionary_roundTripAndSmallerOutput() throws Exception {
+    ZstdCodec plain = new ZstdCodec();
+    ZstdCodec dict =
+        new ZstdCodec("zstd-orders", ZstdCodec.DEFAULT_COMPRESSION_LEVEL, dictionary());
+    assertEquals("zstd-orders", dict.getMessageEncoding());
+
+    byte[] withDictionary = compress(dict, MESSAGE);
+    assertArrayEquals(MESSAGE, decompress(dict, withDictionary));
+    assertTrue(withDictionary.length < compress(plain, MESSAGE).length);
+  }
+
+  @Test
+  public void dictionary_requiredToDecompress() throws Exception {
+    ZstdCodec dict =
+        new ZstdCodec("zstd-orders", ZstdCodec.DEFAULT_COMPRESSION_LEVEL, dictionary());
+    byte[] compressed = compress(dict, MESSAGE);
+    try {
+      decompress(new ZstdCodec(), compressed);
+      fail("Expected exception");
+    } catch (IOException expected) {
+      // expected
+    }
+  }
+
+  /**
+   * A raw content dictionary. Trained dictionaries work the same way, but need many samples.
+   */
+  private static byte[] dictionary() {
+    return "{\"orderId\":,\"status\":\"SHIPPED\",\"carrier\":\"ups\"}{\"orderId\":\"PENDING\"}"
+        .getBytes();
+  }
+
+  private static byte[] compress(ZstdCodec codec, byte[] data) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    OutputStream os = codec.compress(out);
+    os.write(data);
+    os.close();
+    return out.toByteArray();
+  }
+
+  private static byte[] decompress(ZstdCodec codec, byte[] data) throws IOException {
+    InputStream is = codec.decompress(new ByteArrayInputStream(data));
+    try {
+      return ByteStreams.toByteArray(is);
+    } finally {
+      is.close();
+    }
+  }
+}
@@ -51,7 +51,7 @@ public class InboundHeadersBenchmark {
 
   // Headers taken from the gRPC spec.
   private static void setupRequestHeaders() {
-    requestHeaders = new AsciiString[18];
+    requestHeaders = new AsciiString[20];
     int i = 0;
     requestHeaders[i++] = of(":method");
     requestHeaders[i++] = of("POST");
@@ -70,7 +70,10 @@ public class InboundHeadersBenchmark {
     requestHeaders[i++] = of("grpc-encoding");
     requestHeaders[i++] = of("gzip");
     requestHeaders[i++] = of("authorization");
-    requestHeaders[i] = of("Bearer y235.wef315yfh138vh31hv93hv8h3v");
+    requestHeaders[i++] = of("Bearer y235.wef315yfh138vh31hv93hv8h3v");
+    // Binary headers are base64 decoded when they are read from the Metadata
+    requestHeaders[i++] = of("grpc-trace-bin");
+    requestHeaders[i] = of("AAARf8I4k6+E0YtnMXg6PpK5AQK7y2VxHdOtLUbk5Dw0AgE=");
   }
 
   private static void setupResponseHeaders() {
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.grpc.netty;
+
+import io.grpc.internal.MessageFramer;
+import io.grpc.internal.StatsTraceContext;
+import io.grpc.internal.WritableBuffer;
+import io.grpc.util.ByteBufferMarshaller;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Framing bandwidth of large messages handed to the Netty transport, comparing messages read into
+ * a {@code byte[]} with memory-mapped file regions sent through {@link ByteBufferMarshaller}.
+ * Multiply the reported throughput by {@code messageSize} to get bytes per second.
+ */
+@State(Scope.Thread)
+public class MessageFramerBandwidthBenchmark {
+
+  public enum Source {
+    BYTE_ARRAY,
+    MAPPED_FILE
+  }
+
+  @Param({"16384", "1048576", "16777216"})
+  public int messageSize;
+
+  @Param
+  public Source source;
+
+  private File file;
+  private byte[] bytes;
+  private ByteBuffer mapped;
+  private MessageFramer framer;
+
+  /**
+   * Writes a file of random bytes and maps it.
+   */
+  @Setup
+  public void setUp() throws Exception {
+    bytes = new byte[messageSize];
+    new Random(1).nextBytes(bytes);
+    file = File.createTempFile("framer-bandwidth", ".bin");
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.write(bytes);
+      mapped = ByteBufferMarshaller.mapFileRegion(raf.getChannel(), 0, messageSize);
+    } finally {
+      raf.close();
+    }
+    framer = new MessageFramer(new MessageFramer.Sink() {
+      @Override
+      public void deliverFrame(WritableBuffer frame, boolean endOfStream, boolean flush) {
+        // Netty would release the frame once it's written to the socket.
+        if (frame != null) {
+          frame.release();
+        }
+      }
+    }, new NettyWritableBufferAllocator(PooledByteBufAllocator.DEFAULT), StatsTraceContext.NOOP);
+  }
+
+  @TearDown
+  public void tearDown() {
+    framer.dispose();
+    file.delete();
+  }
+
+  /**
+   * Frames and flushes one message.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public void writePayload() {
+    switch (source) {
+      case BYTE_ARRAY:
+        framer.writePayload(new ByteArrayInputStream(bytes));
+        break;
+      case MAPPED_FILE:
+        framer.writePayload(ByteBufferMarshaller.instance().stream(mapped));
+        break;
+      default:
+        throw new AssertionError();
+    }
+    framer.flush();
+  }
+}
@@ -22,6 +22,8 @@ import io.grpc.MethodDescriptor;
 import io.netty.util.AsciiString;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -81,6 +83,28 @@ public class MethodDescriptorBenchmark {
     return path;
   }
 
+  ConcurrentMap<MethodDescriptor<?, ?>, GrpcHttp2OutboundHeaders.RequestTemplate>
+      requestTemplates =
+          new ConcurrentHashMap<MethodDescriptor<?, ?>, GrpcHttp2OutboundHeaders.RequestTemplate>();
+
+  {
+    requestTemplates.put(method, new GrpcHttp2OutboundHeaders.RequestTemplate(
+        new AsciiString("authority.googleapis.bogus"),
+        new AsciiString("/" + method.getFullMethodName()), Utils.HTTP_METHOD,
+        new AsciiString("https"), new AsciiString("grpc-java-netty")));
+  }
+
+  /**
+   * Looks up the request headers template of the method in the templates of a transport, as
+   * {@link NettyClientStream} does.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public GrpcHttp2OutboundHeaders.RequestTemplate requestTemplate() {
+    return requestTemplates.get(method);
+  }
+
   /** Foo bar. */
   @Benchmark
   @BenchmarkMode(Mode.SampleTime)
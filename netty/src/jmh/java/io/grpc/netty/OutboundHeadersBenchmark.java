@@ -60,6 +60,9 @@ public class OutboundHeadersBenchmark {
   private final AsciiString defaultPath = new AsciiString("/Service.MethodMethodMethod");
   private final AsciiString authority = new AsciiString("authority.googleapis.bogus");
   private final AsciiString userAgent = new AsciiString("grpc-java-netty");
+  private final GrpcHttp2OutboundHeaders.RequestTemplate requestTemplate =
+      new GrpcHttp2OutboundHeaders.RequestTemplate(
+          authority, defaultPath, Utils.HTTP_METHOD, scheme, userAgent);
   private final Http2HeadersEncoder headersEncoder = new DefaultHttp2HeadersEncoder();
   private final ByteBuf scratchBuffer = UnpooledByteBufAllocator.DEFAULT.buffer(4096);
 
@@ -78,6 +81,17 @@ public class OutboundHeadersBenchmark {
         userAgent);
   }
 
+  /**
+   * Converts the headers with the pre-built headers of the method, as {@link NettyClientStream}
+   * does.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public Http2Headers convertClientHeadersWithTemplate() {
+    return Utils.convertClientHeaders(metadata, requestTemplate);
+  }
+
   @Benchmark
   @BenchmarkMode(Mode.SampleTime)
   @OutputTimeUnit(TimeUnit.NANOSECONDS)
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.netty;
+
+import io.grpc.ExperimentalApi;
+
+/**
+ * Compares the load of a server with the average load of its fleet, so that the server can move
+ * some of its connections to less loaded servers.
+ *
+ * @see NettyServerBuilder#rebalanceConnections
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/1771")
+public abstract class ConnectionLoadSignal {
+  /**
+   * Returns the load of this server, in the same unit as {@link #getFleetAverageLoad}.  By default,
+   * it is the number of connections of the server.
+   *
+   * @param connections the number of connections of this server that are not closing
+   */
+  public double getLocalLoad(int connections) {
+    return connections;
+  }
+
+  /**
+   * Returns the average load of the servers of the fleet, including this one, or {@link Double#NaN}
+   * if it is not known.  Called periodically, from a network thread, so it should not block.
+   */
+  public abstract double getFleetAverageLoad();
+}
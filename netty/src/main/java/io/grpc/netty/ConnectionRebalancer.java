@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.netty;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.grpc.Status;
+import io.grpc.internal.LogExceptionRunnable;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Periodically compares the load of the server with the fleet average given by a {@link
+ * ConnectionLoadSignal}, and gracefully closes a fraction of the connections of an overloaded
+ * server so that their clients reconnect, most likely to other servers.
+ */
+final class ConnectionRebalancer {
+  /**
+   * How much the local load must exceed the fleet average before connections are moved, so that
+   * small differences between servers don't cause churn.
+   */
+  @VisibleForTesting
+  static final double TOLERANCE = 1.1;
+  /** The most connections closed per period, as a fraction of all the connections. */
+  @VisibleForTesting
+  static final double MAX_CLOSED_FRACTION = 0.1;
+
+  private static final Status REBALANCE_STATUS =
+      Status.UNAVAILABLE.withDescription("rebalance");
+
+  private final ConnectionLoadSignal signal;
+  private final long periodNanos;
+  private final Random random;
+  private final Set<Channel> connections =
+      Collections.newSetFromMap(new ConcurrentHashMap<Channel, Boolean>());
+  private final Set<Channel> closing =
+      Collections.newSetFromMap(new ConcurrentHashMap<Channel, Boolean>());
+  @Nullable
+  private ScheduledExecutorService scheduler;
+  @Nullable
+  private ScheduledFuture<?> rebalanceFuture;
+  private boolean shutdown;
+
+  ConnectionRebalancer(ConnectionLoadSignal signal, long periodNanos) {
+    this(signal, periodNanos, new Random());
+  }
+
+  @VisibleForTesting
+  ConnectionRebalancer(ConnectionLoadSignal signal, long periodNanos, Random random) {
+    checkArgument(periodNanos > 0, "periodNanos must be positive");
+    this.signal = checkNotNull(signal, "signal");
+    this.periodNanos = periodNanos;
+    this.random = checkNotNull(random, "random");
+  }
+
+  /**
+   * Tracks a new connection of the server, until it is closed.
+   */
+  void addConnection(final Channel ch) {
+    connections.add(ch);
+    ch.closeFuture().addListener(new ChannelFutureListener() {
+      @Override
+      public void operationComplete(ChannelFuture future) {
+        connections.remove(ch);
+        closing.remove(ch);
+      }
+    });
+  }
+
+  /**
+   * Starts rebalancing periodically on {@code scheduler}.
+   */
+  synchronized void start(ScheduledExecutorService scheduler) {
+    checkNotNull(scheduler, "scheduler");
+    if (this.scheduler != null) {
+      return;
+    }
+    this.scheduler = scheduler;
+    scheduleRebalance();
+  }
+
+  synchronized void shutdown() {
+    shutdown = true;
+    if (rebalanceFuture != null) {
+      rebalanceFuture.cancel(false);
+      rebalanceFuture = null;
+    }
+  }
+
+  private synchronized void scheduleRebalance() {
+    if (shutdown) {
+      return;
+    }
+    rebalanceFuture = scheduler.schedule(new LogExceptionRunnable(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          rebalance();
+        } finally {
+          scheduleRebalance();
+        }
+      }
+    }), periodNanos, TimeUnit.NANOSECONDS);
+  }
+
+  private void rebalance() {
+    List<Channel> candidates = new ArrayList<Channel>(connections.size());
+    for (Channel ch : connections) {
+      if (!closing.contains(ch)) {
+        candidates.add(ch);
+      }
+    }
+    int count = candidates.size();
+    if (count == 0) {
+      return;
+    }
+    double fleetLoad = signal.getFleetAverageLoad();
+    double localLoad = signal.getLocalLoad(count);
+    if (!(fleetLoad > 0) || !(localLoad > fleetLoad * TOLERANCE)) {
+      // NaN, unknown or balanced
+      return;
+    }
+    double excessFraction = Math.min((localLoad - fleetLoad) / localLoad, MAX_CLOSED_FRACTION);
+    int toClose = (int) Math.ceil(count * excessFraction);
+    Collections.shuffle(candidates, random);
+    for (final Channel ch : candidates.subList(0, toClose)) {
+      closing.add(ch);
+      // Spread the GOAWAYs over the period, so clients don't all reconnect at once
+      long delayNanos = (long) (random.nextDouble() * periodNanos);
+      scheduler.schedule(new LogExceptionRunnable(new Runnable() {
+        @Override
+        public void run() {
+          ch.writeAndFlush(new GracefulCloseCommand(REBALANCE_STATUS));
+        }
+      }), delayNanos, TimeUnit.NANOSECONDS);
+    }
+  }
+}
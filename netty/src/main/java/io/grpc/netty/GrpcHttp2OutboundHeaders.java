@@ -16,6 +16,7 @@
 
 package io.grpc.netty;
 
+import com.google.common.base.Objects;
 import io.netty.handler.codec.http2.Http2Headers;
 import io.netty.util.AsciiString;
 import java.util.Iterator;
@@ -31,27 +32,25 @@ final class GrpcHttp2OutboundHeaders extends AbstractHttp2Headers {
   private final AsciiString[] preHeaders;
   private static final AsciiString[] EMPTY = new AsciiString[]{};
 
+  private static final AsciiString[] SERVER_RESPONSE_PRE_HEADERS = new AsciiString[] {
+      Http2Headers.PseudoHeaderName.STATUS.value(), Utils.STATUS_OK,
+      Utils.CONTENT_TYPE_HEADER, Utils.CONTENT_TYPE_GRPC,
+  };
+
   static GrpcHttp2OutboundHeaders clientRequestHeaders(byte[][] serializedMetadata,
       AsciiString authority, AsciiString path, AsciiString method, AsciiString scheme,
       AsciiString userAgent) {
-    AsciiString[] preHeaders = new AsciiString[] {
-        Http2Headers.PseudoHeaderName.AUTHORITY.value(), authority,
-        Http2Headers.PseudoHeaderName.PATH.value(), path,
-        Http2Headers.PseudoHeaderName.METHOD.value(), method,
-        Http2Headers.PseudoHeaderName.SCHEME.value(), scheme,
-        Utils.CONTENT_TYPE_HEADER, Utils.CONTENT_TYPE_GRPC,
-        Utils.TE_HEADER, Utils.TE_TRAILERS,
-        Utils.USER_AGENT, userAgent,
-    };
-    return new GrpcHttp2OutboundHeaders(preHeaders, serializedMetadata);
+    return clientRequestHeaders(
+        serializedMetadata, new RequestTemplate(authority, path, method, scheme, userAgent));
+  }
+
+  static GrpcHttp2OutboundHeaders clientRequestHeaders(byte[][] serializedMetadata,
+      RequestTemplate template) {
+    return new GrpcHttp2OutboundHeaders(template.preHeaders, serializedMetadata);
   }
 
   static GrpcHttp2OutboundHeaders serverResponseHeaders(byte[][] serializedMetadata) {
-    AsciiString[] preHeaders = new AsciiString[] {
-        Http2Headers.PseudoHeaderName.STATUS.value(), Utils.STATUS_OK,
-        Utils.CONTENT_TYPE_HEADER, Utils.CONTENT_TYPE_GRPC,
-    };
-    return new GrpcHttp2OutboundHeaders(preHeaders, serializedMetadata);
+    return new GrpcHttp2OutboundHeaders(SERVER_RESPONSE_PRE_HEADERS, serializedMetadata);
   }
 
   static GrpcHttp2OutboundHeaders serverResponseTrailers(byte[][] serializedMetadata) {
@@ -140,6 +139,36 @@ final class GrpcHttp2OutboundHeaders extends AbstractHttp2Headers {
     }
   }
 
+  /**
+   * The headers that all the requests of a method on a transport have in common, so that they are
+   * built once rather than for every call. Only the metadata of the calls is added to them.
+   */
+  static final class RequestTemplate {
+    private final AsciiString[] preHeaders;
+
+    RequestTemplate(AsciiString authority, AsciiString path, AsciiString method,
+        AsciiString scheme, AsciiString userAgent) {
+      preHeaders = new AsciiString[] {
+          Http2Headers.PseudoHeaderName.AUTHORITY.value(), authority,
+          Http2Headers.PseudoHeaderName.PATH.value(), path,
+          Http2Headers.PseudoHeaderName.METHOD.value(), method,
+          Http2Headers.PseudoHeaderName.SCHEME.value(), scheme,
+          Utils.CONTENT_TYPE_HEADER, Utils.CONTENT_TYPE_GRPC,
+          Utils.TE_HEADER, Utils.TE_TRAILERS,
+          Utils.USER_AGENT, userAgent,
+      };
+    }
+
+    AsciiString path() {
+      return preHeaders[3];
+    }
+
+    boolean matches(AsciiString authority, AsciiString scheme, AsciiString userAgent) {
+      return Objects.equal(preHeaders[1], authority) && Objects.equal(preHeaders[7], scheme)
+          && Objects.equal(preHeaders[13], userAgent);
+    }
+  }
+
   @Override
   public String toString() {
     StringBuilder builder = new StringBuilder(getClass().getSimpleName()).append('[');
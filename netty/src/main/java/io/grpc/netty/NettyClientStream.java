@@ -32,6 +32,7 @@ import io.grpc.internal.AbstractClientStream;
 import io.grpc.internal.Http2ClientStreamTransportState;
 import io.grpc.internal.StatsTraceContext;
 import io.grpc.internal.WritableBuffer;
+import io.grpc.netty.GrpcHttp2OutboundHeaders.RequestTemplate;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
@@ -40,6 +41,7 @@ import io.netty.channel.EventLoop;
 import io.netty.handler.codec.http2.Http2Headers;
 import io.netty.handler.codec.http2.Http2Stream;
 import io.netty.util.AsciiString;
+import java.util.concurrent.ConcurrentMap;
 import javax.annotation.Nullable;
 
 /**
@@ -49,19 +51,26 @@ import javax.annotation.Nullable;
 class NettyClientStream extends AbstractClientStream {
   private static final InternalMethodDescriptor methodDescriptorAccessor =
       new InternalMethodDescriptor(InternalKnownTransport.NETTY);
+  /**
+   * Bounds the templates cached by a transport, in case methods are not static.
+   */
+  private static final int MAX_REQUEST_TEMPLATES = 1000;
 
   private final Sink sink = new Sink();
   private final TransportState state;
   private final WriteQueue writeQueue;
   private final MethodDescriptor<?, ?> method;
   private final Channel channel;
+  private final ConcurrentMap<MethodDescriptor<?, ?>, RequestTemplate> requestTemplates;
+  private final AsciiString transportAuthority;
   private AsciiString authority;
   private final AsciiString scheme;
   private final AsciiString userAgent;
 
   NettyClientStream(
       TransportState state, MethodDescriptor<?, ?> method, Metadata headers,
-      Channel channel, AsciiString authority, AsciiString scheme, AsciiString userAgent,
+      Channel channel, ConcurrentMap<MethodDescriptor<?, ?>, RequestTemplate> requestTemplates,
+      AsciiString authority, AsciiString scheme, AsciiString userAgent,
       StatsTraceContext statsTraceCtx) {
     super(new NettyWritableBufferAllocator(channel.alloc()),
         statsTraceCtx,
@@ -71,7 +80,9 @@ class NettyClientStream extends AbstractClientStream {
     this.writeQueue = state.handler.getWriteQueue();
     this.method = checkNotNull(method, "method");
     this.channel = checkNotNull(channel, "channel");
-    this.authority = checkNotNull(authority, "authority");
+    this.requestTemplates = checkNotNull(requestTemplates, "requestTemplates");
+    this.transportAuthority = checkNotNull(authority, "authority");
+    this.authority = authority;
     this.scheme = checkNotNull(scheme, "scheme");
     this.userAgent = userAgent;
   }
@@ -96,6 +107,15 @@ class NettyClientStream extends AbstractClientStream {
     return state.handler.getAttributes();
   }
 
+  private AsciiString defaultPath() {
+    AsciiString defaultPath = (AsciiString) methodDescriptorAccessor.geRawMethodName(method);
+    if (defaultPath == null) {
+      defaultPath = new AsciiString("/" + method.getFullMethodName());
+      methodDescriptorAccessor.setRawMethodName(method, defaultPath);
+    }
+    return defaultPath;
+  }
+
   private static boolean useGet(MethodDescriptor<?, ?> method) {
     return method.isSafe();
   }
@@ -104,24 +124,33 @@ class NettyClientStream extends AbstractClientStream {
     @Override
     public void writeHeaders(Metadata headers, byte[] requestPayload) {
       // Convert the headers into Netty HTTP/2 headers.
-      AsciiString defaultPath = (AsciiString) methodDescriptorAccessor.geRawMethodName(method);
-      if (defaultPath == null) {
-        defaultPath = new AsciiString("/" + method.getFullMethodName());
-        methodDescriptorAccessor.setRawMethodName(method, defaultPath);
+      // Streams of a transport share its authority, scheme and user agent, but a template that
+      // was built for other ones is not used
+      RequestTemplate template = requestTemplates.get(method);
+      if (template == null || !template.matches(transportAuthority, scheme, userAgent)) {
+        boolean cache = template == null && requestTemplates.size() < MAX_REQUEST_TEMPLATES;
+        template = new RequestTemplate(
+            transportAuthority, defaultPath(), Utils.HTTP_METHOD, scheme, userAgent);
+        if (cache) {
+          requestTemplates.putIfAbsent(method, template);
+        }
       }
       boolean get = (requestPayload != null);
-      AsciiString httpMethod;
+      Http2Headers http2Headers;
       if (get) {
         // Forge the query string
         // TODO(ericgribkoff) Add the key back to the query string
-        defaultPath =
-            new AsciiString(defaultPath + "?" + BaseEncoding.base64().encode(requestPayload));
-        httpMethod = Utils.HTTP_GET_METHOD;
+        AsciiString path =
+            new AsciiString(template.path() + "?" + BaseEncoding.base64().encode(requestPayload));
+        http2Headers = Utils.convertClientHeaders(headers, scheme, path, authority,
+            Utils.HTTP_GET_METHOD, userAgent);
+      } else if (authority != transportAuthority) {
+        // The call overrode the authority with setAuthority()
+        http2Headers = Utils.convertClientHeaders(headers, scheme, template.path(), authority,
+            Utils.HTTP_METHOD, userAgent);
       } else {
-        httpMethod = Utils.HTTP_METHOD;
+        http2Headers = Utils.convertClientHeaders(headers, template);
       }
-      Http2Headers http2Headers = Utils.convertClientHeaders(headers, scheme, defaultPath,
-          authority, httpMethod, userAgent);
 
       ChannelFutureListener failureListener = new ChannelFutureListener() {
         @Override
@@ -273,10 +302,20 @@ class NettyClientStream extends AbstractClientStream {
     }
 
     void transportHeadersReceived(Http2Headers headers, boolean endOfStream) {
+      Metadata metadata;
+      try {
+        metadata = endOfStream ? Utils.convertTrailers(headers) : Utils.convertHeaders(headers);
+      } catch (IllegalArgumentException e) {
+        // A binary header is not valid base64
+        http2ProcessingFailed(
+            Status.INTERNAL.withDescription("Malformed headers").withCause(e), true,
+            new Metadata());
+        return;
+      }
       if (endOfStream) {
-        transportTrailersReceived(Utils.convertTrailers(headers));
+        transportTrailersReceived(metadata);
       } else {
-        transportHeadersReceived(Utils.convertHeaders(headers));
+        transportHeadersReceived(metadata);
       }
     }
 
@@ -21,20 +21,25 @@ import static io.netty.channel.ChannelOption.SO_KEEPALIVE;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.grpc.Attributes;
 import io.grpc.CallOptions;
 import io.grpc.Metadata;
 import io.grpc.MethodDescriptor;
 import io.grpc.Status;
+import io.grpc.internal.Channelz;
 import io.grpc.internal.ClientStream;
 import io.grpc.internal.ConnectionClientTransport;
 import io.grpc.internal.FailingClientStream;
 import io.grpc.internal.GrpcUtil;
 import io.grpc.internal.Http2Ping;
+import io.grpc.internal.Instrumented;
 import io.grpc.internal.KeepAliveManager;
 import io.grpc.internal.KeepAliveManager.ClientKeepAlivePinger;
 import io.grpc.internal.LogId;
 import io.grpc.internal.StatsTraceContext;
+import io.grpc.internal.TransportTracer;
+import io.grpc.netty.GrpcHttp2OutboundHeaders.RequestTemplate;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
@@ -48,14 +53,18 @@ import io.netty.util.AsciiString;
 import java.net.SocketAddress;
 import java.nio.channels.ClosedChannelException;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
 import javax.annotation.Nullable;
 
 /**
  * A Netty-based {@link ConnectionClientTransport} implementation.
  */
-class NettyClientTransport implements ConnectionClientTransport {
+class NettyClientTransport
+    implements ConnectionClientTransport, Instrumented<Channelz.SocketStats> {
   private final LogId logId = LogId.allocate(getClass().getName());
+  private final TransportTracer transportTracer = new TransportTracer();
   private final Map<ChannelOption<?>, ?> channelOptions;
   private final SocketAddress address;
   private final Class<? extends Channel> channelType;
@@ -71,6 +80,9 @@ class NettyClientTransport implements ConnectionClientTransport {
   private final long keepAliveTimeoutNanos;
   private final boolean keepAliveWithoutCalls;
   private final Runnable tooManyPingsRunnable;
+  /** The request headers common to the calls of each method, keyed by identity. */
+  private final ConcurrentMap<MethodDescriptor<?, ?>, RequestTemplate> requestTemplates =
+      new ConcurrentHashMap<MethodDescriptor<?, ?>, RequestTemplate>();
 
   private ProtocolNegotiator.Handler negotiationHandler;
   private NettyClientHandler handler;
@@ -141,7 +153,9 @@ class NettyClientTransport implements ConnectionClientTransport {
     if (channel == null) {
       return new FailingClientStream(statusExplainingWhyTheChannelIsNull);
     }
-    StatsTraceContext statsTraceCtx = StatsTraceContext.newClientContext(callOptions, headers);
+    transportTracer.reportLocalStreamStarted();
+    StatsTraceContext statsTraceCtx = StatsTraceContext.newClientContext(
+        callOptions, headers, transportTracer.getClientStreamTracer());
     return new NettyClientStream(
         new NettyClientStream.TransportState(handler, channel.eventLoop(), maxMessageSize,
             statsTraceCtx) {
@@ -150,8 +164,8 @@ class NettyClientTransport implements ConnectionClientTransport {
             return NettyClientTransport.this.statusFromFailedFuture(f);
           }
         },
-        method, headers, channel, authority, negotiationHandler.scheme(), userAgent,
-        statsTraceCtx);
+        method, headers, channel, requestTemplates, authority, negotiationHandler.scheme(),
+        userAgent, statsTraceCtx);
   }
 
   @SuppressWarnings("unchecked")
@@ -218,6 +232,13 @@ class NettyClientTransport implements ConnectionClientTransport {
         }
       };
     }
+    Channelz.instance().addSocket(this);
+    channel.closeFuture().addListener(new ChannelFutureListener() {
+      @Override
+      public void operationComplete(ChannelFuture future) {
+        Channelz.instance().removeSocket(NettyClientTransport.this);
+      }
+    });
     // Start the write queue as soon as the channel is constructed
     handler.startWriteQueue(channel);
     // This write will have no effect, yet it will only complete once the negotiationHandler
@@ -284,12 +305,22 @@ class NettyClientTransport implements ConnectionClientTransport {
     return logId;
   }
 
+  @Override
+  public ListenableFuture<Channelz.SocketStats> getStats() {
+    return Utils.getSocketStats(channel, handler, transportTracer);
+  }
+
   @Override
   public Attributes getAttributes() {
     // TODO(zhangkun83): fill channel security attributes
     return Attributes.EMPTY;
   }
 
+  @Override
+  public TransportTracer getTransportTracer() {
+    return transportTracer;
+  }
+
   @VisibleForTesting
   Channel channel() {
     return channel;
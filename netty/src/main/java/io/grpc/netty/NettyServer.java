@@ -72,6 +72,8 @@ class NettyServer implements InternalServer {
   private final long permitKeepAliveTimeInNanos;
   private final ReferenceCounted eventLoopReferenceCounter = new EventLoopReferenceCounter();
   private final List<ServerStreamTracer.Factory> streamTracerFactories;
+  @Nullable
+  private final ConnectionRebalancer connectionRebalancer;
 
   NettyServer(
       SocketAddress address, Class<? extends ServerChannel> channelType,
@@ -81,7 +83,8 @@ class NettyServer implements InternalServer {
       long keepAliveTimeInNanos, long keepAliveTimeoutInNanos,
       long maxConnectionIdleInNanos,
       long maxConnectionAgeInNanos, long maxConnectionAgeGraceInNanos,
-      boolean permitKeepAliveWithoutCalls, long permitKeepAliveTimeInNanos) {
+      boolean permitKeepAliveWithoutCalls, long permitKeepAliveTimeInNanos,
+      @Nullable ConnectionLoadSignal connectionLoadSignal, long rebalancePeriodNanos) {
     this.address = address;
     this.channelType = checkNotNull(channelType, "channelType");
     this.bossGroup = bossGroup;
@@ -101,6 +104,8 @@ class NettyServer implements InternalServer {
     this.maxConnectionAgeGraceInNanos = maxConnectionAgeGraceInNanos;
     this.permitKeepAliveWithoutCalls = permitKeepAliveWithoutCalls;
     this.permitKeepAliveTimeInNanos = permitKeepAliveTimeInNanos;
+    this.connectionRebalancer = connectionLoadSignal == null
+        ? null : new ConnectionRebalancer(connectionLoadSignal, rebalancePeriodNanos);
   }
 
   @Override
@@ -162,6 +167,9 @@ class NettyServer implements InternalServer {
           transportListener = listener.transportCreated(transport);
         }
         transport.start(transportListener);
+        if (connectionRebalancer != null) {
+          connectionRebalancer.addConnection(ch);
+        }
         ch.closeFuture().addListener(new ChannelFutureListener() {
           @Override
           public void operationComplete(ChannelFuture future) {
@@ -182,6 +190,9 @@ class NettyServer implements InternalServer {
       throw new IOException("Failed to bind", future.cause());
     }
     channel = future.channel();
+    if (connectionRebalancer != null) {
+      connectionRebalancer.start(channel.eventLoop());
+    }
   }
 
   @Override
@@ -190,6 +201,9 @@ class NettyServer implements InternalServer {
       // Already closed.
       return;
     }
+    if (connectionRebalancer != null) {
+      connectionRebalancer.shutdown();
+    }
     channel.close().addListener(new ChannelFutureListener() {
       @Override
       public void operationComplete(ChannelFuture future) throws Exception {
@@ -80,6 +80,9 @@ public final class NettyServerBuilder extends AbstractServerImplBuilder<NettySer
   private long maxConnectionAgeGraceInNanos = MAX_CONNECTION_AGE_GRACE_NANOS_INFINITE;
   private boolean permitKeepAliveWithoutCalls;
   private long permitKeepAliveTimeInNanos = TimeUnit.MINUTES.toNanos(5);
+  @Nullable
+  private ConnectionLoadSignal connectionLoadSignal;
+  private long rebalancePeriodInNanos;
 
   /**
    * Creates a server builder that will bind to the given port.
@@ -379,6 +382,23 @@ public final class NettyServerBuilder extends AbstractServerImplBuilder<NettySer
     return this;
   }
 
+  /**
+   * Moves connections away from this server while it is more loaded than the average server of its
+   * fleet, as reported by {@code signal}. Every {@code period}, if the local load exceeds the fleet
+   * average by more than 10%, up to 10% of the connections are gracefully terminated with a GOAWAY,
+   * at random times within the next period, so that their clients reconnect without waiting for
+   * the {@link #maxConnectionAge max connection age}. The {@link #maxConnectionAgeGrace max
+   * connection age grace} applies to the RPCs of these connections.
+   */
+  @ExperimentalApi("https://github.com/grpc/grpc-java/issues/1771")
+  public NettyServerBuilder rebalanceConnections(ConnectionLoadSignal signal, long period,
+      TimeUnit timeUnit) {
+    checkArgument(period > 0L, "period must be positive");
+    this.connectionLoadSignal = Preconditions.checkNotNull(signal, "signal");
+    this.rebalancePeriodInNanos = timeUnit.toNanos(period);
+    return this;
+  }
+
   @Override
   @CheckReturnValue
   protected NettyServer buildTransportServer(
@@ -395,7 +415,8 @@ public final class NettyServerBuilder extends AbstractServerImplBuilder<NettySer
         maxMessageSize, maxHeaderListSize, keepAliveTimeInNanos, keepAliveTimeoutInNanos,
         maxConnectionIdleInNanos,
         maxConnectionAgeInNanos, maxConnectionAgeGraceInNanos,
-        permitKeepAliveWithoutCalls, permitKeepAliveTimeInNanos);
+        permitKeepAliveWithoutCalls, permitKeepAliveTimeInNanos,
+        connectionLoadSignal, rebalancePeriodInNanos);
   }
 
   @Override
@@ -77,7 +77,9 @@ import io.netty.handler.codec.http2.WeightedFairQueueByteDistributor;
 import io.netty.handler.logging.LogLevel;
 import io.netty.util.AsciiString;
 import io.netty.util.ReferenceCountUtil;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -91,6 +93,8 @@ import javax.annotation.Nullable;
  */
 class NettyServerHandler extends AbstractNettyHandler {
   private static final Logger logger = Logger.getLogger(NettyServerHandler.class.getName());
+  @VisibleForTesting
+  static final int MAX_CACHED_METHOD_NAMES = 128;
   private static final ByteBuf KEEPALIVE_PING_BUF =
       unreleasableBuffer(directBuffer(8).writeLong(0xDEADL));
 
@@ -103,6 +107,11 @@ class NettyServerHandler extends AbstractNettyHandler {
   private final long maxConnectionAgeGraceInNanos;
   private final List<ServerStreamTracer.Factory> streamTracerFactories;
   private final KeepAliveEnforcer keepAliveEnforcer;
+  /**
+   * The method names of the paths requested on this connection, so that the {@code :path} of each
+   * request isn't decoded to a new String. Bounded, as the paths are chosen by the client.
+   */
+  private final Map<AsciiString, String> methodNames = new HashMap<AsciiString, String>();
   private Attributes attributes;
   private Throwable connectionError;
   private boolean teWarningLogged;
@@ -293,26 +302,7 @@ class NettyServerHandler extends AbstractNettyHandler {
           new LogExceptionRunnable(new Runnable() {
             @Override
             public void run() {
-              // send GO_AWAY
-              ByteBuf debugData = ByteBufUtil.writeAscii(ctx.alloc(), "max_age");
-              goAway(
-                  ctx,
-                  Integer.MAX_VALUE,
-                  Http2Error.NO_ERROR.code(),
-                  debugData,
-                  ctx.newPromise());
-
-              // gracefully shutdown with specified grace time
-              long savedGracefulShutdownTime = gracefulShutdownTimeoutMillis();
-              try {
-                gracefulShutdownTimeoutMillis(
-                    TimeUnit.NANOSECONDS.toMillis(maxConnectionAgeGraceInNanos));
-                close(ctx, ctx.newPromise());
-              } catch (Exception e) {
-                onError(ctx, e);
-              } finally {
-                gracefulShutdownTimeoutMillis(savedGracefulShutdownTime);
-              }
+              gracefulClose(ctx, "max_age", ctx.newPromise());
             }
           }),
           maxConnectionAgeInNanos,
@@ -349,6 +339,7 @@ class NettyServerHandler extends AbstractNettyHandler {
       // method.
       Http2Stream http2Stream = requireHttp2Stream(streamId);
 
+      // Fails the stream, below, if a binary header is not valid base64
       Metadata metadata = Utils.convertHeaders(headers);
       StatsTraceContext statsTraceCtx =
           StatsTraceContext.newServerContext(streamTracerFactories, method, metadata);
@@ -497,6 +488,9 @@ class NettyServerHandler extends AbstractNettyHandler {
       cancelStream(ctx, (CancelServerStreamCommand) msg, promise);
     } else if (msg instanceof ForcefulCloseCommand) {
       forcefulClose(ctx, (ForcefulCloseCommand) msg, promise);
+    } else if (msg instanceof GracefulCloseCommand) {
+      String debugData = ((GracefulCloseCommand) msg).getStatus().getDescription();
+      gracefulClose(ctx, debugData == null ? "" : debugData, promise);
     } else {
       AssertionError e =
           new AssertionError("Write called for unexpected type: " + msg.getClass().getName());
@@ -566,6 +560,32 @@ class NettyServerHandler extends AbstractNettyHandler {
     encoder().writeRstStream(ctx, cmd.stream().id(), Http2Error.CANCEL.code(), promise);
   }
 
+  /**
+   * Sends a GOAWAY and closes the connection once its streams complete, or once the max connection
+   * age grace time has elapsed.
+   */
+  private void gracefulClose(ChannelHandlerContext ctx, String debugData, ChannelPromise promise) {
+    // send GO_AWAY
+    goAway(
+        ctx,
+        Integer.MAX_VALUE,
+        Http2Error.NO_ERROR.code(),
+        ByteBufUtil.writeAscii(ctx.alloc(), debugData),
+        ctx.newPromise());
+
+    // gracefully shutdown with specified grace time
+    long savedGracefulShutdownTime = gracefulShutdownTimeoutMillis();
+    try {
+      gracefulShutdownTimeoutMillis(
+          TimeUnit.NANOSECONDS.toMillis(maxConnectionAgeGraceInNanos));
+      close(ctx, promise);
+    } catch (Exception e) {
+      onError(ctx, e);
+    } finally {
+      gracefulShutdownTimeoutMillis(savedGracefulShutdownTime);
+    }
+  }
+
   private void forcefulClose(final ChannelHandlerContext ctx, final ForcefulCloseCommand msg,
       ChannelPromise promise) throws Exception {
     close(ctx, promise);
@@ -610,13 +630,23 @@ class NettyServerHandler extends AbstractNettyHandler {
       throw Http2Exception.streamError(streamId, Http2Error.REFUSED_STREAM,
           "Method '%s' is not supported", headers.method());
     }
-    // Remove the leading slash of the path and get the fully qualified method name
     CharSequence path = headers.path();
+    String methodName = methodNames.get(path);
+    if (methodName != null) {
+      return methodName;
+    }
+    // Remove the leading slash of the path and get the fully qualified method name
     if (path.charAt(0) != '/') {
       throw Http2Exception.streamError(streamId, Http2Error.REFUSED_STREAM,
           "Malformatted path: %s", path);
     }
-    return path.subSequence(1, path.length()).toString();
+    methodName = path.subSequence(1, path.length()).toString();
+    if (path instanceof AsciiString && methodNames.size() < MAX_CACHED_METHOD_NAMES) {
+      AsciiString key = (AsciiString) path;
+      methodNames.put(key.isEntireArrayUsed() ? key : new AsciiString(key.toByteArray(), false),
+          methodName);
+    }
+    return methodName;
   }
 
   /**
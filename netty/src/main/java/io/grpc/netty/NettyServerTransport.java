@@ -19,16 +19,21 @@ package io.grpc.netty;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.grpc.ServerStreamTracer;
 import io.grpc.Status;
+import io.grpc.internal.Channelz;
+import io.grpc.internal.Instrumented;
 import io.grpc.internal.LogId;
 import io.grpc.internal.ServerTransport;
 import io.grpc.internal.ServerTransportListener;
+import io.grpc.internal.TransportTracer;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.logging.Level;
@@ -37,7 +42,7 @@ import java.util.logging.Logger;
 /**
  * The Netty-based server transport.
  */
-class NettyServerTransport implements ServerTransport {
+class NettyServerTransport implements ServerTransport, Instrumented<Channelz.SocketStats> {
   private static final Logger log = Logger.getLogger(NettyServerTransport.class.getName());
   // Some exceptions are not very useful and add too much noise to the log
   private static final ImmutableList<String> QUIET_ERRORS = ImmutableList.of(
@@ -45,10 +50,12 @@ class NettyServerTransport implements ServerTransport {
       "An existing connection was forcibly closed by the remote host");
 
   private final LogId logId = LogId.allocate(getClass().getName());
+  private final TransportTracer transportTracer = new TransportTracer();
   private final Channel channel;
   private final ProtocolNegotiator protocolNegotiator;
   private final int maxStreams;
   private ServerTransportListener listener;
+  private NettyServerHandler grpcHandler;
   private boolean terminated;
   private final int flowControlWindow;
   private final int maxMessageSize;
@@ -92,13 +99,15 @@ class NettyServerTransport implements ServerTransport {
     this.listener = listener;
 
     // Create the Netty handler for the pipeline.
-    final NettyServerHandler grpcHandler = createHandler(listener);
+    grpcHandler = createHandler(listener);
     NettyHandlerSettings.setAutoWindow(grpcHandler);
 
+    Channelz.instance().addSocket(this);
     // Notify when the channel closes.
     channel.closeFuture().addListener(new ChannelFutureListener() {
       @Override
       public void operationComplete(ChannelFuture future) throws Exception {
+        Channelz.instance().removeSocket(NettyServerTransport.this);
         notifyTerminated(grpcHandler.connectionError());
       }
     });
@@ -131,6 +140,11 @@ class NettyServerTransport implements ServerTransport {
     return logId;
   }
 
+  @Override
+  public ListenableFuture<Channelz.SocketStats> getStats() {
+    return Utils.getSocketStats(channel, grpcHandler, transportTracer);
+  }
+
   /**
    * For testing purposes only.
    */
@@ -168,8 +182,12 @@ class NettyServerTransport implements ServerTransport {
    * Creates the Netty handler to be used in the channel pipeline.
    */
   private NettyServerHandler createHandler(ServerTransportListener transportListener) {
+    List<ServerStreamTracer.Factory> tracerFactories =
+        new ArrayList<ServerStreamTracer.Factory>(streamTracerFactories.size() + 1);
+    tracerFactories.addAll(streamTracerFactories);
+    tracerFactories.add(transportTracer.getServerStreamTracerFactory());
     return NettyServerHandler.newHandler(
-        transportListener, streamTracerFactories, maxStreams,
+        transportListener, tracerFactories, maxStreams,
         flowControlWindow, maxHeaderListSize, maxMessageSize,
         keepAliveTimeInNanos, keepAliveTimeoutInNanos,
         maxConnectionIdleInNanos,
@@ -17,8 +17,10 @@
 package io.grpc.netty;
 
 import io.grpc.internal.WritableBuffer;
-import io.grpc.internal.WritableBufferAllocator;
+import io.grpc.internal.ZeroCopyWritableBufferAllocator;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import java.nio.ByteBuffer;
 
 /**
  * The default allocator for {@link NettyWritableBuffer}s used by the Netty transport. We set a
@@ -30,8 +32,11 @@ import io.netty.buffer.ByteBufAllocator;
  *
  * <p>Note: It is assumed that most applications will be using Netty's direct buffer pools for
  * maximum performance.
+ *
+ * <p>Existing {@link ByteBuffer}s, such as memory-mapped file regions, are wrapped as unpooled
+ * {@link io.netty.buffer.ByteBuf}s so they are written to the wire without being copied.
  */
-class NettyWritableBufferAllocator implements WritableBufferAllocator {
+class NettyWritableBufferAllocator implements ZeroCopyWritableBufferAllocator {
 
   // Use 4k as our minimum buffer size.
   private static final int MIN_BUFFER = 4096;
@@ -50,4 +55,11 @@ class NettyWritableBufferAllocator implements WritableBufferAllocator {
     capacityHint = Math.min(MAX_BUFFER, Math.max(MIN_BUFFER, capacityHint));
     return new NettyWritableBuffer(allocator.buffer(capacityHint, capacityHint));
   }
+
+  @Override
+  public WritableBuffer wrap(ByteBuffer src) {
+    // The wrapped buffer is a slice of src's remaining bytes, so its capacity equals its readable
+    // bytes and src's position is left untouched.
+    return new NettyWritableBuffer(Unpooled.wrappedBuffer(src));
+  }
 }
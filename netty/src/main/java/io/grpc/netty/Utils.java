@@ -18,26 +18,32 @@ package io.grpc.netty;
 
 import static io.grpc.internal.GrpcUtil.CONTENT_TYPE_KEY;
 import static io.grpc.internal.TransportFrameUtil.toHttp2Headers;
-import static io.grpc.internal.TransportFrameUtil.toRawSerializedHeaders;
 import static io.netty.util.CharsetUtil.UTF_8;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import io.grpc.InternalMetadata;
 import io.grpc.Metadata;
 import io.grpc.Status;
+import io.grpc.internal.Channelz;
 import io.grpc.internal.GrpcUtil;
 import io.grpc.internal.SharedResourceHolder.Resource;
+import io.grpc.internal.TransportTracer;
 import io.grpc.netty.GrpcHttp2HeadersUtils.GrpcHttp2InboundHeaders;
+import io.netty.channel.Channel;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.handler.codec.http2.Http2Exception;
 import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2Stream;
 import io.netty.util.AsciiString;
 import io.netty.util.concurrent.DefaultThreadFactory;
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
@@ -70,9 +76,10 @@ class Utils {
   public static Metadata convertHeaders(Http2Headers http2Headers) {
     if (http2Headers instanceof GrpcHttp2InboundHeaders) {
       GrpcHttp2InboundHeaders h = (GrpcHttp2InboundHeaders) http2Headers;
-      return InternalMetadata.newMetadata(h.numHeaders(), h.namesAndValues());
+      return InternalMetadata.newMetadataWithBase64BinaryValues(h.numHeaders(), h.namesAndValues());
     }
-    return InternalMetadata.newMetadata(convertHeadersToArray(http2Headers));
+    return InternalMetadata.newMetadataWithBase64BinaryValues(
+        http2Headers.size(), convertHeadersToArray(http2Headers));
   }
 
   private static byte[][] convertHeadersToArray(Http2Headers http2Headers) {
@@ -84,7 +91,7 @@ class Utils {
       headerValues[i++] = bytes(entry.getKey());
       headerValues[i++] = bytes(entry.getValue());
     }
-    return toRawSerializedHeaders(headerValues);
+    return headerValues;
   }
 
   private static byte[] bytes(CharSequence seq) {
@@ -107,18 +114,23 @@ class Utils {
     Preconditions.checkNotNull(authority, "authority");
     Preconditions.checkNotNull(method, "method");
 
+    return convertClientHeaders(headers,
+        new GrpcHttp2OutboundHeaders.RequestTemplate(
+            authority, defaultPath, method, scheme, userAgent));
+  }
+
+  /**
+   * Converts the headers of a call, adding them to the headers common to all the calls of its
+   * method, which are pre-built in {@code template}.
+   */
+  static Http2Headers convertClientHeaders(Metadata headers,
+      GrpcHttp2OutboundHeaders.RequestTemplate template) {
     // Discard any application supplied duplicates of the reserved headers
     headers.discardAll(CONTENT_TYPE_KEY);
     headers.discardAll(GrpcUtil.TE_HEADER);
     headers.discardAll(GrpcUtil.USER_AGENT_KEY);
 
-    return GrpcHttp2OutboundHeaders.clientRequestHeaders(
-        toHttp2Headers(headers),
-        authority,
-        defaultPath,
-        method,
-        scheme,
-        userAgent);
+    return GrpcHttp2OutboundHeaders.clientRequestHeaders(toHttp2Headers(headers), template);
   }
 
   public static Http2Headers convertServerHeaders(Metadata headers) {
@@ -131,11 +143,7 @@ class Utils {
   }
 
   public static Metadata convertTrailers(Http2Headers http2Headers) {
-    if (http2Headers instanceof GrpcHttp2InboundHeaders) {
-      GrpcHttp2InboundHeaders h = (GrpcHttp2InboundHeaders) http2Headers;
-      return InternalMetadata.newMetadata(h.numHeaders(), h.namesAndValues());
-    }
-    return InternalMetadata.newMetadata(convertHeadersToArray(http2Headers));
+    return convertHeaders(http2Headers);
   }
 
   public static Http2Headers convertTrailers(Metadata trailers, boolean headersSent) {
@@ -165,6 +173,34 @@ class Utils {
     return s;
   }
 
+  /**
+   * Returns the stats of a transport's socket. The flow control windows are read from the event
+   * loop, so the returned future completes once the event loop gets to it; it fails if the event
+   * loop no longer accepts tasks.
+   */
+  static ListenableFuture<Channelz.SocketStats> getSocketStats(
+      final Channel channel, final AbstractNettyHandler handler,
+      final TransportTracer transportTracer) {
+    final SettableFuture<Channelz.SocketStats> result = SettableFuture.create();
+    try {
+      channel.eventLoop().execute(new Runnable() {
+        @Override
+        public void run() {
+          Http2Stream connectionStream = handler.connection().connectionStream();
+          long localWindow = handler.decoder().flowController().windowSize(connectionStream);
+          long remoteWindow = handler.encoder().flowController().windowSize(connectionStream);
+          result.set(new Channelz.SocketStats(
+              transportTracer.getStats(localWindow, remoteWindow),
+              channel.localAddress(),
+              channel.remoteAddress()));
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      result.setException(e);
+    }
+    return result;
+  }
+
   private static class DefaultEventLoopGroupResource implements Resource<EventLoopGroup> {
     private final String name;
     private final int numEventLoops;
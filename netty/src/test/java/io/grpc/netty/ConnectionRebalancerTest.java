@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.netty;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.grpc.internal.FakeClock;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link ConnectionRebalancer}. */
+@RunWith(JUnit4.class)
+public class ConnectionRebalancerTest {
+  private static final long PERIOD_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  private final FakeClock fakeClock = new FakeClock();
+  private final FakeLoadSignal signal = new FakeLoadSignal();
+  private final ConnectionRebalancer rebalancer =
+      new ConnectionRebalancer(signal, PERIOD_NANOS, new Random(1));
+  private final List<EmbeddedChannel> channels = new ArrayList<EmbeddedChannel>();
+
+  @Test
+  public void balancedServerKeepsConnections() {
+    addConnections(20);
+    rebalancer.start(fakeClock.getScheduledExecutorService());
+
+    signal.fleetAverageLoad = 19;
+    fakeClock.forwardNanos(2 * PERIOD_NANOS);
+    assertEquals(0, closeCommandsSent());
+  }
+
+  @Test
+  public void unknownFleetLoadKeepsConnections() {
+    addConnections(20);
+    rebalancer.start(fakeClock.getScheduledExecutorService());
+
+    signal.fleetAverageLoad = Double.NaN;
+    fakeClock.forwardNanos(2 * PERIOD_NANOS);
+    assertEquals(0, closeCommandsSent());
+  }
+
+  @Test
+  public void overloadedServerClosesExcessConnectionsWithJitter() {
+    addConnections(20);
+    rebalancer.start(fakeClock.getScheduledExecutorService());
+
+    // 25% above the average, so 20% of the connections are in excess, capped to 10%
+    signal.fleetAverageLoad = 16;
+    fakeClock.forwardNanos(PERIOD_NANOS);
+    // The periodic task and the delayed GOAWAYs
+    assertEquals(3, fakeClock.numPendingTasks());
+    assertEquals(0, closeCommandsSent());
+
+    fakeClock.forwardNanos(PERIOD_NANOS - 1);
+    assertEquals(2, closeCommandsSent());
+  }
+
+  @Test
+  public void closingConnectionsAreNotCountedAgain() {
+    addConnections(20);
+    rebalancer.start(fakeClock.getScheduledExecutorService());
+
+    signal.fleetAverageLoad = 17;
+    fakeClock.forwardNanos(PERIOD_NANOS);
+    assertEquals(20, signal.lastConnections);
+    fakeClock.forwardNanos(PERIOD_NANOS);
+    // No longer above the tolerance once the closing connections are excluded
+    assertEquals(18, signal.lastConnections);
+    assertEquals(2, closeCommandsSent());
+
+    for (EmbeddedChannel ch : channels) {
+      if (ch.readOutbound() != null) {
+        ch.close();
+      }
+    }
+    fakeClock.forwardNanos(PERIOD_NANOS);
+    assertEquals(18, signal.lastConnections);
+    assertEquals(18, channelsOpen());
+  }
+
+  @Test
+  public void shutdownStopsRebalancing() {
+    addConnections(20);
+    rebalancer.start(fakeClock.getScheduledExecutorService());
+    rebalancer.shutdown();
+
+    signal.fleetAverageLoad = 1;
+    fakeClock.forwardNanos(2 * PERIOD_NANOS);
+    assertEquals(0, closeCommandsSent());
+    assertEquals(0, fakeClock.numPendingTasks());
+  }
+
+  private void addConnections(int count) {
+    for (int i = 0; i < count; i++) {
+      EmbeddedChannel ch = new EmbeddedChannel();
+      channels.add(ch);
+      rebalancer.addConnection(ch);
+    }
+  }
+
+  private int closeCommandsSent() {
+    int count = 0;
+    for (EmbeddedChannel ch : channels) {
+      Object msg = ch.outboundMessages().peek();
+      if (msg != null) {
+        assertTrue(msg instanceof GracefulCloseCommand);
+        assertEquals("rebalance", ((GracefulCloseCommand) msg).getStatus().getDescription());
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private int channelsOpen() {
+    int count = 0;
+    for (EmbeddedChannel ch : channels) {
+      if (ch.isOpen()) {
+        assertNull(ch.readOutbound());
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static final class FakeLoadSignal extends ConnectionLoadSignal {
+    double fleetAverageLoad = Double.NaN;
+    int lastConnections;
+
+    @Override
+    public double getLocalLoad(int connections) {
+      lastConnections = connections;
+      return super.getLocalLoad(connections);
+    }
+
+    @Override
+    public double getFleetAverageLoad() {
+      return fleetAverageLoad;
+    }
+  }
+}
@@ -22,6 +22,7 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import com.google.common.io.BaseEncoding;
+import io.grpc.Metadata;
 import io.grpc.netty.GrpcHttp2HeadersUtils.GrpcHttp2InboundHeaders;
 import io.grpc.netty.GrpcHttp2HeadersUtils.GrpcHttp2RequestHeaders;
 import io.grpc.netty.GrpcHttp2HeadersUtils.GrpcHttp2ResponseHeaders;
@@ -63,20 +64,26 @@ public class GrpcHttp2InboundHeadersTest {
   }
 
   @Test
-  public void binaryHeadersShouldBeBase64Decoded() {
+  public void binaryHeadersShouldBeBase64DecodedByMetadata() {
     Http2Headers headers = new GrpcHttp2RequestHeaders(1);
 
     byte[] data = new byte[100];
     new Random().nextBytes(data);
-    headers.add(of("foo-bin"), of(BaseEncoding.base64().encode(data)));
+    String encoded = BaseEncoding.base64().encode(data);
+    headers.add(of("foo-bin"), of(encoded));
 
     assertEquals(1, headers.size());
 
     byte[][] namesAndValues = ((GrpcHttp2InboundHeaders)headers).namesAndValues();
 
     assertEquals(of("foo-bin"), new AsciiString(namesAndValues[0]));
-    assertNotSame(data, namesAndValues[1]);
-    assertArrayEquals(data, namesAndValues[1]);
+    // Not decoded until read from the Metadata
+    assertEquals(of(encoded), new AsciiString(namesAndValues[1]));
+    Metadata metadata = Utils.convertHeaders(headers);
+    byte[] value =
+        metadata.get(Metadata.Key.of("foo-bin", Metadata.BINARY_BYTE_MARSHALLER));
+    assertNotSame(data, value);
+    assertArrayEquals(data, value);
   }
 
 }
@@ -26,7 +26,9 @@ import static io.netty.util.CharsetUtil.UTF_8;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
@@ -51,6 +53,7 @@ import io.grpc.internal.ClientStreamListener;
 import io.grpc.internal.GrpcUtil;
 import io.grpc.internal.StatsTraceContext;
 import io.grpc.internal.StreamListener;
+import io.grpc.netty.GrpcHttp2OutboundHeaders.RequestTemplate;
 import io.grpc.netty.WriteQueue.QueuedCommand;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
@@ -64,6 +67,8 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.LinkedList;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -90,6 +95,9 @@ public class NettyClientStreamTest extends NettyStreamTestBase<NettyClientStream
   private MethodDescriptor.Marshaller<Void> marshaller = mock(MethodDescriptor.Marshaller.class);
   private final Queue<InputStream> listenerMessageQueue = new LinkedList<InputStream>();
 
+  private final ConcurrentMap<MethodDescriptor<?, ?>, RequestTemplate> requestTemplates =
+      new ConcurrentHashMap<MethodDescriptor<?, ?>, RequestTemplate>();
+
   // Must be initialized before @Before, because it is used by createStream()
   private MethodDescriptor<?, ?> methodDescriptor = MethodDescriptor.<Void, Void>newBuilder()
       .setType(MethodDescriptor.MethodType.UNARY)
@@ -319,6 +327,20 @@ public class NettyClientStreamTest extends NettyStreamTestBase<NettyClientStream
         .get(Metadata.Key.of("Content-Type", Metadata.ASCII_STRING_MARSHALLER)));
   }
 
+  @Test
+  public void malformedBinaryHeaderShouldCancelStream() {
+    stream().transportState().setId(STREAM_ID);
+    Http2Headers headers = grpcResponseHeaders();
+    headers.set(new AsciiString("grpc-trace-bin"), new AsciiString("not base64!"));
+    stream().transportState().transportHeadersReceived(headers, false);
+
+    verify(writeQueue).enqueue(any(CancelClientStreamCommand.class), eq(true));
+    ArgumentCaptor<Status> captor = ArgumentCaptor.forClass(Status.class);
+    verify(listener).closed(captor.capture(), any(Metadata.class));
+    assertEquals(Status.Code.INTERNAL, captor.getValue().getCode());
+    assertTrue(captor.getValue().getCause() instanceof IllegalArgumentException);
+  }
+
   @Test
   public void nonGrpcResponseShouldSetStatus() throws Exception {
     stream().transportState().transportDataReceived(Unpooled.copiedBuffer(MESSAGE, UTF_8), true);
@@ -387,7 +409,7 @@ public class NettyClientStreamTest extends NettyStreamTestBase<NettyClientStream
     listener = mock(ClientStreamListener.class);
 
     stream = new NettyClientStream(new TransportStateImpl(handler, DEFAULT_MAX_MESSAGE_SIZE),
-        methodDescriptor, new Metadata(), channel, AsciiString.of("localhost"),
+        methodDescriptor, new Metadata(), channel, requestTemplates, AsciiString.of("localhost"),
         AsciiString.of("http"), AsciiString.of("agent"), StatsTraceContext.NOOP);
     stream.start(listener);
     stream().transportState().setId(STREAM_ID);
@@ -407,7 +429,7 @@ public class NettyClientStreamTest extends NettyStreamTestBase<NettyClientStream
     when(writeQueue.enqueue(any(QueuedCommand.class), any(boolean.class))).thenReturn(future);
 
     stream = new NettyClientStream(new TransportStateImpl(handler, DEFAULT_MAX_MESSAGE_SIZE),
-        methodDescriptor, new Metadata(), channel, AsciiString.of("localhost"),
+        methodDescriptor, new Metadata(), channel, requestTemplates, AsciiString.of("localhost"),
         AsciiString.of("http"), AsciiString.of("good agent"), StatsTraceContext.NOOP);
     stream.start(listener);
 
@@ -417,6 +439,44 @@ public class NettyClientStreamTest extends NettyStreamTestBase<NettyClientStream
         .containsEntry(Utils.USER_AGENT, AsciiString.of("good agent"));
   }
 
+  @Test
+  public void requestHeadersTemplateCachedPerTransport() {
+    // createStream() started a stream of the method on the transport
+    RequestTemplate template = requestTemplates.get(methodDescriptor);
+    assertNotNull(template);
+    new NettyClientStream(new TransportStateImpl(handler, DEFAULT_MAX_MESSAGE_SIZE),
+        methodDescriptor, new Metadata(), channel, requestTemplates, AsciiString.of("localhost"),
+        AsciiString.of("http"), AsciiString.of("agent"), StatsTraceContext.NOOP).start(listener);
+    assertSame(template, requestTemplates.get(methodDescriptor));
+
+    // A call overriding the authority does not change the template of the transport
+    Mockito.reset(writeQueue);
+    when(writeQueue.enqueue(any(QueuedCommand.class), any(boolean.class))).thenReturn(future);
+    NettyClientStream stream = new NettyClientStream(
+        new TransportStateImpl(handler, DEFAULT_MAX_MESSAGE_SIZE), methodDescriptor,
+        new Metadata(), channel, requestTemplates, AsciiString.of("localhost"),
+        AsciiString.of("http"), AsciiString.of("agent"), StatsTraceContext.NOOP);
+    stream.setAuthority("otherhost");
+    stream.start(listener);
+    assertSame(template, requestTemplates.get(methodDescriptor));
+    ArgumentCaptor<CreateStreamCommand> cmdCap = ArgumentCaptor.forClass(CreateStreamCommand.class);
+    verify(writeQueue).enqueue(cmdCap.capture(), eq(false));
+    ImmutableListMultimap<CharSequence, CharSequence> headers =
+        ImmutableListMultimap.copyOf(cmdCap.getValue().headers());
+    assertThat(headers).containsEntry(AsciiString.of(":authority"), AsciiString.of("otherhost"));
+    assertThat(headers)
+        .containsEntry(AsciiString.of(":path"), AsciiString.of("//testService/test"));
+
+    // Other transports have their own templates
+    ConcurrentMap<MethodDescriptor<?, ?>, RequestTemplate> otherTemplates =
+        new ConcurrentHashMap<MethodDescriptor<?, ?>, RequestTemplate>();
+    new NettyClientStream(new TransportStateImpl(handler, DEFAULT_MAX_MESSAGE_SIZE),
+        methodDescriptor, new Metadata(), channel, otherTemplates, AsciiString.of("otherhost"),
+        AsciiString.of("http"), AsciiString.of("agent"), StatsTraceContext.NOOP).start(listener);
+    assertNotNull(otherTemplates.get(methodDescriptor));
+    assertNotSame(template, otherTemplates.get(methodDescriptor));
+  }
+
   @Test
   public void getRequestSentThroughHeader() {
     // Creating a GET method
@@ -430,8 +490,8 @@ public class NettyClientStreamTest extends NettyStreamTestBase<NettyClientStream
         .build();
     NettyClientStream stream = new NettyClientStream(
         new TransportStateImpl(handler, DEFAULT_MAX_MESSAGE_SIZE), descriptor, new Metadata(),
-        channel, AsciiString.of("localhost"), AsciiString.of("http"), AsciiString.of("agent"),
-        StatsTraceContext.NOOP);
+        channel, requestTemplates, AsciiString.of("localhost"), AsciiString.of("http"),
+        AsciiString.of("agent"), StatsTraceContext.NOOP);
     stream.start(listener);
     stream.transportState().setId(STREAM_ID);
     stream.transportState().setHttp2Stream(http2Stream);
@@ -468,8 +528,8 @@ public class NettyClientStreamTest extends NettyStreamTestBase<NettyClientStream
     when(writeQueue.enqueue(any(QueuedCommand.class), anyBoolean())).thenReturn(future);
     NettyClientStream stream = new NettyClientStream(
         new TransportStateImpl(handler, DEFAULT_MAX_MESSAGE_SIZE), methodDescriptor, new Metadata(),
-        channel, AsciiString.of("localhost"), AsciiString.of("http"), AsciiString.of("agent"),
-        StatsTraceContext.NOOP);
+        channel, requestTemplates, AsciiString.of("localhost"), AsciiString.of("http"),
+        AsciiString.of("agent"), StatsTraceContext.NOOP);
     stream.start(listener);
     stream.transportState().setId(STREAM_ID);
     stream.transportState().setHttp2Stream(http2Stream);
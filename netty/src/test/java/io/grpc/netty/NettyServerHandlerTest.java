@@ -412,6 +412,26 @@ public class NettyServerHandlerTest extends NettyHandlerTestBase<NettyServerHand
     stream = streamCaptor.getValue();
   }
 
+  @Test
+  public void methodNameReusedForSamePath() throws Exception {
+    manualSetUp();
+    for (int streamId = STREAM_ID; streamId < STREAM_ID + 6; streamId += 2) {
+      Http2Headers headers = new DefaultHttp2Headers()
+          .method(HTTP_METHOD)
+          .set(CONTENT_TYPE_HEADER, CONTENT_TYPE_GRPC)
+          .set(TE_HEADER, TE_TRAILERS)
+          .path(new AsciiString(streamId == STREAM_ID + 2 ? "/foo/baz" : "/foo/bar"));
+      channelRead(headersFrame(streamId, headers));
+    }
+
+    ArgumentCaptor<String> methodCaptor = ArgumentCaptor.forClass(String.class);
+    verify(transportListener, times(3)).streamCreated(any(NettyServerStream.class),
+        methodCaptor.capture(), any(Metadata.class));
+    List<String> methods = methodCaptor.getAllValues();
+    assertEquals(Arrays.asList("foo/bar", "foo/baz", "foo/bar"), methods);
+    assertSame(methods.get(0), methods.get(2));
+  }
+
   @Test
   public void keepAliveManagerOnDataReceived_headersRead() throws Exception {
     manualSetUp();
@@ -737,6 +757,27 @@ public class NettyServerHandlerTest extends NettyHandlerTestBase<NettyServerHand
     assertTrue(!channel().isOpen());
   }
 
+  @Test
+  public void gracefulCloseCommand_goAwaySentAndChannelClosedAfterGracePeriod() throws Exception {
+    maxConnectionAgeGraceInNanos = TimeUnit.MINUTES.toNanos(30L);
+    manualSetUp();
+    createStream();
+
+    enqueue(new GracefulCloseCommand(Status.UNAVAILABLE.withDescription("rebalance")));
+
+    ArgumentCaptor<ByteBuf> debugDataCaptor = ArgumentCaptor.forClass(ByteBuf.class);
+    verifyWrite().writeGoAway(
+        eq(ctx()), eq(Integer.MAX_VALUE), eq(Http2Error.NO_ERROR.code()),
+        debugDataCaptor.capture(), any(ChannelPromise.class));
+    assertEquals("rebalance", debugDataCaptor.getValue().toString(UTF_8));
+    assertTrue(channel().isOpen());
+
+    fakeClock().forwardNanos(maxConnectionAgeGraceInNanos);
+
+    // channel closed
+    assertTrue(!channel().isOpen());
+  }
+
   private void createStream() throws Exception {
     Http2Headers headers = new DefaultHttp2Headers()
         .method(HTTP_METHOD)
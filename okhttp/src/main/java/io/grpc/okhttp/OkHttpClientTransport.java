@@ -23,6 +23,8 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import com.squareup.okhttp.Credentials;
 import com.squareup.okhttp.HttpUrl;
@@ -36,15 +38,18 @@ import io.grpc.MethodDescriptor.MethodType;
 import io.grpc.Status;
 import io.grpc.Status.Code;
 import io.grpc.StatusException;
+import io.grpc.internal.Channelz;
 import io.grpc.internal.ConnectionClientTransport;
 import io.grpc.internal.GrpcUtil;
 import io.grpc.internal.Http2Ping;
+import io.grpc.internal.Instrumented;
 import io.grpc.internal.KeepAliveManager;
 import io.grpc.internal.KeepAliveManager.ClientKeepAlivePinger;
 import io.grpc.internal.LogId;
 import io.grpc.internal.SerializingExecutor;
 import io.grpc.internal.SharedResourceHolder;
 import io.grpc.internal.StatsTraceContext;
+import io.grpc.internal.TransportTracer;
 import io.grpc.okhttp.internal.ConnectionSpec;
 import io.grpc.okhttp.internal.framed.ErrorCode;
 import io.grpc.okhttp.internal.framed.FrameReader;
@@ -86,7 +91,8 @@ import okio.Timeout;
 /**
  * A okhttp-based {@link ConnectionClientTransport} implementation.
  */
-class OkHttpClientTransport implements ConnectionClientTransport {
+class OkHttpClientTransport
+    implements ConnectionClientTransport, Instrumented<Channelz.SocketStats> {
   private static final Map<ErrorCode, Status> ERROR_CODE_TO_STATUS = buildErrorCodeToStatusMap();
   private static final Logger log = Logger.getLogger(OkHttpClientTransport.class.getName());
   private static final OkHttpClientStream[] EMPTY_STREAM_ARRAY = new OkHttpClientStream[0];
@@ -132,6 +138,7 @@ class OkHttpClientTransport implements ConnectionClientTransport {
   private OutboundFlowController outboundFlow;
   private final Object lock = new Object();
   private final LogId logId = LogId.allocate(getClass().getName());
+  private final TransportTracer transportTracer = new TransportTracer();
   @GuardedBy("lock")
   private int nextStreamId;
   @GuardedBy("lock")
@@ -299,7 +306,9 @@ class OkHttpClientTransport implements ConnectionClientTransport {
       final Metadata headers, CallOptions callOptions) {
     Preconditions.checkNotNull(method, "method");
     Preconditions.checkNotNull(headers, "headers");
-    StatsTraceContext statsTraceCtx = StatsTraceContext.newClientContext(callOptions, headers);
+    transportTracer.reportLocalStreamStarted();
+    StatsTraceContext statsTraceCtx = StatsTraceContext.newClientContext(
+        callOptions, headers, transportTracer.getClientStreamTracer());
     return new OkHttpClientStream(method, headers, frameWriter, OkHttpClientTransport.this,
         outboundFlow, lock, maxMessageSize, defaultAuthority, userAgent, statsTraceCtx);
   }
@@ -378,6 +387,7 @@ class OkHttpClientTransport implements ConnectionClientTransport {
 
     frameWriter = new AsyncFrameWriter(this, serializingExecutor);
     outboundFlow = new OutboundFlowController(this, frameWriter);
+    Channelz.instance().addSocket(this);
     // Connecting in the serializingExecutor, so that some stream operations like synStream
     // will be executed after connected.
     serializingExecutor.execute(new Runnable() {
@@ -631,12 +641,30 @@ class OkHttpClientTransport implements ConnectionClientTransport {
     }
   }
 
+  @Override
+  public ListenableFuture<Channelz.SocketStats> getStats() {
+    synchronized (lock) {
+      // The local window is only tracked by the reader thread, so it is not reported.
+      Channelz.TransportStats data = transportTracer.getStats(-1, outboundFlow.connectionWindow());
+      if (socket == null) {
+        return Futures.immediateFuture(new Channelz.SocketStats(data, null, null));
+      }
+      return Futures.immediateFuture(new Channelz.SocketStats(
+          data, socket.getLocalSocketAddress(), socket.getRemoteSocketAddress()));
+    }
+  }
+
   @Override
   public Attributes getAttributes() {
     // TODO(zhangkun83): fill channel security attributes
     return Attributes.EMPTY;
   }
 
+  @Override
+  public TransportTracer getTransportTracer() {
+    return transportTracer;
+  }
+
   /**
    * Gets all active streams as an array.
    */
@@ -887,6 +915,7 @@ class OkHttpClientTransport implements ConnectionClientTransport {
         } catch (IOException ex) {
           log.log(Level.INFO, "Exception closing frame reader", ex);
         }
+        Channelz.instance().removeSocket(OkHttpClientTransport.this);
         listener.transportTerminated();
         if (!GrpcUtil.IS_RESTRICTED_APPENGINE) {
           // Restore the original thread name.
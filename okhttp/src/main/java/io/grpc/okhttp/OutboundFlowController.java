@@ -72,6 +72,15 @@ class OutboundFlowController {
     }
   }
 
+  /**
+   * Returns the bytes that may be sent on the connection.
+   *
+   * <p>Must be called with holding transport lock.
+   */
+  int connectionWindow() {
+    return connectionState.window();
+  }
+
   /**
    * Update the outbound window for given stream, or for the connection if stream is null.
    *
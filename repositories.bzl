@@ -10,6 +10,7 @@ def grpc_java_repositories(
     omit_com_google_protobuf=False,
     omit_com_google_protobuf_java=False,
     omit_com_google_protobuf_nano_protobuf_javanano=False,
+    omit_com_github_luben_zstd_jni=False,
     omit_com_squareup_okhttp=False,
     omit_com_squareup_okio=False,
     omit_io_netty_buffer=False,
@@ -23,7 +24,9 @@ def grpc_java_repositories(
     omit_io_netty_handler_proxy=False,
     omit_io_netty_resolver=False,
     omit_io_netty_tcnative_boringssl_static=False,
-    omit_io_opencensus_api=False):
+    omit_io_opencensus_api=False,
+    omit_org_lz4_lz4_java=False,
+    omit_org_xerial_snappy_snappy_java=False):
   """Imports dependencies for grpc-java."""
   if not omit_com_google_api_grpc_google_common_protos:
     com_google_api_grpc_google_common_protos()
@@ -43,6 +46,8 @@ def grpc_java_repositories(
     com_google_protobuf_java()
   if not omit_com_google_protobuf_nano_protobuf_javanano:
     com_google_protobuf_nano_protobuf_javanano()
+  if not omit_com_github_luben_zstd_jni:
+    com_github_luben_zstd_jni()
   if not omit_com_squareup_okhttp:
     com_squareup_okhttp()
   if not omit_com_squareup_okio:
@@ -71,6 +76,10 @@ def grpc_java_repositories(
     io_netty_tcnative_boringssl_static()
   if not omit_io_opencensus_api:
     io_opencensus_api()
+  if not omit_org_lz4_lz4_java:
+    org_lz4_lz4_java()
+  if not omit_org_xerial_snappy_snappy_java:
+    org_xerial_snappy_snappy_java()
   native.bind(
     name = "guava",
     actual = "@com_google_guava_guava//jar",
@@ -150,6 +159,13 @@ def com_google_protobuf_nano_protobuf_javanano():
       sha1 = "357e60f95cebb87c72151e49ba1f570d899734f8",
   )
 
+def com_github_luben_zstd_jni():
+  native.maven_jar(
+      name = "com_github_luben_zstd_jni",
+      artifact = "com.github.luben:zstd-jni:1.3.5-4",
+      sha1 = "550b6393a007d0867c98611ca8cfbcf53f2eb991",
+  )
+
 def com_squareup_okhttp():
   native.maven_jar(
       name = "com_squareup_okhttp_okhttp",
@@ -247,3 +263,17 @@ def io_opencensus_api():
       artifact = "io.opencensus:opencensus-api:0.5.1",
       sha1 = "cbd0a716a7d85ac34b83d86b13f0a6655e45c2ba",
   )
+
+def org_lz4_lz4_java():
+  native.maven_jar(
+      name = "org_lz4_lz4_java",
+      artifact = "org.lz4:lz4-java:1.4.0",
+      sha1 = "db5083b84299ad982a19677316da9a49363ad6e0",
+  )
+
+def org_xerial_snappy_snappy_java():
+  native.maven_jar(
+      name = "org_xerial_snappy_snappy_java",
+      artifact = "org.xerial.snappy:snappy-java:1.1.4",
+      sha1 = "d94ae6d7d27242eaa4b6c323f881edbb98e48da6",
+  )
@@ -0,0 +1,348 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.services;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.protobuf.Int64Value;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.NullValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import io.grpc.BindableService;
+import io.grpc.ExperimentalApi;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.internal.Channelz;
+import io.grpc.internal.Channelz.ChannelStats;
+import io.grpc.internal.Channelz.ServerStats;
+import io.grpc.internal.Channelz.SocketStats;
+import io.grpc.internal.Channelz.TransportStats;
+import io.grpc.internal.Instrumented;
+import io.grpc.internal.LogId;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.ServerCalls.UnaryMethod;
+import io.grpc.stub.StreamObserver;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * A service exposing the channels, subchannels, servers and sockets registered in {@link
+ * Channelz}, to inspect a running process.
+ *
+ * <p>Each entity is looked up by the id it logs with, and is returned as a {@link Struct} whose
+ * field names follow the channelz protos. Ids and counters are rendered as strings, as in the JSON
+ * mapping of 64-bit integers, so that they do not lose precision. The top channels and servers are
+ * paged: a request with a start id returns the entities with that id or greater, and {@code "end"}
+ * is {@code true} once the last page is reached.
+ *
+ * <p>This is not the channelz service of the gRPC specification: requests are {@link Int64Value}s
+ * and responses are {@link Struct}s rather than the channelz messages, so it is registered under
+ * the private name {@value #SERVICE_NAME} and tools expecting {@code grpc.channelz.v1} will not
+ * find it.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/2776")
+public final class ChannelzService implements BindableService {
+  public static final String SERVICE_NAME = "grpc.channelz.experimental.StructChannelz";
+
+  private static final int DEFAULT_MAX_PAGE_SIZE = 100;
+
+  @VisibleForTesting
+  static final MethodDescriptor<Int64Value, Struct> METHOD_GET_TOP_CHANNELS =
+      newMethod("GetTopChannels");
+  @VisibleForTesting
+  static final MethodDescriptor<Int64Value, Struct> METHOD_GET_SERVERS = newMethod("GetServers");
+  @VisibleForTesting
+  static final MethodDescriptor<Int64Value, Struct> METHOD_GET_CHANNEL = newMethod("GetChannel");
+  @VisibleForTesting
+  static final MethodDescriptor<Int64Value, Struct> METHOD_GET_SUBCHANNEL =
+      newMethod("GetSubchannel");
+  @VisibleForTesting
+  static final MethodDescriptor<Int64Value, Struct> METHOD_GET_SOCKET = newMethod("GetSocket");
+
+  private final Channelz channelz;
+  private final int maxPageSize;
+
+  /**
+   * Creates a service exposing the registry of the process, returning at most {@code maxPageSize}
+   * channels or servers per call.
+   */
+  public static ChannelzService newInstance(int maxPageSize) {
+    return new ChannelzService(Channelz.instance(), maxPageSize);
+  }
+
+  /**
+   * Creates a service exposing the registry of the process.
+   */
+  public static ChannelzService newInstance() {
+    return newInstance(DEFAULT_MAX_PAGE_SIZE);
+  }
+
+  @VisibleForTesting
+  ChannelzService(Channelz channelz, int maxPageSize) {
+    checkArgument(maxPageSize > 0, "maxPageSize must be positive");
+    this.channelz = checkNotNull(channelz, "channelz");
+    this.maxPageSize = maxPageSize;
+  }
+
+  @Override
+  public ServerServiceDefinition bindService() {
+    return ServerServiceDefinition.builder(SERVICE_NAME)
+        .addMethod(METHOD_GET_TOP_CHANNELS, ServerCalls.asyncUnaryCall(
+            new UnaryMethod<Int64Value, Struct>() {
+              @Override
+              public void invoke(Int64Value request, StreamObserver<Struct> responseObserver) {
+                getTopChannels(request.getValue(), responseObserver);
+              }
+            }))
+        .addMethod(METHOD_GET_SERVERS, ServerCalls.asyncUnaryCall(
+            new UnaryMethod<Int64Value, Struct>() {
+              @Override
+              public void invoke(Int64Value request, StreamObserver<Struct> responseObserver) {
+                getServers(request.getValue(), responseObserver);
+              }
+            }))
+        .addMethod(METHOD_GET_CHANNEL, ServerCalls.asyncUnaryCall(
+            new UnaryMethod<Int64Value, Struct>() {
+              @Override
+              public void invoke(Int64Value request, StreamObserver<Struct> responseObserver) {
+                Instrumented<ChannelStats> channel = channelz.getRootChannel(request.getValue());
+                if (channel == null) {
+                  responseObserver.onError(notFound("channel", request.getValue()));
+                  return;
+                }
+                sendResponse(toStruct(channel, "channel_id"), responseObserver);
+              }
+            }))
+        .addMethod(METHOD_GET_SUBCHANNEL, ServerCalls.asyncUnaryCall(
+            new UnaryMethod<Int64Value, Struct>() {
+              @Override
+              public void invoke(Int64Value request, StreamObserver<Struct> responseObserver) {
+                Instrumented<ChannelStats> subchannel = channelz.getSubchannel(request.getValue());
+                if (subchannel == null) {
+                  responseObserver.onError(notFound("subchannel", request.getValue()));
+                  return;
+                }
+                sendResponse(toStruct(subchannel, "subchannel_id"), responseObserver);
+              }
+            }))
+        .addMethod(METHOD_GET_SOCKET, ServerCalls.asyncUnaryCall(
+            new UnaryMethod<Int64Value, Struct>() {
+              @Override
+              public void invoke(Int64Value request, StreamObserver<Struct> responseObserver) {
+                Instrumented<SocketStats> socket = channelz.getSocket(request.getValue());
+                if (socket == null) {
+                  responseObserver.onError(notFound("socket", request.getValue()));
+                  return;
+                }
+                sendResponse(toSocketStruct(socket), responseObserver);
+              }
+            }))
+        .build();
+  }
+
+  private void getTopChannels(long startId, StreamObserver<Struct> responseObserver) {
+    // Ask for one more, to tell whether this is the last page
+    List<Instrumented<ChannelStats>> channels = channelz.getRootChannels(startId, maxPageSize + 1);
+    boolean end = channels.size() <= maxPageSize;
+    if (!end) {
+      channels = channels.subList(0, maxPageSize);
+    }
+    List<ListenableFuture<Struct>> structs = new ArrayList<ListenableFuture<Struct>>();
+    for (Instrumented<ChannelStats> channel : channels) {
+      structs.add(toStruct(channel, "channel_id"));
+    }
+    sendResponse(toPage("channel", structs, end), responseObserver);
+  }
+
+  private void getServers(long startId, StreamObserver<Struct> responseObserver) {
+    List<Instrumented<ServerStats>> servers = channelz.getServers(startId, maxPageSize + 1);
+    boolean end = servers.size() <= maxPageSize;
+    if (!end) {
+      servers = servers.subList(0, maxPageSize);
+    }
+    List<ListenableFuture<Struct>> structs = new ArrayList<ListenableFuture<Struct>>();
+    for (Instrumented<ServerStats> server : servers) {
+      structs.add(toServerStruct(server));
+    }
+    sendResponse(toPage("server", structs, end), responseObserver);
+  }
+
+  private static ListenableFuture<Struct> toPage(
+      final String fieldName, List<ListenableFuture<Struct>> structs, final boolean end) {
+    return Futures.transform(Futures.allAsList(structs), new Function<List<Struct>, Struct>() {
+      @Override
+      public Struct apply(List<Struct> input) {
+        ListValue.Builder list = ListValue.newBuilder();
+        for (Struct struct : input) {
+          list.addValues(Value.newBuilder().setStructValue(struct));
+        }
+        return Struct.newBuilder()
+            .putFields(fieldName, Value.newBuilder().setListValue(list).build())
+            .putFields("end", Value.newBuilder().setBoolValue(end).build())
+            .build();
+      }
+    });
+  }
+
+  private static ListenableFuture<Struct> toStruct(
+      Instrumented<ChannelStats> channel, final String idName) {
+    final LogId logId = channel.getLogId();
+    return Futures.transform(channel.getStats(), new Function<ChannelStats, Struct>() {
+      @Override
+      public Struct apply(ChannelStats stats) {
+        Struct.Builder data = Struct.newBuilder()
+            .putFields("target", stringValue(stats.target))
+            .putFields("state", stringValue(stats.state == null ? "UNKNOWN" : stats.state.name()))
+            .putFields("calls_started", longValue(stats.callsStarted))
+            .putFields("calls_succeeded", longValue(stats.callsSucceeded))
+            .putFields("calls_failed", longValue(stats.callsFailed))
+            .putFields("last_call_started_millis", longValue(stats.lastCallStartedMillis));
+        return Struct.newBuilder()
+            .putFields("ref", ref(idName, logId))
+            .putFields("data", Value.newBuilder().setStructValue(data).build())
+            .putFields("subchannel_ref", refs("subchannel_id", stats.subchannels))
+            .putFields("socket_ref", refs("socket_id", stats.sockets))
+            .build();
+      }
+    });
+  }
+
+  private static ListenableFuture<Struct> toServerStruct(Instrumented<ServerStats> server) {
+    final LogId logId = server.getLogId();
+    return Futures.transform(server.getStats(), new Function<ServerStats, Struct>() {
+      @Override
+      public Struct apply(ServerStats stats) {
+        Struct.Builder data = Struct.newBuilder()
+            .putFields("calls_started", longValue(stats.callsStarted))
+            .putFields("calls_succeeded", longValue(stats.callsSucceeded))
+            .putFields("calls_failed", longValue(stats.callsFailed))
+            .putFields("last_call_started_millis", longValue(stats.lastCallStartedMillis));
+        return Struct.newBuilder()
+            .putFields("ref", ref("server_id", logId))
+            .putFields("data", Value.newBuilder().setStructValue(data).build())
+            .putFields("socket_ref", refs("socket_id", stats.sockets))
+            .build();
+      }
+    });
+  }
+
+  private static ListenableFuture<Struct> toSocketStruct(Instrumented<SocketStats> socket) {
+    final LogId logId = socket.getLogId();
+    return Futures.transform(socket.getStats(), new Function<SocketStats, Struct>() {
+      @Override
+      public Struct apply(SocketStats stats) {
+        TransportStats transport = stats.data;
+        Struct.Builder data = Struct.newBuilder()
+            .putFields("streams_started", longValue(transport.streamsStarted))
+            .putFields("streams_succeeded", longValue(transport.streamsSucceeded))
+            .putFields("streams_failed", longValue(transport.streamsFailed))
+            .putFields("messages_sent", longValue(transport.messagesSent))
+            .putFields("messages_received", longValue(transport.messagesReceived))
+            .putFields("bytes_sent", longValue(transport.bytesSent))
+            .putFields("bytes_received", longValue(transport.bytesReceived))
+            .putFields("last_local_stream_created_millis",
+                longValue(transport.lastLocalStreamCreatedMillis))
+            .putFields("last_remote_stream_created_millis",
+                longValue(transport.lastRemoteStreamCreatedMillis))
+            .putFields("last_message_sent_millis", longValue(transport.lastMessageSentMillis))
+            .putFields("last_message_received_millis",
+                longValue(transport.lastMessageReceivedMillis))
+            .putFields("local_flow_control_window", longValue(transport.localFlowControlWindow))
+            .putFields("remote_flow_control_window",
+                longValue(transport.remoteFlowControlWindow));
+        return Struct.newBuilder()
+            .putFields("ref", ref("socket_id", logId))
+            .putFields("data", Value.newBuilder().setStructValue(data).build())
+            .putFields("local", addressValue(stats.local))
+            .putFields("remote", addressValue(stats.remote))
+            .build();
+      }
+    });
+  }
+
+  private static void sendResponse(
+      ListenableFuture<Struct> response, final StreamObserver<Struct> responseObserver) {
+    Futures.addCallback(response, new FutureCallback<Struct>() {
+      @Override
+      public void onSuccess(Struct result) {
+        responseObserver.onNext(result);
+        responseObserver.onCompleted();
+      }
+
+      @Override
+      public void onFailure(Throwable t) {
+        responseObserver.onError(
+            Status.UNAVAILABLE.withDescription("Failed to get the stats").withCause(t)
+                .asRuntimeException());
+      }
+    });
+  }
+
+  private static MethodDescriptor<Int64Value, Struct> newMethod(String methodName) {
+    return MethodDescriptor.<Int64Value, Struct>newBuilder()
+        .setType(MethodDescriptor.MethodType.UNARY)
+        .setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE_NAME, methodName))
+        .setRequestMarshaller(ProtoUtils.marshaller(Int64Value.getDefaultInstance()))
+        .setResponseMarshaller(ProtoUtils.marshaller(Struct.getDefaultInstance()))
+        .build();
+  }
+
+  private static RuntimeException notFound(String entity, long id) {
+    return Status.NOT_FOUND.withDescription("Can't find " + entity + " " + id)
+        .asRuntimeException();
+  }
+
+  private static Value ref(String idName, LogId logId) {
+    return Value.newBuilder()
+        .setStructValue(Struct.newBuilder().putFields(idName, longValue(logId.getId())))
+        .build();
+  }
+
+  private static Value refs(String idName, List<LogId> logIds) {
+    ListValue.Builder list = ListValue.newBuilder();
+    for (LogId logId : logIds) {
+      list.addValues(ref(idName, logId));
+    }
+    return Value.newBuilder().setListValue(list).build();
+  }
+
+  private static Value addressValue(@Nullable SocketAddress address) {
+    if (address == null) {
+      return Value.newBuilder().setNullValue(NullValue.NULL_VALUE).build();
+    }
+    return stringValue(address.toString());
+  }
+
+  private static Value longValue(long value) {
+    return stringValue(Long.toString(value));
+  }
+
+  private static Value stringValue(String value) {
+    return Value.newBuilder().setStringValue(value).build();
+  }
+}
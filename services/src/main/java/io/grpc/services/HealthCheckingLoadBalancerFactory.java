@@ -0,0 +1,303 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.services;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.grpc.ConnectivityState.CONNECTING;
+import static io.grpc.ConnectivityState.IDLE;
+import static io.grpc.ConnectivityState.READY;
+import static io.grpc.ConnectivityState.SHUTDOWN;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.ExperimentalApi;
+import io.grpc.LoadBalancer;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse;
+import io.grpc.health.v1.HealthCheckResponse.ServingStatus;
+import io.grpc.internal.GrpcUtil;
+import io.grpc.internal.LogExceptionRunnable;
+import io.grpc.internal.ObjectPool;
+import io.grpc.internal.SharedResourcePool;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link LoadBalancer.Factory} that adds client-side health checking to the {@link LoadBalancer}s
+ * of another factory, e.g. {@link io.grpc.util.RoundRobinLoadBalancerFactory}.
+ *
+ * <p>Once a subchannel is connected, a {@code grpc.health.v1.Health/Watch} stream is opened on it,
+ * and the subchannel is only reported {@link io.grpc.ConnectivityState#READY READY} to the
+ * delegate balancer while the server reports the service as {@code SERVING}. The delegate sees it
+ * in {@link io.grpc.ConnectivityState#TRANSIENT_FAILURE TRANSIENT_FAILURE} otherwise, so draining
+ * or {@code NOT_SERVING} servers stop receiving calls before their connections break. Servers that
+ * don't implement the health service are assumed healthy.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/1771")
+public final class HealthCheckingLoadBalancerFactory extends LoadBalancer.Factory {
+  private final LoadBalancer.Factory delegateFactory;
+  private final String serviceName;
+
+  private HealthCheckingLoadBalancerFactory(LoadBalancer.Factory delegateFactory,
+      String serviceName) {
+    this.delegateFactory = checkNotNull(delegateFactory, "delegateFactory");
+    this.serviceName = checkNotNull(serviceName, "serviceName");
+  }
+
+  /**
+   * Creates a factory checking the health of {@code serviceName} for the balancers of {@code
+   * delegateFactory}.
+   *
+   * @param serviceName the service whose health is checked, as registered in the {@link
+   *     HealthStatusManager} of the servers. It can be empty for the health of the whole server.
+   */
+  public static HealthCheckingLoadBalancerFactory newInstance(
+      LoadBalancer.Factory delegateFactory, String serviceName) {
+    return new HealthCheckingLoadBalancerFactory(delegateFactory, serviceName);
+  }
+
+  @Override
+  public LoadBalancer newLoadBalancer(LoadBalancer.Helper helper) {
+    return new HealthCheckingLoadBalancer(helper, delegateFactory, serviceName,
+        SharedResourcePool.forResource(GrpcUtil.TIMER_SERVICE), new Random());
+  }
+
+  @VisibleForTesting
+  static final class HealthCheckingLoadBalancer extends LoadBalancer {
+    private static final Logger logger =
+        Logger.getLogger(HealthCheckingLoadBalancer.class.getName());
+
+    @VisibleForTesting
+    static final long INITIAL_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+    @VisibleForTesting
+    static final long MAX_BACKOFF_NANOS = TimeUnit.MINUTES.toNanos(2);
+    // Same as the reconnection backoff of subchannels
+    private static final double BACKOFF_MULTIPLIER = 1.6;
+    private static final double BACKOFF_JITTER = .2;
+
+    private final Helper helper;
+    private final LoadBalancer delegate;
+    private final HealthCheckRequest request;
+    private final ObjectPool<ScheduledExecutorService> timerServicePool;
+    private final ScheduledExecutorService timerService;
+    private final Random random;
+    private final Map<Subchannel, HealthCheckState> healthCheckStates =
+        new HashMap<Subchannel, HealthCheckState>();
+    private boolean shutdown;
+
+    HealthCheckingLoadBalancer(Helper helper, LoadBalancer.Factory delegateFactory,
+        String serviceName, ObjectPool<ScheduledExecutorService> timerServicePool, Random random) {
+      this.helper = checkNotNull(helper, "helper");
+      this.delegate = checkNotNull(delegateFactory.newLoadBalancer(helper), "delegate");
+      this.request = HealthCheckRequest.newBuilder().setService(serviceName).build();
+      this.timerServicePool = checkNotNull(timerServicePool, "timerServicePool");
+      this.timerService = checkNotNull(timerServicePool.getObject(), "timerService");
+      this.random = checkNotNull(random, "random");
+    }
+
+    @Override
+    public void handleResolvedAddressGroups(
+        List<EquivalentAddressGroup> servers, Attributes attributes) {
+      delegate.handleResolvedAddressGroups(servers, attributes);
+    }
+
+    @Override
+    public void handleNameResolutionError(Status error) {
+      delegate.handleNameResolutionError(error);
+    }
+
+    @Override
+    public void handleSubchannelState(Subchannel subchannel, ConnectivityStateInfo stateInfo) {
+      HealthCheckState state = healthCheckStates.get(subchannel);
+      if (state == null) {
+        if (stateInfo.getState() == SHUTDOWN) {
+          delegate.handleSubchannelState(subchannel, stateInfo);
+          return;
+        }
+        state = new HealthCheckState(subchannel);
+        healthCheckStates.put(subchannel, state);
+      }
+      if (stateInfo.getState() == SHUTDOWN) {
+        healthCheckStates.remove(subchannel);
+      }
+      state.handleRawState(stateInfo);
+    }
+
+    @Override
+    public void shutdown() {
+      shutdown = true;
+      for (HealthCheckState state : healthCheckStates.values()) {
+        state.stop();
+      }
+      healthCheckStates.clear();
+      delegate.shutdown();
+      timerServicePool.returnObject(timerService);
+    }
+
+    /**
+     * The health checking of one subchannel.  All its methods are run serialized by the channel.
+     */
+    private final class HealthCheckState {
+      final Subchannel subchannel;
+      ConnectivityStateInfo rawState = ConnectivityStateInfo.forNonError(IDLE);
+      @Nullable
+      ClientCall<HealthCheckRequest, HealthCheckResponse> call;
+      @Nullable
+      ScheduledFuture<?> retryTimer;
+      long nextBackoffNanos = INITIAL_BACKOFF_NANOS;
+
+      HealthCheckState(Subchannel subchannel) {
+        this.subchannel = subchannel;
+      }
+
+      void handleRawState(ConnectivityStateInfo stateInfo) {
+        rawState = stateInfo;
+        if (stateInfo.getState() != READY) {
+          stop();
+          reportState(stateInfo);
+          return;
+        }
+        if (call == null && retryTimer == null) {
+          // Not ready for calls until the server says it is serving
+          reportState(ConnectivityStateInfo.forNonError(CONNECTING));
+          startCall();
+        }
+      }
+
+      void startCall() {
+        final ClientCall<HealthCheckRequest, HealthCheckResponse> newCall =
+            subchannel.asChannel().newCall(HealthServiceImpl.METHOD_WATCH, CallOptions.DEFAULT);
+        call = newCall;
+        newCall.start(new ClientCall.Listener<HealthCheckResponse>() {
+          @Override
+          public void onMessage(final HealthCheckResponse response) {
+            helper.runSerialized(new Runnable() {
+              @Override
+              public void run() {
+                if (call == newCall) {
+                  handleResponse(response);
+                }
+              }
+            });
+          }
+
+          @Override
+          public void onClose(final Status status, Metadata trailers) {
+            helper.runSerialized(new Runnable() {
+              @Override
+              public void run() {
+                if (call == newCall) {
+                  call = null;
+                  handleStreamClosed(status);
+                }
+              }
+            });
+          }
+        }, new Metadata());
+        newCall.sendMessage(request);
+        newCall.halfClose();
+        newCall.request(1);
+      }
+
+      void handleResponse(HealthCheckResponse response) {
+        nextBackoffNanos = INITIAL_BACKOFF_NANOS;
+        call.request(1);
+        ServingStatus status = response.getStatus();
+        if (status == ServingStatus.SERVING) {
+          reportState(ConnectivityStateInfo.forNonError(READY));
+        } else {
+          reportState(ConnectivityStateInfo.forTransientFailure(Status.UNAVAILABLE.withDescription(
+              "Health check of '" + request.getService() + "' returned " + status)));
+        }
+      }
+
+      void handleStreamClosed(Status status) {
+        if (rawState.getState() != READY) {
+          return;
+        }
+        if (status.getCode() == Status.Code.UNIMPLEMENTED) {
+          logger.log(Level.WARNING,
+              "{0} does not implement health checking, assuming it is healthy",
+              subchannel.getAddresses());
+          reportState(rawState);
+          return;
+        }
+        reportState(ConnectivityStateInfo.forTransientFailure(
+            Status.UNAVAILABLE.withDescription("Health check stream failed").withCause(
+                status.asException())));
+        retryTimer = timerService.schedule(new LogExceptionRunnable(new Runnable() {
+          @Override
+          public void run() {
+            helper.runSerialized(new Runnable() {
+              @Override
+              public void run() {
+                if (retryTimer == null) {
+                  return;
+                }
+                retryTimer = null;
+                if (rawState.getState() == READY) {
+                  startCall();
+                }
+              }
+            });
+          }
+        }), nextBackoffNanos(), TimeUnit.NANOSECONDS);
+      }
+
+      long nextBackoffNanos() {
+        long backoffNanos = nextBackoffNanos;
+        nextBackoffNanos = Math.min((long) (backoffNanos * BACKOFF_MULTIPLIER), MAX_BACKOFF_NANOS);
+        // Uniformly random within +/- BACKOFF_JITTER, so that the servers are not all retried at
+        // the same time
+        return backoffNanos
+            + (long) ((random.nextDouble() * 2 - 1) * BACKOFF_JITTER * backoffNanos);
+      }
+
+      void stop() {
+        if (call != null) {
+          call.cancel("Health checking stopped", null);
+          call = null;
+        }
+        if (retryTimer != null) {
+          retryTimer.cancel(false);
+          retryTimer = null;
+        }
+        nextBackoffNanos = INITIAL_BACKOFF_NANOS;
+      }
+
+      void reportState(ConnectivityStateInfo stateInfo) {
+        if (!shutdown) {
+          delegate.handleSubchannelState(subchannel, stateInfo);
+        }
+      }
+    }
+  }
+}
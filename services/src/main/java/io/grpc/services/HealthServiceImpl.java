@@ -16,19 +16,57 @@
 
 package io.grpc.services;
 
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.ServiceDescriptor;
 import io.grpc.Status;
 import io.grpc.StatusException;
+import io.grpc.StatusRuntimeException;
 import io.grpc.health.v1.HealthCheckRequest;
 import io.grpc.health.v1.HealthCheckResponse;
 import io.grpc.health.v1.HealthCheckResponse.ServingStatus;
 import io.grpc.health.v1.HealthGrpc;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.ServerCalls.ServerStreamingMethod;
+import io.grpc.stub.ServerCalls.UnaryMethod;
 import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 
 
-final class HealthServiceImpl extends HealthGrpc.HealthImplBase {
+final class HealthServiceImpl implements BindableService {
+
+  /**
+   * Streams the serving status of the service: the current status right away, then every change.
+   * Unlike Check, an unknown service is not an error: UNKNOWN is sent until its status is set.
+   *
+   * <p>Watch is not in the generated {@link HealthGrpc} yet, so its descriptor is built here.
+   */
+  static final MethodDescriptor<HealthCheckRequest, HealthCheckResponse> METHOD_WATCH =
+      MethodDescriptor.<HealthCheckRequest, HealthCheckResponse>newBuilder()
+          .setType(MethodDescriptor.MethodType.SERVER_STREAMING)
+          .setFullMethodName(
+              MethodDescriptor.generateFullMethodName(HealthGrpc.SERVICE_NAME, "Watch"))
+          .setRequestMarshaller(ProtoUtils.marshaller(HealthCheckRequest.getDefaultInstance()))
+          .setResponseMarshaller(ProtoUtils.marshaller(HealthCheckResponse.getDefaultInstance()))
+          .build();
+
+  private static final ServiceDescriptor SERVICE_DESCRIPTOR =
+      ServiceDescriptor.newBuilder(HealthGrpc.SERVICE_NAME)
+          .setSchemaDescriptor(HealthGrpc.getServiceDescriptor().getSchemaDescriptor())
+          .addMethod(HealthGrpc.METHOD_CHECK)
+          .addMethod(METHOD_WATCH)
+          .build();
 
   /* Due to the latency of rpc calls, synchronization of the map does not help with consistency.
    * However, need use ConcurrentHashMap to prevent the possible race condition of concurrently
@@ -36,21 +74,93 @@ final class HealthServiceImpl extends HealthGrpc.HealthImplBase {
   private final Map<String, ServingStatus> statusMap
       = new ConcurrentHashMap<String, ServingStatus>();
 
+  /* Status changes are versioned under this lock, so that a watcher never receives a status older
+   * than one it has already received, and doesn't miss any change made after it started. The
+   * responses are sent outside of the lock.*/
+  private final Object watchLock = new Object();
+  @GuardedBy("watchLock")
+  private final Map<String, Set<Watcher>> watchers = new HashMap<String, Set<Watcher>>();
+  @GuardedBy("watchLock")
+  private long statusVersion;
+
   @Override
-  public void check(HealthCheckRequest request,
+  public ServerServiceDefinition bindService() {
+    return ServerServiceDefinition.builder(SERVICE_DESCRIPTOR)
+        .addMethod(HealthGrpc.METHOD_CHECK, ServerCalls.asyncUnaryCall(
+            new UnaryMethod<HealthCheckRequest, HealthCheckResponse>() {
+              @Override
+              public void invoke(HealthCheckRequest request,
+                  StreamObserver<HealthCheckResponse> responseObserver) {
+                check(request, responseObserver);
+              }
+            }))
+        .addMethod(METHOD_WATCH, ServerCalls.asyncServerStreamingCall(
+            new ServerStreamingMethod<HealthCheckRequest, HealthCheckResponse>() {
+              @Override
+              public void invoke(HealthCheckRequest request,
+                  StreamObserver<HealthCheckResponse> responseObserver) {
+                watch(request, responseObserver);
+              }
+            }))
+        .build();
+  }
+
+  void check(HealthCheckRequest request,
       StreamObserver<HealthCheckResponse> responseObserver) {
     ServingStatus status = getStatus(request.getService());
     if (status == null) {
       responseObserver.onError(new StatusException(Status.NOT_FOUND));
     } else {
-      HealthCheckResponse response = HealthCheckResponse.newBuilder().setStatus(status).build();
-      responseObserver.onNext(response);
+      responseObserver.onNext(getResponse(status));
       responseObserver.onCompleted();
     }
   }
 
+  void watch(HealthCheckRequest request, StreamObserver<HealthCheckResponse> responseObserver) {
+    final String service = request.getService();
+    final Watcher watcher = new Watcher(responseObserver);
+    ServingStatus status;
+    long version;
+    synchronized (watchLock) {
+      status = getStatus(service);
+      version = statusVersion;
+      Set<Watcher> serviceWatchers = watchers.get(service);
+      if (serviceWatchers == null) {
+        serviceWatchers = new LinkedHashSet<Watcher>();
+        watchers.put(service, serviceWatchers);
+      }
+      serviceWatchers.add(watcher);
+    }
+    ((ServerCallStreamObserver<HealthCheckResponse>) responseObserver).setOnCancelHandler(
+        new Runnable() {
+          @Override
+          public void run() {
+            synchronized (watchLock) {
+              Set<Watcher> serviceWatchers = watchers.get(service);
+              if (serviceWatchers != null) {
+                serviceWatchers.remove(watcher);
+                if (serviceWatchers.isEmpty()) {
+                  watchers.remove(service);
+                }
+              }
+            }
+          }
+        });
+    watcher.send(version, status == null ? ServingStatus.UNKNOWN : status);
+  }
+
   void setStatus(String service, ServingStatus status) {
-    statusMap.put(service, status);
+    List<Watcher> toNotify;
+    long version;
+    synchronized (watchLock) {
+      ServingStatus previous = statusMap.put(service, status);
+      if (previous == status) {
+        return;
+      }
+      version = ++statusVersion;
+      toNotify = getWatchers(service);
+    }
+    notifyWatchers(toNotify, version, status);
   }
 
   @Nullable
@@ -59,6 +169,66 @@ final class HealthServiceImpl extends HealthGrpc.HealthImplBase {
   }
 
   void clearStatus(String service) {
-    statusMap.remove(service);
+    List<Watcher> toNotify;
+    long version;
+    synchronized (watchLock) {
+      ServingStatus previous = statusMap.remove(service);
+      if (previous == null || previous == ServingStatus.UNKNOWN) {
+        return;
+      }
+      version = ++statusVersion;
+      toNotify = getWatchers(service);
+    }
+    notifyWatchers(toNotify, version, ServingStatus.UNKNOWN);
+  }
+
+  @GuardedBy("watchLock")
+  private List<Watcher> getWatchers(String service) {
+    Set<Watcher> serviceWatchers = watchers.get(service);
+    if (serviceWatchers == null) {
+      return null;
+    }
+    return new ArrayList<Watcher>(serviceWatchers);
+  }
+
+  private static void notifyWatchers(
+      @Nullable List<Watcher> toNotify, long version, ServingStatus status) {
+    if (toNotify == null) {
+      return;
+    }
+    for (Watcher watcher : toNotify) {
+      watcher.send(version, status);
+    }
+  }
+
+  private static HealthCheckResponse getResponse(ServingStatus status) {
+    return HealthCheckResponse.newBuilder().setStatus(status).build();
+  }
+
+  /**
+   * A Watch call.  Its lock serializes the responses, which may be sent by concurrent status
+   * changes.
+   */
+  private static final class Watcher {
+    final StreamObserver<HealthCheckResponse> responseObserver;
+    @GuardedBy("this")
+    long sentVersion = -1;
+
+    Watcher(StreamObserver<HealthCheckResponse> responseObserver) {
+      this.responseObserver = responseObserver;
+    }
+
+    synchronized void send(long version, ServingStatus status) {
+      if (version <= sentVersion) {
+        // A newer status has already been sent
+        return;
+      }
+      sentVersion = version;
+      try {
+        responseObserver.onNext(getResponse(status));
+      } catch (StatusRuntimeException e) {
+        // The call was cancelled, and its cancel handler will remove it
+      }
+    }
   }
 }
@@ -61,7 +61,7 @@ public final class HealthStatusManager {
 
   /**
    * Clears the health status record of a service. The health service will respond with NOT_FOUND
-   * error on checking the status of a cleared service.
+   * error on checking the status of a cleared service, and will send UNKNOWN to its watchers.
    * @param service the name of some aspect of the server that is associated with a health status.
    *     This name can have no relation with the gRPC services that the server is running with.
    *     It can also be an empty String {@code ""} per the gRPC specification.
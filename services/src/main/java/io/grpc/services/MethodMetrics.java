@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.services;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import io.grpc.Status;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * The latency, message sizes and status codes of the RPCs of a method. RPCs are recorded without
+ * locking, into {@link Recorder}s, and {@link #snapshot} takes the histogram of the RPCs recorded
+ * since the previous snapshot.
+ */
+@ThreadSafe
+final class MethodMetrics {
+  // Value quantization will be no more than 1%. The histograms are auto-resized, so that they only
+  // use the memory needed by the largest value recorded.
+  private static final int HISTOGRAM_PRECISION = 2;
+
+  private final String fullMethodName;
+  private final Recorder latencyMicros = new Recorder(HISTOGRAM_PRECISION);
+  private final Recorder requestBytes = new Recorder(HISTOGRAM_PRECISION);
+  private final Recorder responseBytes = new Recorder(HISTOGRAM_PRECISION);
+  private final AtomicLongArray statusCodes = new AtomicLongArray(Status.Code.values().length);
+
+  @GuardedBy("this")
+  private final Histogram totalLatencyMicros = new Histogram(HISTOGRAM_PRECISION);
+  @GuardedBy("this")
+  private final Histogram totalRequestBytes = new Histogram(HISTOGRAM_PRECISION);
+  @GuardedBy("this")
+  private final Histogram totalResponseBytes = new Histogram(HISTOGRAM_PRECISION);
+
+  MethodMetrics(String fullMethodName) {
+    this.fullMethodName = checkNotNull(fullMethodName, "fullMethodName");
+  }
+
+  /**
+   * Records a finished RPC.
+   */
+  void recordCall(long latencyNanos, long requestBytes, long responseBytes, Status.Code code) {
+    latencyMicros.recordValue(Math.max(latencyNanos / 1000, 0));
+    this.requestBytes.recordValue(requestBytes);
+    this.responseBytes.recordValue(responseBytes);
+    statusCodes.incrementAndGet(code.ordinal());
+  }
+
+  /**
+   * Returns the histograms of the RPCs recorded since the previous snapshot, and since the
+   * creation of this object.
+   */
+  synchronized Snapshot snapshot() {
+    Histogram intervalLatencyMicros = latencyMicros.getIntervalHistogram();
+    Histogram intervalRequestBytes = requestBytes.getIntervalHistogram();
+    Histogram intervalResponseBytes = responseBytes.getIntervalHistogram();
+    totalLatencyMicros.add(intervalLatencyMicros);
+    totalRequestBytes.add(intervalRequestBytes);
+    totalResponseBytes.add(intervalResponseBytes);
+    long[] statusCodeCounts = new long[statusCodes.length()];
+    for (int i = 0; i < statusCodeCounts.length; i++) {
+      statusCodeCounts[i] = statusCodes.get(i);
+    }
+    return new Snapshot(
+        fullMethodName,
+        intervalLatencyMicros,
+        intervalRequestBytes,
+        intervalResponseBytes,
+        totalLatencyMicros.copy(),
+        totalRequestBytes.copy(),
+        totalResponseBytes.copy(),
+        statusCodeCounts);
+  }
+
+  /**
+   * The histograms of a method, which are not modified once taken.
+   */
+  @Immutable
+  static final class Snapshot {
+    final String fullMethodName;
+    final Histogram intervalLatencyMicros;
+    final Histogram intervalRequestBytes;
+    final Histogram intervalResponseBytes;
+    final Histogram totalLatencyMicros;
+    final Histogram totalRequestBytes;
+    final Histogram totalResponseBytes;
+    /** The number of RPCs that finished with each status code, indexed by ordinal. */
+    private final long[] statusCodeCounts;
+
+    Snapshot(
+        String fullMethodName,
+        Histogram intervalLatencyMicros,
+        Histogram intervalRequestBytes,
+        Histogram intervalResponseBytes,
+        Histogram totalLatencyMicros,
+        Histogram totalRequestBytes,
+        Histogram totalResponseBytes,
+        long[] statusCodeCounts) {
+      this.fullMethodName = fullMethodName;
+      this.intervalLatencyMicros = intervalLatencyMicros;
+      this.intervalRequestBytes = intervalRequestBytes;
+      this.intervalResponseBytes = intervalResponseBytes;
+      this.totalLatencyMicros = totalLatencyMicros;
+      this.totalRequestBytes = totalRequestBytes;
+      this.totalResponseBytes = totalResponseBytes;
+      this.statusCodeCounts = statusCodeCounts;
+    }
+
+    long getStatusCodeCount(Status.Code code) {
+      return statusCodeCounts[code.ordinal()];
+    }
+  }
+}
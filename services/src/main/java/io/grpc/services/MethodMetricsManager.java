@@ -0,0 +1,213 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.services;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.grpc.BindableService;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ExperimentalApi;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerStreamTracer;
+import io.grpc.Status;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A {@code MethodMetricsManager} records the latency, message sizes and status code of the RPCs of
+ * each method into HdrHistograms, without locking. It traces client calls through the interceptor
+ * returned by {@link #getClientInterceptor()}, and server calls through the factory returned by
+ * {@link #getServerStreamTracerFactory()}. The recorded metrics, including the p50, p99 and p999
+ * latencies, are exposed by the service returned by {@link #getMetricsService()}.
+ *
+ * <p>Each query of the service returns the histograms of the RPCs finished since the previous
+ * query, and since the creation of the manager.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/2776")
+public final class MethodMetricsManager {
+  private final ConcurrentMap<String, MethodMetrics> clientMetrics =
+      new ConcurrentHashMap<String, MethodMetrics>();
+  private final ConcurrentMap<String, MethodMetrics> serverMetrics =
+      new ConcurrentHashMap<String, MethodMetrics>();
+  private final MethodMetricsService metricsService = new MethodMetricsService(this);
+
+  private final ClientInterceptor clientInterceptor = new ClientInterceptor() {
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+        MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+      MethodMetrics metrics = getOrCreate(clientMetrics, method.getFullMethodName());
+      return next.newCall(
+          method, callOptions.withStreamTracerFactory(new ClientTracerFactory(metrics)));
+    }
+  };
+
+  private final ServerStreamTracer.Factory serverStreamTracerFactory =
+      new ServerStreamTracer.Factory() {
+        @Override
+        public ServerStreamTracer newServerStreamTracer(String fullMethodName, Metadata headers) {
+          return new ServerTracer(serverMetrics);
+        }
+      };
+
+  /**
+   * Gets the interceptor to be added to a channel to record the metrics of its calls.
+   */
+  public ClientInterceptor getClientInterceptor() {
+    return clientInterceptor;
+  }
+
+  /**
+   * Gets the factory to be added to a server to record the metrics of its calls.
+   */
+  public ServerStreamTracer.Factory getServerStreamTracerFactory() {
+    return serverStreamTracerFactory;
+  }
+
+  /**
+   * Gets the service exposing the recorded metrics.
+   */
+  public BindableService getMetricsService() {
+    return metricsService;
+  }
+
+  @VisibleForTesting
+  List<MethodMetrics.Snapshot> snapshotClientMetrics() {
+    return snapshot(clientMetrics);
+  }
+
+  @VisibleForTesting
+  List<MethodMetrics.Snapshot> snapshotServerMetrics() {
+    return snapshot(serverMetrics);
+  }
+
+  private static List<MethodMetrics.Snapshot> snapshot(ConcurrentMap<String, MethodMetrics> map) {
+    List<MethodMetrics.Snapshot> snapshots = new ArrayList<MethodMetrics.Snapshot>(map.size());
+    for (MethodMetrics metrics : map.values()) {
+      snapshots.add(metrics.snapshot());
+    }
+    return snapshots;
+  }
+
+  private static MethodMetrics getOrCreate(
+      ConcurrentMap<String, MethodMetrics> map, String fullMethodName) {
+    MethodMetrics metrics = map.get(fullMethodName);
+    if (metrics == null) {
+      metrics = new MethodMetrics(fullMethodName);
+      MethodMetrics existing = map.putIfAbsent(fullMethodName, metrics);
+      if (existing != null) {
+        metrics = existing;
+      }
+    }
+    return metrics;
+  }
+
+  private static final class ClientTracerFactory extends ClientStreamTracer.Factory {
+    private final MethodMetrics metrics;
+
+    ClientTracerFactory(MethodMetrics metrics) {
+      this.metrics = metrics;
+    }
+
+    @Override
+    public ClientStreamTracer newClientStreamTracer(CallOptions callOptions, Metadata headers) {
+      return new ClientTracer(metrics);
+    }
+  }
+
+  private static final class ClientTracer extends ClientStreamTracer {
+    private static final AtomicLongFieldUpdater<ClientTracer> outboundWireSizeUpdater =
+        AtomicLongFieldUpdater.newUpdater(ClientTracer.class, "outboundWireSize");
+    private static final AtomicLongFieldUpdater<ClientTracer> inboundWireSizeUpdater =
+        AtomicLongFieldUpdater.newUpdater(ClientTracer.class, "inboundWireSize");
+
+    private final MethodMetrics metrics;
+    private final long startNanos = System.nanoTime();
+    private volatile long outboundWireSize;
+    private volatile long inboundWireSize;
+
+    ClientTracer(MethodMetrics metrics) {
+      this.metrics = metrics;
+    }
+
+    @Override
+    public void outboundWireSize(long bytes) {
+      outboundWireSizeUpdater.addAndGet(this, bytes);
+    }
+
+    @Override
+    public void inboundWireSize(long bytes) {
+      inboundWireSizeUpdater.addAndGet(this, bytes);
+    }
+
+    @Override
+    public void streamClosed(Status status) {
+      metrics.recordCall(
+          System.nanoTime() - startNanos, outboundWireSize, inboundWireSize, status.getCode());
+    }
+  }
+
+  private static final class ServerTracer extends ServerStreamTracer {
+    private static final AtomicLongFieldUpdater<ServerTracer> outboundWireSizeUpdater =
+        AtomicLongFieldUpdater.newUpdater(ServerTracer.class, "outboundWireSize");
+    private static final AtomicLongFieldUpdater<ServerTracer> inboundWireSizeUpdater =
+        AtomicLongFieldUpdater.newUpdater(ServerTracer.class, "inboundWireSize");
+
+    private final ConcurrentMap<String, MethodMetrics> serverMetrics;
+    private final long startNanos = System.nanoTime();
+    // Only set for calls to a registered method, so that the names sent by clients cannot create
+    // metrics for arbitrary methods.
+    private volatile MethodMetrics metrics;
+    private volatile long outboundWireSize;
+    private volatile long inboundWireSize;
+
+    ServerTracer(ConcurrentMap<String, MethodMetrics> serverMetrics) {
+      this.serverMetrics = serverMetrics;
+    }
+
+    @Override
+    public void serverCallStarted(ServerCall<?, ?> call) {
+      metrics = getOrCreate(serverMetrics, call.getMethodDescriptor().getFullMethodName());
+    }
+
+    @Override
+    public void outboundWireSize(long bytes) {
+      outboundWireSizeUpdater.addAndGet(this, bytes);
+    }
+
+    @Override
+    public void inboundWireSize(long bytes) {
+      inboundWireSizeUpdater.addAndGet(this, bytes);
+    }
+
+    @Override
+    public void streamClosed(Status status) {
+      MethodMetrics metrics = this.metrics;
+      if (metrics != null) {
+        metrics.recordCall(
+            System.nanoTime() - startNanos, inboundWireSize, outboundWireSize, status.getCode());
+      }
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.services;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.protobuf.Empty;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.ServerCalls.UnaryMethod;
+import io.grpc.stub.StreamObserver;
+import java.util.List;
+import org.HdrHistogram.Histogram;
+
+/**
+ * The service of a {@link MethodMetricsManager}. It returns a {@link Struct} listing, for each
+ * method called by the client or served by the server, the number of RPCs per status code and the
+ * histograms of their latency and message sizes, since the previous call and in total.
+ */
+final class MethodMetricsService implements BindableService {
+  static final String SERVICE_NAME = "grpc.metrics.v1alpha.MethodMetrics";
+
+  @VisibleForTesting
+  static final MethodDescriptor<Empty, Struct> METHOD_GET_METHOD_METRICS =
+      MethodDescriptor.<Empty, Struct>newBuilder()
+          .setType(MethodDescriptor.MethodType.UNARY)
+          .setFullMethodName(
+              MethodDescriptor.generateFullMethodName(SERVICE_NAME, "GetMethodMetrics"))
+          .setRequestMarshaller(ProtoUtils.marshaller(Empty.getDefaultInstance()))
+          .setResponseMarshaller(ProtoUtils.marshaller(Struct.getDefaultInstance()))
+          .build();
+
+  private final MethodMetricsManager manager;
+
+  MethodMetricsService(MethodMetricsManager manager) {
+    this.manager = manager;
+  }
+
+  @Override
+  public ServerServiceDefinition bindService() {
+    return ServerServiceDefinition.builder(SERVICE_NAME)
+        .addMethod(METHOD_GET_METHOD_METRICS, ServerCalls.asyncUnaryCall(
+            new UnaryMethod<Empty, Struct>() {
+              @Override
+              public void invoke(Empty request, StreamObserver<Struct> responseObserver) {
+                responseObserver.onNext(Struct.newBuilder()
+                    .putFields("client", toValue(manager.snapshotClientMetrics()))
+                    .putFields("server", toValue(manager.snapshotServerMetrics()))
+                    .build());
+                responseObserver.onCompleted();
+              }
+            }))
+        .build();
+  }
+
+  private static Value toValue(List<MethodMetrics.Snapshot> snapshots) {
+    ListValue.Builder list = ListValue.newBuilder();
+    for (MethodMetrics.Snapshot snapshot : snapshots) {
+      Struct.Builder statusCodes = Struct.newBuilder();
+      for (Status.Code code : Status.Code.values()) {
+        long count = snapshot.getStatusCodeCount(code);
+        if (count != 0) {
+          statusCodes.putFields(code.name(), longValue(count));
+        }
+      }
+      Struct method = Struct.newBuilder()
+          .putFields("method", stringValue(snapshot.fullMethodName))
+          .putFields("status_codes", Value.newBuilder().setStructValue(statusCodes).build())
+          .putFields("latency_micros",
+              toValue(snapshot.intervalLatencyMicros, snapshot.totalLatencyMicros))
+          .putFields("request_bytes",
+              toValue(snapshot.intervalRequestBytes, snapshot.totalRequestBytes))
+          .putFields("response_bytes",
+              toValue(snapshot.intervalResponseBytes, snapshot.totalResponseBytes))
+          .build();
+      list.addValues(Value.newBuilder().setStructValue(method));
+    }
+    return Value.newBuilder().setListValue(list).build();
+  }
+
+  private static Value toValue(Histogram interval, Histogram total) {
+    return Value.newBuilder()
+        .setStructValue(Struct.newBuilder()
+            .putFields("interval", toValue(interval))
+            .putFields("total", toValue(total)))
+        .build();
+  }
+
+  private static Value toValue(Histogram histogram) {
+    return Value.newBuilder()
+        .setStructValue(Struct.newBuilder()
+            .putFields("count", longValue(histogram.getTotalCount()))
+            .putFields("mean", Value.newBuilder().setNumberValue(histogram.getMean()).build())
+            .putFields("p50", longValue(histogram.getValueAtPercentile(50)))
+            .putFields("p99", longValue(histogram.getValueAtPercentile(99)))
+            .putFields("p999", longValue(histogram.getValueAtPercentile(99.9)))
+            .putFields("max", longValue(histogram.getMaxValue())))
+        .build();
+  }
+
+  private static Value longValue(long value) {
+    return stringValue(Long.toString(value));
+  }
+
+  private static Value stringValue(String value) {
+    return Value.newBuilder().setStringValue(value).build();
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.protobuf.Int64Value;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import io.grpc.CallOptions;
+import io.grpc.ConnectivityState;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.internal.Channelz;
+import io.grpc.internal.Channelz.ChannelStats;
+import io.grpc.internal.Channelz.ServerStats;
+import io.grpc.internal.Instrumented;
+import io.grpc.internal.LogId;
+import io.grpc.stub.ClientCalls;
+import io.grpc.testing.GrpcServerRule;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link ChannelzService}. */
+@RunWith(JUnit4.class)
+public class ChannelzServiceTest {
+  @Rule
+  public final GrpcServerRule grpcServerRule = new GrpcServerRule().directExecutor();
+
+  private final Channelz channelz = new Channelz();
+
+  @Before
+  public void setUp() {
+    grpcServerRule.getServiceRegistry().addService(new ChannelzService(channelz, 2));
+  }
+
+  @Test
+  public void serviceNameIsNotTheSpecificationOne() {
+    // The messages are not those of the channelz protos
+    assertEquals("grpc.channelz.experimental.StructChannelz",
+        new ChannelzService(channelz, 2).bindService().getServiceDescriptor().getName());
+  }
+
+  @Test
+  public void getChannel() {
+    FakeChannel subchannel = new FakeChannel(new ChannelStats.Builder().setTarget("sub").build());
+    FakeChannel channel = new FakeChannel(new ChannelStats.Builder()
+        .setTarget("foo.googleapis.com")
+        .setState(ConnectivityState.READY)
+        .setCallsStarted(3)
+        .setCallsSucceeded(2)
+        .setCallsFailed(1)
+        .setSubchannels(Collections.singletonList(subchannel.getLogId()))
+        .build());
+    channelz.addRootChannel(channel);
+
+    Struct response = call(ChannelzService.METHOD_GET_CHANNEL, channel.getLogId().getId());
+
+    assertEquals(
+        Long.toString(channel.getLogId().getId()),
+        field(field(response, "ref"), "channel_id").getStringValue());
+    Struct data = field(response, "data").getStructValue();
+    assertEquals("foo.googleapis.com", data.getFieldsOrThrow("target").getStringValue());
+    assertEquals("READY", data.getFieldsOrThrow("state").getStringValue());
+    assertEquals("3", data.getFieldsOrThrow("calls_started").getStringValue());
+    assertEquals("2", data.getFieldsOrThrow("calls_succeeded").getStringValue());
+    assertEquals("1", data.getFieldsOrThrow("calls_failed").getStringValue());
+    List<Value> subchannelRefs = field(response, "subchannel_ref").getListValue().getValuesList();
+    assertEquals(1, subchannelRefs.size());
+    assertEquals(
+        Long.toString(subchannel.getLogId().getId()),
+        field(subchannelRefs.get(0), "subchannel_id").getStringValue());
+  }
+
+  @Test
+  public void getChannel_notFound() {
+    FakeChannel channel = new FakeChannel(new ChannelStats.Builder().setTarget("foo").build());
+    channelz.addRootChannel(channel);
+    channelz.removeRootChannel(channel);
+
+    try {
+      call(ChannelzService.METHOD_GET_CHANNEL, channel.getLogId().getId());
+      fail("Should have failed");
+    } catch (StatusRuntimeException e) {
+      assertEquals(Status.Code.NOT_FOUND, e.getStatus().getCode());
+    }
+  }
+
+  @Test
+  public void getTopChannels_paged() {
+    FakeChannel[] channels = new FakeChannel[3];
+    for (int i = 0; i < channels.length; i++) {
+      channels[i] = new FakeChannel(new ChannelStats.Builder().setTarget("target" + i).build());
+      channelz.addRootChannel(channels[i]);
+    }
+
+    Struct firstPage = call(ChannelzService.METHOD_GET_TOP_CHANNELS, 0);
+    List<Value> firstChannels =
+        firstPage.getFieldsOrThrow("channel").getListValue().getValuesList();
+    assertEquals(2, firstChannels.size());
+    assertEquals(false, firstPage.getFieldsOrThrow("end").getBoolValue());
+    assertEquals(
+        Long.toString(channels[1].getLogId().getId()),
+        field(field(firstChannels.get(1), "ref"), "channel_id").getStringValue());
+
+    Struct lastPage =
+        call(ChannelzService.METHOD_GET_TOP_CHANNELS, channels[1].getLogId().getId() + 1);
+    List<Value> lastChannels = lastPage.getFieldsOrThrow("channel").getListValue().getValuesList();
+    assertEquals(1, lastChannels.size());
+    assertEquals(true, lastPage.getFieldsOrThrow("end").getBoolValue());
+    assertEquals(
+        Long.toString(channels[2].getLogId().getId()),
+        field(field(lastChannels.get(0), "ref"), "channel_id").getStringValue());
+  }
+
+  @Test
+  public void getServers() {
+    final ServerStats stats = new ServerStats.Builder()
+        .setCallsStarted(5)
+        .setSockets(Arrays.asList(LogId.allocate("socket")))
+        .build();
+    Instrumented<ServerStats> server = new Instrumented<ServerStats>() {
+      private final LogId logId = LogId.allocate("server");
+
+      @Override
+      public ListenableFuture<ServerStats> getStats() {
+        return Futures.immediateFuture(stats);
+      }
+
+      @Override
+      public LogId getLogId() {
+        return logId;
+      }
+    };
+    channelz.addServer(server);
+
+    Struct response = call(ChannelzService.METHOD_GET_SERVERS, 0);
+
+    List<Value> servers = response.getFieldsOrThrow("server").getListValue().getValuesList();
+    assertEquals(1, servers.size());
+    assertEquals(true, response.getFieldsOrThrow("end").getBoolValue());
+    assertEquals("5", field(field(servers.get(0), "data"), "calls_started").getStringValue());
+    assertEquals(1, field(servers.get(0), "socket_ref").getListValue().getValuesCount());
+  }
+
+  @Test
+  public void getStatsFailure() {
+    FakeChannel channel = new FakeChannel(null);
+    channelz.addRootChannel(channel);
+
+    try {
+      call(ChannelzService.METHOD_GET_CHANNEL, channel.getLogId().getId());
+      fail("Should have failed");
+    } catch (StatusRuntimeException e) {
+      assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+    }
+  }
+
+  private Struct call(MethodDescriptor<Int64Value, Struct> method, long id) {
+    return ClientCalls.blockingUnaryCall(
+        grpcServerRule.getChannel(), method, CallOptions.DEFAULT,
+        Int64Value.newBuilder().setValue(id).build());
+  }
+
+  private static Value field(Struct struct, String name) {
+    return struct.getFieldsOrThrow(name);
+  }
+
+  private static Value field(Value value, String name) {
+    return value.getStructValue().getFieldsOrThrow(name);
+  }
+
+  private static final class FakeChannel implements Instrumented<ChannelStats> {
+    private final LogId logId = LogId.allocate("channel");
+    private final ChannelStats stats;
+
+    /** Fails to return stats if {@code stats} is {@code null}. */
+    FakeChannel(ChannelStats stats) {
+      this.stats = stats;
+    }
+
+    @Override
+    public ListenableFuture<ChannelStats> getStats() {
+      if (stats == null) {
+        return Futures.immediateFailedFuture(new IllegalStateException("shut down"));
+      }
+      return Futures.immediateFuture(stats);
+    }
+
+    @Override
+    public LogId getLogId() {
+      return logId;
+    }
+  }
+}
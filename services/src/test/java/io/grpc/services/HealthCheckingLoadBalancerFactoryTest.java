@@ -0,0 +1,289 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.services;
+
+import static io.grpc.ConnectivityState.CONNECTING;
+import static io.grpc.ConnectivityState.READY;
+import static io.grpc.ConnectivityState.TRANSIENT_FAILURE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.grpc.Attributes;
+import io.grpc.BindableService;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer;
+import io.grpc.LoadBalancer.Helper;
+import io.grpc.LoadBalancer.Subchannel;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse;
+import io.grpc.health.v1.HealthCheckResponse.ServingStatus;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.internal.ObjectPool;
+import io.grpc.services.HealthCheckingLoadBalancerFactory.HealthCheckingLoadBalancer;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.ServerCalls.ServerStreamingMethod;
+import io.grpc.stub.StreamObserver;
+import io.grpc.util.MutableHandlerRegistry;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/** Unit tests for {@link HealthCheckingLoadBalancerFactory}. */
+@RunWith(JUnit4.class)
+public class HealthCheckingLoadBalancerFactoryTest {
+  private static final String SERVICE_NAME = "test.Service";
+
+  private final MutableHandlerRegistry handlerRegistry = new MutableHandlerRegistry();
+  private final FakeHealthService healthService = new FakeHealthService();
+  private Server server;
+  private ManagedChannel channel;
+  private HealthCheckingLoadBalancer loadBalancer;
+  // Without jitter by default
+  private double randomDouble = 0.5;
+  private final Random random = new Random() {
+    @Override
+    public double nextDouble() {
+      return randomDouble;
+    }
+  };
+
+  @Mock
+  private Helper mockHelper;
+  @Mock
+  private LoadBalancer.Factory mockDelegateFactory;
+  @Mock
+  private LoadBalancer mockDelegate;
+  @Mock
+  private Subchannel mockSubchannel;
+  @Mock
+  private ObjectPool<ScheduledExecutorService> mockTimerServicePool;
+  @Mock
+  private ScheduledExecutorService mockTimerService;
+  @Mock
+  private ScheduledFuture<?> mockRetryFuture;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    server = InProcessServerBuilder.forName("health-checking-test")
+        .directExecutor()
+        .fallbackHandlerRegistry(handlerRegistry)
+        .build()
+        .start();
+    channel = InProcessChannelBuilder.forName("health-checking-test").directExecutor().build();
+    when(mockSubchannel.asChannel()).thenReturn(channel);
+    when(mockSubchannel.getAddresses())
+        .thenReturn(new EquivalentAddressGroup(new InetSocketAddress("localhost", 443)));
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        ((Runnable) invocation.getArguments()[0]).run();
+        return null;
+      }
+    }).when(mockHelper).runSerialized(any(Runnable.class));
+    when(mockDelegateFactory.newLoadBalancer(mockHelper)).thenReturn(mockDelegate);
+    when(mockTimerServicePool.getObject()).thenReturn(mockTimerService);
+    when(mockTimerService.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class)))
+        .thenReturn((ScheduledFuture) mockRetryFuture);
+    loadBalancer = new HealthCheckingLoadBalancer(
+        mockHelper, mockDelegateFactory, SERVICE_NAME, mockTimerServicePool, random);
+  }
+
+  @After
+  public void tearDown() {
+    channel.shutdownNow();
+    server.shutdownNow();
+  }
+
+  @Test
+  public void readyOnlyWhileServing() {
+    handlerRegistry.addService(healthService);
+    loadBalancer.handleSubchannelState(
+        mockSubchannel, ConnectivityStateInfo.forNonError(CONNECTING));
+    loadBalancer.handleSubchannelState(mockSubchannel, ConnectivityStateInfo.forNonError(READY));
+    assertEquals(1, healthService.calls.size());
+    assertEquals(SERVICE_NAME, healthService.requests.get(0).getService());
+
+    healthService.send(ServingStatus.SERVING);
+    healthService.send(ServingStatus.NOT_SERVING);
+    healthService.send(ServingStatus.SERVING);
+
+    ArgumentCaptor<ConnectivityStateInfo> stateCaptor =
+        ArgumentCaptor.forClass(ConnectivityStateInfo.class);
+    verify(mockDelegate, times(5)).handleSubchannelState(
+        same(mockSubchannel), stateCaptor.capture());
+    List<ConnectivityStateInfo> states = stateCaptor.getAllValues();
+    assertEquals(ConnectivityStateInfo.forNonError(CONNECTING), states.get(0));
+    assertEquals(ConnectivityStateInfo.forNonError(CONNECTING), states.get(1));
+    assertEquals(ConnectivityStateInfo.forNonError(READY), states.get(2));
+    assertEquals(TRANSIENT_FAILURE, states.get(3).getState());
+    assertEquals(Status.Code.UNAVAILABLE, states.get(3).getStatus().getCode());
+    assertEquals(ConnectivityStateInfo.forNonError(READY), states.get(4));
+  }
+
+  @Test
+  public void notReadySubchannelStopsHealthCheck() {
+    handlerRegistry.addService(healthService);
+    loadBalancer.handleSubchannelState(mockSubchannel, ConnectivityStateInfo.forNonError(READY));
+    healthService.send(ServingStatus.SERVING);
+    ConnectivityStateInfo failure =
+        ConnectivityStateInfo.forTransientFailure(Status.UNAVAILABLE);
+
+    loadBalancer.handleSubchannelState(mockSubchannel, failure);
+    assertTrue(healthService.calls.get(0).isCancelled());
+    verify(mockDelegate).handleSubchannelState(mockSubchannel, failure);
+  }
+
+  @Test
+  public void unimplementedHealthServiceAssumedHealthy() {
+    loadBalancer.handleSubchannelState(mockSubchannel, ConnectivityStateInfo.forNonError(READY));
+
+    InOrder inOrder = inOrder(mockDelegate);
+    inOrder.verify(mockDelegate).handleSubchannelState(
+        mockSubchannel, ConnectivityStateInfo.forNonError(CONNECTING));
+    inOrder.verify(mockDelegate).handleSubchannelState(
+        mockSubchannel, ConnectivityStateInfo.forNonError(READY));
+    verify(mockTimerService, never())
+        .schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+  }
+
+  @Test
+  public void failedStreamIsRetriedWithBackoff() {
+    handlerRegistry.addService(healthService);
+    loadBalancer.handleSubchannelState(mockSubchannel, ConnectivityStateInfo.forNonError(READY));
+    healthService.calls.get(0).onError(Status.INTERNAL.asException());
+
+    ArgumentCaptor<Runnable> retryCaptor = ArgumentCaptor.forClass(Runnable.class);
+    verify(mockTimerService).schedule(retryCaptor.capture(),
+        eq(HealthCheckingLoadBalancer.INITIAL_BACKOFF_NANOS), eq(TimeUnit.NANOSECONDS));
+    ArgumentCaptor<ConnectivityStateInfo> stateCaptor =
+        ArgumentCaptor.forClass(ConnectivityStateInfo.class);
+    verify(mockDelegate, times(2)).handleSubchannelState(
+        same(mockSubchannel), stateCaptor.capture());
+    assertEquals(TRANSIENT_FAILURE, stateCaptor.getValue().getState());
+    retryCaptor.getValue().run();
+    assertEquals(2, healthService.calls.size());
+    healthService.send(ServingStatus.SERVING);
+    verify(mockDelegate).handleSubchannelState(
+        mockSubchannel, ConnectivityStateInfo.forNonError(READY));
+
+    // The backoff is reset by the response
+    healthService.calls.get(1).onError(Status.INTERNAL.asException());
+    verify(mockTimerService, times(2)).schedule(any(Runnable.class),
+        eq(HealthCheckingLoadBalancer.INITIAL_BACKOFF_NANOS), eq(TimeUnit.NANOSECONDS));
+  }
+
+  @Test
+  public void backoffIsJittered() {
+    handlerRegistry.addService(healthService);
+    randomDouble = 0;
+    loadBalancer.handleSubchannelState(mockSubchannel, ConnectivityStateInfo.forNonError(READY));
+    healthService.calls.get(0).onError(Status.INTERNAL.asException());
+
+    ArgumentCaptor<Runnable> retryCaptor = ArgumentCaptor.forClass(Runnable.class);
+    verify(mockTimerService).schedule(retryCaptor.capture(),
+        eq((long) (HealthCheckingLoadBalancer.INITIAL_BACKOFF_NANOS * .8)),
+        eq(TimeUnit.NANOSECONDS));
+
+    randomDouble = 1;
+    retryCaptor.getValue().run();
+    healthService.calls.get(1).onError(Status.INTERNAL.asException());
+    verify(mockTimerService).schedule(any(Runnable.class),
+        eq((long) (HealthCheckingLoadBalancer.INITIAL_BACKOFF_NANOS * 1.6 * 1.2)),
+        eq(TimeUnit.NANOSECONDS));
+  }
+
+  @Test
+  public void shutdown() {
+    handlerRegistry.addService(healthService);
+    loadBalancer.handleSubchannelState(mockSubchannel, ConnectivityStateInfo.forNonError(READY));
+
+    loadBalancer.shutdown();
+    assertTrue(healthService.calls.get(0).isCancelled());
+    verify(mockDelegate).shutdown();
+    verify(mockTimerServicePool).returnObject(mockTimerService);
+  }
+
+  @Test
+  public void otherCallsAreDelegated() {
+    List<EquivalentAddressGroup> servers = new ArrayList<EquivalentAddressGroup>();
+    loadBalancer.handleResolvedAddressGroups(servers, Attributes.EMPTY);
+    verify(mockDelegate).handleResolvedAddressGroups(servers, Attributes.EMPTY);
+    loadBalancer.handleNameResolutionError(Status.NOT_FOUND);
+    verify(mockDelegate).handleNameResolutionError(Status.NOT_FOUND);
+  }
+
+  private static final class FakeHealthService implements BindableService {
+    final List<HealthCheckRequest> requests = new ArrayList<HealthCheckRequest>();
+    final List<ServerCallStreamObserver<HealthCheckResponse>> calls =
+        new ArrayList<ServerCallStreamObserver<HealthCheckResponse>>();
+
+    @Override
+    public ServerServiceDefinition bindService() {
+      return ServerServiceDefinition.builder(HealthGrpc.SERVICE_NAME)
+          .addMethod(HealthServiceImpl.METHOD_WATCH, ServerCalls.asyncServerStreamingCall(
+              new ServerStreamingMethod<HealthCheckRequest, HealthCheckResponse>() {
+                @Override
+                public void invoke(HealthCheckRequest request,
+                    StreamObserver<HealthCheckResponse> responseObserver) {
+                  requests.add(request);
+                  calls.add((ServerCallStreamObserver<HealthCheckResponse>) responseObserver);
+                }
+              }))
+          .build();
+    }
+
+    void send(ServingStatus status) {
+      calls.get(calls.size() - 1)
+          .onNext(HealthCheckResponse.newBuilder().setStatus(status).build());
+    }
+  }
+}
@@ -23,12 +23,14 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 import io.grpc.Status;
 import io.grpc.StatusException;
 import io.grpc.health.v1.HealthCheckRequest;
 import io.grpc.health.v1.HealthCheckResponse;
-import io.grpc.health.v1.HealthGrpc;
+import io.grpc.health.v1.HealthCheckResponse.ServingStatus;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -41,8 +43,7 @@ import org.mockito.InOrder;
 public class HealthStatusManagerTest {
 
   private final HealthStatusManager manager = new HealthStatusManager();
-  private final HealthGrpc.HealthImplBase health =
-      (HealthGrpc.HealthImplBase) manager.getHealthService();
+  private final HealthServiceImpl health = (HealthServiceImpl) manager.getHealthService();
   private final HealthCheckResponse.ServingStatus status
       = HealthCheckResponse.ServingStatus.UNKNOWN;
 
@@ -111,4 +112,47 @@ public class HealthStatusManagerTest {
 
     verify(observer, never()).onCompleted();
   }
+
+  @Test
+  public void watchStreamsStatusChanges() throws Exception {
+    HealthCheckRequest request = HealthCheckRequest.newBuilder().setService("watched").build();
+    @SuppressWarnings("unchecked")
+    ServerCallStreamObserver<HealthCheckResponse> observer = mock(ServerCallStreamObserver.class);
+
+    health.watch(request, observer);
+    manager.setStatus("watched", ServingStatus.SERVING);
+    manager.setStatus("watched", ServingStatus.SERVING);
+    manager.setStatus("other", ServingStatus.NOT_SERVING);
+    manager.setStatus("watched", ServingStatus.NOT_SERVING);
+    manager.clearStatus("watched");
+
+    InOrder inOrder = inOrder(observer);
+    inOrder.verify(observer).onNext(response(ServingStatus.UNKNOWN));
+    inOrder.verify(observer).onNext(response(ServingStatus.SERVING));
+    inOrder.verify(observer).onNext(response(ServingStatus.NOT_SERVING));
+    inOrder.verify(observer).onNext(response(ServingStatus.UNKNOWN));
+    verify(observer, never()).onCompleted();
+    verify(observer, never()).onError(any(Throwable.class));
+  }
+
+  @Test
+  public void watchStopsWhenCancelled() throws Exception {
+    manager.setStatus("watched", ServingStatus.SERVING);
+    HealthCheckRequest request = HealthCheckRequest.newBuilder().setService("watched").build();
+    @SuppressWarnings("unchecked")
+    ServerCallStreamObserver<HealthCheckResponse> observer = mock(ServerCallStreamObserver.class);
+
+    health.watch(request, observer);
+    verify(observer).onNext(response(ServingStatus.SERVING));
+    ArgumentCaptor<Runnable> onCancelHandler = ArgumentCaptor.forClass(Runnable.class);
+    verify(observer).setOnCancelHandler(onCancelHandler.capture());
+    onCancelHandler.getValue().run();
+    manager.setStatus("watched", ServingStatus.NOT_SERVING);
+
+    verifyNoMoreInteractions(observer);
+  }
+
+  private static HealthCheckResponse response(ServingStatus status) {
+    return HealthCheckResponse.newBuilder().setStatus(status).build();
+  }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017, gRPC Authors All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.protobuf.Empty;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientStreamTracer;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerStreamTracer;
+import io.grpc.Status;
+import io.grpc.stub.ClientCalls;
+import io.grpc.testing.GrpcServerRule;
+import io.grpc.testing.TestMethodDescriptors;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+
+/** Unit tests for {@link MethodMetricsManager}. */
+@RunWith(JUnit4.class)
+public class MethodMetricsManagerTest {
+  @Rule
+  public final GrpcServerRule grpcServerRule = new GrpcServerRule().directExecutor();
+
+  private final MethodMetricsManager manager = new MethodMetricsManager();
+  private final MethodDescriptor<Void, Void> method = TestMethodDescriptors.voidMethod();
+
+  @Test
+  public void serverCall() {
+    serverCall(Status.OK, 10, 20);
+    serverCall(Status.INTERNAL, 30, 40);
+
+    List<MethodMetrics.Snapshot> snapshots = manager.snapshotServerMetrics();
+    assertEquals(1, snapshots.size());
+    MethodMetrics.Snapshot snapshot = snapshots.get(0);
+    assertEquals(method.getFullMethodName(), snapshot.fullMethodName);
+    assertEquals(2, snapshot.intervalLatencyMicros.getTotalCount());
+    assertEquals(30, snapshot.intervalRequestBytes.getMaxValue());
+    assertEquals(40, snapshot.intervalResponseBytes.getMaxValue());
+    assertEquals(1, snapshot.getStatusCodeCount(Status.Code.OK));
+    assertEquals(1, snapshot.getStatusCodeCount(Status.Code.INTERNAL));
+
+    serverCall(Status.OK, 10, 20);
+
+    snapshot = manager.snapshotServerMetrics().get(0);
+    assertEquals(1, snapshot.intervalLatencyMicros.getTotalCount());
+    assertEquals(3, snapshot.totalLatencyMicros.getTotalCount());
+    assertEquals(10, snapshot.intervalRequestBytes.getMaxValue());
+    assertEquals(30, snapshot.totalRequestBytes.getMaxValue());
+    assertEquals(2, snapshot.getStatusCodeCount(Status.Code.OK));
+  }
+
+  @Test
+  public void serverCall_unknownMethodNotRecorded() {
+    ServerStreamTracer tracer = manager.getServerStreamTracerFactory()
+        .newServerStreamTracer("no.such.Service/Method", new Metadata());
+    tracer.streamClosed(Status.UNIMPLEMENTED);
+
+    assertEquals(0, manager.snapshotServerMetrics().size());
+  }
+
+  @Test
+  public void clientCall() {
+    Channel channel = mock(Channel.class);
+    manager.getClientInterceptor().interceptCall(method, CallOptions.DEFAULT, channel);
+    ArgumentCaptor<CallOptions> callOptions = ArgumentCaptor.forClass(CallOptions.class);
+    verify(channel).newCall(same(method), callOptions.capture());
+    List<ClientStreamTracer.Factory> factories = callOptions.getValue().getStreamTracerFactories();
+    assertEquals(1, factories.size());
+
+    ClientStreamTracer tracer =
+        factories.get(0).newClientStreamTracer(CallOptions.DEFAULT, new Metadata());
+    tracer.outboundWireSize(5);
+    tracer.outboundWireSize(5);
+    tracer.inboundWireSize(7);
+    tracer.streamClosed(Status.UNAVAILABLE);
+
+    List<MethodMetrics.Snapshot> snapshots = manager.snapshotClientMetrics();
+    assertEquals(1, snapshots.size());
+    MethodMetrics.Snapshot snapshot = snapshots.get(0);
+    assertEquals(method.getFullMethodName(), snapshot.fullMethodName);
+    assertEquals(1, snapshot.intervalLatencyMicros.getTotalCount());
+    assertEquals(10, snapshot.intervalRequestBytes.getMaxValue());
+    assertEquals(7, snapshot.intervalResponseBytes.getMaxValue());
+    assertEquals(1, snapshot.getStatusCodeCount(Status.Code.UNAVAILABLE));
+    assertEquals(0, manager.snapshotServerMetrics().size());
+  }
+
+  @Test
+  public void metricsService() {
+    grpcServerRule.getServiceRegistry().addService(manager.getMetricsService());
+    serverCall(Status.OK, 10, 20);
+
+    Struct response = ClientCalls.blockingUnaryCall(
+        grpcServerRule.getChannel(), MethodMetricsService.METHOD_GET_METHOD_METRICS,
+        CallOptions.DEFAULT, Empty.getDefaultInstance());
+
+    assertEquals(0, response.getFieldsOrThrow("client").getListValue().getValuesCount());
+    List<Value> server = response.getFieldsOrThrow("server").getListValue().getValuesList();
+    assertEquals(1, server.size());
+    Struct methodMetrics = server.get(0).getStructValue();
+    assertEquals(
+        method.getFullMethodName(), methodMetrics.getFieldsOrThrow("method").getStringValue());
+    assertEquals(
+        "1",
+        methodMetrics.getFieldsOrThrow("status_codes").getStructValue()
+            .getFieldsOrThrow("OK").getStringValue());
+    Struct requestBytes = methodMetrics.getFieldsOrThrow("request_bytes").getStructValue()
+        .getFieldsOrThrow("total").getStructValue();
+    assertEquals("1", requestBytes.getFieldsOrThrow("count").getStringValue());
+    assertEquals("10", requestBytes.getFieldsOrThrow("p50").getStringValue());
+    assertEquals("10", requestBytes.getFieldsOrThrow("p999").getStringValue());
+  }
+
+  private void serverCall(Status status, long requestBytes, long responseBytes) {
+    ServerStreamTracer tracer = manager.getServerStreamTracerFactory()
+        .newServerStreamTracer(method.getFullMethodName(), new Metadata());
+    @SuppressWarnings("unchecked")
+    ServerCall<Void, Void> call = mock(ServerCall.class);
+    when(call.getMethodDescriptor()).thenReturn(method);
+    tracer.serverCallStarted(call);
+    tracer.inboundWireSize(requestBytes);
+    tracer.outboundWireSize(responseBytes);
+    tracer.streamClosed(status);
+  }
+}
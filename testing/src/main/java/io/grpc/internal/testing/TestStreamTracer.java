@@ -189,6 +189,11 @@ public interface TestStreamTracer {
               seqNo, optionalWireSize, optionalUncompressedSize));
     }
 
+    @Override
+    public void outboundMessageCompressionSkipped(int seqNo) {
+      outboundEvents.add("outboundMessageCompressionSkipped(" + seqNo + ")");
+    }
+
     @Override
     public void inboundMessageRead(
         int seqNo, long optionalWireSize, long optionalUncompressedSize) {